@@ -0,0 +1,119 @@
+package com.example.requesthandling.benchmark;
+
+import com.example.requesthandling.config.UserStoreProperties;
+import com.example.requesthandling.persistence.UserWriteAheadLog;
+import com.example.requesthandling.processor.BatchUsersProcessor;
+import com.example.requesthandling.processor.CreateUserProcessor;
+import org.apache.camel.CamelContext;
+import org.apache.camel.Exchange;
+import org.apache.camel.impl.DefaultCamelContext;
+import org.apache.camel.support.DefaultExchange;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 一括作成のベンチマーク
+ * 同じ件数のユーザーを、CreateUserProcessor で1件ずつ作成する場合と
+ * BatchUsersProcessor で1リクエストにまとめて作成する場合を比較する（スコアはユーザー1件あたり）
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class BatchBenchmark {
+
+    private static final int BATCH_SIZE = 100;
+
+    @Param({"NONE", "SYNC", "ASYNC"})
+    private String durability;
+
+    private Path directory;
+    private CamelContext camelContext;
+    private AnnotationConfigApplicationContext context;
+    private CreateUserProcessor createUserProcessor;
+    private BatchUsersProcessor batchUsersProcessor;
+
+    @Setup(Level.Trial)
+    public void startContext() {
+        camelContext = new DefaultCamelContext();
+        camelContext.start();
+    }
+
+    @Setup(Level.Iteration)
+    public void setUp() throws IOException {
+        UserStoreProperties properties = new UserStoreProperties();
+        if (!"NONE".equals(durability)) {
+            directory = Files.createTempDirectory("batch-bench");
+            properties.getWal().setEnabled(true);
+            properties.getWal().setDirectory(directory.toString());
+            properties.getWal().setDurability(UserWriteAheadLog.Durability.valueOf(durability));
+        }
+        context = BenchmarkSupport.createContext(properties);
+        createUserProcessor = context.getBean(CreateUserProcessor.class);
+        batchUsersProcessor = context.getBean(BatchUsersProcessor.class);
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() throws IOException {
+        context.close();
+        if (directory != null) {
+            FileSystemUtils.deleteRecursively(directory);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void stopContext() {
+        camelContext.stop();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void createOneByOne(Blackhole blackhole) throws Exception {
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            Exchange exchange = new DefaultExchange(camelContext);
+            exchange.getIn().setBody(BenchmarkSupport.userJson(BenchmarkSupport.uniqueUser()));
+            createUserProcessor.process(exchange);
+            blackhole.consume(exchange.getMessage().getBody());
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public Object createBatch() throws Exception {
+        StringBuilder body = new StringBuilder(BATCH_SIZE * 96).append('[');
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            if (i > 0) {
+                body.append(',');
+            }
+            body.append("{\"op\":\"create\",\"user\":")
+                    .append(BenchmarkSupport.userJson(BenchmarkSupport.uniqueUser()))
+                    .append('}');
+        }
+        Exchange exchange = new DefaultExchange(camelContext);
+        exchange.getIn().setBody(body.append(']').toString());
+        batchUsersProcessor.process(exchange);
+        return exchange.getMessage().getBody();
+    }
+}
@@ -0,0 +1,191 @@
+package com.example.requesthandling.benchmark;
+
+import com.example.requesthandling.RequestHandlingApplication;
+import com.example.requesthandling.config.ApiProperties;
+import com.example.requesthandling.config.ErrorMessageProperties;
+import com.example.requesthandling.config.UserStoreProperties;
+import com.example.requesthandling.model.User;
+import com.example.requesthandling.processor.BatchUsersProcessor;
+import com.example.requesthandling.processor.CreateUserProcessor;
+import com.example.requesthandling.processor.DeleteUserProcessor;
+import com.example.requesthandling.processor.ErrorResponseRenderer;
+import com.example.requesthandling.processor.GetUserByIdProcessor;
+import com.example.requesthandling.processor.GetUsersProcessor;
+import com.example.requesthandling.processor.GlobalErrorProcessor;
+import com.example.requesthandling.processor.HealthCheckProcessor;
+import com.example.requesthandling.processor.JsonRequestReader;
+import com.example.requesthandling.processor.JsonResponseWriter;
+import com.example.requesthandling.processor.SearchUsersProcessor;
+import com.example.requesthandling.processor.UpdateUserProcessor;
+import com.example.requesthandling.processor.UserResponseCache;
+import com.example.requesthandling.service.UserService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * ベンチマーク共通ユーティリティ
+ *
+ * - createContext: Spring Bootを起動せずに、Processorの依存関係（UserService, ObjectMapper）だけを持つ
+ *   最小限のアプリケーションコンテキストを構築する（Processor・サービスの単体の計測用）
+ * - startApplication: Spring Bootでアプリケーション全体（Undertow・Camelのルートを含む）を起動する
+ *   （HttpLoadBenchmark・TransportBenchmark・ErrorResponseBenchmark のHTTP経由の計測用）
+ */
+final class BenchmarkSupport {
+
+    // 作成系ベンチマークで使う連番（メールアドレスの一意制約に違反しないよう負数で採番）
+    private static final AtomicLong SEQUENCE = new AtomicLong();
+
+    private BenchmarkSupport() {
+    }
+
+    /**
+     * Processorと依存Beanを登録したコンテキストを生成
+     */
+    static AnnotationConfigApplicationContext createContext() {
+        return createContext(new UserStoreProperties());
+    }
+
+    /**
+     * 指定した設定（WAL・格納方式など）で、Processorと依存Beanを登録したコンテキストを生成
+     */
+    static AnnotationConfigApplicationContext createContext(UserStoreProperties properties) {
+        return createContext(properties, new ApiProperties());
+    }
+
+    /**
+     * 指定した設定（WAL・格納方式、レスポンスキャッシュなど）で、Processorと依存Beanを登録したコンテキストを生成
+     */
+    static AnnotationConfigApplicationContext createContext(UserStoreProperties properties, ApiProperties apiProperties) {
+        AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+        // Spring Bootの自動設定と同等のObjectMapper（JavaTimeModule等を含む）
+        context.registerBean(ObjectMapper.class, () -> Jackson2ObjectMapperBuilder.json().build());
+        context.registerBean(UserStoreProperties.class, () -> properties);
+        context.registerBean(ApiProperties.class, () -> apiProperties);
+        context.registerBean(ErrorMessageProperties.class, BenchmarkSupport::errorMessageProperties);
+        context.register(
+                UserService.class,
+                ErrorResponseRenderer.class,
+                JsonRequestReader.class,
+                JsonResponseWriter.class,
+                UserResponseCache.class,
+                GetUsersProcessor.class,
+                GetUserByIdProcessor.class,
+                CreateUserProcessor.class,
+                UpdateUserProcessor.class,
+                DeleteUserProcessor.class,
+                BatchUsersProcessor.class,
+                HealthCheckProcessor.class,
+                SearchUsersProcessor.class,
+                GlobalErrorProcessor.class);
+        context.refresh();
+        return context;
+    }
+
+    /**
+     * application.yml と同じエラーメッセージ
+     */
+    static ErrorMessageProperties errorMessageProperties() {
+        ErrorMessageProperties properties = new ErrorMessageProperties();
+        properties.setMessages(Map.of(
+                "404", "指定されたリソースが見つかりません",
+                "405", "許可されていないHTTPメソッドです",
+                "429", "リクエストが多すぎます",
+                "500", "内部サーバーエラーが発生しました",
+                "503", "サービスが一時的に利用できません",
+                "default", "エラーが発生しました"));
+        return properties;
+    }
+
+    /**
+     * アプリケーション全体を空きポートで起動（HTTP経由のベンチマーク用。ログはWARN以上のみ出力し、リクエスト数・同時実行数は制限しない。
+     * バルクヘッドはベンチマークの同時接続数で飽和しない大きさにする）
+     *
+     * @param properties 追加の設定（key=value）
+     */
+    static ConfigurableApplicationContext startApplication(String... properties) {
+        List<String> all = new ArrayList<>(List.of(
+                "server.port=0",
+                "logging.level.root=WARN",
+                "logging.level.org.apache.camel=WARN",
+                "logging.level.com.example=WARN",
+                "logging.level.access-log=WARN",
+                "api.rate-limit.enabled=false",
+                "api.concurrency-limit.enabled=false",
+                "api.bulkhead.groups.read.threads=64",
+                "api.bulkhead.groups.read.queue-size=0",
+                "api.bulkhead.groups.write.threads=64",
+                "api.bulkhead.groups.write.queue-size=0"));
+        all.addAll(List.of(properties));
+        // application.yml より優先させるため、既定値（properties）ではなくコマンドライン引数で渡す
+        return new SpringApplicationBuilder(RequestHandlingApplication.class)
+                .run(all.stream().map(property -> "--" + property).toArray(String[]::new));
+    }
+
+    /**
+     * 起動したアプリケーションのAPIのベースURL（http://localhost:{port}/api）
+     */
+    static String apiUrl(ConfigurableApplicationContext application) {
+        return "http://localhost:" + application.getEnvironment().getProperty("local.server.port") + "/api";
+    }
+
+    /**
+     * HTTP/1.1 のクライアント（同時接続数はJMHのスレッド数に従う）
+     */
+    static HttpClient httpClient() {
+        return HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+    }
+
+    /**
+     * 指定件数になるまでユーザーを投入
+     */
+    static void populate(UserService userService, int userCount) {
+        for (int i = userService.getUserCount(); i < userCount; i++) {
+            userService.createUser(newUser(i));
+        }
+    }
+
+    /**
+     * ベンチマーク用のユーザーを生成
+     */
+    static User newUser(long seq) {
+        return User.builder()
+                .name("bench-user-" + seq)
+                .email("bench-user-" + seq + "@example.com")
+                .build();
+    }
+
+    /**
+     * populate で投入済みのユーザーと重複しないメールアドレスを持つユーザーを生成（作成系ベンチマーク用）
+     */
+    static User uniqueUser() {
+        return newUser(-SEQUENCE.incrementAndGet());
+    }
+
+    /**
+     * 指定IDのユーザーが populate 時と同じメールアドレスを保つ更新内容を生成（更新系ベンチマーク用）
+     * ID n のユーザーは newUser(n - 1) で作成されている
+     */
+    static User updateFor(String id) {
+        return newUser(Long.parseLong(id) - 1);
+    }
+
+    /**
+     * newUser と同じ内容のJSON（Processorベンチマークのリクエストボディ用）
+     */
+    static String userJson(User user) {
+        return "{\"name\":\"" + user.getName() + "\",\"email\":\"" + user.getEmail() + "\"}";
+    }
+}
@@ -0,0 +1,180 @@
+package com.example.requesthandling.benchmark;
+
+import com.example.requesthandling.model.ErrorResponse;
+import com.example.requesthandling.processor.ErrorResponseRenderer;
+import com.example.requesthandling.processor.ErrorTemplate;
+import com.example.requesthandling.processor.GetUserByIdProcessor;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.camel.CamelContext;
+import org.apache.camel.Exchange;
+import org.apache.camel.impl.DefaultCamelContext;
+import org.apache.camel.support.DefaultExchange;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDateTime;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * エラーレスポンス（404）の生成コストと、存在しないパスへの大量のリクエスト（404ストーム）のベンチマーク
+ *
+ * 生成コスト（アプリケーションを起動しない）:
+ * - jacksonNotFound: ErrorResponse の生成・LocalDateTime.now().toString()・Jacksonによるシリアライズ（テンプレート導入前の方式）
+ * - templateNotFound: ErrorResponseRenderer によるテンプレートの描画
+ * - processorNotFound: GetUserByIdProcessor の404（Exchange の生成を含む）
+ *
+ * 404ストーム（アプリケーションを起動し、ランダムなパスにリクエストする。同時接続数は jmh.threads で指定）:
+ * - httpUserNotFound: /api/users/{存在しないID}（Camelのルート → GetUserByIdProcessor）
+ * - httpApiUnmatched: /api/{ランダム}（CamelHttpTransportServlet の404 → /error → CustomErrorController。
+ *   undertow の場合は EmbeddedUndertowHost がIOスレッドで CustomErrorController#render のJSONを返す）
+ * - httpUnmatched: /{ランダム}（Spring MVC → ErrorResponseAdvice、/error へのディスパッチなし）
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class ErrorResponseBenchmark {
+
+    private static final ErrorTemplate NOT_FOUND =
+            ErrorTemplate.of(404, "ID '{0}' のユーザーは存在しません", "/api/users/{0}", "GET");
+
+    private CamelContext camelContext;
+    private AnnotationConfigApplicationContext context;
+    private ObjectMapper objectMapper;
+    private ErrorResponseRenderer renderer;
+    private GetUserByIdProcessor processor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        camelContext = new DefaultCamelContext();
+        camelContext.start();
+        context = BenchmarkSupport.createContext();
+        objectMapper = context.getBean(ObjectMapper.class);
+        renderer = context.getBean(ErrorResponseRenderer.class);
+        processor = context.getBean(GetUserByIdProcessor.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+        camelContext.stop();
+    }
+
+    @Benchmark
+    public byte[] jacksonNotFound() throws Exception {
+        String userId = missingId();
+        ErrorResponse errorResponse = ErrorResponse.builder()
+                .code(404)
+                .message("指定されたリソースが見つかりません")
+                .details("ID '" + userId + "' のユーザーは存在しません")
+                .timestamp(LocalDateTime.now().toString())
+                .path("/api/users/" + userId)
+                .method("GET")
+                .build();
+        return objectMapper.writeValueAsBytes(errorResponse);
+    }
+
+    @Benchmark
+    public byte[] templateNotFound() {
+        return renderer.render(NOT_FOUND, missingId());
+    }
+
+    @Benchmark
+    public Object processorNotFound() throws Exception {
+        Exchange exchange = new DefaultExchange(camelContext);
+        exchange.getIn().setHeader("id", missingId());
+        processor.process(exchange);
+        return exchange.getMessage().getBody();
+    }
+
+    @Benchmark
+    @BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 2, time = 5)
+    @Measurement(iterations = 3, time = 10)
+    public int httpUserNotFound(Server server) throws Exception {
+        return server.get(server.apiUrl + "/users/" + missingId());
+    }
+
+    @Benchmark
+    @BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 2, time = 5)
+    @Measurement(iterations = 3, time = 10)
+    public int httpApiUnmatched(Server server) throws Exception {
+        return server.get(server.apiUrl + "/scan-" + ThreadLocalRandom.current().nextInt());
+    }
+
+    @Benchmark
+    @BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 2, time = 5)
+    @Measurement(iterations = 3, time = 10)
+    public int httpUnmatched(Server server) throws Exception {
+        return server.get(server.baseUrl + "/scan-" + ThreadLocalRandom.current().nextInt() + ".php");
+    }
+
+    /**
+     * 存在しないユーザーID（初期データより大きい値）
+     */
+    private static String missingId() {
+        return Long.toString(ThreadLocalRandom.current().nextLong(1_000_000_000L, Long.MAX_VALUE));
+    }
+
+    /**
+     * HTTP経由の計測で使うアプリケーション（HTTPのベンチマークを実行する場合のみ起動する）
+     */
+    @State(Scope.Benchmark)
+    public static class Server {
+
+        @Param({"servlet", "undertow"})
+        private String transport;
+
+        private ConfigurableApplicationContext application;
+        private HttpClient client;
+        private String apiUrl;
+        private String baseUrl;
+
+        @Setup(Level.Trial)
+        public void start() {
+            application = BenchmarkSupport.startApplication("api.transport=" + transport);
+            apiUrl = BenchmarkSupport.apiUrl(application);
+            baseUrl = apiUrl.substring(0, apiUrl.length() - "/api".length());
+            client = BenchmarkSupport.httpClient();
+        }
+
+        @TearDown(Level.Trial)
+        public void stop() {
+            application.close();
+        }
+
+        int get(String url) throws Exception {
+            HttpResponse<Void> response = client.send(HttpRequest.newBuilder(URI.create(url)).GET().build(),
+                    HttpResponse.BodyHandlers.discarding());
+            if (response.statusCode() != 404) {
+                throw new IllegalStateException("HTTP " + response.statusCode() + ": " + url);
+            }
+            return response.statusCode();
+        }
+    }
+}
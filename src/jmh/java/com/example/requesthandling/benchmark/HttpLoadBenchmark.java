@@ -0,0 +1,105 @@
+package com.example.requesthandling.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * HTTP経由の負荷テスト（固定ワーカープール / 仮想スレッドの比較）
+ *
+ * アプリケーションを起動し、JMHのスレッド数（jmh.threads）を同時接続数としてリクエストを送り続ける
+ * - getUserById: CPUのみで完結するリクエスト
+ * - createUser: WAL（SYNC）のfsync完了を待つ、ブロッキングI/Oを含むリクエスト
+ *
+ * 固定ワーカープール（server.undertow.threads.worker=20）では同時に処理できるリクエストが20件に制限され、
+ * それを超える接続は待たされる。仮想スレッドではすべての接続を同時に処理し、fsyncの待ち合わせもまとめて行われる
+ * SampleTime モードの p0.99 でテールレイテンシを比較する
+ *
+ * VIRTUAL はJava 21以上のJVMで実行すること
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class HttpLoadBenchmark {
+
+    private static final int USER_COUNT = 10_000;
+
+    @Param({"PLATFORM", "VIRTUAL"})
+    private String threading;
+
+    private Path directory;
+    private ConfigurableApplicationContext application;
+    private HttpClient client;
+    private String baseUrl;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("http-load-bench");
+        application = BenchmarkSupport.startApplication(
+                "spring.threads.virtual.enabled=" + "VIRTUAL".equals(threading),
+                "user-store.wal.enabled=true",
+                "user-store.wal.durability=SYNC",
+                "user-store.wal.directory=" + directory);
+        baseUrl = BenchmarkSupport.apiUrl(application) + "/users";
+        client = BenchmarkSupport.httpClient();
+        for (int i = 0; i < USER_COUNT; i++) {
+            send(HttpRequest.newBuilder(URI.create(baseUrl))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(BenchmarkSupport.userJson(BenchmarkSupport.newUser(i))))
+                    .build());
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        application.close();
+        FileSystemUtils.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    public int getUserById() throws Exception {
+        int id = ThreadLocalRandom.current().nextInt(1, USER_COUNT + 1);
+        return send(HttpRequest.newBuilder(URI.create(baseUrl + "/" + id)).GET().build());
+    }
+
+    @Benchmark
+    public int createUser() throws Exception {
+        return send(HttpRequest.newBuilder(URI.create(baseUrl))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(BenchmarkSupport.userJson(BenchmarkSupport.uniqueUser())))
+                .build());
+    }
+
+    private int send(HttpRequest request) throws Exception {
+        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() >= 400) {
+            throw new IllegalStateException("HTTP " + response.statusCode() + ": " + request.uri());
+        }
+        return response.statusCode();
+    }
+}
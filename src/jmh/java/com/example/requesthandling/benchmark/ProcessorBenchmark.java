@@ -0,0 +1,230 @@
+package com.example.requesthandling.benchmark;
+
+import com.example.requesthandling.processor.CreateUserProcessor;
+import com.example.requesthandling.processor.DeleteUserProcessor;
+import com.example.requesthandling.processor.GetUserByIdProcessor;
+import com.example.requesthandling.processor.GetUsersProcessor;
+import com.example.requesthandling.processor.GlobalErrorProcessor;
+import com.example.requesthandling.processor.HealthCheckProcessor;
+import com.example.requesthandling.processor.SearchUsersProcessor;
+import com.example.requesthandling.processor.UpdateUserProcessor;
+import com.example.requesthandling.service.UserService;
+import org.apache.camel.CamelContext;
+import org.apache.camel.Exchange;
+import org.apache.camel.impl.DefaultCamelContext;
+import org.apache.camel.support.DefaultExchange;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.io.InputStream;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Processor のベンチマーク
+ * 実際のCamel Exchangeを生成し、各Processorを1リクエスト分実行するコストを計測する
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class ProcessorBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    private int userCount;
+
+    private AnnotationConfigApplicationContext context;
+    private CamelContext camelContext;
+    private UserService userService;
+
+    private GetUsersProcessor getUsersProcessor;
+    private GetUserByIdProcessor getUserByIdProcessor;
+    private CreateUserProcessor createUserProcessor;
+    private UpdateUserProcessor updateUserProcessor;
+    private DeleteUserProcessor deleteUserProcessor;
+    private HealthCheckProcessor healthCheckProcessor;
+    private SearchUsersProcessor searchUsersProcessor;
+    private GlobalErrorProcessor globalErrorProcessor;
+
+    @Setup(Level.Trial)
+    public void startContext() {
+        camelContext = new DefaultCamelContext();
+        camelContext.start();
+    }
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        if (context != null) {
+            context.close();
+        }
+        context = BenchmarkSupport.createContext();
+        userService = context.getBean(UserService.class);
+        BenchmarkSupport.populate(userService, userCount);
+
+        getUsersProcessor = context.getBean(GetUsersProcessor.class);
+        getUserByIdProcessor = context.getBean(GetUserByIdProcessor.class);
+        createUserProcessor = context.getBean(CreateUserProcessor.class);
+        updateUserProcessor = context.getBean(UpdateUserProcessor.class);
+        deleteUserProcessor = context.getBean(DeleteUserProcessor.class);
+        healthCheckProcessor = context.getBean(HealthCheckProcessor.class);
+        searchUsersProcessor = context.getBean(SearchUsersProcessor.class);
+        globalErrorProcessor = context.getBean(GlobalErrorProcessor.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (context != null) {
+            context.close();
+        }
+        camelContext.stop();
+    }
+
+    @Benchmark
+    public Object getUsers() throws Exception {
+        Exchange exchange = new DefaultExchange(camelContext);
+        getUsersProcessor.process(exchange);
+        return exchange.getMessage().getBody();
+    }
+
+    @Benchmark
+    public Object getUsersPage() throws Exception {
+        Exchange exchange = new DefaultExchange(camelContext);
+        exchange.getIn().setHeader("limit", "100");
+        exchange.getIn().setHeader("cursor", randomId());
+        getUsersProcessor.process(exchange);
+        return exchange.getMessage().getBody();
+    }
+
+    /**
+     * ストリーミングモード（レスポンスを読み切るまでを計測）
+     */
+    @Benchmark
+    public void getUsersStream(Blackhole blackhole) throws Exception {
+        Exchange exchange = new DefaultExchange(camelContext);
+        exchange.getIn().setHeader("stream", "true");
+        getUsersProcessor.process(exchange);
+        byte[] chunk = new byte[8192];
+        try (InputStream body = exchange.getMessage().getBody(InputStream.class)) {
+            int n;
+            while ((n = body.read(chunk)) > 0) {
+                blackhole.consume(n);
+            }
+        }
+    }
+
+    @Benchmark
+    public Object getUserById() throws Exception {
+        Exchange exchange = new DefaultExchange(camelContext);
+        exchange.getIn().setHeader("id", randomId());
+        getUserByIdProcessor.process(exchange);
+        return exchange.getMessage().getBody();
+    }
+
+    /**
+     * If-None-Match が一致する条件付きGET（304、シリアライズなし）
+     */
+    @Benchmark
+    public Object getUserByIdNotModified() throws Exception {
+        long id = Long.parseLong(randomId());
+        Exchange exchange = new DefaultExchange(camelContext);
+        exchange.getIn().setHeader("id", Long.toString(id));
+        exchange.getIn().setHeader("If-None-Match",
+                "\"" + userService.getVersionEpoch() + "-" + userService.getUserVersion(id) + "\"");
+        getUserByIdProcessor.process(exchange);
+        return exchange.getMessage().getBody();
+    }
+
+    /**
+     * If-None-Match が一致する一覧の条件付きGET（304、全件の走査・シリアライズなし）
+     */
+    @Benchmark
+    public Object getUsersNotModified() throws Exception {
+        Exchange exchange = new DefaultExchange(camelContext);
+        exchange.getIn().setHeader("If-None-Match",
+                "\"" + userService.getVersionEpoch() + "-" + userService.getCollectionVersion() + "\"");
+        getUsersProcessor.process(exchange);
+        return exchange.getMessage().getBody();
+    }
+
+    @Benchmark
+    public Object getUserByIdNotFound() throws Exception {
+        Exchange exchange = new DefaultExchange(camelContext);
+        exchange.getIn().setHeader("id", "0");
+        getUserByIdProcessor.process(exchange);
+        return exchange.getMessage().getBody();
+    }
+
+    @Benchmark
+    public Object searchUsers() throws Exception {
+        Exchange exchange = new DefaultExchange(camelContext);
+        exchange.getIn().setHeader("q", "user-" + ThreadLocalRandom.current().nextInt(userCount / 10 + 1));
+        searchUsersProcessor.process(exchange);
+        return exchange.getMessage().getBody();
+    }
+
+    @Benchmark
+    public Object createUser() throws Exception {
+        Exchange exchange = new DefaultExchange(camelContext);
+        exchange.getIn().setBody(BenchmarkSupport.userJson(BenchmarkSupport.uniqueUser()));
+        createUserProcessor.process(exchange);
+        return exchange.getMessage().getBody();
+    }
+
+    @Benchmark
+    public Object updateUser() throws Exception {
+        Exchange exchange = new DefaultExchange(camelContext);
+        String id = randomId();
+        exchange.getIn().setHeader("id", id);
+        exchange.getIn().setBody(BenchmarkSupport.userJson(BenchmarkSupport.updateFor(id)));
+        updateUserProcessor.process(exchange);
+        return exchange.getMessage().getBody();
+    }
+
+    /**
+     * 削除対象を枯渇させないよう、UserServiceで作成したユーザーを削除する
+     */
+    @Benchmark
+    public Object deleteUser() throws Exception {
+        String id = userService.createUser(BenchmarkSupport.uniqueUser()).getId();
+        Exchange exchange = new DefaultExchange(camelContext);
+        exchange.getIn().setHeader("id", id);
+        deleteUserProcessor.process(exchange);
+        return exchange.getMessage().getBody();
+    }
+
+    @Benchmark
+    public Object healthCheck() throws Exception {
+        Exchange exchange = new DefaultExchange(camelContext);
+        healthCheckProcessor.process(exchange);
+        return exchange.getMessage().getBody();
+    }
+
+    @Benchmark
+    public Object globalError() throws Exception {
+        Exchange exchange = new DefaultExchange(camelContext);
+        exchange.setProperty(Exchange.EXCEPTION_CAUGHT, new IllegalStateException("benchmark"));
+        exchange.getIn().setHeader(Exchange.HTTP_URI, "/api/users");
+        exchange.getIn().setHeader(Exchange.HTTP_METHOD, "GET");
+        globalErrorProcessor.process(exchange);
+        return exchange.getMessage().getBody();
+    }
+
+    private String randomId() {
+        return String.valueOf(ThreadLocalRandom.current().nextInt(1, userCount + 1));
+    }
+}
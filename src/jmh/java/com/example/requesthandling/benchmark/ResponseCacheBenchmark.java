@@ -0,0 +1,103 @@
+package com.example.requesthandling.benchmark;
+
+import com.example.requesthandling.config.ApiProperties;
+import com.example.requesthandling.config.UserStoreProperties;
+import com.example.requesthandling.processor.GetUserByIdProcessor;
+import com.example.requesthandling.processor.UserResponseCache;
+import com.example.requesthandling.service.UserService;
+import org.apache.camel.CamelContext;
+import org.apache.camel.Exchange;
+import org.apache.camel.impl.DefaultCamelContext;
+import org.apache.camel.support.DefaultExchange;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * GET /api/users/{id} のレスポンスキャッシュのベンチマーク
+ *
+ * - getUserById: 読み込みのみ（hotUsers 件のIDをランダムに参照するため、キャッシュに収まればほぼ全件ヒット）
+ * - getUserByIdWithWrites: 10回に1回更新を挟み、無効化と再シリアライズのコストを含めて計測
+ *
+ * キャッシュの有無（responseCache=true/false）で比較する
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class ResponseCacheBenchmark {
+
+    @Param({"true", "false"})
+    private boolean responseCache;
+
+    @Param({"10000"})
+    private int hotUsers;
+
+    private CamelContext camelContext;
+    private AnnotationConfigApplicationContext context;
+    private UserService userService;
+    private GetUserByIdProcessor processor;
+    private UserResponseCache cache;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        camelContext = new DefaultCamelContext();
+        camelContext.start();
+        ApiProperties apiProperties = new ApiProperties();
+        apiProperties.getResponseCache().setEnabled(responseCache);
+        context = BenchmarkSupport.createContext(new UserStoreProperties(), apiProperties);
+        userService = context.getBean(UserService.class);
+        BenchmarkSupport.populate(userService, hotUsers);
+        processor = context.getBean(GetUserByIdProcessor.class);
+        cache = context.getBean(UserResponseCache.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        System.out.printf("%nresponseCache=%s hits=%d misses=%d evictions=%d invalidations=%d%n",
+                responseCache, cache.getHits(), cache.getMisses(), cache.getEvictions(), cache.getInvalidations());
+        context.close();
+        camelContext.stop();
+    }
+
+    @Benchmark
+    public Object getUserById() throws Exception {
+        return get(randomId());
+    }
+
+    @Benchmark
+    public Object getUserByIdWithWrites() throws Exception {
+        long id = randomId();
+        if (ThreadLocalRandom.current().nextInt(10) == 0) {
+            userService.getUserById(id).ifPresent(user -> userService.updateUser(id, user));
+        }
+        return get(id);
+    }
+
+    private Object get(long id) throws Exception {
+        Exchange exchange = new DefaultExchange(camelContext);
+        exchange.getIn().setHeader("id", Long.toString(id));
+        processor.process(exchange);
+        return exchange.getMessage().getBody();
+    }
+
+    private long randomId() {
+        return ThreadLocalRandom.current().nextInt(1, hotUsers + 1);
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.requesthandling.benchmark;
+
+import com.example.requesthandling.config.UserStoreProperties;
+import com.example.requesthandling.persistence.UserWriteAheadLog;
+import com.example.requesthandling.service.UserService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * WAL有効時の起動時間ベンチマーク
+ * userCount 件のユーザーを作成し、各ユーザーを (historyFactor - 1) 回更新した状態から UserService を起動する
+ *
+ * - LOG: スナップショットなし（全履歴を再生）
+ * - SNAPSHOT: 全履歴を含むスナップショットを読み込む（起動時間は履歴の長さに依存しない）
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class StartupBenchmark {
+
+    @Param({"1000000"})
+    private int userCount;
+
+    @Param({"1", "4"})
+    private int historyFactor;
+
+    @Param({"LOG", "SNAPSHOT"})
+    private String recovery;
+
+    private Path directory;
+    private UserStoreProperties properties;
+    private UserService started;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("startup-bench");
+        properties = new UserStoreProperties();
+        properties.getWal().setEnabled(true);
+        properties.getWal().setDirectory(directory.toString());
+        // データ作成を速くするためASYNCで書き込む（起動時間には影響しない）
+        properties.getWal().setDurability(UserWriteAheadLog.Durability.ASYNC);
+        properties.getSnapshot().setEnabled("SNAPSHOT".equals(recovery));
+
+        UserService userService = new UserService(properties);
+        BenchmarkSupport.populate(userService, userCount);
+        for (int round = 1; round < historyFactor; round++) {
+            for (int id = 1; id <= userCount; id++) {
+                String key = String.valueOf(id);
+                userService.updateUser(key, BenchmarkSupport.updateFor(key));
+            }
+        }
+        userService.snapshot();
+        userService.close();
+    }
+
+    @TearDown(Level.Iteration)
+    public void closeStarted() throws IOException {
+        if (started != null) {
+            started.close();
+            started = null;
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        FileSystemUtils.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    public UserService startup() throws IOException {
+        started = new UserService(properties);
+        return started;
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.requesthandling.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * HTTPトランスポートの比較（servlet / undertow）
+ *
+ * アプリケーションを起動し、同じREST定義に対するリクエストのスループットとレイテンシを比較する
+ * - getUserById: 成功レスポンス
+ * - createUser: リクエストボディの読み込みを含む
+ * - notFound: 存在しないパス（CustomErrorController によるエラーレスポンス）
+ *
+ * 同時接続数は jmh.threads で指定する
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class TransportBenchmark {
+
+    private static final int USER_COUNT = 10_000;
+
+    @Param({"servlet", "undertow"})
+    private String transport;
+
+    private ConfigurableApplicationContext application;
+    private HttpClient client;
+    private String apiUrl;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        application = BenchmarkSupport.startApplication("api.transport=" + transport);
+        apiUrl = BenchmarkSupport.apiUrl(application);
+        client = BenchmarkSupport.httpClient();
+        for (int i = 0; i < USER_COUNT; i++) {
+            send(post(BenchmarkSupport.userJson(BenchmarkSupport.newUser(i))), 201);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        application.close();
+    }
+
+    @Benchmark
+    public int getUserById() throws Exception {
+        int id = ThreadLocalRandom.current().nextInt(1, USER_COUNT + 1);
+        return send(HttpRequest.newBuilder(URI.create(apiUrl + "/users/" + id)).GET().build(), 200);
+    }
+
+    @Benchmark
+    public int createUser() throws Exception {
+        return send(post(BenchmarkSupport.userJson(BenchmarkSupport.uniqueUser())), 201);
+    }
+
+    @Benchmark
+    public int notFound() throws Exception {
+        return send(HttpRequest.newBuilder(URI.create(apiUrl + "/nonexistent")).GET().build(), 404);
+    }
+
+    private HttpRequest post(String json) {
+        return HttpRequest.newBuilder(URI.create(apiUrl + "/users"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build();
+    }
+
+    private int send(HttpRequest request, int expectedStatus) throws Exception {
+        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() != expectedStatus) {
+            throw new IllegalStateException("HTTP " + response.statusCode() + ": " + request.uri());
+        }
+        return response.statusCode();
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.requesthandling.benchmark;
+
+import com.example.requesthandling.config.UserStoreProperties;
+import com.example.requesthandling.model.User;
+import com.example.requesthandling.model.UserPage;
+import com.example.requesthandling.service.UserService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * UserService のベンチマーク
+ * ユーザー数（1k/100k/1M）・格納方式（HEAP/OFF_HEAP）ごとに各操作のスループットと平均時間を計測する
+ * スレッド数は実行時の -t オプション（jmh.threads）で指定する
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class UserServiceBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    private int userCount;
+
+    @Param({"HEAP", "OFF_HEAP"})
+    private UserStoreProperties.Engine engine;
+
+    private UserService userService;
+
+    /**
+     * 書き込み系ベンチマークでデータ量が変化するため、イテレーションごとに再構築する
+     */
+    @Setup(Level.Iteration)
+    public void setUp() throws IOException {
+        UserStoreProperties properties = new UserStoreProperties();
+        properties.getStorage().setEngine(engine);
+        userService = new UserService(properties);
+        BenchmarkSupport.populate(userService, userCount);
+    }
+
+    @Benchmark
+    public List<User> getAllUsers() {
+        return userService.getAllUsers();
+    }
+
+    @Benchmark
+    public UserPage getUsersPage() {
+        return userService.getUsersPage(randomId(), 100);
+    }
+
+    /**
+     * 更新1件ごとに最新の一覧のページを取得（一覧のスナップショットの再構築のコスト）
+     */
+    @Benchmark
+    public UserPage getUsersPageAfterUpdate() {
+        String id = randomId();
+        userService.getUserById(id).ifPresent(user -> userService.updateUser(id, user));
+        return userService.getUsersPage(randomId(), 100);
+    }
+
+    @Benchmark
+    public Optional<User> getUserById() {
+        return userService.getUserById(randomId());
+    }
+
+    @Benchmark
+    public Optional<User> getUserByIdNotFound() {
+        return userService.getUserById("0");
+    }
+
+    /**
+     * 名前の前方一致検索（"bench-user-123" → bench-user-123, bench-user-1230...）
+     */
+    @Benchmark
+    public List<User> searchUsersPrefix() {
+        return userService.searchUsers("bench-user-" + ThreadLocalRandom.current().nextInt(userCount / 10 + 1), 20);
+    }
+
+    /**
+     * 名前の部分一致検索（トライグラムインデックス経由）
+     */
+    @Benchmark
+    public List<User> searchUsersSubstring() {
+        return userService.searchUsers("user-" + ThreadLocalRandom.current().nextInt(userCount / 10 + 1), 20);
+    }
+
+    @Benchmark
+    public User createUser() {
+        return userService.createUser(BenchmarkSupport.uniqueUser());
+    }
+
+    @Benchmark
+    public Optional<User> updateUser() {
+        String id = randomId();
+        return userService.updateUser(id, BenchmarkSupport.updateFor(id));
+    }
+
+    /**
+     * 削除対象を枯渇させないよう、作成したユーザーをそのまま削除する
+     * deleteUser単体のコストは createUser との差分で評価する
+     */
+    @Benchmark
+    public boolean deleteUser() {
+        User created = userService.createUser(BenchmarkSupport.uniqueUser());
+        return userService.deleteUser(created.getId());
+    }
+
+    private String randomId() {
+        return String.valueOf(ThreadLocalRandom.current().nextInt(1, userCount + 1));
+    }
+}
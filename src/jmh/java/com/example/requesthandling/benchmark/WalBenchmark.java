@@ -0,0 +1,80 @@
+package com.example.requesthandling.benchmark;
+
+import com.example.requesthandling.config.UserStoreProperties;
+import com.example.requesthandling.model.User;
+import com.example.requesthandling.persistence.UserWriteAheadLog;
+import com.example.requesthandling.service.UserService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * WAL有効時の書き込みベンチマーク
+ * heap（WALなし）/ SYNC / ASYNC の createUser・updateUser を比較し、WALによる追加レイテンシを計測する
+ * 並行時のグループコミットの効果は -t オプション（jmh.threads）を増やして確認する
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class WalBenchmark {
+
+    private static final int USER_COUNT = 10_000;
+
+    @Param({"NONE", "SYNC", "ASYNC"})
+    private String durability;
+
+    private Path directory;
+    private UserService userService;
+
+    @Setup(Level.Iteration)
+    public void setUp() throws IOException {
+        UserStoreProperties properties = new UserStoreProperties();
+        if (!"NONE".equals(durability)) {
+            directory = Files.createTempDirectory("wal-bench");
+            properties.getWal().setEnabled(true);
+            properties.getWal().setDirectory(directory.toString());
+            properties.getWal().setDurability(UserWriteAheadLog.Durability.valueOf(durability));
+        }
+        userService = new UserService(properties);
+        BenchmarkSupport.populate(userService, USER_COUNT);
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() throws IOException {
+        userService.close();
+        if (directory != null) {
+            FileSystemUtils.deleteRecursively(directory);
+        }
+    }
+
+    @Benchmark
+    public User createUser() {
+        return userService.createUser(BenchmarkSupport.uniqueUser());
+    }
+
+    @Benchmark
+    public User updateUser() {
+        String id = String.valueOf(ThreadLocalRandom.current().nextInt(1, USER_COUNT + 1));
+        return userService.updateUser(id, BenchmarkSupport.updateFor(id)).orElseThrow();
+    }
+}
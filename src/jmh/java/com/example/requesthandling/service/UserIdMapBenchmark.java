@@ -0,0 +1,95 @@
+package com.example.requesthandling.service;
+
+import com.example.requesthandling.model.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ID → User のマップの比較（ConcurrentHashMap&lt;String, User&gt; / LongUserMap）
+ *
+ * - lookup: パスパラメータ（文字列）から取得するまで（LongUserMap は UserIds.parse を含む）
+ * - lookupMissing: 存在しないID
+ *
+ * セットアップ時に、マップ本体（キー・ノード・テーブル）の1エントリあたりのバイト数を標準出力に出力する
+ * （User オブジェクトは両方で共有するため含まない）
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class UserIdMapBenchmark {
+
+    @Param({"100000", "1000000"})
+    private int userCount;
+
+    @Param({"STRING_MAP", "LONG_MAP"})
+    private String map;
+
+    private boolean longKeys;
+    private Map<String, User> stringMap;
+    private LongUserMap longMap;
+    private String[] ids;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        User[] users = new User[userCount];
+        ids = new String[userCount];
+        for (int i = 0; i < userCount; i++) {
+            ids[i] = String.valueOf(i + 1);
+            users[i] = User.builder().id(ids[i]).name("bench-user-" + i).email("bench-user-" + i + "@example.com").build();
+        }
+        long before = usedHeapAfterGc();
+        longKeys = "LONG_MAP".equals(map);
+        if (longKeys) {
+            longMap = new LongUserMap();
+            for (int i = 0; i < userCount; i++) {
+                longMap.put(i + 1, users[i]);
+            }
+        } else {
+            stringMap = new ConcurrentHashMap<>();
+            for (int i = 0; i < userCount; i++) {
+                // 実際の UserService と同様に、キーは採番時に生成した別の文字列
+                stringMap.put(String.valueOf(i + 1), users[i]);
+            }
+        }
+        long bytesPerEntry = (usedHeapAfterGc() - before) / userCount;
+        System.out.printf("%n[%s, %d entries] map overhead: %d bytes/entry%n", map, userCount, bytesPerEntry);
+    }
+
+    @Benchmark
+    public User lookup() {
+        String id = ids[ThreadLocalRandom.current().nextInt(userCount)];
+        return longKeys ? longMap.get(UserIds.parse(id)) : stringMap.get(id);
+    }
+
+    @Benchmark
+    public User lookupMissing() {
+        String id = "0" + ids[ThreadLocalRandom.current().nextInt(userCount)];
+        return longKeys ? longMap.get(UserIds.parse(id) + userCount) : stringMap.get(id);
+    }
+
+    private static long usedHeapAfterGc() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+}
@@ -0,0 +1,158 @@
+package com.example.requesthandling.service;
+
+import com.example.requesthandling.config.UserStoreProperties;
+import com.example.requesthandling.model.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.ref.Reference;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * ユーザーレコードの格納方式（HEAP / OFF_HEAP / FILE / JDBC）の比較
+ * *_WRITE_BEHIND は FILE / JDBC の前段に非同期の書き出し（WriteBehindUserStore、既定の設定）を置いたもの
+ * UserService の各インデックスを含めず、レコード本体の格納先のみを計測する
+ * （UserStore はパッケージプライベートのため、service パッケージに配置）
+ *
+ * FILE / JDBC（組み込みのH2）は一時ディレクトリに作成し、終了時に削除する
+ * セットアップ後のヒープ使用量を標準出力に出力する。GCの回数・時間は -prof gc の gc.count / gc.time を参照
+ * OFF_HEAP では、格納方式によらずヒープ上に残る UserService のインデックスの1ユーザーあたりの使用量も出力する
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g", "-XX:MaxDirectMemorySize=4g"})
+public class UserStoreBenchmark {
+
+    // インデックスのヒープ使用量を計測する件数の上限（ヒープ上限 4GB に収める。1ユーザーあたりの使用量は件数によらずほぼ一定）
+    private static final int INDEX_SAMPLE_SIZE = 1_000_000;
+
+    @Param({"1000000", "5000000"})
+    private int userCount;
+
+    @Param({"HEAP", "OFF_HEAP", "FILE", "JDBC", "FILE_WRITE_BEHIND", "JDBC_WRITE_BEHIND"})
+    private String engine;
+
+    private UserStore store;
+    private Path directory;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("user-store-benchmark");
+        store = switch (engine.replace("_WRITE_BEHIND", "")) {
+            case "OFF_HEAP" -> new OffHeapUserStore(64 * 1024 * 1024);
+            case "FILE" -> new FileUserStore(directory, false);
+            case "JDBC" -> {
+                UserStoreProperties.JdbcStorage config = new UserStoreProperties.JdbcStorage();
+                config.setUrl("jdbc:h2:file:" + directory.resolve("users").toAbsolutePath());
+                yield new JdbcUserStore(config);
+            }
+            default -> new HeapUserStore();
+        };
+        if (engine.endsWith("_WRITE_BEHIND")) {
+            store = new WriteBehindUserStore(store, new UserStoreProperties.WriteBehind());
+        }
+        for (int i = 1; i <= userCount; i++) {
+            store.put(i, newUser(i));
+        }
+        long used = usedHeapAfterGc();
+        System.out.printf("%n[%s, %d users] heap used after GC: %d MB%n", engine, userCount, used / (1024 * 1024));
+        if (engine.equals("OFF_HEAP")) {
+            reportIndexHeap(used);
+        }
+    }
+
+    /**
+     * UserService がレコードの格納先とは別にヒープ上に持つ、ID順・メールアドレス・名前検索のインデックスを
+     * 同じ型で構築し、1ユーザーあたりのヒープ使用量を出力する（計測後は破棄する）
+     */
+    private void reportIndexHeap(long before) {
+        int sampleSize = Math.min(userCount, INDEX_SAMPLE_SIZE);
+        NavigableSet<Long> orderedIds = new ConcurrentSkipListSet<>();
+        Map<String, String> emailIndex = new ConcurrentHashMap<>();
+        NameSearchIndex nameIndex = new NameSearchIndex();
+        for (int i = 1; i <= sampleSize; i++) {
+            User user = store.get(i);
+            orderedIds.add((long) i);
+            emailIndex.put(user.getEmail().trim().toLowerCase(Locale.ROOT), user.getId());
+            // 起動時の構築と同様に、名前検索のインデックスには別に読み込んだIDの文字列を持たせる
+            nameIndex.add(store.get(i).getId(), user.getName());
+        }
+        long bytesPerUser = (usedHeapAfterGc() - before) / sampleSize;
+        Reference.reachabilityFence(orderedIds);
+        Reference.reachabilityFence(emailIndex);
+        Reference.reachabilityFence(nameIndex);
+        System.out.printf("[%s, %d users] UserService indexes (id order / email / name search): %d bytes/user%n",
+                engine, sampleSize, bytesPerUser);
+    }
+
+    private static long usedHeapAfterGc() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        if (store instanceof WriteBehindUserStore writeBehind) {
+            System.out.printf("%n[%s] write-behind: %s%n", engine, writeBehind.stats());
+        }
+        store.close();
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    @Benchmark
+    public User get() {
+        return store.get(randomId());
+    }
+
+    @Benchmark
+    public User update() {
+        int id = randomId();
+        User user = newUser(id);
+        store.put(id, user);
+        return user;
+    }
+
+    private int randomId() {
+        return ThreadLocalRandom.current().nextInt(1, userCount + 1);
+    }
+
+    private static User newUser(int id) {
+        return User.builder()
+                .id(String.valueOf(id))
+                .name("bench-user-" + id)
+                .email("bench-user-" + id + "@example.com")
+                .build();
+    }
+}
@@ -0,0 +1,143 @@
+package com.example.requesthandling.service;
+
+import com.example.requesthandling.config.UserStoreProperties;
+import com.example.requesthandling.model.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * 低速な格納先（FILE / JDBC）の前段の読み込みキャッシュ（W-TinyLFU）の効果
+ * IDの分布を Zipf 分布（指数 skew。大きいほど一部のユーザーにアクセスが集中する）とし、キャッシュなしと比較する
+ *
+ * IDの列は事前に生成し、スレッドごとに異なる位置から順に読む
+ * 終了時にキャッシュのヒット率・追い出し数などを標準出力に出力する
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+@Threads(4)
+public class UserStoreCacheBenchmark {
+
+    private static final int KEY_SEQUENCE_SIZE = 1 << 20;
+
+    @Param({"100000"})
+    private int userCount;
+
+    @Param({"10000"})
+    private int maxEntries;
+
+    @Param({"0.8", "0.99", "1.2"})
+    private double skew;
+
+    @Param({"FILE", "JDBC"})
+    private String engine;
+
+    @Param({"NONE", "TINY_LFU"})
+    private String cache;
+
+    private UserStore store;
+    private Path directory;
+    private long[] keys;
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int position = ThreadLocalRandom.current().nextInt(KEY_SEQUENCE_SIZE);
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("user-store-cache-benchmark");
+        UserStore backend = switch (engine) {
+            case "JDBC" -> {
+                UserStoreProperties.JdbcStorage config = new UserStoreProperties.JdbcStorage();
+                config.setUrl("jdbc:h2:file:" + directory.resolve("users").toAbsolutePath());
+                yield new JdbcUserStore(config);
+            }
+            default -> new FileUserStore(directory, false);
+        };
+        for (int i = 1; i <= userCount; i++) {
+            backend.put(i, User.builder()
+                    .id(String.valueOf(i))
+                    .name("bench-user-" + i)
+                    .email("bench-user-" + i + "@example.com")
+                    .build());
+        }
+        store = "TINY_LFU".equals(cache)
+                ? new CachingUserStore(backend, new TinyLfuCache<>(maxEntries, TimeUnit.MINUTES.toNanos(5), 1))
+                : backend;
+        keys = zipf(userCount, skew, KEY_SEQUENCE_SIZE, new Random(42));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        if (store instanceof CachingUserStore cachingStore) {
+            System.out.printf("%n[%s, skew %.2f] cache: %s%n", engine, skew, cachingStore.stats());
+        }
+        store.close();
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    @Benchmark
+    public User get(Cursor cursor) {
+        int position = cursor.position;
+        cursor.position = (position + 1) & (KEY_SEQUENCE_SIZE - 1);
+        return store.get(keys[position]);
+    }
+
+    /**
+     * 1〜n のIDを Zipf 分布で count 件生成する（人気の順位とIDの大小が対応しないよう、順位をIDに散らす）
+     */
+    private static long[] zipf(int n, double skew, int count, Random random) {
+        double[] cumulative = new double[n];
+        double sum = 0;
+        for (int i = 0; i < n; i++) {
+            sum += 1 / Math.pow(i + 1, skew);
+            cumulative[i] = sum;
+        }
+        long[] ids = new long[n];
+        for (int i = 0; i < n; i++) {
+            ids[i] = i + 1;
+        }
+        for (int i = n - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            long tmp = ids[i];
+            ids[i] = ids[j];
+            ids[j] = tmp;
+        }
+        long[] keys = new long[count];
+        for (int i = 0; i < count; i++) {
+            int index = Arrays.binarySearch(cumulative, random.nextDouble() * sum);
+            keys[i] = ids[index >= 0 ? index : -index - 1];
+        }
+        return keys;
+    }
+}
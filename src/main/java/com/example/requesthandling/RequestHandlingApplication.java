@@ -3,6 +3,7 @@ package com.example.requesthandling;
 import org.apache.camel.component.servlet.CamelHttpTransportServlet;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.web.servlet.ServletRegistrationBean;
 import org.springframework.context.annotation.Bean;
 
@@ -10,7 +11,7 @@ import org.springframework.context.annotation.Bean;
  * Request Handling Application
  * Camel for Spring Boot with Undertow and Servlet
  *
- * ServletMappingAutoConfigurationを除外して、明示的にServletを登録
+ * ServletMappingAutoConfigurationを除外して、明示的にServletを登録（api.transport=servlet の場合のみ）
  * REST設定: config/RestApiConfiguration.java
  * RESTエンドポイント: camel/routes.xml (Spring XML)
  */
@@ -23,9 +24,10 @@ public class RequestHandlingApplication {
 
     /**
      * CamelServletの明示的な登録
-     * /api/* のパスで受け付ける
+     * /api/* のパスで受け付ける（undertow の場合は登録しない）
      */
     @Bean
+    @ConditionalOnProperty(name = "api.transport", havingValue = "servlet", matchIfMissing = true)
     public ServletRegistrationBean<CamelHttpTransportServlet> servletRegistrationBean() {
         ServletRegistrationBean<CamelHttpTransportServlet> registration =
             new ServletRegistrationBean<>(new CamelHttpTransportServlet(), "/api/*");
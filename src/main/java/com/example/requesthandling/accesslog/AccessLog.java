@@ -0,0 +1,216 @@
+package com.example.requesthandling.accesslog;
+
+import com.example.requesthandling.config.ApiProperties;
+import com.example.requesthandling.metrics.RouteMetricsRegistry;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.apache.camel.CamelContext;
+import org.apache.camel.Exchange;
+import org.apache.camel.NamedNode;
+import org.apache.camel.Route;
+import org.apache.camel.spi.RoutePolicy;
+import org.apache.camel.spi.RoutePolicyFactory;
+import org.apache.camel.support.RoutePolicySupport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * アクセスログ（ルートごとのサンプリング、リングバッファ経由の非同期書き出し）
+ *
+ * RoutePolicyFactory としてCamelContextに登録され、direct: で始まるルートの終了時に
+ * ルートID・メソッド・パス・ステータスコード・処理時間をリングバッファに追加するだけで、リクエストの処理を終える
+ * JSONへの整形とログ出力（ロガー名: access-log）は書き出しスレッドがまとめて行う
+ *
+ * - ルートごとのサンプリング率（api.access-log.sample-rates）。5xxは既定でサンプリングせずにすべて出力する
+ * - バッファが満杯の場合は待たずに破棄し、件数を数える（ログの出力が遅れてもリクエストの処理は遅れない）
+ */
+@Component
+public class AccessLog implements RoutePolicyFactory {
+
+    private static final Logger LOG = LoggerFactory.getLogger(AccessLog.class);
+    private static final Logger ACCESS_LOG = LoggerFactory.getLogger("access-log");
+    private static final String START_PROPERTY_PREFIX = "RequestHandling.AccessLogStart.";
+
+    private final ApiProperties.AccessLog config;
+    private final ObjectMapper objectMapper;
+    private final AccessLogBuffer buffer;
+    private final ZoneId zone = ZoneId.systemDefault();
+    private final long drainIntervalNanos;
+    private final LongAdder written = new LongAdder();
+    private final LongAdder sampledOut = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final Thread writer;
+    private volatile boolean closed;
+
+    public AccessLog(ApiProperties apiProperties, ObjectMapper objectMapper) {
+        this.config = apiProperties.getAccessLog();
+        this.objectMapper = objectMapper;
+        this.buffer = new AccessLogBuffer(config.isEnabled() ? config.getBufferSize() : 1);
+        this.drainIntervalNanos = Math.max(1, config.getDrainInterval().toNanos());
+        if (config.isEnabled()) {
+            writer = new Thread(this::drainLoop, "access-log-writer");
+            writer.setDaemon(true);
+            writer.start();
+        } else {
+            writer = null;
+        }
+    }
+
+    @Override
+    public RoutePolicy createRoutePolicy(CamelContext camelContext, String routeId, NamedNode route) {
+        if (!config.isEnabled() || !RouteMetricsRegistry.isDirectRoute(route)) {
+            return null;
+        }
+        double sampleRate = config.getSampleRates().getOrDefault(routeId, config.getDefaultSampleRate());
+        return new AccessLogRoutePolicy(routeId, sampleRate);
+    }
+
+    /**
+     * アクセスログを追加（満杯の場合は破棄）
+     *
+     * @return 追加した場合はtrue
+     */
+    boolean offer(AccessLogEntry entry) {
+        if (closed || !buffer.offer(entry)) {
+            dropped.increment();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * 出力した件数
+     */
+    public long getWritten() {
+        return written.sum();
+    }
+
+    /**
+     * サンプリングにより出力しなかった件数
+     */
+    public long getSampledOut() {
+        return sampledOut.sum();
+    }
+
+    /**
+     * バッファが満杯で破棄した件数
+     */
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    /**
+     * 書き出しスレッドを停止（バッファに残っているログは出力する）
+     */
+    @PreDestroy
+    public void close() {
+        closed = true;
+        if (writer == null) {
+            return;
+        }
+        LockSupport.unpark(writer);
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void drainLoop() {
+        while (true) {
+            boolean done = closed;
+            drain();
+            if (done) {
+                return;
+            }
+            LockSupport.parkNanos(this, drainIntervalNanos);
+        }
+    }
+
+    /**
+     * バッファが空になるまで出力する（書き出しスレッドのみ）
+     */
+    int drain() {
+        int count = 0;
+        AccessLogEntry entry;
+        while ((entry = buffer.poll()) != null) {
+            try {
+                ACCESS_LOG.info(format(entry));
+                written.increment();
+                count++;
+            } catch (Exception e) {
+                LOG.warn("アクセスログを出力できません: {}", entry, e);
+            }
+        }
+        return count;
+    }
+
+    String format(AccessLogEntry entry) throws Exception {
+        Map<String, Object> fields = new LinkedHashMap<>();
+        fields.put("timestamp", LocalDateTime.ofInstant(Instant.ofEpochMilli(entry.epochMillis()), zone).toString());
+        fields.put("route", entry.route());
+        fields.put("method", entry.method());
+        fields.put("path", entry.path());
+        fields.put("status", entry.status());
+        // マイクロ秒単位に丸める
+        fields.put("durationMs", Math.round(entry.durationNanos() / 1_000.0) / 1_000.0);
+        return objectMapper.writeValueAsString(fields);
+    }
+
+    private final class AccessLogRoutePolicy extends RoutePolicySupport {
+
+        private final String routeId;
+        private final double sampleRate;
+        private final String startProperty;
+
+        AccessLogRoutePolicy(String routeId, double sampleRate) {
+            this.routeId = routeId;
+            this.sampleRate = sampleRate;
+            this.startProperty = START_PROPERTY_PREFIX + routeId;
+        }
+
+        @Override
+        public void onExchangeBegin(Route route, Exchange exchange) {
+            exchange.setProperty(startProperty, System.nanoTime());
+        }
+
+        @Override
+        public void onExchangeDone(Route route, Exchange exchange) {
+            Object start = exchange.removeProperty(startProperty);
+            if (!(start instanceof Long startNanos)) {
+                return;
+            }
+            long elapsed = System.nanoTime() - startNanos;
+            int status = RouteMetricsRegistry.status(exchange);
+            if (!sampled(status)) {
+                sampledOut.increment();
+                return;
+            }
+            offer(new AccessLogEntry(
+                    System.currentTimeMillis(),
+                    routeId,
+                    exchange.getMessage().getHeader(Exchange.HTTP_METHOD, String.class),
+                    exchange.getMessage().getHeader(Exchange.HTTP_URI, String.class),
+                    status,
+                    elapsed));
+        }
+
+        private boolean sampled(int status) {
+            if (sampleRate >= 1.0 || (status >= 500 && config.isAlwaysLogErrors())) {
+                return true;
+            }
+            return sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate;
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.requesthandling.accesslog;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * アクセスログの有界リングバッファ（複数の書き込みスレッドと1つの読み出しスレッド、ロックフリー）
+ *
+ * スロットごとのシーケンス番号で、書き込み可能（= 位置）か読み出し可能（= 位置 + 1）かを表す
+ * - offer: 末尾の位置をCASで確保して書き込む。満杯の場合は待たずにfalseを返す
+ * - poll: 読み出しスレッドのみが呼び出す
+ */
+final class AccessLogBuffer {
+
+    private final int mask;
+    private final AtomicReferenceArray<AccessLogEntry> entries;
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail = new AtomicLong();
+    // 読み出しスレッドのみが更新する
+    private long head;
+
+    /**
+     * @param capacity 容量（2のべき乗に切り上げ）
+     */
+    AccessLogBuffer(int capacity) {
+        int size = capacity > 1 ? Integer.highestOneBit(capacity - 1) << 1 : 1;
+        this.mask = size - 1;
+        this.entries = new AtomicReferenceArray<>(size);
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    int capacity() {
+        return mask + 1;
+    }
+
+    /**
+     * 末尾に追加
+     *
+     * @return 満杯で追加できなかった場合はfalse
+     */
+    boolean offer(AccessLogEntry entry) {
+        long position = tail.get();
+        while (true) {
+            int slot = (int) position & mask;
+            long diff = sequences.get(slot) - position;
+            if (diff == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    entries.lazySet(slot, entry);
+                    sequences.set(slot, position + 1);
+                    return true;
+                }
+                position = tail.get();
+            } else if (diff < 0) {
+                // 1周前のエントリーがまだ読み出されていない
+                return false;
+            } else {
+                position = tail.get();
+            }
+        }
+    }
+
+    /**
+     * 先頭から取り出す（読み出しスレッドのみ）
+     *
+     * @return 空の場合はnull
+     */
+    AccessLogEntry poll() {
+        int slot = (int) head & mask;
+        if (sequences.get(slot) != head + 1) {
+            return null;
+        }
+        AccessLogEntry entry = entries.get(slot);
+        entries.lazySet(slot, null);
+        sequences.set(slot, head + mask + 1);
+        head++;
+        return entry;
+    }
+}
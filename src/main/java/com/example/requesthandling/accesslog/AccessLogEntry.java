@@ -0,0 +1,14 @@
+package com.example.requesthandling.accesslog;
+
+/**
+ * アクセスログの1件（リクエストの処理中は値の取得のみ行い、整形は書き出しスレッドで行う）
+ *
+ * @param epochMillis 処理の終了時刻
+ * @param route ルートID
+ * @param method HTTPメソッド
+ * @param path リクエストのパス
+ * @param status HTTPステータスコード
+ * @param durationNanos ルートの処理時間
+ */
+public record AccessLogEntry(long epochMillis, String route, String method, String path, int status, long durationNanos) {
+}
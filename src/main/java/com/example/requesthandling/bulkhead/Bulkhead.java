@@ -0,0 +1,127 @@
+package com.example.requesthandling.bulkhead;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * ルートグループ専用の有界スレッドプール（バルクヘッド）
+ *
+ * スレッド数と待ち行列の長さを固定し、どちらも埋まっている場合は待たずに拒否する（RejectedExecutionException）
+ * 他のグループのスレッド・待ち行列とは共有しないため、あるグループの処理が遅くなっても他のグループは影響を受けない
+ *
+ * 仮想スレッド実行モードでは、スレッド数・待ち行列の長さはそのままで、プールのスレッドを仮想スレッドにする
+ * （ルートの処理中のブロッキングでキャリアスレッドを占有しない）
+ */
+public final class Bulkhead extends ThreadPoolExecutor {
+
+    private final String name;
+    private final int queueCapacity;
+    private final LongAdder rejected = new LongAdder();
+    // getActiveCount() はプールのロックを取得するため、実行中の件数は独自に数える
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicInteger peakActive = new AtomicInteger();
+
+    public Bulkhead(String name, int threads, int queueSize) {
+        this(name, threads, queueSize, false);
+    }
+
+    /**
+     * @param name グループ名（スレッド名 bulkhead-{name}-N）
+     * @param threads スレッド数
+     * @param queueSize 待ち行列の長さ（0の場合は待たせない）
+     * @param virtualThreads プールのスレッドを仮想スレッドにする（Java 21以上）
+     */
+    public Bulkhead(String name, int threads, int queueSize, boolean virtualThreads) {
+        super(threads, threads, 0, TimeUnit.MILLISECONDS,
+                queueSize > 0 ? new ArrayBlockingQueue<>(queueSize) : new SynchronousQueue<>(),
+                virtualThreads ? virtualThreadFactory(name) : threadFactory(name));
+        this.name = name;
+        this.queueCapacity = queueSize;
+        setRejectedExecutionHandler((task, executor) -> {
+            rejected.increment();
+            throw new RejectedExecutionException("バルクヘッド '" + name + "' の処理待ちが上限に達しています");
+        });
+        prestartAllCoreThreads();
+    }
+
+    private static ThreadFactory threadFactory(String name) {
+        AtomicInteger sequence = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "bulkhead-" + name + "-" + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Java 17でもビルドできるよう、Thread.ofVirtual().name(...).factory() をリフレクションで呼び出す
+     */
+    private static ThreadFactory virtualThreadFactory(String name) {
+        if (Runtime.version().feature() < 21) {
+            throw new IllegalStateException("仮想スレッドにはJava 21以上が必要です（実行中: Java "
+                    + Runtime.version().feature() + "）");
+        }
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            builder = builderType.getMethod("name", String.class, long.class).invoke(builder, "bulkhead-" + name + "-", 1L);
+            return (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("仮想スレッドのThreadFactoryを生成できません", e);
+        }
+    }
+
+    @Override
+    protected void beforeExecute(Thread thread, Runnable task) {
+        int running = active.incrementAndGet();
+        if (running > peakActive.get()) {
+            peakActive.accumulateAndGet(running, Math::max);
+        }
+    }
+
+    @Override
+    protected void afterExecute(Runnable task, Throwable failure) {
+        active.decrementAndGet();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * 拒否した件数
+     */
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    /**
+     * 同時に実行される最大の件数（スレッドと待ち行列の合計）
+     */
+    public int getCapacity() {
+        return getMaximumPoolSize() + queueCapacity;
+    }
+
+    /**
+     * 飽和状態の指標（threads / active / peakActive / queued / queueCapacity / completed / rejected）
+     */
+    public Map<String, Long> stats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("threads", (long) getMaximumPoolSize());
+        stats.put("active", (long) active.get());
+        stats.put("peakActive", (long) peakActive.get());
+        stats.put("queued", (long) getQueue().size());
+        stats.put("queueCapacity", (long) queueCapacity);
+        stats.put("completed", getCompletedTaskCount());
+        stats.put("rejected", getRejected());
+        return stats;
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.requesthandling.bulkhead;
+
+import com.example.requesthandling.config.ApiProperties;
+import jakarta.annotation.PreDestroy;
+import org.apache.camel.CamelContext;
+import org.apache.camel.spring.boot.CamelContextConfiguration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ルートグループごとのバルクヘッド（api.bulkhead.groups）
+ *
+ * 各グループの Bulkhead を bulkhead-{グループ名} としてCamelのレジストリに登録し、
+ * routes.xml の {@code <threads executorService="bulkhead-read">} から参照する
+ *
+ * 呼び出し元（Undertowのワーカースレッド）はルートの処理が終わるまで待つため、
+ * 各グループが占有できるワーカー数はそのグループの threads + queue-size に制限される
+ * 他のグループの合計がワーカー数未満であれば、どのグループにも常に空きのワーカーが残る（起動時に検査し、満たさない場合は警告する）
+ *
+ * 仮想スレッド実行モード（spring.threads.virtual.enabled=true）では、呼び出し元が仮想スレッドになりワーカー数の上限がないため検査せず、
+ * 各グループのスレッドも仮想スレッドにする（同時実行数の上限は threads + queue-size のまま）
+ * write のグループの threads はWALのグループコミット（SYNC）で1回のfsyncにまとめられるレコード数の上限にもなる
+ */
+@Component
+public class Bulkheads implements CamelContextConfiguration {
+
+    private static final Logger LOG = LoggerFactory.getLogger(Bulkheads.class);
+    private static final String BEAN_PREFIX = "bulkhead-";
+
+    private final Map<String, Bulkhead> bulkheads = new LinkedHashMap<>();
+
+    public Bulkheads(ApiProperties apiProperties, Environment environment) {
+        boolean virtualThreads = environment.getProperty("spring.threads.virtual.enabled", Boolean.class, false);
+        for (Map.Entry<String, ApiProperties.BulkheadGroup> entry : apiProperties.getBulkhead().getGroups().entrySet()) {
+            ApiProperties.BulkheadGroup group = entry.getValue();
+            bulkheads.put(entry.getKey(),
+                    new Bulkhead(entry.getKey(), group.getThreads(), group.getQueueSize(), virtualThreads));
+        }
+        if (!virtualThreads) {
+            checkWorkerCapacity(environment.getProperty("server.undertow.threads.worker", Integer.class, 0));
+        }
+    }
+
+    /**
+     * 他のグループがすべて埋まっても、各グループに空きのワーカーが残るか
+     */
+    private void checkWorkerCapacity(int workers) {
+        if (workers <= 0) {
+            return;
+        }
+        int total = bulkheads.values().stream().mapToInt(Bulkhead::getCapacity).sum();
+        for (Bulkhead bulkhead : bulkheads.values()) {
+            int others = total - bulkhead.getCapacity();
+            if (others >= workers) {
+                LOG.warn("バルクヘッド '{}' 以外のグループの threads + queue-size の合計 ({}) がワーカースレッド数 ({}) 以上のため、"
+                        + "他のグループが飽和すると '{}' のリクエストがワーカーを待つ可能性があります",
+                        bulkhead.getName(), others, workers, bulkhead.getName());
+            }
+        }
+    }
+
+    @Override
+    public void beforeApplicationStart(CamelContext camelContext) {
+        for (Bulkhead bulkhead : bulkheads.values()) {
+            camelContext.getRegistry().bind(BEAN_PREFIX + bulkhead.getName(), bulkhead);
+        }
+    }
+
+    @Override
+    public void afterApplicationStart(CamelContext camelContext) {
+    }
+
+    /**
+     * グループごとの飽和状態の指標
+     */
+    public Map<String, Map<String, Long>> getStats() {
+        Map<String, Map<String, Long>> stats = new LinkedHashMap<>();
+        for (Bulkhead bulkhead : bulkheads.values()) {
+            stats.put(bulkhead.getName(), bulkhead.stats());
+        }
+        return stats;
+    }
+
+    /**
+     * 実行中の処理の完了を待って停止
+     */
+    @PreDestroy
+    public void close() {
+        for (Bulkhead bulkhead : bulkheads.values()) {
+            bulkhead.shutdown();
+        }
+        for (Bulkhead bulkhead : bulkheads.values()) {
+            try {
+                bulkhead.awaitTermination(30, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+}
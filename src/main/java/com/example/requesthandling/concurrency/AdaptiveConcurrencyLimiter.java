@@ -0,0 +1,165 @@
+package com.example.requesthandling.concurrency;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 処理時間から同時実行数の上限を調整するリミッター（勾配方式、ロックフリー）
+ *
+ * 一定間隔（window）ごとに、その間の平均処理時間（短期）と、負荷のない状態の目安となる長期の平均処理時間を比べて上限を更新する
+ * - 勾配 = tolerance × 長期 / 短期（0.5〜1.0）。短期が長期の tolerance 倍を超えると、待ち行列が伸びているとみなして上限を下げる
+ * - 新しい上限 = 上限 × 勾配 + √上限（処理時間が変わらなければ √上限 ずつ増える）を smoothing で平滑化し、min〜max に収める
+ * - 同時実行数が上限の半分に届かなかった間隔では上限を増やさない（負荷が低いだけで上限が際限なく増えるのを防ぐ）
+ * - 長期の平均は短期の平均にゆっくり追従し、短期の半分を超えて乖離した場合はすばやく近づける（処理時間の恒常的な変化に追従する）
+ *
+ * 取得・解放は同時実行数のCASと加算のみで、上限の更新は間隔ごとに1スレッドだけが行う
+ */
+public final class AdaptiveConcurrencyLimiter {
+
+    private static final double LONG_RTT_ALPHA = 0.02;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final double smoothing;
+    private final long windowNanos;
+    private final int minWindowSamples;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+    private final AtomicLong windowStart;
+    private final LongAdder windowRttSum = new LongAdder();
+    private final LongAdder windowSamples = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    // 以下は間隔ごとの更新（windowStart のCASに成功した1スレッド）でのみ書き込む
+    private volatile double limit;
+    private volatile double longRttNanos;
+    private volatile double shortRttNanos;
+
+    /**
+     * @param initialLimit 初期の上限
+     * @param minLimit 上限の最小値
+     * @param maxLimit 上限の最大値
+     * @param tolerance 長期の平均処理時間に対して許容する短期の平均処理時間の倍率
+     * @param smoothing 上限の更新の平滑化係数（0.0〜1.0。大きいほどすばやく変化する）
+     * @param windowNanos 上限を更新する間隔
+     * @param minWindowSamples 上限を更新するのに必要な間隔あたりの件数
+     * @param nowNanos 現在時刻（System.nanoTime()）
+     */
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, double tolerance,
+                                      double smoothing, long windowNanos, int minWindowSamples, long nowNanos) {
+        if (minLimit < 1 || maxLimit < minLimit) {
+            throw new IllegalArgumentException("minLimit は1以上、maxLimit は minLimit 以上を指定してください");
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.tolerance = tolerance;
+        this.smoothing = smoothing;
+        this.windowNanos = windowNanos;
+        this.minWindowSamples = minWindowSamples;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+        this.windowStart = new AtomicLong(nowNanos);
+    }
+
+    /**
+     * 同時実行数の枠を取得
+     *
+     * @return 上限に達している場合はfalse（release を呼び出さない）
+     */
+    public boolean tryAcquire() {
+        int current = inFlight.get();
+        while (true) {
+            if (current >= (int) limit) {
+                rejected.increment();
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                int running = current + 1;
+                if (running > maxInFlight.get()) {
+                    maxInFlight.accumulateAndGet(running, Math::max);
+                }
+                return true;
+            }
+            current = inFlight.get();
+        }
+    }
+
+    /**
+     * 枠を解放し、処理時間を記録
+     *
+     * @param rttNanos 処理時間
+     * @param nowNanos 現在時刻（System.nanoTime()）
+     */
+    public void release(long rttNanos, long nowNanos) {
+        inFlight.decrementAndGet();
+        windowRttSum.add(rttNanos);
+        windowSamples.increment();
+
+        long start = windowStart.get();
+        if (nowNanos - start >= windowNanos && windowSamples.sum() >= minWindowSamples
+                && windowStart.compareAndSet(start, nowNanos)) {
+            update();
+        }
+    }
+
+    private void update() {
+        long samples = windowSamples.sumThenReset();
+        long rttSum = windowRttSum.sumThenReset();
+        int peak = maxInFlight.getAndSet(inFlight.get());
+        if (samples == 0) {
+            return;
+        }
+        double shortRtt = (double) rttSum / samples;
+        double longRtt = longRttNanos;
+        if (longRtt == 0) {
+            longRtt = shortRtt;
+        } else if (longRtt / shortRtt > 2) {
+            // 処理時間が大きく短縮した（負荷が下がった）場合は、基準をすばやく下げる
+            longRtt = longRtt * 0.5 + shortRtt * 0.5;
+        } else {
+            longRtt = longRtt * (1 - LONG_RTT_ALPHA) + shortRtt * LONG_RTT_ALPHA;
+        }
+
+        double current = limit;
+        double gradient = Math.max(0.5, Math.min(1.0, tolerance * longRtt / shortRtt));
+        double target = current * gradient + Math.sqrt(current);
+        if (target > current && peak < current / 2) {
+            // 上限まで使われていない間隔では増やさない
+            target = current;
+        }
+        double next = current * (1 - smoothing) + target * smoothing;
+        limit = Math.max(minLimit, Math.min(maxLimit, next));
+        longRttNanos = longRtt;
+        shortRttNanos = shortRtt;
+    }
+
+    /**
+     * 現在の上限
+     */
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    /**
+     * 長期の平均処理時間（ナノ秒）
+     */
+    public double getLongRttNanos() {
+        return longRttNanos;
+    }
+
+    /**
+     * 直近の間隔の平均処理時間（ナノ秒）
+     */
+    public double getShortRttNanos() {
+        return shortRttNanos;
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.requesthandling.concurrency;
+
+import com.example.requesthandling.config.ApiProperties;
+import com.example.requesthandling.metrics.RouteMetricsRegistry;
+import com.example.requesthandling.processor.ErrorResponseRenderer;
+import com.example.requesthandling.processor.ErrorTemplate;
+import org.apache.camel.CamelContext;
+import org.apache.camel.Exchange;
+import org.apache.camel.Message;
+import org.apache.camel.NamedNode;
+import org.apache.camel.Route;
+import org.apache.camel.spi.RoutePolicy;
+import org.apache.camel.spi.RoutePolicyFactory;
+import org.apache.camel.support.RoutePolicySupport;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * ルートごとの同時実行数の適応的な制限（RoutePolicyFactory）
+ *
+ * direct: で始まるルート（excluded-routes を除く）に AdaptiveConcurrencyLimiter を付与する
+ * - ルートの開始時に枠を取得できない場合は、Processorを実行せずに503と Retry-After を返す
+ *   （Exchange の routeStop を設定し、呼び出し元の REST DSL のルートも含めて以降の処理を打ち切る）
+ * - ルートの終了時に枠を解放し、処理時間から上限を調整する
+ */
+@Component
+public class ConcurrencyLimitPolicyFactory implements RoutePolicyFactory {
+
+    private static final String START_PROPERTY_PREFIX = "RequestHandling.ConcurrencyStart.";
+    private static final ErrorTemplate SERVICE_UNAVAILABLE = ErrorTemplate.of(503,
+            "ルート '{0}' の同時実行数が上限（{1}）に達しています。{2}秒後に再試行してください", "{3}", "{4}");
+
+    private final ApiProperties.ConcurrencyLimit config;
+    private final ErrorResponseRenderer errorRenderer;
+    private final String retryAfter;
+    private final ConcurrentSkipListMap<String, AdaptiveConcurrencyLimiter> limiters = new ConcurrentSkipListMap<>();
+
+    public ConcurrencyLimitPolicyFactory(ApiProperties apiProperties, ErrorResponseRenderer errorRenderer) {
+        this.config = apiProperties.getConcurrencyLimit();
+        this.errorRenderer = errorRenderer;
+        this.retryAfter = Long.toString(Math.max(1, config.getRetryAfter().toSeconds()));
+    }
+
+    @Override
+    public RoutePolicy createRoutePolicy(CamelContext camelContext, String routeId, NamedNode route) {
+        if (!config.isEnabled() || config.getExcludedRoutes().contains(routeId)
+                || !RouteMetricsRegistry.isDirectRoute(route)) {
+            return null;
+        }
+        AdaptiveConcurrencyLimiter limiter = limiters.computeIfAbsent(routeId, id -> new AdaptiveConcurrencyLimiter(
+                config.getInitialLimit(), config.getMinLimit(), config.getMaxLimit(), config.getTolerance(),
+                config.getSmoothing(), config.getWindow().toNanos(), config.getMinWindowSamples(), System.nanoTime()));
+        return new ConcurrencyLimitRoutePolicy(routeId, limiter);
+    }
+
+    /**
+     * ルートごとの上限・同時実行数・拒否した件数・平均処理時間（ミリ秒）
+     */
+    public Map<String, Map<String, Number>> getStats() {
+        Map<String, Map<String, Number>> stats = new LinkedHashMap<>();
+        for (Map.Entry<String, AdaptiveConcurrencyLimiter> entry : limiters.entrySet()) {
+            AdaptiveConcurrencyLimiter limiter = entry.getValue();
+            Map<String, Number> values = new LinkedHashMap<>();
+            values.put("limit", limiter.getLimit());
+            values.put("inFlight", limiter.getInFlight());
+            values.put("rejected", limiter.getRejected());
+            values.put("shortRttMs", toMillis(limiter.getShortRttNanos()));
+            values.put("longRttMs", toMillis(limiter.getLongRttNanos()));
+            stats.put(entry.getKey(), values);
+        }
+        return stats;
+    }
+
+    private static double toMillis(double nanos) {
+        // マイクロ秒単位に丸める
+        return Math.round(nanos / 1_000.0) / 1_000.0;
+    }
+
+    private final class ConcurrencyLimitRoutePolicy extends RoutePolicySupport {
+
+        private final String routeId;
+        private final AdaptiveConcurrencyLimiter limiter;
+        private final String startProperty;
+
+        ConcurrencyLimitRoutePolicy(String routeId, AdaptiveConcurrencyLimiter limiter) {
+            this.routeId = routeId;
+            this.limiter = limiter;
+            this.startProperty = START_PROPERTY_PREFIX + routeId;
+        }
+
+        @Override
+        public void onExchangeBegin(Route route, Exchange exchange) {
+            if (limiter.tryAcquire()) {
+                exchange.setProperty(startProperty, System.nanoTime());
+                return;
+            }
+            Message message = exchange.getMessage();
+            String path = message.getHeader(Exchange.HTTP_URI, String.class);
+            String method = message.getHeader(Exchange.HTTP_METHOD, String.class);
+            message.setHeader(HttpHeaders.RETRY_AFTER, retryAfter);
+            errorRenderer.write(exchange, SERVICE_UNAVAILABLE,
+                    routeId, Integer.toString(limiter.getLimit()), retryAfter, path, method);
+            exchange.setRouteStop(true);
+        }
+
+        @Override
+        public void onExchangeDone(Route route, Exchange exchange) {
+            Object start = exchange.removeProperty(startProperty);
+            if (start instanceof Long startNanos) {
+                long now = System.nanoTime();
+                limiter.release(now - startNanos, now);
+            }
+        }
+    }
+}
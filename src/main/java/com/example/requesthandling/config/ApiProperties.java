@@ -0,0 +1,290 @@
+package com.example.requesthandling.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * API設定プロパティ
+ */
+@Component
+@ConfigurationProperties(prefix = "api")
+@Data
+public class ApiProperties {
+
+    /**
+     * REST DSLのエンドポイントを受け付けるHTTPトランスポート
+     */
+    private Transport transport = Transport.SERVLET;
+
+    /**
+     * GET /api/users/{id} のレスポンスキャッシュ
+     */
+    private ResponseCache responseCache = new ResponseCache();
+
+    /**
+     * リクエストボディの読み込み
+     */
+    private Request request = new Request();
+
+    /**
+     * ルートごとのメトリクス（GET /api/metrics）
+     */
+    private Metrics metrics = new Metrics();
+
+    /**
+     * アクセスログ（ロガー名: access-log）
+     */
+    private AccessLog accessLog = new AccessLog();
+
+    /**
+     * クライアントごとのリクエスト数の制限（超えた場合は429）
+     */
+    private RateLimit rateLimit = new RateLimit();
+
+    /**
+     * ルートごとの同時実行数の適応的な制限（超えた場合は503）
+     */
+    private ConcurrencyLimit concurrencyLimit = new ConcurrencyLimit();
+
+    /**
+     * ルートグループごとの専用スレッドプール（routes.xml の {@code <threads executorService="bulkhead-{グループ名}">}）
+     */
+    private Bulkhead bulkhead = new Bulkhead();
+
+    @Data
+    public static class ResponseCache {
+
+        /**
+         * シリアライズ済みレスポンスをキャッシュする
+         */
+        private boolean enabled = true;
+
+        /**
+         * 最大件数（2のべき乗に切り上げ）
+         */
+        private int maxEntries = 65_536;
+    }
+
+    @Data
+    public static class Request {
+
+        /**
+         * ユーザー1件分のリクエストボディ（POST /api/users, PUT /api/users/{id}）の最大サイズ
+         */
+        private DataSize maxBodySize = DataSize.ofKilobytes(64);
+
+        /**
+         * 一括処理のリクエストボディ（POST /api/users/batch）の最大サイズ
+         */
+        private DataSize maxBatchBodySize = DataSize.ofMegabytes(2);
+    }
+
+    @Data
+    public static class Metrics {
+
+        /**
+         * ルートごとのレイテンシと件数を計測する（起動時のみ参照）
+         */
+        private boolean enabled = true;
+    }
+
+    @Data
+    public static class AccessLog {
+
+        /**
+         * ルートの終了時にアクセスログを出力する（起動時のみ参照）
+         */
+        private boolean enabled = true;
+
+        /**
+         * 書き出し待ちのバッファの件数（2のべき乗に切り上げ。満杯の場合は破棄）
+         */
+        private int bufferSize = 8_192;
+
+        /**
+         * 書き出しスレッドがバッファを確認する間隔
+         */
+        private Duration drainInterval = Duration.ofMillis(100);
+
+        /**
+         * 既定のサンプリング率（0.0〜1.0）
+         */
+        private double defaultSampleRate = 1.0;
+
+        /**
+         * ルートIDごとのサンプリング率
+         */
+        private Map<String, Double> sampleRates = new HashMap<>();
+
+        /**
+         * 5xxのレスポンスはサンプリング率によらず出力する
+         */
+        private boolean alwaysLogErrors = true;
+    }
+
+    @Data
+    public static class RateLimit {
+
+        /**
+         * リクエスト数を制限する
+         */
+        private boolean enabled = true;
+
+        /**
+         * クライアントを識別するヘッダー（APIキーなど）。値が api-keys のいずれかに一致する場合のみそのキーで識別し、
+         * ヘッダーがない・登録されていない値の場合は接続元のIPアドレスで識別する
+         */
+        private String clientKeyHeader = "X-API-Key";
+
+        /**
+         * クライアントとして識別するAPIキー（空の場合はヘッダーを使用せず、すべて接続元のIPアドレスで識別する）
+         * 未登録の値で識別すると、リクエストごとに値を変えるだけで制限を回避できるため、登録済みの値のみ使用する
+         */
+        private List<String> apiKeys = new ArrayList<>();
+
+        /**
+         * グループごとに保持するクライアントの最大件数（超えた場合はアイドルのクライアントを削除する）
+         */
+        private int maxClients = 100_000;
+
+        /**
+         * クライアントを保持するマップの分割数
+         */
+        private int stripes = 64;
+
+        /**
+         * 制限のグループ（定義順に照合し、最初に一致したグループで制限する。一致しないリクエストは制限しない）
+         */
+        private Map<String, RateLimitGroup> groups = new LinkedHashMap<>();
+    }
+
+    @Data
+    public static class RateLimitGroup {
+
+        /**
+         * 対象のHTTPメソッド（空の場合はすべて）
+         */
+        private List<String> methods = new ArrayList<>();
+
+        /**
+         * 対象のパス（完全一致、または末尾の /** で配下すべて）
+         */
+        private List<String> paths = new ArrayList<>();
+
+        /**
+         * 連続で受け付ける件数
+         */
+        private int capacity = 100;
+
+        /**
+         * 1秒あたりに受け付ける件数
+         */
+        private double refillPerSecond = 50;
+    }
+
+    @Data
+    public static class ConcurrencyLimit {
+
+        /**
+         * ルートごとに同時実行数を制限する（起動時のみ参照）
+         */
+        private boolean enabled = true;
+
+        /**
+         * 初期の上限
+         */
+        private int initialLimit = 20;
+
+        /**
+         * 上限の最小値
+         */
+        private int minLimit = 4;
+
+        /**
+         * 上限の最大値
+         */
+        private int maxLimit = 200;
+
+        /**
+         * 長期の平均処理時間に対して許容する直近の平均処理時間の倍率（超えると上限を下げる）
+         */
+        private double tolerance = 2.0;
+
+        /**
+         * 上限の更新の平滑化係数（0.0〜1.0）
+         */
+        private double smoothing = 0.2;
+
+        /**
+         * 上限を更新する間隔
+         */
+        private Duration window = Duration.ofMillis(100);
+
+        /**
+         * 上限を更新するのに必要な間隔あたりの件数
+         */
+        private int minWindowSamples = 10;
+
+        /**
+         * 503で返す Retry-After
+         */
+        private Duration retryAfter = Duration.ofSeconds(1);
+
+        /**
+         * 制限しないルートID（過負荷時も応答させるヘルスチェックなど）
+         */
+        private List<String> excludedRoutes = new ArrayList<>(List.of("health-route", "metrics-route"));
+    }
+
+    @Data
+    public static class Bulkhead {
+
+        /**
+         * グループ名ごとのスレッドプール（routes.xml で参照するグループはすべて定義する）
+         */
+        private Map<String, BulkheadGroup> groups = new LinkedHashMap<>();
+    }
+
+    @Data
+    public static class BulkheadGroup {
+
+        /**
+         * スレッド数
+         */
+        private int threads = 4;
+
+        /**
+         * 待ち行列の長さ（スレッドと待ち行列が埋まっている場合は503）
+         */
+        private int queueSize = 4;
+    }
+
+    public enum Transport {
+        /** Undertow → CamelHttpTransportServlet（/api/*） → REST DSL */
+        SERVLET("servlet"),
+        /** Undertow → camel-undertow のRESTコンシューマー（Servlet・Spring MVCを経由しない。UndertowTransportConfiguration） */
+        UNDERTOW("undertow");
+
+        private final String component;
+
+        Transport(String component) {
+            this.component = component;
+        }
+
+        /**
+         * REST設定で使用するCamelコンポーネント名
+         */
+        public String getComponent() {
+            return component;
+        }
+    }
+}
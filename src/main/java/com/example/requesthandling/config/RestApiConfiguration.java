@@ -2,36 +2,70 @@ package com.example.requesthandling.config;
 
 import org.apache.camel.builder.RouteBuilder;
 import org.apache.camel.model.rest.RestBindingMode;
+import org.apache.camel.model.rest.RestParamType;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 /**
  * REST API Configuration
- * Servlet REST DSLの設定とエンドポイント定義
+ * REST DSLの設定とエンドポイント定義
+ * 
+ * エンドポイント定義はトランスポート（api.transport）によらず共通で、受け口のコンポーネントのみを切り替える
+ * - servlet: CamelHttpTransportServlet（RequestHandlingApplication で /api/* に登録）
+ * - undertow: 組み込みUndertowのServletより前のハンドラー（UndertowTransportConfiguration。Servletを登録しない）
  */
 @Configuration
 public class RestApiConfiguration {
 
+    /**
+     * REST DSLのコンテキストパス
+     */
+    public static final String CONTEXT_PATH = "/api";
+
     /**
      * REST設定とエンドポイント定義
      */
     @Bean
-    public RouteBuilder restConfigurationRouteBuilder() {
+    public RouteBuilder restConfigurationRouteBuilder(ApiProperties apiProperties) {
         return new RouteBuilder() {
             @Override
             public void configure() throws Exception {
                 // REST設定
                 restConfiguration()
-                    .component("servlet")
+                    .component(apiProperties.getTransport().getComponent())
                     .bindingMode(RestBindingMode.off)
-                    .contextPath("/api")
+                    .contextPath(CONTEXT_PATH)
                     .enableCORS(true)
+                    // routes.xml の direct: のルートを REST のルートに統合しない（メトリクス・アクセスログ・同時実行数の制限は direct: のルートに付与する）
+                    .inlineRoutes(false)
                     .dataFormatProperty("prettyPrint", "true");
+                // リクエストボディをメモリにキャッシュ・一括で読み込まず、Processorに入力ストリームのまま渡す（JsonRequestReaderで上限を検査）
+                if (apiProperties.getTransport() == ApiProperties.Transport.SERVLET) {
+                    restConfiguration().endpointProperty("disableStreamCache", "true");
+                } else {
+                    // レスポンスの InputStream（StreamingUsersResponse）も読み込みながら書き出す
+                    restConfiguration().endpointProperty("useStreaming", "true");
+                }
 
                 // RESTエンドポイント定義
                 rest("/users")
-                    .get("/").to("direct:get-users")
+                    .get("/")
+                        .param().name("limit").type(RestParamType.query).required(false)
+                            .description("1ページの最大件数").endParam()
+                        .param().name("cursor").type(RestParamType.query).required(false)
+                            .description("前ページのnextCursor").endParam()
+                        .param().name("stream").type(RestParamType.query).required(false)
+                            .description("trueの場合ストリーミング出力").endParam()
+                        .to("direct:get-users")
                     .post("/").to("direct:create-user")
+                    .post("/batch").to("direct:batch-users")
+                    .get("/by-email/{email}").to("direct:get-user-by-email")
+                    .get("/search")
+                        .param().name("q").type(RestParamType.query).required(true)
+                            .description("検索文字列（名前の部分一致）").endParam()
+                        .param().name("limit").type(RestParamType.query).required(false)
+                            .description("最大件数").endParam()
+                        .to("direct:search-users")
                     .get("/{id}").to("direct:get-user-by-id")
                     .put("/{id}").to("direct:update-user")
                     .delete("/{id}").to("direct:delete-user");
@@ -39,6 +73,9 @@ public class RestApiConfiguration {
                 rest("/health")
                     .get("/").to("direct:health");
 
+                rest("/metrics")
+                    .get("/").to("direct:metrics");
+
                 rest("/test")
                     .get("/error").to("direct:test-error");
             }
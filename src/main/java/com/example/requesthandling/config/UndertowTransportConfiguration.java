@@ -0,0 +1,61 @@
+package com.example.requesthandling.config;
+
+import com.example.requesthandling.controller.CustomErrorController;
+import com.example.requesthandling.ratelimit.RateLimitFilter;
+import com.example.requesthandling.undertow.EmbeddedUndertowComponent;
+import com.example.requesthandling.undertow.EmbeddedUndertowHost;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.undertow.UndertowServletWebServerFactory;
+import org.springframework.boot.web.server.WebServerFactoryCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Undertowネイティブのトランスポートの設定（api.transport=undertow）
+ *
+ * camel-undertow のRESTコンシューマーを、別のサーバーを起動せずにSpring Bootの組み込みUndertowで受け付ける
+ * - REST設定の component("undertow") は、ここで登録する EmbeddedUndertowComponent（Bean名 undertow）を使う
+ * - 組み込みUndertowのServletより前（initial handler chain）に EmbeddedUndertowHost のハンドラーを挟む
+ *
+ * 仮想スレッド実行モード（VirtualThreadConfiguration）の場合は、コンシューマーの処理を仮想スレッドで開始する
+ * （ルートのProcessorはバルクヘッドの仮想スレッドで実行する）
+ */
+@Configuration
+@ConditionalOnProperty(name = "api.transport", havingValue = "undertow")
+public class UndertowTransportConfiguration {
+
+    private static final Logger LOG = LoggerFactory.getLogger(UndertowTransportConfiguration.class);
+
+    @Bean
+    public EmbeddedUndertowHost embeddedUndertowHost(CustomErrorController errorController,
+                                                     RateLimitFilter rateLimitFilter,
+                                                     @Qualifier("servletVirtualThreadExecutor")
+                                                     ObjectProvider<ExecutorService> servletVirtualThreadExecutor) {
+        return new EmbeddedUndertowHost(RestApiConfiguration.CONTEXT_PATH, errorController, rateLimitFilter,
+                servletVirtualThreadExecutor.getIfAvailable());
+    }
+
+    @Bean("undertow")
+    public EmbeddedUndertowComponent undertowComponent(EmbeddedUndertowHost embeddedUndertowHost) {
+        return new EmbeddedUndertowComponent(embeddedUndertowHost);
+    }
+
+    /**
+     * 組み込みUndertowのServletより前に、REST DSLのエンドポイントへのハンドラーを挟む
+     */
+    @Bean
+    public WebServerFactoryCustomizer<UndertowServletWebServerFactory> embeddedUndertowHostCustomizer(
+            EmbeddedUndertowHost embeddedUndertowHost) {
+        return factory -> {
+            LOG.info("{} 配下をUndertowのハンドラーで直接受け付けます（Servletを経由しない）", RestApiConfiguration.CONTEXT_PATH);
+            factory.addDeploymentInfoCustomizers(deploymentInfo ->
+                    deploymentInfo.addInitialHandlerChainWrapper(embeddedUndertowHost::wrap));
+        };
+    }
+}
@@ -0,0 +1,239 @@
+package com.example.requesthandling.config;
+
+import com.example.requesthandling.persistence.UserWriteAheadLog;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * ユーザーストア設定プロパティ
+ */
+@Component
+@ConfigurationProperties(prefix = "user-store")
+@Data
+public class UserStoreProperties {
+
+    private Storage storage = new Storage();
+
+    private Cache cache = new Cache();
+
+    private WriteBehind writeBehind = new WriteBehind();
+
+    private Wal wal = new Wal();
+
+    private Snapshot snapshot = new Snapshot();
+
+    /**
+     * ユーザーレコードの格納方式
+     */
+    public enum Engine {
+        /** ヒープ上の ConcurrentHashMap（デフォルト） */
+        HEAP,
+        /** ダイレクトバッファ（ヒープ外）。数千万件規模でGCの負荷を抑える */
+        OFF_HEAP,
+        /** データファイル（追記型）。ID → 位置のインデックスのみヒープに保持し、再起動後も残る */
+        FILE,
+        /** JDBCのデータベース（既定は組み込みのH2）。再起動後も残る */
+        JDBC
+    }
+
+    /**
+     * ユーザーレコードの格納先の設定
+     */
+    @Data
+    public static class Storage {
+
+        /**
+         * 格納方式（heap / off-heap / file / jdbc）
+         */
+        private Engine engine = Engine.HEAP;
+
+        /**
+         * OFF_HEAP時に一度に確保するダイレクトバッファのサイズ
+         */
+        private DataSize offHeapChunkSize = DataSize.ofMegabytes(64);
+
+        /**
+         * FILE時の設定
+         */
+        private FileStorage file = new FileStorage();
+
+        /**
+         * JDBC時の設定
+         */
+        private JdbcStorage jdbc = new JdbcStorage();
+    }
+
+    /**
+     * データファイルによる格納の設定
+     */
+    @Data
+    public static class FileStorage {
+
+        /**
+         * データファイル（users.dat）の保存先ディレクトリ
+         */
+        private String directory = "data/users";
+
+        /**
+         * 書き込みごとにfsyncする（無効の場合はOSのページキャッシュへの書き込みで完了とする）
+         */
+        private boolean sync = false;
+    }
+
+    /**
+     * JDBCのデータベースによる格納の設定
+     */
+    @Data
+    public static class JdbcStorage {
+
+        /**
+         * 接続URL（テーブル users は存在しなければ起動時に作成する）
+         */
+        private String url = "jdbc:h2:file:./data/users-db;DB_CLOSE_ON_EXIT=FALSE";
+
+        private String username = "sa";
+
+        private String password = "";
+
+        /**
+         * コネクション数（最小・最大とも同じ値にして、接続の確立・破棄を行わない）
+         */
+        private int poolSize = 8;
+
+        /**
+         * コネクションの取得を待つ最大時間
+         */
+        private Duration connectionTimeout = Duration.ofSeconds(2);
+
+        /**
+         * H2のコネクションごとに再利用する解析済みのプリペアドステートメント数（URLの QUERY_CACHE_SIZE。URLで指定済みの場合は使用しない）
+         */
+        private int statementCacheSize = 32;
+
+        /**
+         * ドライバに渡す追加のプロパティ（H2以外のドライバのステートメントキャッシュの設定など）
+         */
+        private Map<String, String> properties = new LinkedHashMap<>();
+    }
+
+    /**
+     * 低速な格納先（file / jdbc）の前段に置く読み込みキャッシュ（W-TinyLFU）の設定
+     * heap / off-heap では使用しない（格納先の読み込みがキャッシュの参照と同程度に速いため）
+     */
+    @Data
+    public static class Cache {
+
+        /**
+         * 有効にすると、格納方式が file / jdbc の場合にIDによる取得をキャッシュする
+         */
+        private boolean enabled = true;
+
+        /**
+         * 保持する最大件数
+         */
+        private int maxEntries = 10_000;
+
+        /**
+         * 格納からの有効期間（他のプロセスがデータベースを直接更新した場合に、古い値を返し続ける最大時間）
+         */
+        private Duration ttl = Duration.ofMinutes(5);
+
+        /**
+         * 新しいエントリを保持するウィンドウの割合（%）。一度だけのアクセスが多い負荷では大きくする
+         */
+        private int windowPercent = 1;
+    }
+
+    /**
+     * 低速な格納先（file / jdbc）への書き込みを非同期にまとめる設定（write-behind）
+     * 変更はメモリ上のバッファに反映した時点で応答し、バックグラウンドでまとめて格納先に書き出す
+     */
+    @Data
+    public static class WriteBehind {
+
+        /**
+         * 有効にすると、格納方式が file / jdbc の場合に書き込みを非同期にする（heap / off-heap では起動時にエラー）
+         */
+        private boolean enabled = false;
+
+        /**
+         * 書き出し待ちにできるユーザー数の上限（同じIDへの変更は1件にまとめる）
+         */
+        private int capacity = 10_000;
+
+        /**
+         * 書き出し待ちがこの件数に達したら書き出す（1回の書き出しの最大件数）
+         */
+        private int batchSize = 500;
+
+        /**
+         * 件数に達しなくても、この間隔で書き出す（プロセスの異常終了で失われうる変更の期間）
+         */
+        private Duration flushInterval = Duration.ofMillis(50);
+
+        /**
+         * バッファが満杯の場合に、空きを待つ最大時間（超えると変更を失敗させる）
+         */
+        private Duration maxWait = Duration.ofSeconds(1);
+    }
+
+    /**
+     * 追記型ログ（WAL）による永続化の設定
+     */
+    @Data
+    public static class Wal {
+
+        /**
+         * 有効にすると起動時にログを再生し、初期データは投入しない
+         */
+        private boolean enabled = false;
+
+        /**
+         * ログの保存先ディレクトリ
+         */
+        private String directory = "data/wal";
+
+        /**
+         * SYNC: fsync完了後に応答（グループコミット） / ASYNC: 一定間隔でfsync
+         */
+        private UserWriteAheadLog.Durability durability = UserWriteAheadLog.Durability.SYNC;
+
+        /**
+         * ASYNC時のfsync間隔
+         */
+        private Duration asyncFlushInterval = Duration.ofMillis(10);
+
+        /**
+         * セグメントファイルの切り替えサイズ
+         */
+        private DataSize segmentSize = DataSize.ofMegabytes(64);
+    }
+
+    /**
+     * スナップショットとログのコンパクションの設定（WALが有効な場合のみ使用）
+     */
+    @Data
+    public static class Snapshot {
+
+        /**
+         * 有効にすると定期的にスナップショットを取得し、不要になったWALセグメントを削除する
+         */
+        private boolean enabled = false;
+
+        /**
+         * スナップショットを取得するか判定する間隔
+         */
+        private Duration interval = Duration.ofMinutes(5);
+
+        /**
+         * 前回のスナップショット以降のWALレコード数がこの値未満の場合は取得しない
+         */
+        private long minLogRecords = 100_000;
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.requesthandling.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.undertow.UndertowServletWebServerFactory;
+import org.springframework.boot.web.server.WebServerFactoryCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 仮想スレッド実行モードの設定（Java 21以上）
+ *
+ * spring.threads.virtual.enabled=true の場合、Undertowのワーカースレッドの代わりに
+ * リクエストごとの仮想スレッドでServletを実行する
+ * ルートのProcessorはバルクヘッド（Bulkheads）のスレッドで実行され、このモードではバルクヘッドのスレッドも仮想スレッドになる
+ * （グループごとの同時実行数の上限は api.bulkhead.groups の threads + queue-size のまま）
+ *
+ * Spring Bootの spring.threads.virtual.enabled はTomcat・Jettyのみに適用されるため、Undertowはここで設定する
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "spring.threads.virtual", name = "enabled", havingValue = "true")
+public class VirtualThreadConfiguration {
+
+    private static final Logger LOG = LoggerFactory.getLogger(VirtualThreadConfiguration.class);
+
+    /**
+     * リクエストごとに仮想スレッドを生成するExecutor
+     * Java 17でもビルドできるよう、リフレクションで生成する
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService servletVirtualThreadExecutor() {
+        if (Runtime.version().feature() < 21) {
+            throw new IllegalStateException("仮想スレッドにはJava 21以上が必要です（実行中: Java "
+                    + Runtime.version().feature() + "）。spring.threads.virtual.enabled を false にしてください");
+        }
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("仮想スレッドのExecutorを生成できません", e);
+        }
+    }
+
+    /**
+     * UndertowのServlet実行をワーカースレッドプールから仮想スレッドに切り替える
+     * （server.undertow.threads.worker の上限は適用されなくなる）
+     */
+    @Bean
+    public WebServerFactoryCustomizer<UndertowServletWebServerFactory> virtualThreadUndertowCustomizer(
+            ExecutorService servletVirtualThreadExecutor) {
+        return factory -> {
+            LOG.info("仮想スレッドでリクエストを処理します");
+            factory.addDeploymentInfoCustomizers(deploymentInfo -> deploymentInfo.setExecutor(servletVirtualThreadExecutor));
+        };
+    }
+}
@@ -1,7 +1,7 @@
 package com.example.requesthandling.controller;
 
-import com.example.requesthandling.config.ErrorMessageProperties;
-import com.example.requesthandling.model.ErrorResponse;
+import com.example.requesthandling.processor.ErrorResponseRenderer;
+import com.example.requesthandling.processor.ErrorTemplate;
 import jakarta.servlet.RequestDispatcher;
 import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.boot.web.servlet.error.ErrorController;
@@ -11,64 +11,67 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
-import java.time.LocalDateTime;
-
 /**
  * カスタムエラーコントローラー
  * 404, 405などのHTTPエラーをハンドリング
+ *
+ * エラーレスポンスは ErrorResponseRenderer のテンプレートで描画する（ErrorResponse・Jacksonを経由しない）
  */
 @RestController
 public class CustomErrorController implements ErrorController {
 
-    private final ErrorMessageProperties errorMessageProperties;
+    private static final ErrorTemplate NOT_FOUND =
+            ErrorTemplate.of(404, "パス '{0}' は存在しません。URLを確認してください。", "{0}", "{1}");
+    private static final ErrorTemplate METHOD_NOT_ALLOWED =
+            ErrorTemplate.of(405, "パス '{0}' に対して、メソッド '{1}' は許可されていません。", "{0}", "{1}");
+    private static final ErrorTemplate INTERNAL_ERROR =
+            ErrorTemplate.of(500, "サーバー内部でエラーが発生しました。管理者に連絡してください。", "{0}", "{1}");
+
+    private final ErrorResponseRenderer errorRenderer;
 
-    public CustomErrorController(ErrorMessageProperties errorMessageProperties) {
-        this.errorMessageProperties = errorMessageProperties;
+    public CustomErrorController(ErrorResponseRenderer errorRenderer) {
+        this.errorRenderer = errorRenderer;
     }
 
     /**
      * エラーハンドリング
      */
     @RequestMapping(value = "/error", produces = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<ErrorResponse> handleError(HttpServletRequest request) {
+    public ResponseEntity<byte[]> handleError(HttpServletRequest request) {
         Object status = request.getAttribute(RequestDispatcher.ERROR_STATUS_CODE);
         Object requestUri = request.getAttribute(RequestDispatcher.ERROR_REQUEST_URI);
-        String method = request.getMethod();
         
         int statusCode = status != null ? Integer.parseInt(status.toString()) : 500;
         String path = requestUri != null ? requestUri.toString() : "不明";
         
-        // カスタムエラーメッセージを取得
-        String customMessage = errorMessageProperties.getMessage(statusCode);
-        
-        // エラーレスポンスを構築
-        ErrorResponse errorResponse = ErrorResponse.builder()
-                .code(statusCode)
-                .message(customMessage)
-                .details(getDetailMessage(statusCode, path, method))
-                .timestamp(LocalDateTime.now().toString())
-                .path(path)
-                .method(method)
-                .build();
-        
+        return errorResponse(statusCode, path, request.getMethod());
+    }
+
+    /**
+     * ステータスコードに応じたエラーレスポンスを生成
+     */
+    ResponseEntity<byte[]> errorResponse(int statusCode, String path, String method) {
         HttpStatus httpStatus = HttpStatus.resolve(statusCode);
         if (httpStatus == null) {
             httpStatus = HttpStatus.INTERNAL_SERVER_ERROR;
         }
         
-        return ResponseEntity.status(httpStatus).body(errorResponse);
+        return ResponseEntity.status(httpStatus)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(render(statusCode, path, method));
     }
-    
+
     /**
-     * ステータスコードに応じた詳細メッセージを生成
+     * ステータスコードに応じたエラーレスポンスのボディ（UTF-8のJSON）
+     * Servletのエラーページを経由しないトランスポート（api.transport=undertow）の404・405でも使用する
      */
-    private String getDetailMessage(int statusCode, String path, String method) {
-        return switch (statusCode) {
-            case 404 -> String.format("パス '%s' は存在しません。URLを確認してください。", path);
-            case 405 -> String.format("パス '%s' に対して、メソッド '%s' は許可されていません。", path, method);
-            case 500 -> "サーバー内部でエラーが発生しました。管理者に連絡してください。";
-            default -> String.format("ステータスコード %d のエラーが発生しました。", statusCode);
+    public byte[] render(int statusCode, String path, String method) {
+        ErrorTemplate template = switch (statusCode) {
+            case 404 -> NOT_FOUND;
+            case 405 -> METHOD_NOT_ALLOWED;
+            case 500 -> INTERNAL_ERROR;
+            default -> ErrorTemplate.of(statusCode, "ステータスコード " + statusCode + " のエラーが発生しました。", "{0}", "{1}");
         };
+        return errorRenderer.render(template, path, method);
     }
 }
-
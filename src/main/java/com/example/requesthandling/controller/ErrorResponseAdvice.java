@@ -0,0 +1,47 @@
+package com.example.requesthandling.controller;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.HttpRequestMethodNotSupportedException;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.servlet.NoHandlerFoundException;
+
+import java.util.Set;
+
+/**
+ * Spring MVC で処理される404/405のハンドリング
+ *
+ * ハンドラーが見つからない場合に、sendError によるエラーページ（/error）へのディスパッチを経由せず、
+ * その場で CustomErrorController と同じエラーレスポンスを返す
+ * （Camelの CamelHttpTransportServlet が返す404/405は、従来どおり /error で処理される）
+ */
+@RestControllerAdvice
+public class ErrorResponseAdvice {
+
+    private final CustomErrorController errorController;
+
+    public ErrorResponseAdvice(CustomErrorController errorController) {
+        this.errorController = errorController;
+    }
+
+    @ExceptionHandler(NoHandlerFoundException.class)
+    public ResponseEntity<byte[]> handleNotFound(HttpServletRequest request) {
+        return errorController.errorResponse(404, request.getRequestURI(), request.getMethod());
+    }
+
+    @ExceptionHandler(HttpRequestMethodNotSupportedException.class)
+    public ResponseEntity<byte[]> handleMethodNotAllowed(HttpRequestMethodNotSupportedException e,
+                                                         HttpServletRequest request) {
+        ResponseEntity<byte[]> response = errorController.errorResponse(405, request.getRequestURI(), request.getMethod());
+        Set<HttpMethod> supported = e.getSupportedHttpMethods();
+        if (supported == null || supported.isEmpty()) {
+            return response;
+        }
+        return ResponseEntity.status(response.getStatusCode())
+                .headers(response.getHeaders())
+                .allow(supported.toArray(new HttpMethod[0]))
+                .body(response.getBody());
+    }
+}
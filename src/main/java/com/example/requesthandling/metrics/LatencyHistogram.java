@@ -0,0 +1,111 @@
+package com.example.requesthandling.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * レイテンシのヒストグラム（HDR Histogram と同様の対数・線形バケット、ロックフリー）
+ *
+ * - 値（ナノ秒）を2のべき乗ごとの区間に分け、各区間をさらに SUB_BUCKETS 個に等分する（相対誤差は約3%）
+ * - 記録はバケットのカウンタの加算1回と、最大値の更新（最大値を超えた場合のみCAS）のみ
+ * - 集計は記録と並行して行う（集計中の記録は反映される場合とされない場合がある）
+ *
+ * MAX_VALUE を超える値は最大のバケットに記録する（最大値は正確な値を保持する）
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    // 2^40 ナノ秒（約18分）まで
+    private static final int MAX_EXPONENT = 40;
+    static final long MAX_VALUE = (1L << (MAX_EXPONENT + 1)) - 1;
+    static final int BUCKET_COUNT = index(MAX_VALUE) + 1;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * ナノ秒単位の値を記録
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        counts.incrementAndGet(index(Math.min(value, MAX_VALUE)));
+        long current = max.get();
+        while (value > current && !max.compareAndSet(current, value)) {
+            current = max.get();
+        }
+    }
+
+    /**
+     * 件数・パーセンタイル・最大値を集計（バケットを2回走査するのみで、コピーしない）
+     */
+    public Summary summarize() {
+        long count = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            count += counts.get(i);
+        }
+        long maxValue = max.get();
+        if (count == 0) {
+            return new Summary(0, 0, 0, 0, maxValue);
+        }
+        long rank50 = rank(count, 50);
+        long rank95 = rank(count, 95);
+        long rank99 = rank(count, 99);
+        // 2回目の走査の累積は1回目の件数以上になる（カウンタは減らない）ため、すべて求まる
+        long p50 = -1;
+        long p95 = -1;
+        long p99 = -1;
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT && p99 < 0; i++) {
+            seen += counts.get(i);
+            long value = Math.min(highestValue(i), maxValue);
+            if (p50 < 0 && seen >= rank50) {
+                p50 = value;
+            }
+            if (p95 < 0 && seen >= rank95) {
+                p95 = value;
+            }
+            if (p99 < 0 && seen >= rank99) {
+                p99 = value;
+            }
+        }
+        return new Summary(count, p50, p95, p99, maxValue);
+    }
+
+    private static long rank(long count, int percentile) {
+        return Math.max(1, (count * percentile + 99) / 100);
+    }
+
+    /**
+     * バケットの番号
+     * 2 * SUB_BUCKETS 未満は値そのもの、それ以上は上位 SUB_BUCKET_BITS + 1 ビットで区間内の位置を決める
+     */
+    static int index(long value) {
+        if (value < 2 * SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - SUB_BUCKET_BITS;
+        return 2 * SUB_BUCKETS + (exponent - SUB_BUCKET_BITS - 1) * SUB_BUCKETS
+                + (int) (value >>> shift) - SUB_BUCKETS;
+    }
+
+    /**
+     * バケットに入る最大の値
+     */
+    static long highestValue(int index) {
+        if (index < 2 * SUB_BUCKETS) {
+            return index;
+        }
+        int exponent = (index - 2 * SUB_BUCKETS) / SUB_BUCKETS + SUB_BUCKET_BITS + 1;
+        int shift = exponent - SUB_BUCKET_BITS;
+        long top = (index - 2 * SUB_BUCKETS) % SUB_BUCKETS + SUB_BUCKETS;
+        return ((top + 1) << shift) - 1;
+    }
+
+    /**
+     * 集計結果（値はナノ秒。パーセンタイルはそのバケットの最大値で、最大値を超えない）
+     */
+    public record Summary(long count, long p50, long p95, long p99, long max) {
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.requesthandling.metrics;
+
+import com.example.requesthandling.model.RouteStats;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 1ルートのメトリクス（レイテンシのヒストグラム、ステータスコードの種類ごとの件数、直近の処理件数）
+ *
+ * 記録はすべてロックフリー（カウンタの加算とヒストグラムの記録のみ）
+ * 直近の処理件数は1秒ごとのスロットのリングで数える（秒の切り替わりと同時の記録は数え漏れる場合がある概算値）
+ */
+public final class RouteMetrics {
+
+    static final int RATE_WINDOW_SECONDS = 60;
+    private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+    // 記録中の秒のスロットを除いて RATE_WINDOW_SECONDS 秒分を保持する
+    private static final int RATE_SLOTS = RATE_WINDOW_SECONDS + 1;
+    private static final String[] OUTCOMES = {"1xx", "2xx", "3xx", "4xx", "5xx"};
+
+    private final String routeId;
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LongAdder[] outcomes = new LongAdder[OUTCOMES.length];
+    private final AtomicLongArray slotSeconds = new AtomicLongArray(RATE_SLOTS);
+    private final AtomicLongArray slotCounts = new AtomicLongArray(RATE_SLOTS);
+
+    RouteMetrics(String routeId) {
+        this.routeId = routeId;
+        for (int i = 0; i < outcomes.length; i++) {
+            outcomes[i] = new LongAdder();
+        }
+        for (int i = 0; i < RATE_SLOTS; i++) {
+            slotSeconds.set(i, Long.MIN_VALUE);
+        }
+    }
+
+    public String getRouteId() {
+        return routeId;
+    }
+
+    /**
+     * 1件の処理を記録
+     *
+     * @param endNanos 終了時刻（System.nanoTime()）
+     * @param elapsedNanos 処理時間
+     * @param status HTTPステータスコード
+     */
+    public void record(long endNanos, long elapsedNanos, int status) {
+        latency.record(elapsedNanos);
+        outcomes[Math.min(Math.max(status / 100, 1), OUTCOMES.length) - 1].increment();
+
+        long second = endNanos / NANOS_PER_SECOND;
+        int slot = (int) Math.floorMod(second, (long) RATE_SLOTS);
+        long slotSecond = slotSeconds.get(slot);
+        if (slotSecond != second && slotSeconds.compareAndSet(slot, slotSecond, second)) {
+            slotCounts.set(slot, 0);
+        }
+        slotCounts.incrementAndGet(slot);
+    }
+
+    /**
+     * 現時点のメトリクスを集計
+     *
+     * @param nowNanos 現在時刻（System.nanoTime()）
+     */
+    public RouteStats stats(long nowNanos) {
+        LatencyHistogram.Summary summary = latency.summarize();
+
+        Map<String, Long> outcomeCounts = new LinkedHashMap<>();
+        for (int i = 1; i < OUTCOMES.length; i++) {
+            outcomeCounts.put(OUTCOMES[i], outcomes[i].sum());
+        }
+        long informational = outcomes[0].sum();
+        if (informational > 0) {
+            outcomeCounts.put(OUTCOMES[0], informational);
+        }
+
+        // 記録中の秒を除く直近 RATE_WINDOW_SECONDS 秒
+        long current = nowNanos / NANOS_PER_SECOND;
+        long recent = 0;
+        for (int i = 0; i < RATE_SLOTS; i++) {
+            long second = slotSeconds.get(i);
+            if (second < current && second >= current - RATE_WINDOW_SECONDS) {
+                recent += slotCounts.get(i);
+            }
+        }
+
+        Map<String, Double> latencyMs = new LinkedHashMap<>();
+        latencyMs.put("p50", toMillis(summary.p50()));
+        latencyMs.put("p95", toMillis(summary.p95()));
+        latencyMs.put("p99", toMillis(summary.p99()));
+        latencyMs.put("max", toMillis(summary.max()));
+
+        return RouteStats.builder()
+                .route(routeId)
+                .count(summary.count())
+                .ratePerSecond(recent / (double) RATE_WINDOW_SECONDS)
+                .outcomes(outcomeCounts)
+                .latencyMs(latencyMs)
+                .build();
+    }
+
+    private static double toMillis(long nanos) {
+        // マイクロ秒単位に丸める
+        return Math.round(nanos / 1_000.0) / 1_000.0;
+    }
+}
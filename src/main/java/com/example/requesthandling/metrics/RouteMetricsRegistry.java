@@ -0,0 +1,133 @@
+package com.example.requesthandling.metrics;
+
+import com.example.requesthandling.config.ApiProperties;
+import com.example.requesthandling.model.RouteStats;
+import org.apache.camel.CamelContext;
+import org.apache.camel.Exchange;
+import org.apache.camel.NamedNode;
+import org.apache.camel.Route;
+import org.apache.camel.model.FromDefinition;
+import org.apache.camel.model.RouteDefinition;
+import org.apache.camel.spi.RoutePolicy;
+import org.apache.camel.spi.RoutePolicyFactory;
+import org.apache.camel.support.RoutePolicySupport;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * ルートごとのメトリクスの登録と計測
+ *
+ * RoutePolicyFactory としてCamelContextに登録され（Camel Spring Bootが自動で登録する）、
+ * direct: で始まるルート（routes.xml のルート実装）にのみ計測用のRoutePolicyを付与する
+ * （REST DSLが生成するルートは direct: のルートを呼び出すだけのため計測しない）
+ *
+ * 計測はルートの開始時刻をExchangeのプロパティに保持し、ルートの終了時に処理時間とステータスコードを記録するのみ
+ * - ステータスコードは CamelHttpResponseCode ヘッダー（未設定の場合は200、例外で終了した場合は500）
+ */
+@Component
+public class RouteMetricsRegistry implements RoutePolicyFactory {
+
+    private static final String START_PROPERTY_PREFIX = "RequestHandling.RouteStart.";
+
+    @Autowired
+    private ApiProperties apiProperties;
+
+    private final ConcurrentSkipListMap<String, RouteMetrics> routes = new ConcurrentSkipListMap<>();
+    private final long startNanos = System.nanoTime();
+
+    @Override
+    public RoutePolicy createRoutePolicy(CamelContext camelContext, String routeId, NamedNode route) {
+        if (!apiProperties.getMetrics().isEnabled() || !isDirectRoute(route)) {
+            return null;
+        }
+        return new MetricsRoutePolicy(routes.computeIfAbsent(routeId, RouteMetrics::new));
+    }
+
+    /**
+     * routes.xml のルート実装（入力が direct: で始まるルート）か
+     */
+    public static boolean isDirectRoute(NamedNode route) {
+        if (!(route instanceof RouteDefinition definition)) {
+            return false;
+        }
+        FromDefinition input = definition.getInput();
+        return input != null && input.getEndpointUri() != null && input.getEndpointUri().startsWith("direct:");
+    }
+
+    /**
+     * 計測対象のルートのメトリクス（ルートID順）
+     */
+    public List<RouteStats> snapshot() {
+        long now = System.nanoTime();
+        List<RouteStats> stats = new ArrayList<>(routes.size());
+        for (RouteMetrics metrics : routes.values()) {
+            stats.add(metrics.stats(now));
+        }
+        return stats;
+    }
+
+    /**
+     * ルートのメトリクス（計測対象外の場合はnull）
+     */
+    public RouteMetrics get(String routeId) {
+        return routes.get(routeId);
+    }
+
+    /**
+     * 計測開始からの経過秒数
+     */
+    public long getUptimeSeconds() {
+        return (System.nanoTime() - startNanos) / 1_000_000_000L;
+    }
+
+    /**
+     * ルートの終了時点のステータスコード（CamelHttpResponseCode ヘッダー。未設定の場合は200、例外で終了した場合は500）
+     */
+    public static int status(Exchange exchange) {
+        if (exchange.isFailed()) {
+            return 500;
+        }
+        Object code = exchange.getMessage().getHeader(Exchange.HTTP_RESPONSE_CODE);
+        if (code instanceof Number number) {
+            return number.intValue();
+        }
+        if (code != null) {
+            try {
+                return Integer.parseInt(code.toString().trim());
+            } catch (NumberFormatException e) {
+                return 200;
+            }
+        }
+        return 200;
+    }
+
+    private static final class MetricsRoutePolicy extends RoutePolicySupport {
+
+        private final RouteMetrics metrics;
+        private final String startProperty;
+
+        MetricsRoutePolicy(RouteMetrics metrics) {
+            this.metrics = metrics;
+            this.startProperty = START_PROPERTY_PREFIX + metrics.getRouteId();
+        }
+
+        @Override
+        public void onExchangeBegin(Route route, Exchange exchange) {
+            exchange.setProperty(startProperty, System.nanoTime());
+        }
+
+        @Override
+        public void onExchangeDone(Route route, Exchange exchange) {
+            Object start = exchange.removeProperty(startProperty);
+            if (!(start instanceof Long startNanos)) {
+                return;
+            }
+            long end = System.nanoTime();
+            metrics.record(end, end - startNanos, status(exchange));
+        }
+    }
+}
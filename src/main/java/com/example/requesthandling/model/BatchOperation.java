@@ -0,0 +1,31 @@
+package com.example.requesthandling.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 一括処理の1操作DTO
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchOperation {
+
+    /**
+     * 操作種別（create / update / delete）
+     */
+    private String op;
+
+    /**
+     * 対象のユーザーID（update / delete）
+     */
+    private String id;
+
+    /**
+     * 作成・更新後のユーザー（create / update）
+     */
+    private User user;
+}
@@ -0,0 +1,48 @@
+package com.example.requesthandling.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 一括処理の1操作の結果DTO
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchResult {
+
+    /**
+     * リクエスト内の操作の位置（0始まり）
+     */
+    private int index;
+
+    /**
+     * 操作種別
+     */
+    private String op;
+
+    /**
+     * 結果（単体APIと同じHTTPステータスコード）
+     */
+    private int status;
+
+    /**
+     * 対象のユーザーID
+     */
+    private String id;
+
+    /**
+     * 作成・更新後のユーザー
+     */
+    private User user;
+
+    /**
+     * 失敗した場合の理由
+     */
+    private String error;
+}
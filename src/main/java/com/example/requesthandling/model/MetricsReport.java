@@ -0,0 +1,66 @@
+package com.example.requesthandling.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * メトリクスDTO（GET /api/metrics）
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MetricsReport {
+
+    /**
+     * 計測開始からの経過秒数
+     */
+    private long uptimeSeconds;
+
+    /**
+     * ルートごとのメトリクス（ルートID順）
+     */
+    private List<RouteStats> routes;
+
+    /**
+     * GET /api/users/{id} のレスポンスキャッシュの件数（hits / misses / evictions / invalidations）
+     */
+    private Map<String, Long> responseCache;
+
+    /**
+     * ユーザーの格納先（file / jdbc）の読み込みキャッシュ（size / maxEntries / hits / misses / hitRatio / evictions / expirations / invalidations / rejections）
+     * キャッシュを使用していない場合は空
+     */
+    private Map<String, Number> storeCache;
+
+    /**
+     * ユーザーの格納先（file / jdbc）への非同期の書き出し（pending / capacity / enqueued / coalesced / flushed / batches / failures / waits）
+     * 無効の場合は空
+     */
+    private Map<String, Number> writeBehind;
+
+    /**
+     * アクセスログの件数（written / sampledOut / dropped）
+     */
+    private Map<String, Long> accessLog;
+
+    /**
+     * リクエスト数の制限のグループごとの件数（allowed / rejected / clients / evicted）
+     */
+    private Map<String, Map<String, Long>> rateLimit;
+
+    /**
+     * ルートごとの同時実行数の制限（limit / inFlight / rejected / shortRttMs / longRttMs）
+     */
+    private Map<String, Map<String, Number>> concurrencyLimit;
+
+    /**
+     * バルクヘッドのグループごとの飽和状態（threads / active / peakActive / queued / queueCapacity / completed / rejected）
+     */
+    private Map<String, Map<String, Long>> bulkheads;
+}
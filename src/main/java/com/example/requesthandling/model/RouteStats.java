@@ -0,0 +1,43 @@
+package com.example.requesthandling.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * ルートごとのメトリクスDTO
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RouteStats {
+
+    /**
+     * ルートID
+     */
+    private String route;
+
+    /**
+     * 起動以降の処理件数
+     */
+    private long count;
+
+    /**
+     * 直近60秒間の1秒あたりの処理件数
+     */
+    private double ratePerSecond;
+
+    /**
+     * ステータスコードの種類（2xx / 3xx / 4xx / 5xx）ごとの件数
+     */
+    private Map<String, Long> outcomes;
+
+    /**
+     * レイテンシ（ミリ秒）: p50 / p95 / p99 / max
+     */
+    private Map<String, Double> latencyMs;
+}
@@ -0,0 +1,33 @@
+package com.example.requesthandling.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * ユーザー一覧のページDTO
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserPage {
+
+    /**
+     * ページ内のユーザー（ID昇順）
+     */
+    private List<User> users;
+
+    /**
+     * 次ページ取得用のカーソル（最終ページの場合はnull）
+     */
+    private String nextCursor;
+
+    /**
+     * 読み込んだスナップショットのトークン（次ページの取得時に指定すると、同じ時点の一覧を読む）
+     */
+    private String snapshot;
+}
@@ -0,0 +1,28 @@
+package com.example.requesthandling.persistence;
+
+import com.example.requesthandling.model.User;
+
+/**
+ * ユーザーデータの変更レコード
+ * 
+ * @param type 変更種別
+ * @param id ユーザーID
+ * @param user 変更後のユーザー（DELETEの場合はnull）
+ */
+public record UserMutation(Type type, String id, User user) {
+
+    public enum Type {
+        /** 作成・更新（変更後の全項目を保持） */
+        PUT,
+        /** 削除 */
+        DELETE
+    }
+
+    public static UserMutation put(User user) {
+        return new UserMutation(Type.PUT, user.getId(), user);
+    }
+
+    public static UserMutation delete(String id) {
+        return new UserMutation(Type.DELETE, id, null);
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.requesthandling.persistence;
+
+import com.example.requesthandling.model.User;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32C;
+
+/**
+ * ユーザー変更レコードのバイナリ形式
+ * 
+ * レコード: [int 本体長][int CRC32C][本体]
+ * 本体:     [byte 種別][long ID][文字列 name][文字列 email]（DELETEはIDまで）
+ * 文字列:   [int バイト長（nullは-1）][UTF-8]
+ */
+public final class UserRecordCodec {
+
+    /** レコードヘッダ（本体長 + CRC）のバイト数 */
+    public static final int HEADER_SIZE = 8;
+
+    private static final byte TYPE_PUT = 1;
+    private static final byte TYPE_DELETE = 2;
+
+    private UserRecordCodec() {
+    }
+
+    /**
+     * 変更レコードをヘッダ付きでエンコード
+     */
+    public static byte[] encode(UserMutation mutation) {
+        byte[] name = null;
+        byte[] email = null;
+        int bodySize = 1 + 8;
+        if (mutation.type() == UserMutation.Type.PUT) {
+            name = bytes(mutation.user().getName());
+            email = bytes(mutation.user().getEmail());
+            bodySize += stringSize(name) + stringSize(email);
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + bodySize);
+        buffer.putInt(bodySize);
+        buffer.putInt(0);
+        buffer.put(mutation.type() == UserMutation.Type.PUT ? TYPE_PUT : TYPE_DELETE);
+        buffer.putLong(Long.parseLong(mutation.id()));
+        if (mutation.type() == UserMutation.Type.PUT) {
+            putString(buffer, name);
+            putString(buffer, email);
+        }
+        buffer.putInt(4, crc(buffer.array(), HEADER_SIZE, bodySize));
+        return buffer.array();
+    }
+
+    /**
+     * バッファの現在位置からレコードを1件デコード
+     * 
+     * @return デコードしたレコード。途中までしか書かれていない・CRCが一致しない場合はnull（位置は変更しない）
+     */
+    public static UserMutation decode(ByteBuffer buffer) {
+        int start = buffer.position();
+        if (buffer.remaining() < HEADER_SIZE) {
+            return null;
+        }
+        int bodySize = buffer.getInt(start);
+        int expectedCrc = buffer.getInt(start + 4);
+        if (bodySize < 9 || bodySize > buffer.remaining() - HEADER_SIZE) {
+            return null;
+        }
+        ByteBuffer body = buffer.duplicate();
+        body.position(start + HEADER_SIZE).limit(start + HEADER_SIZE + bodySize);
+        CRC32C crc = new CRC32C();
+        crc.update(body.duplicate());
+        if ((int) crc.getValue() != expectedCrc) {
+            return null;
+        }
+        byte type = body.get();
+        String id = String.valueOf(body.getLong());
+        UserMutation mutation;
+        if (type == TYPE_PUT) {
+            User user = User.builder().id(id).name(getString(body)).email(getString(body)).build();
+            mutation = UserMutation.put(user);
+        } else if (type == TYPE_DELETE) {
+            mutation = UserMutation.delete(id);
+        } else {
+            return null;
+        }
+        buffer.position(start + HEADER_SIZE + bodySize);
+        return mutation;
+    }
+
+    private static int crc(byte[] array, int offset, int length) {
+        CRC32C crc = new CRC32C();
+        crc.update(array, offset, length);
+        return (int) crc.getValue();
+    }
+
+    private static byte[] bytes(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int stringSize(byte[] value) {
+        return 4 + (value == null ? 0 : value.length);
+    }
+
+    private static void putString(ByteBuffer buffer, byte[] value) {
+        if (value == null) {
+            buffer.putInt(-1);
+        } else {
+            buffer.putInt(value.length);
+            buffer.put(value);
+        }
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] value = new byte[length];
+        buffer.get(value);
+        return new String(value, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,206 @@
+package com.example.requesthandling.persistence;
+
+import com.example.requesthandling.model.User;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * ユーザーデータのスナップショット
+ *
+ * ファイル: snapshot-{LSN（20桁）}.snap
+ * 形式:     [int マジック][int バージョン][long LSN][long 次のID][long 件数][PUTレコード × 件数]
+ * レコードは WAL と同じ形式（UserRecordCodec）
+ *
+ * 一時ファイルに書き込んでfsyncした後にリネームするため、途中で停止しても不完全なスナップショットは残らない
+ * 最新のスナップショットを書き終えた時点で、それより古いスナップショットは削除する
+ */
+public class UserSnapshotStore {
+
+    private static final Logger LOG = LoggerFactory.getLogger(UserSnapshotStore.class);
+
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+    private static final String SNAPSHOT_SUFFIX = ".snap";
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final int MAGIC = 0x55534E50; // "USNP"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 4 + 4 + 8 + 8 + 8;
+    private static final int WRITE_BUFFER_SIZE = 1024 * 1024;
+    // 読み込み時にメモリマップする単位
+    private static final long MAP_WINDOW_SIZE = 256L * 1024 * 1024;
+
+    /**
+     * スナップショットのメタデータ
+     *
+     * @param lsn 取得開始時点のWALのLSN（起動時はこれより後のレコードを再生する）
+     * @param nextId 取得開始時点の次のユーザーID
+     * @param count ユーザー数
+     */
+    public record Snapshot(long lsn, long nextId, long count) {
+    }
+
+    private final Path directory;
+
+    public UserSnapshotStore(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * スナップショットを書き込む
+     * ユーザーは書き込み中も変更されうるが、lsn より後の変更は起動時にWALから再生されるため最終的に整合する
+     *
+     * @param lsn 取得開始時点のWALのLSN
+     * @param nextId 取得開始時点の次のユーザーID
+     * @param users 書き込むユーザー
+     */
+    public Snapshot write(long lsn, long nextId, Iterator<User> users) throws IOException {
+        Files.createDirectories(directory);
+        Path target = snapshotPath(lsn);
+        Path temp = target.resolveSibling(target.getFileName() + TEMP_SUFFIX);
+        long count = 0;
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocate(WRITE_BUFFER_SIZE);
+            // 件数はヘッダに後から書き込む
+            buffer.position(HEADER_SIZE);
+            while (users.hasNext()) {
+                byte[] record = UserRecordCodec.encode(UserMutation.put(users.next()));
+                if (buffer.remaining() < record.length) {
+                    drain(out, buffer);
+                    if (buffer.remaining() < record.length) {
+                        out.write(ByteBuffer.wrap(record));
+                        count++;
+                        continue;
+                    }
+                }
+                buffer.put(record);
+                count++;
+            }
+            drain(out, buffer);
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC).putInt(VERSION).putLong(lsn).putLong(nextId).putLong(count).flip();
+            long offset = 0;
+            while (header.hasRemaining()) {
+                offset += out.write(header, offset);
+            }
+            out.force(true);
+        }
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        forceDirectory();
+        deleteOlderThan(lsn);
+        return new Snapshot(lsn, nextId, count);
+    }
+
+    /**
+     * 最新のスナップショットを読み込む
+     *
+     * @param consumer 読み込んだユーザーの適用先
+     * @return 読み込んだスナップショット（存在しない場合はnull）
+     * @throws IOException スナップショットが破損している場合
+     */
+    public Snapshot load(Consumer<User> consumer) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return null;
+        }
+        deleteTemporaryFiles();
+        List<Path> snapshots = listSnapshots();
+        if (snapshots.isEmpty()) {
+            return null;
+        }
+        Path latest = snapshots.get(snapshots.size() - 1);
+        try (FileChannel in = FileChannel.open(latest, StandardOpenOption.READ)) {
+            long size = in.size();
+            if (size < HEADER_SIZE) {
+                throw new IOException("スナップショットが破損しています: " + latest);
+            }
+            ByteBuffer header = in.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+            if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+                throw new IOException("スナップショットの形式が不正です: " + latest);
+            }
+            Snapshot snapshot = new Snapshot(header.getLong(), header.getLong(), header.getLong());
+
+            // レコードは先頭から順に読むため、一定サイズごとにメモリマップして順次読み込む
+            long position = HEADER_SIZE;
+            long loaded = 0;
+            while (loaded < snapshot.count()) {
+                long windowSize = Math.min(MAP_WINDOW_SIZE, size - position);
+                MappedByteBuffer window = in.map(FileChannel.MapMode.READ_ONLY, position, windowSize);
+                UserMutation mutation;
+                while (loaded < snapshot.count() && (mutation = UserRecordCodec.decode(window)) != null) {
+                    consumer.accept(mutation.user());
+                    loaded++;
+                }
+                if (window.position() == 0) {
+                    throw new IOException("スナップショットが破損しています: " + latest + " (offset " + position + ")");
+                }
+                position += window.position();
+            }
+            LOG.info("スナップショットを読み込みました: {} ({} 件, LSN={})", latest.getFileName(), loaded, snapshot.lsn());
+            return snapshot;
+        }
+    }
+
+    List<Path> listSnapshots() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files
+                    .filter(path -> {
+                        String name = path.getFileName().toString();
+                        return name.startsWith(SNAPSHOT_PREFIX) && name.endsWith(SNAPSHOT_SUFFIX);
+                    })
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private Path snapshotPath(long lsn) {
+        return directory.resolve(String.format("%s%020d%s", SNAPSHOT_PREFIX, lsn, SNAPSHOT_SUFFIX));
+    }
+
+    private void deleteOlderThan(long lsn) throws IOException {
+        Path current = snapshotPath(lsn);
+        for (Path snapshot : listSnapshots()) {
+            if (snapshot.compareTo(current) < 0) {
+                Files.deleteIfExists(snapshot);
+            }
+        }
+    }
+
+    private void deleteTemporaryFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path path : files.filter(path -> path.getFileName().toString().endsWith(SNAPSHOT_SUFFIX + TEMP_SUFFIX)).toList()) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    /**
+     * リネームを永続化するため、ディレクトリをfsync（対応していないOSでは無視）
+     */
+    private void forceDirectory() {
+        try (FileChannel dir = FileChannel.open(directory, StandardOpenOption.READ)) {
+            dir.force(true);
+        } catch (IOException e) {
+            LOG.debug("ディレクトリのfsyncに対応していません: {}", directory);
+        }
+    }
+
+    private static void drain(FileChannel out, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+        buffer.clear();
+    }
+}
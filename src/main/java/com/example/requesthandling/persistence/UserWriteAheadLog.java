@@ -0,0 +1,371 @@
+package com.example.requesthandling.persistence;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * ユーザーデータの追記型ログ（WAL）
+ *
+ * - 書き込みスレッドはレコードをメモリ上のバッファに追記してLSNを受け取るだけ（マイクロ秒オーダー）
+ * - 専用のフラッシュスレッドがバッファを入れ替えてFileChannelへ書き込み、まとめてfsyncする（グループコミット）
+ * - SYNC: 呼び出し側は awaitDurable(lsn) で自分のレコードがfsyncされるまで待つ
+ * - ASYNC: fsyncは flushInterval ごと。障害時は直近 flushInterval 分の変更を失う可能性がある
+ *
+ * ログはセグメントファイル（wal-{先頭LSN}.log）に分割され、segmentSize を超えると次のファイルに切り替える
+ */
+public class UserWriteAheadLog implements Closeable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(UserWriteAheadLog.class);
+
+    private static final String SEGMENT_PREFIX = "wal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final int INITIAL_BUFFER_SIZE = 64 * 1024;
+
+    public enum Durability {
+        /** fsync完了まで待つ */
+        SYNC,
+        /** fsyncを待たない（一定間隔でfsync） */
+        ASYNC
+    }
+
+    private final Path directory;
+    private final Durability durability;
+    private final long segmentSize;
+    private final long flushIntervalMillis;
+
+    // 追記中のバッファとLSN（lockで保護）
+    private final Object lock = new Object();
+    private ByteBuffer pending = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+    private ByteBuffer spare = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+    private long appendedLsn;
+    private boolean closed;
+
+    // fsync済みLSN（durableLockで待ち合わせ）
+    // 仮想スレッドが待機中にキャリアスレッドを占有しないよう、synchronized ではなく Lock の Condition で待つ
+    private final ReentrantLock durableLock = new ReentrantLock();
+    private final Condition durableChanged = durableLock.newCondition();
+    private volatile long durableLsn;
+    private volatile IOException failure;
+
+    // フラッシュスレッドのみがアクセス
+    private FileChannel channel;
+    private long segmentBytes;
+
+    private Thread flusher;
+
+    public UserWriteAheadLog(Path directory, Durability durability, long segmentSize, long flushIntervalMillis) {
+        this.directory = directory;
+        this.durability = durability;
+        this.segmentSize = segmentSize;
+        this.flushIntervalMillis = flushIntervalMillis;
+    }
+
+    /**
+     * 既存のセグメントを古い順に再生し、追記用の新しいセグメントを開く
+     *
+     * @param consumer 再生したレコードの適用先
+     * @return 再生したレコード数
+     */
+    public long open(Consumer<UserMutation> consumer) throws IOException {
+        return open(0, consumer);
+    }
+
+    /**
+     * fromLsn より後のレコードを古い順に再生し、追記用の新しいセグメントを開く
+     *
+     * @param fromLsn 適用済みのLSN（スナップショットのLSN。スナップショットがない場合は0）
+     * @param consumer 再生したレコードの適用先
+     * @return 再生したレコード数
+     * @throws IOException fromLsn の直後からのレコードが欠落している・途中のセグメントが破損している場合
+     */
+    public long open(long fromLsn, Consumer<UserMutation> consumer) throws IOException {
+        Files.createDirectories(directory);
+        List<Path> segments = listSegments();
+        long lsn = fromLsn;
+        long replayed = 0;
+        for (int i = 0; i < segments.size(); i++) {
+            Path segment = segments.get(i);
+            boolean last = i == segments.size() - 1;
+            // 全レコードが適用済みのセグメントは読まない（コンパクション前に停止した場合）
+            if (!last && segmentStartLsn(segments.get(i + 1)) <= fromLsn + 1) {
+                continue;
+            }
+            // LSNはログ先頭からの通し番号（セグメント名は先頭レコードのLSN）
+            long startLsn = segmentStartLsn(segment);
+            if (startLsn > lsn + 1) {
+                throw new IOException("WALセグメントが欠落しています: LSN " + (lsn + 1) + " 以降のレコードが " + segment + " より前に存在しません");
+            }
+            long records = replay(segment, startLsn, fromLsn, consumer, last);
+            long endLsn = startLsn - 1 + records;
+            replayed += Math.max(0, endLsn - Math.max(fromLsn, startLsn - 1));
+            lsn = Math.max(lsn, endLsn);
+        }
+        appendedLsn = lsn;
+        durableLsn = lsn;
+        openSegment(lsn + 1);
+
+        flusher = new Thread(this::flushLoop, "user-wal-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+        LOG.info("WALを再生しました: {} 件 ({} セグメント, LSN={}, durability={})", replayed, segments.size(), lsn, durability);
+        return replayed;
+    }
+
+    /**
+     * レコードを追記バッファに書き込む
+     * 同一ユーザーへの変更は、呼び出し順がそのままログ上の順序になる
+     * ログの書き込みに一度失敗すると、以降の追記はすべて失敗する（永続化されない変更をメモリに反映させないため、
+     * 呼び出し元はメモリへの反映より前に追記すること）
+     *
+     * @return レコードのLSN（awaitDurable に渡す）
+     * @throws UncheckedIOException ログの書き込みに失敗している場合
+     */
+    public long append(UserMutation mutation) {
+        byte[] record = UserRecordCodec.encode(mutation);
+        synchronized (lock) {
+            if (closed) {
+                throw new IllegalStateException("WALはクローズされています");
+            }
+            checkFailure();
+            if (pending.remaining() < record.length) {
+                pending = grow(pending, record.length);
+            }
+            pending.put(record);
+            appendedLsn++;
+            lock.notify();
+            return appendedLsn;
+        }
+    }
+
+    /**
+     * 指定したLSNまでのレコードがfsyncされるまで待つ（ASYNCの場合は待たない）
+     *
+     * @throws UncheckedIOException ログの書き込みに失敗している場合
+     */
+    public void awaitDurable(long lsn) {
+        if (durability == Durability.ASYNC || durableLsn >= lsn) {
+            checkFailure();
+            return;
+        }
+        durableLock.lock();
+        try {
+            while (durableLsn < lsn) {
+                checkFailure();
+                // 割り込まれても待ち続け、戻る時に割り込み状態を再設定する
+                durableChanged.awaitUninterruptibly();
+            }
+        } finally {
+            durableLock.unlock();
+        }
+        checkFailure();
+    }
+
+    /**
+     * 追記済み（未fsyncを含む）の最新LSN
+     */
+    public long getAppendedLsn() {
+        synchronized (lock) {
+            return appendedLsn;
+        }
+    }
+
+    /**
+     * 全レコードが lsn 以下のセグメントを削除（スナップショット取得後のコンパクション）
+     * 書き込み中のセグメントは常に最後のセグメントのため削除されない
+     *
+     * @return 削除したセグメント数
+     */
+    public int compact(long lsn) throws IOException {
+        List<Path> segments = listSegments();
+        int deleted = 0;
+        for (int i = 0; i < segments.size() - 1; i++) {
+            if (segmentStartLsn(segments.get(i + 1)) > lsn + 1) {
+                break;
+            }
+            Files.deleteIfExists(segments.get(i));
+            deleted++;
+        }
+        return deleted;
+    }
+
+    /**
+     * fsync済みのLSN
+     */
+    public long getDurableLsn() {
+        return durableLsn;
+    }
+
+    /**
+     * 残りのレコードを書き出してクローズ
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (lock) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            lock.notify();
+        }
+        if (flusher != null) {
+            try {
+                flusher.join(TimeUnit.SECONDS.toMillis(10));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (channel != null) {
+            channel.close();
+        }
+    }
+
+    private void flushLoop() {
+        try {
+            while (true) {
+                ByteBuffer batch;
+                long batchLsn;
+                synchronized (lock) {
+                    while (pending.position() == 0 && !closed) {
+                        lock.wait();
+                    }
+                    if (pending.position() == 0) {
+                        break;
+                    }
+                    // バッファを入れ替え、書き込み中も追記を受け付ける
+                    batch = pending;
+                    pending = spare;
+                    spare = batch;
+                    batchLsn = appendedLsn;
+                }
+                batch.flip();
+                write(batch);
+                channel.force(false);
+                batch.clear();
+                markDurable(batchLsn);
+
+                if (durability == Durability.ASYNC && flushIntervalMillis > 0) {
+                    Thread.sleep(flushIntervalMillis);
+                }
+            }
+        } catch (IOException e) {
+            LOG.error("WALの書き込みに失敗しました", e);
+            failure = e;
+            signalDurableChanged();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void write(ByteBuffer batch) throws IOException {
+        if (segmentBytes > 0 && segmentBytes + batch.remaining() > segmentSize) {
+            channel.force(false);
+            channel.close();
+            // 直前のバッチまでfsync済みのため、このバッチの先頭LSNは durableLsn + 1
+            openSegment(durableLsn + 1);
+        }
+        while (batch.hasRemaining()) {
+            segmentBytes += channel.write(batch);
+        }
+    }
+
+    private void markDurable(long lsn) {
+        durableLsn = lsn;
+        signalDurableChanged();
+    }
+
+    private void signalDurableChanged() {
+        durableLock.lock();
+        try {
+            durableChanged.signalAll();
+        } finally {
+            durableLock.unlock();
+        }
+    }
+
+    private void checkFailure() {
+        IOException e = failure;
+        if (e != null) {
+            throw new UncheckedIOException("WALの書き込みに失敗しました", e);
+        }
+    }
+
+    private void openSegment(long startLsn) throws IOException {
+        Path path = directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, startLsn, SEGMENT_SUFFIX));
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        segmentBytes = channel.size();
+    }
+
+    /**
+     * セグメントをメモリマップして先頭から読み込み、fromLsn より後のレコードを適用
+     * 末尾の書きかけレコードは最終セグメントであれば切り詰め、それ以外は破損として扱う
+     *
+     * @return セグメント内の有効なレコード数
+     */
+    private long replay(Path segment, long startLsn, long fromLsn, Consumer<UserMutation> consumer, boolean last) throws IOException {
+        long count = 0;
+        try (FileChannel in = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long size = in.size();
+            if (size == 0) {
+                return 0;
+            }
+            MappedByteBuffer buffer = in.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            UserMutation mutation;
+            while ((mutation = UserRecordCodec.decode(buffer)) != null) {
+                if (startLsn + count > fromLsn) {
+                    consumer.accept(mutation);
+                }
+                count++;
+            }
+            if (buffer.hasRemaining()) {
+                if (!last) {
+                    throw new IOException("WALセグメントが破損しています: " + segment + " (offset " + buffer.position() + ")");
+                }
+                LOG.warn("WAL末尾の不完全なレコードを切り詰めます: {} (offset {}, {} bytes)",
+                        segment, buffer.position(), buffer.remaining());
+                in.truncate(buffer.position());
+            }
+        }
+        return count;
+    }
+
+    List<Path> listSegments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files
+                    .filter(path -> {
+                        String name = path.getFileName().toString();
+                        return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+                    })
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    static long segmentStartLsn(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    private static ByteBuffer grow(ByteBuffer buffer, int required) {
+        int capacity = Math.max(buffer.capacity() * 2, buffer.position() + required);
+        ByteBuffer grown = ByteBuffer.allocate(capacity);
+        buffer.flip();
+        grown.put(buffer);
+        return grown;
+    }
+}
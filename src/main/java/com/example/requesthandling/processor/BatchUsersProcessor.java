@@ -0,0 +1,86 @@
+package com.example.requesthandling.processor;
+
+import com.example.requesthandling.model.ApiResponse;
+import com.example.requesthandling.model.BatchOperation;
+import com.example.requesthandling.model.BatchResult;
+import com.example.requesthandling.model.ErrorResponse;
+import com.example.requesthandling.service.UserService;
+import com.fasterxml.jackson.core.type.TypeReference;
+import org.apache.camel.Exchange;
+import org.apache.camel.Processor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * ユーザー一括処理プロセッサー
+ * 
+ * リクエストボディ: 操作の配列
+ * [{"op":"create","user":{...}}, {"op":"update","id":"1","user":{...}}, {"op":"delete","id":"2"}]
+ * 
+ * 操作ごとの結果（単体APIと同じステータスコード）を同じ順序で返す
+ * 一部の操作が失敗してもレスポンスは200で、失敗は結果の status / error で判別する
+ */
+@Component("batchUsersProcessor")
+public class BatchUsersProcessor implements Processor {
+
+    static final int MAX_OPERATIONS = 1000;
+
+    private static final TypeReference<List<BatchOperation>> OPERATIONS = new TypeReference<>() {
+    };
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private JsonRequestReader requestReader;
+
+    @Autowired
+    private JsonResponseWriter responseWriter;
+
+    @Override
+    public void process(Exchange exchange) throws Exception {
+        // JSONボディを入力ストリームから直接操作のリストに変換
+        List<BatchOperation> operations;
+        try {
+            operations = requestReader.readBatch(exchange, OPERATIONS);
+        } catch (InvalidRequestBodyException e) {
+            exchange.getMessage().setHeader(Exchange.HTTP_RESPONSE_CODE, e.getStatus().value());
+            ErrorResponse errorResponse = ErrorResponse.builder()
+                    .code(e.getStatus().value())
+                    .message(e.getSummary())
+                    .details(e.getMessage())
+                    .timestamp(LocalDateTime.now().toString())
+                    .path("/api/users/batch")
+                    .method("POST")
+                    .build();
+            responseWriter.write(exchange, errorResponse);
+            return;
+        }
+        
+        if (operations.isEmpty() || operations.size() > MAX_OPERATIONS) {
+            exchange.getMessage().setHeader(Exchange.HTTP_RESPONSE_CODE, 400);
+            ErrorResponse errorResponse = ErrorResponse.builder()
+                    .code(400)
+                    .message("リクエストが不正です")
+                    .details("操作は1件以上" + MAX_OPERATIONS + "件以下で指定してください")
+                    .timestamp(LocalDateTime.now().toString())
+                    .path("/api/users/batch")
+                    .method("POST")
+                    .build();
+            responseWriter.write(exchange, errorResponse);
+            return;
+        }
+        
+        List<BatchResult> results = userService.applyBatch(operations);
+        long failed = results.stream().filter(result -> result.getStatus() >= 400).count();
+        ApiResponse response = ApiResponse.builder()
+                .status("success")
+                .message("一括処理を実行しました (成功: " + (results.size() - failed) + "件, 失敗: " + failed + "件)")
+                .data(results)
+                .build();
+        responseWriter.write(exchange, response);
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.requesthandling.processor;
+
+import org.apache.camel.Exchange;
+import org.apache.camel.Processor;
+import org.apache.camel.Route;
+import org.apache.camel.spi.UnitOfWork;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+
+/**
+ * バルクヘッドの拒否（RejectedExecutionException）を503に変換するプロセッサー
+ *
+ * Camelの threads は拒否時に元の例外を置き換える（メッセージなし）ため、詳細にはルートIDを埋め込む
+ */
+@Component("bulkheadRejectedProcessor")
+public class BulkheadRejectedProcessor implements Processor {
+
+    private static final ErrorTemplate SERVICE_UNAVAILABLE = ErrorTemplate.of(503, "ルート '{0}' の処理待ちが上限に達しています。時間をおいて再試行してください", "{1}", "{2}");
+    private static final String RETRY_AFTER_SECONDS = "1";
+
+    @Autowired
+    private ErrorResponseRenderer errorRenderer;
+
+    @Override
+    public void process(Exchange exchange) throws Exception {
+        exchange.getMessage().setHeader(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS);
+        errorRenderer.write(exchange, SERVICE_UNAVAILABLE,
+                routeId(exchange),
+                exchange.getIn().getHeader(Exchange.HTTP_URI, String.class),
+                exchange.getIn().getHeader(Exchange.HTTP_METHOD, String.class));
+    }
+
+    /**
+     * 実行中のルートのID（REST DSLのルートから direct で呼び出されるため、getFromRouteId ではなく UnitOfWork から取得する）
+     */
+    private static String routeId(Exchange exchange) {
+        UnitOfWork unitOfWork = exchange.getUnitOfWork();
+        Route route = unitOfWork != null ? unitOfWork.getRoute() : null;
+        return route != null ? route.getRouteId() : exchange.getFromRouteId();
+    }
+}
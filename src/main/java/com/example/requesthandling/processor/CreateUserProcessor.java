@@ -1,16 +1,18 @@
 package com.example.requesthandling.processor;
 
 import com.example.requesthandling.model.ApiResponse;
+import com.example.requesthandling.model.ErrorResponse;
 import com.example.requesthandling.model.User;
+import com.example.requesthandling.service.DuplicateEmailException;
 import com.example.requesthandling.service.UserService;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import org.apache.camel.Exchange;
 import org.apache.camel.Processor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
-import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
 
+import java.time.LocalDateTime;
+
 /**
  * ユーザー作成プロセッサー
  */
@@ -21,14 +23,46 @@ public class CreateUserProcessor implements Processor {
     private UserService userService;
 
     @Autowired
-    private ObjectMapper objectMapper;
+    private JsonRequestReader requestReader;
+
+    @Autowired
+    private JsonResponseWriter responseWriter;
 
     @Override
     public void process(Exchange exchange) throws Exception {
-        // JSONボディを手動でUserオブジェクトに変換
-        String jsonBody = exchange.getIn().getBody(String.class);
-        User inputUser = objectMapper.readValue(jsonBody, User.class);
-        User createdUser = userService.createUser(inputUser);
+        // JSONボディを入力ストリームから直接Userオブジェクトに変換
+        User inputUser;
+        try {
+            inputUser = requestReader.read(exchange, User.class);
+        } catch (InvalidRequestBodyException e) {
+            exchange.getMessage().setHeader(Exchange.HTTP_RESPONSE_CODE, e.getStatus().value());
+            ErrorResponse errorResponse = ErrorResponse.builder()
+                    .code(e.getStatus().value())
+                    .message(e.getSummary())
+                    .details(e.getMessage())
+                    .timestamp(LocalDateTime.now().toString())
+                    .path("/api/users")
+                    .method("POST")
+                    .build();
+            responseWriter.write(exchange, errorResponse);
+            return;
+        }
+        User createdUser;
+        try {
+            createdUser = userService.createUser(inputUser);
+        } catch (DuplicateEmailException e) {
+            exchange.getMessage().setHeader(Exchange.HTTP_RESPONSE_CODE, HttpStatus.CONFLICT.value());
+            ErrorResponse errorResponse = ErrorResponse.builder()
+                    .code(HttpStatus.CONFLICT.value())
+                    .message("リソースが競合しています")
+                    .details(e.getMessage())
+                    .timestamp(LocalDateTime.now().toString())
+                    .path("/api/users")
+                    .method("POST")
+                    .build();
+            responseWriter.write(exchange, errorResponse);
+            return;
+        }
         
         exchange.getMessage().setHeader(Exchange.HTTP_RESPONSE_CODE, HttpStatus.CREATED.value());
         ApiResponse response = ApiResponse.builder()
@@ -36,9 +70,6 @@ public class CreateUserProcessor implements Processor {
                 .message("ユーザーを作成しました (ID: " + createdUser.getId() + ")")
                 .data(createdUser)
                 .build();
-        String jsonResponse = objectMapper.writeValueAsString(response);
-        exchange.getMessage().setBody(jsonResponse);
-        exchange.getMessage().setHeader(Exchange.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE);
+        responseWriter.write(exchange, response);
     }
 }
-
@@ -1,16 +1,13 @@
 package com.example.requesthandling.processor;
 
 import com.example.requesthandling.model.ApiResponse;
-import com.example.requesthandling.model.ErrorResponse;
+import com.example.requesthandling.service.UserIds;
 import com.example.requesthandling.service.UserService;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import org.apache.camel.Exchange;
 import org.apache.camel.Processor;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
 
-import java.time.LocalDateTime;
 
 /**
  * ユーザー削除プロセッサー
@@ -18,16 +15,24 @@ import java.time.LocalDateTime;
 @Component("deleteUserProcessor")
 public class DeleteUserProcessor implements Processor {
 
+    private static final ErrorTemplate NOT_FOUND =
+            ErrorTemplate.of(404, "ID '{0}' のユーザーは存在しません", "/api/users/{0}", "DELETE");
+
     @Autowired
     private UserService userService;
 
     @Autowired
-    private ObjectMapper objectMapper;
+    private JsonResponseWriter responseWriter;
+
+    @Autowired
+    private ErrorResponseRenderer errorRenderer;
 
     @Override
     public void process(Exchange exchange) throws Exception {
         String userId = exchange.getIn().getHeader("id", String.class);
-        boolean deleted = userService.deleteUser(userId);
+        // IDは数値のみのため、数値でない場合はストアを参照せずに404を返す
+        long id = UserIds.parse(userId);
+        boolean deleted = id != UserIds.INVALID && userService.deleteUser(id);
         
         if (deleted) {
             ApiResponse response = ApiResponse.builder()
@@ -35,22 +40,9 @@ public class DeleteUserProcessor implements Processor {
                     .message("ユーザーを削除しました")
                     .data("Deleted User ID: " + userId)
                     .build();
-            String jsonResponse = objectMapper.writeValueAsString(response);
-            exchange.getMessage().setBody(jsonResponse);
-            exchange.getMessage().setHeader(Exchange.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE);
+            responseWriter.write(exchange, response);
         } else {
-            exchange.getMessage().setHeader(Exchange.HTTP_RESPONSE_CODE, 404);
-            ErrorResponse errorResponse = ErrorResponse.builder()
-                    .code(404)
-                    .message("指定されたリソースが見つかりません")
-                    .details("ID '" + userId + "' のユーザーは存在しません")
-                    .timestamp(LocalDateTime.now().toString())
-                    .path("/api/users/" + userId)
-                    .method("DELETE")
-                    .build();
-            String jsonResponse = objectMapper.writeValueAsString(errorResponse);
-            exchange.getMessage().setBody(jsonResponse);
-            exchange.getMessage().setHeader(Exchange.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE);
+            errorRenderer.write(exchange, NOT_FOUND, userId);
         }
     }
 }
@@ -0,0 +1,66 @@
+package com.example.requesthandling.processor;
+
+import org.apache.camel.Exchange;
+
+/**
+ * ETag の生成と If-None-Match の判定
+ *
+ * ETag は "{起動の識別子}-{バージョン}" の強いETag
+ * 同じ起動・同じバージョンであれば同じ内容のため、レスポンスをシリアライズせずに判定できる
+ */
+final class ETags {
+
+    static final String ETAG = "ETag";
+    static final String IF_NONE_MATCH = "If-None-Match";
+
+    private ETags() {
+    }
+
+    static String format(String epoch, long version) {
+        return format(epoch + "-" + version);
+    }
+
+    /**
+     * 一覧のスナップショットのトークン（"{起動の識別子}-{通番}"）などの識別子をそのままETagにする
+     */
+    static String format(String tag) {
+        return "\"" + tag + "\"";
+    }
+
+    /**
+     * If-None-Match のいずれかのETagと一致すれば304（本文なし）を設定する
+     * 弱いETag（W/"..."）も同じ値として比較する。"*" は扱わない（常に200を返す）
+     *
+     * @return 304を設定した場合はtrue
+     */
+    static boolean notModified(Exchange exchange, String etag) {
+        String ifNoneMatch = exchange.getIn().getHeader(IF_NONE_MATCH, String.class);
+        if (ifNoneMatch == null || !matches(ifNoneMatch, etag)) {
+            return false;
+        }
+        exchange.getMessage().setHeader(Exchange.HTTP_RESPONSE_CODE, 304);
+        exchange.getMessage().setHeader(ETAG, etag);
+        exchange.getMessage().setBody(null);
+        return true;
+    }
+
+    static boolean matches(String ifNoneMatch, String etag) {
+        int start = 0;
+        int length = ifNoneMatch.length();
+        while (start < length) {
+            int end = ifNoneMatch.indexOf(',', start);
+            if (end < 0) {
+                end = length;
+            }
+            String candidate = ifNoneMatch.substring(start, end).trim();
+            if (candidate.startsWith("W/")) {
+                candidate = candidate.substring(2);
+            }
+            if (candidate.equals(etag)) {
+                return true;
+            }
+            start = end + 1;
+        }
+        return false;
+    }
+}
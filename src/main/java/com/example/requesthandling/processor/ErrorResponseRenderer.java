@@ -0,0 +1,157 @@
+package com.example.requesthandling.processor;
+
+import com.example.requesthandling.config.ErrorMessageProperties;
+import org.apache.camel.Exchange;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * テンプレートによるエラーレスポンス（ErrorResponse と同じJSON）の描画
+ *
+ * ErrorResponse の生成・{@code LocalDateTime.now().toString()}・Jacksonによるシリアライズを行わず、
+ * 事前にエンコードしたバイト列に動的な値のみを埋め込んで、最終的なバイト列1つだけを確保する
+ * - {"code":...,"message":"..." はステータスコードごとに ErrorMessageProperties のメッセージから1回だけエンコードする
+ * - details / path / method の固定部分は ErrorTemplate でエンコード済み
+ * - timestamp はミリ秒単位で共有する（同じミリ秒内のエラーは同じバイト列を使う）
+ *
+ * 存在しないパスへの大量のリクエスト（スキャナーなど）でも、エラーレスポンスの生成コストを抑える
+ */
+@Component
+public class ErrorResponseRenderer {
+
+    private static final int MAX_CACHED_STATUS = 600;
+    private static final byte[] TIMESTAMP = ",\"timestamp\":\"".getBytes(StandardCharsets.UTF_8);
+
+    private record Timestamp(long millis, byte[] bytes) {
+    }
+
+    private final ErrorMessageProperties errorMessageProperties;
+    private final ZoneId zone = ZoneId.systemDefault();
+    // ステータスコードごとの {"code":N,"message":"..."
+    private final AtomicReferenceArray<byte[]> prefixes = new AtomicReferenceArray<>(MAX_CACHED_STATUS);
+    private volatile Timestamp timestamp = new Timestamp(Long.MIN_VALUE, null);
+
+    public ErrorResponseRenderer(ErrorMessageProperties errorMessageProperties) {
+        this.errorMessageProperties = errorMessageProperties;
+    }
+
+    /**
+     * ステータスコードとエラーレスポンスを設定
+     */
+    public void write(Exchange exchange, ErrorTemplate template, String... args) {
+        exchange.getMessage().setHeader(Exchange.HTTP_RESPONSE_CODE, template.getStatus());
+        JsonResponseWriter.writeBytes(exchange, render(template, args));
+    }
+
+    /**
+     * エラーレスポンスをUTF-8のJSONとして描画
+     *
+     * @param args テンプレートの {0}, {1}, ... に埋め込む値
+     */
+    public byte[] render(ErrorTemplate template, String... args) {
+        byte[] prefix = prefix(template.getStatus());
+        byte[] now = timestamp();
+        ErrorTemplate.Field[] leading = template.leading();
+        ErrorTemplate.Field[] trailing = template.trailing();
+
+        int size = prefix.length + TIMESTAMP.length + now.length + 2;
+        for (ErrorTemplate.Field field : leading) {
+            size += length(field, args);
+        }
+        for (ErrorTemplate.Field field : trailing) {
+            size += length(field, args);
+        }
+
+        byte[] out = new byte[size];
+        int pos = put(prefix, out, 0);
+        for (ErrorTemplate.Field field : leading) {
+            pos = write(field, args, out, pos);
+        }
+        pos = put(TIMESTAMP, out, pos);
+        pos = put(now, out, pos);
+        out[pos++] = '"';
+        for (ErrorTemplate.Field field : trailing) {
+            pos = write(field, args, out, pos);
+        }
+        out[pos] = '}';
+        return out;
+    }
+
+    private byte[] prefix(int status) {
+        if (status < 0 || status >= MAX_CACHED_STATUS) {
+            return encodePrefix(status);
+        }
+        byte[] prefix = prefixes.get(status);
+        if (prefix == null) {
+            prefix = encodePrefix(status);
+            prefixes.set(status, prefix);
+        }
+        return prefix;
+    }
+
+    private byte[] encodePrefix(int status) {
+        byte[] head = ("{\"code\":" + status + ",\"message\":\"").getBytes(StandardCharsets.UTF_8);
+        String message = errorMessageProperties.getMessage(status);
+        byte[] prefix = new byte[head.length + JsonText.length(message) + 1];
+        int pos = JsonText.write(message, prefix, put(head, prefix, 0));
+        prefix[pos] = '"';
+        return prefix;
+    }
+
+    /**
+     * 現在時刻（LocalDateTime.toString() と同じ形式、ミリ秒単位）
+     */
+    private byte[] timestamp() {
+        long millis = System.currentTimeMillis();
+        Timestamp current = timestamp;
+        if (current.millis() != millis) {
+            String text = LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), zone).toString();
+            current = new Timestamp(millis, text.getBytes(StandardCharsets.US_ASCII));
+            timestamp = current;
+        }
+        return current.bytes();
+    }
+
+    private static int length(ErrorTemplate.Field field, String[] args) {
+        if (omitted(field, args)) {
+            return 0;
+        }
+        int length = field.name().length + 1;
+        byte[][] literals = field.literals();
+        int[] argIndexes = field.args();
+        for (int i = 0; i < argIndexes.length; i++) {
+            length += literals[i].length + JsonText.length(String.valueOf(args[argIndexes[i]]));
+        }
+        return length + literals[argIndexes.length].length;
+    }
+
+    private static int write(ErrorTemplate.Field field, String[] args, byte[] out, int pos) {
+        if (omitted(field, args)) {
+            return pos;
+        }
+        pos = put(field.name(), out, pos);
+        byte[][] literals = field.literals();
+        int[] argIndexes = field.args();
+        for (int i = 0; i < argIndexes.length; i++) {
+            pos = put(literals[i], out, pos);
+            pos = JsonText.write(String.valueOf(args[argIndexes[i]]), out, pos);
+        }
+        pos = put(literals[argIndexes.length], out, pos);
+        out[pos++] = '"';
+        return pos;
+    }
+
+    private static boolean omitted(ErrorTemplate.Field field, String[] args) {
+        return field.nullable() && args[field.args()[0]] == null;
+    }
+
+    private static int put(byte[] bytes, byte[] out, int pos) {
+        System.arraycopy(bytes, 0, out, pos, bytes.length);
+        return pos + bytes.length;
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.requesthandling.processor;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * エラーレスポンス（ErrorResponse のJSON）のテンプレート
+ *
+ * details / path / method の固定部分をUTF-8のJSON文字列（エスケープ済み）として事前にエンコードしておき、
+ * 描画時は {0}, {1}, ... の位置に引数のみを埋め込む（code, message, timestamp は ErrorResponseRenderer が埋め込む）
+ *
+ * 例: {@code ErrorTemplate.of(404, "ID '{0}' のユーザーは存在しません", "/api/users/{0}", "GET")}
+ *
+ * - パターンがnullのフィールドは出力しない
+ * - パターンが引数のみ（"{0}" など）のフィールドは、引数がnullの場合に出力しない（ErrorResponse の NON_NULL と同じ）
+ */
+public final class ErrorTemplate {
+
+    /**
+     * フィールド（名前とパターン）
+     *
+     * @param name {@code ,"details":"} のようにエンコード済みのフィールド名（値の開始の引用符まで）
+     * @param literals 固定部分（エスケープ済みのUTF-8）。args[i] は literals[i] と literals[i + 1] の間に埋め込む
+     * @param args 埋め込む引数の番号
+     * @param nullable 引数のみのパターンで、引数がnullなら出力しない
+     */
+    record Field(byte[] name, byte[][] literals, int[] args, boolean nullable) {
+    }
+
+    private final int status;
+    // timestamp より前に出力するフィールド（details）と、後に出力するフィールド（path, method）
+    private final Field[] leading;
+    private final Field[] trailing;
+
+    private ErrorTemplate(int status, Field[] leading, Field[] trailing) {
+        this.status = status;
+        this.leading = leading;
+        this.trailing = trailing;
+    }
+
+    /**
+     * テンプレートを作成
+     *
+     * @param status HTTPステータスコード（ErrorResponse の code）
+     * @param details 詳細情報のパターン（nullの場合は出力しない）
+     * @param path リクエストパスのパターン（nullの場合は出力しない）
+     * @param method リクエストメソッドのパターン（nullの場合は出力しない）
+     */
+    public static ErrorTemplate of(int status, String details, String path, String method) {
+        Field[] leading = details != null ? new Field[]{field("details", details)} : new Field[0];
+        List<Field> trailing = new ArrayList<>(2);
+        if (path != null) {
+            trailing.add(field("path", path));
+        }
+        if (method != null) {
+            trailing.add(field("method", method));
+        }
+        return new ErrorTemplate(status, leading, trailing.toArray(new Field[0]));
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    Field[] leading() {
+        return leading;
+    }
+
+    Field[] trailing() {
+        return trailing;
+    }
+
+    private static Field field(String name, String pattern) {
+        List<byte[]> literals = new ArrayList<>();
+        List<Integer> args = new ArrayList<>();
+        int start = 0;
+        int open = pattern.indexOf('{');
+        while (open >= 0) {
+            int close = pattern.indexOf('}', open);
+            int arg = close > open + 1 ? argIndex(pattern, open + 1, close) : -1;
+            if (arg < 0) {
+                open = pattern.indexOf('{', open + 1);
+                continue;
+            }
+            literals.add(JsonText.encode(pattern.substring(start, open)));
+            args.add(arg);
+            start = close + 1;
+            open = pattern.indexOf('{', start);
+        }
+        literals.add(JsonText.encode(pattern.substring(start)));
+        boolean nullable = args.size() == 1 && literals.get(0).length == 0 && literals.get(1).length == 0;
+        return new Field((",\"" + name + "\":\"").getBytes(StandardCharsets.UTF_8),
+                literals.toArray(new byte[0][]),
+                args.stream().mapToInt(Integer::intValue).toArray(),
+                nullable);
+    }
+
+    private static int argIndex(String pattern, int from, int to) {
+        int index = 0;
+        for (int i = from; i < to; i++) {
+            char c = pattern.charAt(i);
+            if (c < '0' || c > '9' || to - from > 2) {
+                return -1;
+            }
+            index = index * 10 + (c - '0');
+        }
+        return index;
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.requesthandling.processor;
+
+import com.example.requesthandling.model.ApiResponse;
+import com.example.requesthandling.model.ErrorResponse;
+import com.example.requesthandling.model.User;
+import com.example.requesthandling.service.UserService;
+import org.apache.camel.Exchange;
+import org.apache.camel.Processor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * メールアドレスによるユーザー取得プロセッサー
+ */
+@Component("getUserByEmailProcessor")
+public class GetUserByEmailProcessor implements Processor {
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private JsonResponseWriter responseWriter;
+
+    @Override
+    public void process(Exchange exchange) throws Exception {
+        String email = exchange.getIn().getHeader("email", String.class);
+        Optional<User> user = userService.getUserByEmail(email);
+        
+        if (user.isPresent()) {
+            ApiResponse response = ApiResponse.builder()
+                    .status("success")
+                    .message("ユーザー詳細を取得しました")
+                    .data(user.get())
+                    .build();
+            responseWriter.write(exchange, response);
+        } else {
+            exchange.getMessage().setHeader(Exchange.HTTP_RESPONSE_CODE, 404);
+            ErrorResponse errorResponse = ErrorResponse.builder()
+                    .code(404)
+                    .message("指定されたリソースが見つかりません")
+                    .details("メールアドレス '" + email + "' のユーザーは存在しません")
+                    .timestamp(LocalDateTime.now().toString())
+                    .path("/api/users/by-email/" + email)
+                    .method("GET")
+                    .build();
+            responseWriter.write(exchange, errorResponse);
+        }
+    }
+}
@@ -1,35 +1,64 @@
 package com.example.requesthandling.processor;
 
 import com.example.requesthandling.model.ApiResponse;
-import com.example.requesthandling.model.ErrorResponse;
 import com.example.requesthandling.model.User;
+import com.example.requesthandling.service.UserIds;
 import com.example.requesthandling.service.UserService;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import org.apache.camel.Exchange;
 import org.apache.camel.Processor;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
 
-import java.time.LocalDateTime;
 import java.util.Optional;
 
 /**
  * ユーザー詳細取得プロセッサー
+ * 
+ * レスポンスにはユーザーのバージョンから生成したETagを付与し、If-None-Match が一致する場合は304を返す
  */
 @Component("getUserByIdProcessor")
 public class GetUserByIdProcessor implements Processor {
 
+    private static final ErrorTemplate NOT_FOUND =
+            ErrorTemplate.of(404, "ID '{0}' のユーザーは存在しません", "/api/users/{0}", "GET");
+
     @Autowired
     private UserService userService;
 
     @Autowired
-    private ObjectMapper objectMapper;
+    private JsonResponseWriter responseWriter;
+
+    @Autowired
+    private ErrorResponseRenderer errorRenderer;
+
+    @Autowired
+    private UserResponseCache responseCache;
 
     @Override
     public void process(Exchange exchange) throws Exception {
         String userId = exchange.getIn().getHeader("id", String.class);
-        Optional<User> user = userService.getUserById(userId);
+        // IDは数値のみのため、数値でない場合はストアを参照せずに404を返す
+        long id = UserIds.parse(userId);
+        
+        // バージョンは内容より先に読む（読んだ内容がこのバージョン以降のものになるように）
+        String etag = null;
+        if (id != UserIds.INVALID) {
+            etag = ETags.format(userService.getVersionEpoch(), userService.getUserVersion(id));
+            if (ETags.notModified(exchange, etag)) {
+                return;
+            }
+        }
+        
+        // シリアライズ済みのレスポンスがあればそのまま返す
+        byte[] cached = responseCache.get(id);
+        if (cached != null) {
+            JsonResponseWriter.writeBytes(exchange, cached);
+            exchange.getMessage().setHeader(ETags.ETAG, etag);
+            return;
+        }
+        
+        long stamp = responseCache.stamp(id);
+        Optional<User> user = id == UserIds.INVALID ? Optional.empty() : userService.getUserById(id);
         
         if (user.isPresent()) {
             ApiResponse response = ApiResponse.builder()
@@ -37,23 +66,12 @@ public class GetUserByIdProcessor implements Processor {
                     .message("ユーザー詳細を取得しました")
                     .data(user.get())
                     .build();
-            String jsonResponse = objectMapper.writeValueAsString(response);
-            exchange.getMessage().setBody(jsonResponse);
-            exchange.getMessage().setHeader(Exchange.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE);
+            byte[] body = responseWriter.serialize(response);
+            responseCache.put(id, stamp, body);
+            JsonResponseWriter.writeBytes(exchange, body);
+            exchange.getMessage().setHeader(ETags.ETAG, etag);
         } else {
-            exchange.getMessage().setHeader(Exchange.HTTP_RESPONSE_CODE, 404);
-            ErrorResponse errorResponse = ErrorResponse.builder()
-                    .code(404)
-                    .message("指定されたリソースが見つかりません")
-                    .details("ID '" + userId + "' のユーザーは存在しません")
-                    .timestamp(LocalDateTime.now().toString())
-                    .path("/api/users/" + userId)
-                    .method("GET")
-                    .build();
-            String jsonResponse = objectMapper.writeValueAsString(errorResponse);
-            exchange.getMessage().setBody(jsonResponse);
-            exchange.getMessage().setHeader(Exchange.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE);
+            errorRenderer.write(exchange, NOT_FOUND, userId);
         }
     }
 }
-
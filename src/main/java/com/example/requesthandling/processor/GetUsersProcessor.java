@@ -1,6 +1,9 @@
 package com.example.requesthandling.processor;
 
 import com.example.requesthandling.model.ApiResponse;
+import com.example.requesthandling.model.ErrorResponse;
+import com.example.requesthandling.service.ListSnapshotExpiredException;
+import com.example.requesthandling.service.UserListSnapshot;
 import com.example.requesthandling.service.UserService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.apache.camel.Exchange;
@@ -9,29 +12,118 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
 
+import java.time.LocalDateTime;
+
 /**
  * ユーザー一覧取得プロセッサー
+ * 
+ * クエリパラメータ:
+ * - limit: 1ページの最大件数（指定時はカーソルページング）
+ * - cursor: 前ページの nextCursor
+ * - snapshot: 前ページの snapshot（指定すると同じ時点の一覧を読むため、途中の変更でユーザーが抜け・重複しない）
+ * - stream: true の場合、JsonGeneratorで逐次出力する
+ * 
+ * レスポンスには返すスナップショットのトークンから生成したETagを付与し、If-None-Match が一致する場合は304を返す
+ * （snapshot を指定した場合はそのスナップショットのETag。破棄されたスナップショットは If-None-Match によらず410）
+ * 格納先がヒープ上でなくユーザーの値を取得時に読み込むスナップショットは、値が後から変わるため、
+ * トークンにコレクションのバージョンを加えたETagにする
  */
 @Component("getUsersProcessor")
 public class GetUsersProcessor implements Processor {
 
+    static final int DEFAULT_LIMIT = 100;
+    static final int MAX_LIMIT = 1000;
+
+    private static final String MESSAGE = "ユーザー一覧を取得しました";
+
     @Autowired
     private UserService userService;
 
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private JsonResponseWriter responseWriter;
+
     @Override
     public void process(Exchange exchange) throws Exception {
-        ApiResponse response = ApiResponse.builder()
-                .status("success")
-                .message("ユーザー一覧を取得しました")
-                .data(userService.getAllUsers())
-                .build();
-        
-        String jsonResponse = objectMapper.writeValueAsString(response);
-        exchange.getMessage().setBody(jsonResponse);
-        exchange.getMessage().setHeader(Exchange.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE);
+        String limitParam = exchange.getIn().getHeader("limit", String.class);
+        String cursor = exchange.getIn().getHeader("cursor", String.class);
+        String snapshotToken = exchange.getIn().getHeader("snapshot", String.class);
+        boolean stream = "true".equalsIgnoreCase(exchange.getIn().getHeader("stream", String.class));
+        boolean paged = limitParam != null || cursor != null || snapshotToken != null;
+
+        Object body;
+        try {
+            int limit = paged ? parseLimit(limitParam) : Integer.MAX_VALUE;
+            // 返すスナップショットを先に確定し（期限切れは410）、ETagはそのスナップショットから生成する
+            UserListSnapshot snapshot = userService.getListSnapshot(snapshotToken);
+            String etag = snapshot.readsCurrentValues()
+                    ? ETags.format(snapshot.getToken() + "-" + userService.getCollectionVersion())
+                    : ETags.format(snapshot.getToken());
+            if (ETags.notModified(exchange, etag)) {
+                return;
+            }
+            if (stream) {
+                body = new StreamingUsersResponse(objectMapper, MESSAGE,
+                        snapshot.iterator(cursor), limit, paged, snapshot.getToken());
+            } else {
+                ApiResponse response = ApiResponse.builder()
+                        .status("success")
+                        .message(MESSAGE)
+                        .data(paged ? snapshot.page(cursor, limit) : snapshot.getUsers())
+                        .build();
+                body = responseWriter.serialize(response);
+            }
+            exchange.getMessage().setHeader(ETags.ETAG, etag);
+        } catch (ListSnapshotExpiredException e) {
+            exchange.getMessage().setHeader(Exchange.HTTP_RESPONSE_CODE, 410);
+            ErrorResponse errorResponse = ErrorResponse.builder()
+                    .code(410)
+                    .message("スナップショットの有効期限が切れています")
+                    .details(e.getMessage())
+                    .timestamp(LocalDateTime.now().toString())
+                    .path("/api/users")
+                    .method("GET")
+                    .build();
+            body = responseWriter.serialize(errorResponse);
+        } catch (IllegalArgumentException e) {
+            exchange.getMessage().setHeader(Exchange.HTTP_RESPONSE_CODE, 400);
+            ErrorResponse errorResponse = ErrorResponse.builder()
+                    .code(400)
+                    .message("リクエストが不正です")
+                    .details(e.getMessage())
+                    .timestamp(LocalDateTime.now().toString())
+                    .path("/api/users")
+                    .method("GET")
+                    .build();
+            body = responseWriter.serialize(errorResponse);
+        }
+
+        if (body instanceof byte[] bytes) {
+            JsonResponseWriter.writeBytes(exchange, bytes);
+        } else {
+            exchange.getMessage().setBody(body);
+            exchange.getMessage().setHeader(Exchange.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE);
+        }
     }
-}
 
+    /**
+     * limitパラメータを解釈（未指定はDEFAULT_LIMIT、上限はMAX_LIMIT）
+     */
+    private static int parseLimit(String limitParam) {
+        if (limitParam == null) {
+            return DEFAULT_LIMIT;
+        }
+        int limit;
+        try {
+            limit = Integer.parseInt(limitParam);
+        } catch (NumberFormatException e) {
+            limit = 0;
+        }
+        if (limit < 1) {
+            throw new IllegalArgumentException("limit '" + limitParam + "' は1以上の整数で指定してください");
+        }
+        return Math.min(limit, MAX_LIMIT);
+    }
+}
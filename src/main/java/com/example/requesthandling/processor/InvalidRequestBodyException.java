@@ -0,0 +1,28 @@
+package com.example.requesthandling.processor;
+
+import org.springframework.http.HttpStatus;
+
+/**
+ * リクエストボディ不正例外
+ * リクエストボディが上限サイズを超える（413）、または空・JSONとして不正である（400）場合にスローされる
+ */
+public class InvalidRequestBodyException extends RuntimeException {
+
+    private final HttpStatus status;
+
+    public InvalidRequestBodyException(HttpStatus status, String message) {
+        super(message);
+        this.status = status;
+    }
+
+    public HttpStatus getStatus() {
+        return status;
+    }
+
+    /**
+     * エラーレスポンスの message に設定する概要
+     */
+    public String getSummary() {
+        return status == HttpStatus.PAYLOAD_TOO_LARGE ? "リクエストボディが大きすぎます" : "リクエストが不正です";
+    }
+}
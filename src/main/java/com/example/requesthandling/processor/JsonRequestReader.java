@@ -0,0 +1,158 @@
+package com.example.requesthandling.processor;
+
+import com.example.requesthandling.config.ApiProperties;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.camel.Exchange;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * JSONリクエストボディの読み込み（全Processor共通）
+ *
+ * リクエストボディを String に変換せず、入力ストリームから直接デシリアライズする
+ * - Content-Length が上限を超える場合は、ボディを読まずに 413 とする
+ * - Content-Length がない（chunked）場合や偽っている場合も、読み込んだバイト数が上限を超えた時点で 413 とする
+ * - 空のボディ・JSONとして不正なボディは 400 とする
+ *
+ * 上限を超えるボディがメモリに溜まらないよう、ServletのボディのキャッシュとCamelのストリームキャッシュは無効にしている
+ * （RestApiConfiguration, application.yml の camel.springboot.stream-caching-enabled）
+ */
+@Component
+public class JsonRequestReader {
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ApiProperties apiProperties;
+
+    /**
+     * ユーザー1件分のボディを読み込む（上限は api.request.max-body-size）
+     *
+     * @throws InvalidRequestBodyException ボディが上限を超える・空・不正な場合
+     */
+    public <T> T read(Exchange exchange, Class<T> type) throws IOException {
+        return read(exchange, objectMapper.constructType(type), apiProperties.getRequest().getMaxBodySize());
+    }
+
+    /**
+     * 一括処理のボディを読み込む（上限は api.request.max-batch-body-size）
+     *
+     * @throws InvalidRequestBodyException ボディが上限を超える・空・不正な場合
+     */
+    public <T> T readBatch(Exchange exchange, TypeReference<T> type) throws IOException {
+        return read(exchange, objectMapper.constructType(type), apiProperties.getRequest().getMaxBatchBodySize());
+    }
+
+    private <T> T read(Exchange exchange, JavaType type, DataSize maxBodySize) throws IOException {
+        long limit = maxBodySize.toBytes();
+        Long contentLength = exchange.getIn().getHeader(Exchange.CONTENT_LENGTH, Long.class);
+        if (contentLength != null && contentLength > limit) {
+            throw tooLarge(limit);
+        }
+        InputStream body = exchange.getIn().getBody(InputStream.class);
+        if (body == null) {
+            throw new InvalidRequestBodyException(HttpStatus.BAD_REQUEST, "リクエストボディがありません");
+        }
+
+        T value;
+        try (InputStream in = new LimitedInputStream(body, limit)) {
+            value = objectMapper.readValue(in, type);
+        } catch (JsonProcessingException e) {
+            if (isTooLarge(e)) {
+                throw tooLarge(limit);
+            }
+            throw new InvalidRequestBodyException(HttpStatus.BAD_REQUEST,
+                    "リクエストボディをJSONとして解釈できません: " + e.getOriginalMessage());
+        } catch (LimitExceededException e) {
+            throw tooLarge(limit);
+        }
+        if (value == null) {
+            throw new InvalidRequestBodyException(HttpStatus.BAD_REQUEST, "リクエストボディがありません");
+        }
+        return value;
+    }
+
+    private static InvalidRequestBodyException tooLarge(long limit) {
+        return new InvalidRequestBodyException(HttpStatus.PAYLOAD_TOO_LARGE,
+                "リクエストボディは" + limit + "バイト以下にしてください");
+    }
+
+    private static boolean isTooLarge(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof LimitExceededException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 上限を超えて読み込もうとした場合
+     * （Jacksonがそのまま再スローするよう IOException とする）
+     */
+    private static final class LimitExceededException extends IOException {
+
+        private static final long serialVersionUID = 1L;
+    }
+
+    /**
+     * 読み込んだバイト数が上限を超えた時点で LimitExceededException をスローする入力ストリーム
+     */
+    private static final class LimitedInputStream extends FilterInputStream {
+
+        private long remaining;
+
+        LimitedInputStream(InputStream in, long limit) {
+            super(in);
+            this.remaining = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                consumed(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            // 上限ちょうどのボディを受け付け、1バイトでも超えれば検出できるように、残り+1バイトまでに絞って読む
+            int n = super.read(b, off, (int) Math.min(len, remaining + 1));
+            if (n > 0) {
+                consumed(n);
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(Math.min(n, remaining + 1));
+            consumed(skipped);
+            return skipped;
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        private void consumed(long n) throws LimitExceededException {
+            remaining -= n;
+            if (remaining < 0) {
+                throw new LimitExceededException();
+            }
+        }
+    }
+}
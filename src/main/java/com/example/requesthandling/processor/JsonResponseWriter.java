@@ -0,0 +1,58 @@
+package com.example.requesthandling.processor;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.camel.Exchange;
+import org.apache.camel.ExchangePropertyKey;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * JSONレスポンスの書き込み（全Processor共通）
+ *
+ * レスポンスをUTF-8のバイト列に直接シリアライズしてメッセージ本文に設定する
+ * - 文字列（String）を経由しないため、シリアライズ時の文字配列・String と、送信時のバイト列への再変換が発生しない
+ * - シリアライズ中のバッファは Jackson の BufferRecycler（スレッドごとに再利用）を使用し、確保するのは最終的なバイト列のみ
+ * - 本文はCamelがそのままレスポンスに書き込む（servlet・undertow共通）
+ */
+@Component
+public class JsonResponseWriter {
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * ステータスコードを変更せずにレスポンスを設定
+     */
+    public void write(Exchange exchange, Object response) throws JsonProcessingException {
+        writeBytes(exchange, objectMapper.writeValueAsBytes(response));
+    }
+
+    /**
+     * ステータスコードとレスポンスを設定
+     */
+    public void write(Exchange exchange, int status, Object response) throws JsonProcessingException {
+        exchange.getMessage().setHeader(Exchange.HTTP_RESPONSE_CODE, status);
+        write(exchange, response);
+    }
+
+    /**
+     * レスポンスをUTF-8のJSONにシリアライズ（キャッシュ用）
+     */
+    public byte[] serialize(Object response) throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(response);
+    }
+
+    /**
+     * シリアライズ済みのJSONを設定
+     */
+    public static void writeBytes(Exchange exchange, byte[] body) {
+        exchange.getMessage().setBody(body);
+        exchange.getMessage().setHeader(Exchange.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE);
+        // バイト列は UTF-8（String への変換時に使用）
+        exchange.setProperty(ExchangePropertyKey.CHARSET_NAME, StandardCharsets.UTF_8.name());
+    }
+}
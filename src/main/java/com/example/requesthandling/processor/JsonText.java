@@ -0,0 +1,103 @@
+package com.example.requesthandling.processor;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * JSON文字列の値のエスケープとUTF-8エンコード（Jacksonの既定の出力と等価なJSON）
+ *
+ * - {@code "} と {@code \} 、制御文字をエスケープする（\b \t \n \f \r 以外の制御文字は \\u00XX）
+ * - 非ASCII文字はエスケープせず、そのままUTF-8で出力する
+ * - サロゲートは4バイトのUTF-8にまとめず、1文字ずつ \\uXXXX でエスケープする
+ *   （Jackson 2.x の UTF8JsonGenerator の既定と同じ。単独のサロゲートも不正なUTF-8にならない）
+ */
+final class JsonText {
+
+    private static final byte[] HEX = "0123456789ABCDEF".getBytes(StandardCharsets.US_ASCII);
+
+    private JsonText() {
+    }
+
+    static byte[] encode(String value) {
+        byte[] bytes = new byte[length(value)];
+        write(value, bytes, 0);
+        return bytes;
+    }
+
+    /**
+     * エスケープ後のUTF-8のバイト数
+     */
+    static int length(String value) {
+        int length = 0;
+        for (int i = 0, n = value.length(); i < n; i++) {
+            char c = value.charAt(i);
+            if (c >= 0x20 && c < 0x80) {
+                length += c == '"' || c == '\\' ? 2 : 1;
+            } else if (c < 0x20) {
+                length += shortEscape(c) != 0 ? 2 : 6;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isSurrogate(c)) {
+                length += 6;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+
+    /**
+     * エスケープしてUTF-8で書き込む
+     *
+     * @return 書き込んだ後の位置
+     */
+    static int write(String value, byte[] out, int pos) {
+        for (int i = 0, n = value.length(); i < n; i++) {
+            char c = value.charAt(i);
+            if (c >= 0x20 && c < 0x80) {
+                if (c == '"' || c == '\\') {
+                    out[pos++] = '\\';
+                }
+                out[pos++] = (byte) c;
+            } else if (c < 0x20) {
+                char escape = shortEscape(c);
+                if (escape != 0) {
+                    out[pos++] = '\\';
+                    out[pos++] = (byte) escape;
+                } else {
+                    pos = unicodeEscape(c, out, pos);
+                }
+            } else if (c < 0x800) {
+                out[pos++] = (byte) (0xC0 | (c >> 6));
+                out[pos++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                pos = unicodeEscape(c, out, pos);
+            } else {
+                out[pos++] = (byte) (0xE0 | (c >> 12));
+                out[pos++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                out[pos++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        return pos;
+    }
+
+    private static int unicodeEscape(char c, byte[] out, int pos) {
+        out[pos++] = '\\';
+        out[pos++] = 'u';
+        out[pos++] = HEX[c >> 12];
+        out[pos++] = HEX[(c >> 8) & 0xF];
+        out[pos++] = HEX[(c >> 4) & 0xF];
+        out[pos++] = HEX[c & 0xF];
+        return pos;
+    }
+
+    private static char shortEscape(char c) {
+        return switch (c) {
+            case '\b' -> 'b';
+            case '\t' -> 't';
+            case '\n' -> 'n';
+            case '\f' -> 'f';
+            case '\r' -> 'r';
+            default -> 0;
+        };
+    }
+}
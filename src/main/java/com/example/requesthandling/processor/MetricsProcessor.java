@@ -0,0 +1,83 @@
+package com.example.requesthandling.processor;
+
+import com.example.requesthandling.accesslog.AccessLog;
+import com.example.requesthandling.bulkhead.Bulkheads;
+import com.example.requesthandling.concurrency.ConcurrencyLimitPolicyFactory;
+import com.example.requesthandling.metrics.RouteMetricsRegistry;
+import com.example.requesthandling.model.ApiResponse;
+import com.example.requesthandling.model.MetricsReport;
+import com.example.requesthandling.ratelimit.RateLimitFilter;
+import com.example.requesthandling.service.UserService;
+import org.apache.camel.Exchange;
+import org.apache.camel.Processor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * メトリクス取得プロセッサー
+ *
+ * 計測中のカウンタとヒストグラムをその場で集計する（コピーやロックを伴わない）
+ */
+@Component("metricsProcessor")
+public class MetricsProcessor implements Processor {
+
+    @Autowired
+    private RouteMetricsRegistry routeMetricsRegistry;
+
+    @Autowired
+    private UserResponseCache userResponseCache;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private AccessLog accessLog;
+
+    @Autowired
+    private RateLimitFilter rateLimitFilter;
+
+    @Autowired
+    private ConcurrencyLimitPolicyFactory concurrencyLimitPolicyFactory;
+
+    @Autowired
+    private Bulkheads bulkheads;
+
+    @Autowired
+    private JsonResponseWriter responseWriter;
+
+    @Override
+    public void process(Exchange exchange) throws Exception {
+        Map<String, Long> responseCache = new LinkedHashMap<>();
+        responseCache.put("hits", userResponseCache.getHits());
+        responseCache.put("misses", userResponseCache.getMisses());
+        responseCache.put("evictions", userResponseCache.getEvictions());
+        responseCache.put("invalidations", userResponseCache.getInvalidations());
+
+        Map<String, Long> accessLogCounts = new LinkedHashMap<>();
+        accessLogCounts.put("written", accessLog.getWritten());
+        accessLogCounts.put("sampledOut", accessLog.getSampledOut());
+        accessLogCounts.put("dropped", accessLog.getDropped());
+
+        MetricsReport report = MetricsReport.builder()
+                .uptimeSeconds(routeMetricsRegistry.getUptimeSeconds())
+                .routes(routeMetricsRegistry.snapshot())
+                .responseCache(responseCache)
+                .storeCache(userService.getStoreCacheStats())
+                .writeBehind(userService.getWriteBehindStats())
+                .accessLog(accessLogCounts)
+                .rateLimit(rateLimitFilter.getStats())
+                .concurrencyLimit(concurrencyLimitPolicyFactory.getStats())
+                .bulkheads(bulkheads.getStats())
+                .build();
+
+        ApiResponse response = ApiResponse.builder()
+                .status("success")
+                .message("メトリクスを取得しました")
+                .data(report)
+                .build();
+        responseWriter.write(exchange, response);
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.requesthandling.processor;
+
+import com.example.requesthandling.model.ApiResponse;
+import com.example.requesthandling.model.ErrorResponse;
+import com.example.requesthandling.service.UserService;
+import org.apache.camel.Exchange;
+import org.apache.camel.Processor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+
+/**
+ * ユーザー名検索プロセッサー
+ * 
+ * クエリパラメータ:
+ * - q: 検索文字列（必須）
+ * - limit: 最大件数（省略時 DEFAULT_LIMIT、上限 MAX_LIMIT）
+ */
+@Component("searchUsersProcessor")
+public class SearchUsersProcessor implements Processor {
+
+    static final int DEFAULT_LIMIT = 20;
+    static final int MAX_LIMIT = 100;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private JsonResponseWriter responseWriter;
+
+    @Override
+    public void process(Exchange exchange) throws Exception {
+        String query = exchange.getIn().getHeader("q", String.class);
+        String limitParam = exchange.getIn().getHeader("limit", String.class);
+        
+        String error = null;
+        int limit = DEFAULT_LIMIT;
+        if (query == null || query.isBlank()) {
+            error = "検索文字列 q を指定してください";
+        } else if (limitParam != null) {
+            try {
+                limit = Integer.parseInt(limitParam);
+            } catch (NumberFormatException e) {
+                limit = 0;
+            }
+            if (limit < 1) {
+                error = "limit '" + limitParam + "' は1以上の整数で指定してください";
+            }
+        }
+        
+        if (error == null) {
+            ApiResponse response = ApiResponse.builder()
+                    .status("success")
+                    .message("ユーザーを検索しました")
+                    .data(userService.searchUsers(query, Math.min(limit, MAX_LIMIT)))
+                    .build();
+            responseWriter.write(exchange, response);
+        } else {
+            exchange.getMessage().setHeader(Exchange.HTTP_RESPONSE_CODE, 400);
+            ErrorResponse errorResponse = ErrorResponse.builder()
+                    .code(400)
+                    .message("リクエストが不正です")
+                    .details(error)
+                    .timestamp(LocalDateTime.now().toString())
+                    .path("/api/users/search")
+                    .method("GET")
+                    .build();
+            responseWriter.write(exchange, errorResponse);
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.example.requesthandling.processor;
+
+import com.example.requesthandling.model.User;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+
+/**
+ * ユーザー一覧のストリーミングJSONレスポンス
+ * 読み出しに合わせてJsonGeneratorでチャンク単位にJSONを生成するため、
+ * ユーザー数に関係なくリクエストあたりのメモリ使用量はチャンク1つ分に収まる
+ * 
+ * 出力形式は通常のレスポンス（ApiResponse）と同じ
+ */
+public class StreamingUsersResponse extends InputStream {
+
+    private static final int CHUNK_SIZE = 8 * 1024;
+
+    private final Iterator<User> users;
+    private final int limit;
+    private final boolean paged;
+    private final String snapshot;
+    private final ChunkBuffer buffer = new ChunkBuffer();
+    private final JsonGenerator generator;
+
+    private int written;
+    private String lastId;
+    private int position;
+    private boolean finished;
+
+    /**
+     * @param users 出力するユーザー（ID昇順）
+     * @param limit 最大出力件数
+     * @param paged trueの場合 data を {"users":[...],"nextCursor":...,"snapshot":...} 形式で出力
+     * @param snapshot 読み込んだ一覧のスナップショットのトークン
+     */
+    public StreamingUsersResponse(ObjectMapper objectMapper, String message,
+                                  Iterator<User> users, int limit, boolean paged, String snapshot) throws IOException {
+        this.users = users;
+        this.limit = limit;
+        this.paged = paged;
+        this.snapshot = snapshot;
+        this.generator = objectMapper.createGenerator(buffer, JsonEncoding.UTF8);
+
+        generator.writeStartObject();
+        generator.writeStringField("status", "success");
+        generator.writeStringField("message", message);
+        generator.writeFieldName("data");
+        if (paged) {
+            generator.writeStartObject();
+            generator.writeFieldName("users");
+        }
+        generator.writeStartArray();
+        generator.flush();
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!ensureAvailable()) {
+            return -1;
+        }
+        return buffer.array()[position++] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (!ensureAvailable()) {
+            return -1;
+        }
+        int n = Math.min(len, buffer.size() - position);
+        System.arraycopy(buffer.array(), position, b, off, n);
+        position += n;
+        return n;
+    }
+
+    @Override
+    public int available() {
+        return buffer.size() - position;
+    }
+
+    @Override
+    public void close() throws IOException {
+        finished = true;
+        generator.close();
+    }
+
+    /**
+     * バッファを読み切っていれば次のチャンクを生成する
+     */
+    private boolean ensureAvailable() throws IOException {
+        while (position >= buffer.size()) {
+            if (finished) {
+                return false;
+            }
+            buffer.reset();
+            position = 0;
+            fill();
+        }
+        return true;
+    }
+
+    private void fill() throws IOException {
+        while (buffer.size() + Math.max(0, generator.getOutputBuffered()) < CHUNK_SIZE
+                && written < limit && users.hasNext()) {
+            User user = users.next();
+            generator.writeObject(user);
+            lastId = user.getId();
+            written++;
+        }
+        if (written >= limit || !users.hasNext()) {
+            generator.writeEndArray();
+            if (paged) {
+                boolean hasMore = written >= limit && users.hasNext() && lastId != null;
+                generator.writeStringField("nextCursor", hasMore ? lastId : null);
+                generator.writeStringField("snapshot", snapshot);
+                generator.writeEndObject();
+            }
+            generator.writeEndObject();
+            generator.close();
+            finished = true;
+        } else {
+            generator.flush();
+        }
+    }
+
+    /**
+     * 内部配列をコピーせずに読み出すためのバッファ
+     */
+    private static final class ChunkBuffer extends ByteArrayOutputStream {
+
+        ChunkBuffer() {
+            super(CHUNK_SIZE + 1024);
+        }
+
+        byte[] array() {
+            return buf;
+        }
+    }
+}
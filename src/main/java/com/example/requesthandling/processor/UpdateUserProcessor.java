@@ -3,12 +3,13 @@ package com.example.requesthandling.processor;
 import com.example.requesthandling.model.ApiResponse;
 import com.example.requesthandling.model.ErrorResponse;
 import com.example.requesthandling.model.User;
+import com.example.requesthandling.service.DuplicateEmailException;
+import com.example.requesthandling.service.UserIds;
 import com.example.requesthandling.service.UserService;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import org.apache.camel.Exchange;
 import org.apache.camel.Processor;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.http.MediaType;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Component;
 
 import java.time.LocalDateTime;
@@ -20,19 +21,58 @@ import java.util.Optional;
 @Component("updateUserProcessor")
 public class UpdateUserProcessor implements Processor {
 
+    private static final ErrorTemplate NOT_FOUND =
+            ErrorTemplate.of(404, "ID '{0}' のユーザーは存在しません", "/api/users/{0}", "PUT");
+
     @Autowired
     private UserService userService;
 
     @Autowired
-    private ObjectMapper objectMapper;
+    private JsonRequestReader requestReader;
+
+    @Autowired
+    private JsonResponseWriter responseWriter;
+
+    @Autowired
+    private ErrorResponseRenderer errorRenderer;
 
     @Override
     public void process(Exchange exchange) throws Exception {
         String userId = exchange.getIn().getHeader("id", String.class);
-        // JSONボディを手動でUserオブジェクトに変換
-        String jsonBody = exchange.getIn().getBody(String.class);
-        User inputUser = objectMapper.readValue(jsonBody, User.class);
-        Optional<User> updatedUser = userService.updateUser(userId, inputUser);
+        // IDは数値のみのため、数値でない場合はボディを読まずに404を返す
+        long id = UserIds.parse(userId);
+        Optional<User> updatedUser = Optional.empty();
+        try {
+            if (id != UserIds.INVALID) {
+                // JSONボディを入力ストリームから直接Userオブジェクトに変換
+                User inputUser = requestReader.read(exchange, User.class);
+                updatedUser = userService.updateUser(id, inputUser);
+            }
+        } catch (InvalidRequestBodyException e) {
+            exchange.getMessage().setHeader(Exchange.HTTP_RESPONSE_CODE, e.getStatus().value());
+            ErrorResponse errorResponse = ErrorResponse.builder()
+                    .code(e.getStatus().value())
+                    .message(e.getSummary())
+                    .details(e.getMessage())
+                    .timestamp(LocalDateTime.now().toString())
+                    .path("/api/users/" + userId)
+                    .method("PUT")
+                    .build();
+            responseWriter.write(exchange, errorResponse);
+            return;
+        } catch (DuplicateEmailException e) {
+            exchange.getMessage().setHeader(Exchange.HTTP_RESPONSE_CODE, HttpStatus.CONFLICT.value());
+            ErrorResponse errorResponse = ErrorResponse.builder()
+                    .code(HttpStatus.CONFLICT.value())
+                    .message("リソースが競合しています")
+                    .details(e.getMessage())
+                    .timestamp(LocalDateTime.now().toString())
+                    .path("/api/users/" + userId)
+                    .method("PUT")
+                    .build();
+            responseWriter.write(exchange, errorResponse);
+            return;
+        }
         
         if (updatedUser.isPresent()) {
             ApiResponse response = ApiResponse.builder()
@@ -40,22 +80,9 @@ public class UpdateUserProcessor implements Processor {
                     .message("ユーザーを更新しました")
                     .data(updatedUser.get())
                     .build();
-            String jsonResponse = objectMapper.writeValueAsString(response);
-            exchange.getMessage().setBody(jsonResponse);
-            exchange.getMessage().setHeader(Exchange.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE);
+            responseWriter.write(exchange, response);
         } else {
-            exchange.getMessage().setHeader(Exchange.HTTP_RESPONSE_CODE, 404);
-            ErrorResponse errorResponse = ErrorResponse.builder()
-                    .code(404)
-                    .message("指定されたリソースが見つかりません")
-                    .details("ID '" + userId + "' のユーザーは存在しません")
-                    .timestamp(LocalDateTime.now().toString())
-                    .path("/api/users/" + userId)
-                    .method("PUT")
-                    .build();
-            String jsonResponse = objectMapper.writeValueAsString(errorResponse);
-            exchange.getMessage().setBody(jsonResponse);
-            exchange.getMessage().setHeader(Exchange.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE);
+            errorRenderer.write(exchange, NOT_FOUND, userId);
         }
     }
 }
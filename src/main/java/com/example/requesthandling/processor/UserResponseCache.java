@@ -0,0 +1,136 @@
+package com.example.requesthandling.processor;
+
+import com.example.requesthandling.config.ApiProperties;
+import com.example.requesthandling.service.UserService;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * GET /api/users/{id} のシリアライズ済みレスポンス（UTF-8のJSON）のキャッシュ
+ *
+ * - ダイレクトマップ方式: IDのハッシュで決まる1スロットに1件を保持し、別のIDが入ると追い出す（件数は最大 maxEntries）
+ * - 無効化: UserService の更新・削除の通知でスロットを空にする
+ * - 取得開始時のスロットの世代（stamp）を put に渡し、取得中に無効化された場合は格納しない
+ *   （無効化はストアへの反映後に通知されるため、世代が変わっていなければ取得した内容は最新）
+ *
+ * キャッシュのヒット時はスロット配列の参照1回で、レスポンスのバイト列をそのまま返せる
+ */
+@Component
+public class UserResponseCache {
+
+    private record Entry(long id, byte[] body) {
+    }
+
+    private final boolean enabled;
+    private final int mask;
+    private final AtomicReferenceArray<Entry> slots;
+    // スロットごとの無効化の世代
+    private final AtomicLongArray stamps;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    public UserResponseCache(ApiProperties apiProperties, UserService userService) {
+        ApiProperties.ResponseCache config = apiProperties.getResponseCache();
+        this.enabled = config.isEnabled() && config.getMaxEntries() > 0;
+        int capacity = enabled && config.getMaxEntries() > 1 ? Integer.highestOneBit(config.getMaxEntries() - 1) << 1 : 1;
+        this.mask = capacity - 1;
+        this.slots = new AtomicReferenceArray<>(capacity);
+        this.stamps = new AtomicLongArray(capacity);
+        if (enabled) {
+            userService.addChangeListener(this::invalidate);
+        }
+    }
+
+    /**
+     * キャッシュ済みのレスポンスを取得
+     *
+     * @return レスポンスのバイト列（キャッシュにない場合はnull）
+     */
+    public byte[] get(long id) {
+        if (!enabled) {
+            return null;
+        }
+        Entry entry = slots.get(slot(id));
+        if (entry != null && entry.id() == id) {
+            hits.increment();
+            return entry.body();
+        }
+        misses.increment();
+        return null;
+    }
+
+    /**
+     * ユーザーを取得する前に呼び出し、put に渡す世代を取得
+     */
+    public long stamp(long id) {
+        return enabled ? stamps.get(slot(id)) : 0;
+    }
+
+    /**
+     * レスポンスを格納（stamp の取得後に無効化された場合は格納しない）
+     */
+    public void put(long id, long stamp, byte[] body) {
+        if (!enabled) {
+            return;
+        }
+        int slot = slot(id);
+        Entry entry = new Entry(id, body);
+        Entry previous = slots.getAndSet(slot, entry);
+        if (previous != null && previous.id() != id) {
+            evictions.increment();
+        }
+        // 格納と無効化が交差した場合は、格納した側が取り消す
+        if (stamps.get(slot) != stamp) {
+            slots.compareAndSet(slot, entry, null);
+        }
+    }
+
+    /**
+     * 指定IDのレスポンスを無効化（ストアへの反映後に呼び出すこと）
+     */
+    public void invalidate(long id) {
+        if (!enabled) {
+            return;
+        }
+        int slot = slot(id);
+        stamps.incrementAndGet(slot);
+        Entry entry = slots.get(slot);
+        if (entry != null && entry.id() == id && slots.compareAndSet(slot, entry, null)) {
+            invalidations.increment();
+        }
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    public long getInvalidations() {
+        return invalidations.sum();
+    }
+
+    /**
+     * スロット数（格納できる最大件数）
+     */
+    public int getCapacity() {
+        return enabled ? mask + 1 : 0;
+    }
+
+    private int slot(long id) {
+        long h = id * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+}
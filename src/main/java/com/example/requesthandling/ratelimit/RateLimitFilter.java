@@ -0,0 +1,200 @@
+package com.example.requesthandling.ratelimit;
+
+import com.example.requesthandling.config.ApiProperties;
+import com.example.requesthandling.processor.ErrorResponseRenderer;
+import com.example.requesthandling.processor.ErrorTemplate;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * クライアントごとのリクエスト数の制限（Camelのルートより前で判定する）
+ *
+ * api.rate-limit.groups の定義順にメソッドとパスを照合し、最初に一致したグループの TokenBucketLimiter で判定する
+ * - クライアントは client-key-header のヘッダーの値が api-keys に登録されたAPIキーの場合はそのキー、
+ *   それ以外（ヘッダーなし・未登録の値）の場合は接続元のIPアドレスで識別する
+ * - 上限を超えた場合は、後続（CamelHttpTransportServlet / Spring MVC）に渡さず、
+ *   ErrorResponse 形式の429と Retry-After（秒）をその場で返す
+ *
+ * Servletを経由しないトランスポート（api.transport=undertow）では、EmbeddedUndertowHost が check() で同じ判定を行う
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final ErrorTemplate TOO_MANY_REQUESTS =
+            ErrorTemplate.of(429, "リクエスト数の上限を超えました（{0}）。{1}秒後に再試行してください", "{2}", "{3}");
+
+    /**
+     * 上限を超えた場合の429のレスポンス（Retry-After の秒数とボディ）
+     */
+    public record Rejection(String retryAfter, byte[] body) {
+    }
+
+    private final ErrorResponseRenderer errorRenderer;
+    private final String clientKeyHeader;
+    private final Set<String> apiKeys;
+    private final Group[] groups;
+
+    public RateLimitFilter(ApiProperties apiProperties, ErrorResponseRenderer errorRenderer) {
+        this.errorRenderer = errorRenderer;
+        ApiProperties.RateLimit config = apiProperties.getRateLimit();
+        this.clientKeyHeader = config.getClientKeyHeader();
+        this.apiKeys = Set.copyOf(config.getApiKeys());
+        List<Group> groups = new ArrayList<>();
+        if (config.isEnabled()) {
+            for (Map.Entry<String, ApiProperties.RateLimitGroup> entry : config.getGroups().entrySet()) {
+                groups.add(new Group(entry.getKey(), entry.getValue(), config));
+            }
+        }
+        this.groups = groups.toArray(new Group[0]);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return groups.length == 0;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String apiKey = clientKeyHeader != null && !clientKeyHeader.isEmpty() ? request.getHeader(clientKeyHeader) : null;
+        Rejection rejection = check(request.getMethod(), request.getRequestURI(), apiKey, request.getRemoteAddr());
+        if (rejection == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+        response.setStatus(429);
+        response.setHeader(HttpHeaders.RETRY_AFTER, rejection.retryAfter());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+        response.setContentLength(rejection.body().length);
+        response.getOutputStream().write(rejection.body());
+    }
+
+    /**
+     * リクエスト数の上限を判定する（上限以内、またはどのグループにも一致しない場合はnull）
+     *
+     * @param apiKey client-key-header のヘッダーの値（ヘッダーがない場合はnull）
+     * @param remoteAddr 接続元のIPアドレス
+     */
+    public Rejection check(String method, String path, String apiKey, String remoteAddr) {
+        Group group = match(method, path);
+        if (group == null) {
+            return null;
+        }
+        long wait = group.limiter.tryAcquire(clientKey(apiKey, remoteAddr), System.nanoTime());
+        if (wait == 0) {
+            return null;
+        }
+        String retryAfter = Long.toString(Math.max(1, TimeUnit.NANOSECONDS.toSeconds(wait + TimeUnit.SECONDS.toNanos(1) - 1)));
+        return new Rejection(retryAfter, errorRenderer.render(TOO_MANY_REQUESTS, group.name, retryAfter, path, method));
+    }
+
+    /**
+     * クライアントを識別するヘッダー名（api.rate-limit.client-key-header）
+     */
+    public String getClientKeyHeader() {
+        return clientKeyHeader;
+    }
+
+    private Group match(String method, String path) {
+        for (Group group : groups) {
+            if (group.matches(method, path)) {
+                return group;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 登録済みのAPIキーは "key:" + キー、それ以外は "ip:" + 接続元のIPアドレス（APIキーとIPアドレスが同じ文字列でも区別する）
+     */
+    private String clientKey(String apiKey, String remoteAddr) {
+        if (apiKey != null && apiKeys.contains(apiKey)) {
+            return "key:" + apiKey;
+        }
+        return "ip:" + remoteAddr;
+    }
+
+    /**
+     * グループごとの件数（allowed / rejected / clients / evicted）
+     */
+    public Map<String, Map<String, Long>> getStats() {
+        Map<String, Map<String, Long>> stats = new LinkedHashMap<>();
+        for (Group group : groups) {
+            Map<String, Long> counts = new LinkedHashMap<>();
+            counts.put("allowed", group.limiter.getAllowed());
+            counts.put("rejected", group.limiter.getRejected());
+            counts.put("clients", group.limiter.getClients());
+            counts.put("evicted", group.limiter.getEvicted());
+            stats.put(group.name, counts);
+        }
+        return stats;
+    }
+
+    private static final class Group {
+
+        private final String name;
+        private final Set<String> methods;
+        private final String[] exactPaths;
+        // 末尾の /** を除いたパス（そのパス自体と配下に一致する）
+        private final String[] prefixes;
+        private final TokenBucketLimiter limiter;
+
+        Group(String name, ApiProperties.RateLimitGroup config, ApiProperties.RateLimit limits) {
+            this.name = name;
+            this.methods = config.getMethods().stream()
+                    .map(method -> method.toUpperCase(Locale.ROOT))
+                    .collect(Collectors.toUnmodifiableSet());
+            List<String> exact = new ArrayList<>();
+            List<String> prefix = new ArrayList<>();
+            for (String path : config.getPaths()) {
+                if (path.endsWith("/**")) {
+                    prefix.add(path.substring(0, path.length() - 3));
+                } else {
+                    exact.add(path);
+                }
+            }
+            this.exactPaths = exact.toArray(new String[0]);
+            this.prefixes = prefix.toArray(new String[0]);
+            this.limiter = new TokenBucketLimiter(config.getCapacity(), config.getRefillPerSecond(),
+                    limits.getMaxClients(), limits.getStripes());
+        }
+
+        boolean matches(String method, String path) {
+            if (!methods.isEmpty() && !methods.contains(method)) {
+                return false;
+            }
+            for (String exact : exactPaths) {
+                if (exact.equals(path)) {
+                    return true;
+                }
+            }
+            for (String prefix : prefixes) {
+                if (path.startsWith(prefix)
+                        && (path.length() == prefix.length() || path.charAt(prefix.length()) == '/')) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
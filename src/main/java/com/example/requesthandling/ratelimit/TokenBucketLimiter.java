@@ -0,0 +1,163 @@
+package com.example.requesthandling.ratelimit;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * クライアントごとのトークンバケット（ストライプ分割、ロックフリー、件数上限つき）
+ *
+ * バケットは「トークンが満杯に戻る時刻」（GCRA の理論到着時刻）を1つの long で保持する
+ * - 1リクエストごとに満杯に戻る時刻を 1トークン分（1 / refillPerSecond 秒）進め、現在時刻との差が
+ *   capacity トークン分を超える場合は拒否する（capacity 件まで連続で受け付け、以降は refillPerSecond 件/秒）
+ * - 判定と更新は1回のCASのみ
+ *
+ * バケットはクライアントのキーのハッシュで stripes 個のマップに振り分け、1マップあたりの件数に上限を設ける
+ * - 上限に達したマップに新しいクライアントが来た場合、満杯に戻っている（アイドルの）バケットを削除する
+ *   （満杯のバケットは新規作成と同じ状態のため、削除しても判定は変わらない）
+ * - 削除後も上限に達している場合は、そのマップの共有バケット（overflow）で判定する
+ */
+public final class TokenBucketLimiter {
+
+    private final long intervalNanos;
+    private final long burstNanos;
+    private final int mask;
+    private final int maxPerStripe;
+    private final Stripe[] stripes;
+    private final LongAdder allowed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder evicted = new LongAdder();
+
+    /**
+     * @param capacity バケットの容量（連続で受け付ける件数）
+     * @param refillPerSecond 1秒あたりに補充するトークン数
+     * @param maxClients 保持するバケットの最大件数
+     * @param stripes マップの分割数（2のべき乗に切り上げ）
+     */
+    public TokenBucketLimiter(int capacity, double refillPerSecond, int maxClients, int stripes) {
+        if (capacity < 1 || refillPerSecond <= 0) {
+            throw new IllegalArgumentException("capacity と refillPerSecond は正の値を指定してください");
+        }
+        this.intervalNanos = Math.max(1, Math.round(1_000_000_000L / refillPerSecond));
+        this.burstNanos = intervalNanos * capacity;
+        int stripeCount = stripes > 1 ? Integer.highestOneBit(stripes - 1) << 1 : 1;
+        this.mask = stripeCount - 1;
+        this.maxPerStripe = Math.max(1, (maxClients + stripeCount - 1) / stripeCount);
+        this.stripes = new Stripe[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            this.stripes[i] = new Stripe();
+        }
+    }
+
+    /**
+     * 1トークンを取得
+     *
+     * @param client クライアントのキー
+     * @param nowNanos 現在時刻（System.nanoTime()）
+     * @return 受け付ける場合は0、拒否する場合は次にトークンを取得できるまでのナノ秒
+     */
+    public long tryAcquire(String client, long nowNanos) {
+        long wait = bucket(client, nowNanos).tryAcquire(nowNanos);
+        if (wait == 0) {
+            allowed.increment();
+        } else {
+            rejected.increment();
+        }
+        return wait;
+    }
+
+    private Bucket bucket(String client, long nowNanos) {
+        int hash = client.hashCode();
+        Stripe stripe = stripes[(hash ^ (hash >>> 16)) & mask];
+        Bucket bucket = stripe.buckets.get(client);
+        if (bucket != null) {
+            return bucket;
+        }
+        if (stripe.buckets.size() >= maxPerStripe) {
+            evictIdle(stripe, nowNanos);
+            if (stripe.buckets.size() >= maxPerStripe) {
+                return stripe.overflow(nowNanos);
+            }
+        }
+        return stripe.buckets.computeIfAbsent(client, key -> new Bucket(nowNanos));
+    }
+
+    private void evictIdle(Stripe stripe, long nowNanos) {
+        for (Map.Entry<String, Bucket> entry : stripe.buckets.entrySet()) {
+            if (entry.getValue().isIdle(nowNanos) && stripe.buckets.remove(entry.getKey(), entry.getValue())) {
+                evicted.increment();
+            }
+        }
+    }
+
+    /**
+     * 保持しているバケットの件数
+     */
+    public long getClients() {
+        long clients = 0;
+        for (Stripe stripe : stripes) {
+            clients += stripe.buckets.size();
+        }
+        return clients;
+    }
+
+    public long getAllowed() {
+        return allowed.sum();
+    }
+
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    public long getEvicted() {
+        return evicted.sum();
+    }
+
+    private final class Stripe {
+
+        private final ConcurrentHashMap<String, Bucket> buckets = new ConcurrentHashMap<>();
+        // バケットを追加できない場合に、新しいクライアントで共有するバケット（初回の使用時に作成）
+        private final AtomicReference<Bucket> overflow = new AtomicReference<>();
+
+        Bucket overflow(long nowNanos) {
+            Bucket bucket = overflow.get();
+            if (bucket == null) {
+                overflow.compareAndSet(null, new Bucket(nowNanos));
+                bucket = overflow.get();
+            }
+            return bucket;
+        }
+    }
+
+    /**
+     * トークンが満杯に戻る時刻（System.nanoTime() の値）を保持するバケット
+     */
+    private final class Bucket {
+
+        private final AtomicLong full;
+
+        Bucket(long nowNanos) {
+            this.full = new AtomicLong(nowNanos);
+        }
+
+        long tryAcquire(long nowNanos) {
+            while (true) {
+                long current = full.get();
+                long next = (current - nowNanos < 0 ? nowNanos : current) + intervalNanos;
+                long excess = next - nowNanos - burstNanos;
+                if (excess > 0) {
+                    return excess;
+                }
+                if (full.compareAndSet(current, next)) {
+                    return 0;
+                }
+            }
+        }
+
+        boolean isIdle(long nowNanos) {
+            return full.get() - nowNanos <= 0;
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.requesthandling.service;
+
+import com.example.requesthandling.model.User;
+
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
+
+/**
+ * 低速な格納先（ファイル・JDBC）の前段に置く、読み込み時に格納するキャッシュ（read-through）
+ *
+ * - 取得: キャッシュになければ格納先から読み込み、W-TinyLFU（TinyLfuCache）の入場判定を経て格納する
+ * - 追加・更新・削除（writeAll を含む）: 格納先への反映後にキャッシュから無効化する（失敗した場合も、反映済みの可能性があるため無効化する）
+ * - 件数・走査は格納先をそのまま使用する（起動時の読み込みや一覧の走査でキャッシュを荒らさない）
+ */
+class CachingUserStore implements UserStore {
+
+    private final UserStore delegate;
+    private final TinyLfuCache<User> cache;
+
+    CachingUserStore(UserStore delegate, TinyLfuCache<User> cache) {
+        this.delegate = delegate;
+        this.cache = cache;
+    }
+
+    @Override
+    public User get(long id) {
+        User cached = cache.get(id);
+        if (cached != null) {
+            return cached;
+        }
+        long stamp = cache.stamp(id);
+        User user = delegate.get(id);
+        if (user != null) {
+            cache.put(id, stamp, user);
+        }
+        return user;
+    }
+
+    @Override
+    public void put(long id, User user) {
+        try {
+            delegate.put(id, user);
+        } finally {
+            cache.invalidate(id);
+        }
+    }
+
+    @Override
+    public User remove(long id) {
+        try {
+            return delegate.remove(id);
+        } finally {
+            cache.invalidate(id);
+        }
+    }
+
+    @Override
+    public User computeIfPresent(long id, UnaryOperator<User> remapping) {
+        try {
+            return delegate.computeIfPresent(id, remapping);
+        } finally {
+            cache.invalidate(id);
+        }
+    }
+
+    @Override
+    public void writeAll(Map<Long, User> changes) {
+        try {
+            delegate.writeAll(changes);
+        } finally {
+            changes.keySet().forEach(cache::invalidate);
+        }
+    }
+
+    @Override
+    public boolean batchesWrites() {
+        return delegate.batchesWrites();
+    }
+
+    @Override
+    public void awaitWritable() {
+        delegate.awaitWritable();
+    }
+
+    @Override
+    public int size() {
+        return delegate.size();
+    }
+
+    @Override
+    public long nextId() {
+        return delegate.nextId();
+    }
+
+    @Override
+    public void forEach(Consumer<User> action) {
+        delegate.forEach(action);
+    }
+
+    @Override
+    public void close() {
+        delegate.close();
+    }
+
+    /**
+     * キャッシュの件数とヒット率・追い出し数などのカウンタ
+     */
+    Map<String, Number> stats() {
+        return cache.stats();
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.requesthandling.service;
+
+/**
+ * メールアドレス重複例外
+ * 既に他のユーザーが使用しているメールアドレスで作成・更新しようとした場合にスローされる
+ */
+public class DuplicateEmailException extends RuntimeException {
+
+    private final String email;
+
+    public DuplicateEmailException(String email) {
+        super("メールアドレス '" + email + "' は既に使用されています");
+        this.email = email;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+}
@@ -0,0 +1,647 @@
+package com.example.requesthandling.service;
+
+import com.example.requesthandling.model.User;
+import com.example.requesthandling.persistence.UserMutation;
+import com.example.requesthandling.persistence.UserRecordCodec;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
+
+/**
+ * ユーザーレコードをファイルに保持する
+ *
+ * - データファイル: users.dat に変更レコード（WALと同じ UserRecordCodec の形式）を追記する。削除は削除レコードを追記する
+ * - ヘッダー: データファイルの先頭に識別子と、作成・詰め直しの時点の次のID（これまでに保存した最大のID + 1）を持つ。
+ *   起動時はヘッダーの値と、残っているレコード（削除レコードを含む）の最大のID + 1 の大きい方を次のIDとする
+ *   （詰め直しで削除レコードを捨てても、削除したIDを再び採番しない）
+ * - インデックス: ID → 最新のレコードの位置と長さ（位置 << 24 | 長さ）のオープンアドレス法ハッシュテーブル（long配列2本のみヒープに保持）
+ * - 読み込み: インデックスの位置からレコード1件を位置指定で読み込む（ページキャッシュに載っていればディスクI/Oは発生しない）
+ * - 起動時: データファイルを先頭から読み、IDごとに最新のレコードの位置を復元する。末尾の不完全・破損したレコード以降は切り捨てる
+ * - 不要になったレコードが使用中のレコードを上回ったら、使用中のレコードだけを一時ファイルに書き出して置き換える
+ *
+ * 書き込みはOSのページキャッシュへの書き込みで完了とする（プロセスが異常終了しても失われない）
+ * sync を有効にすると書き込みごとにfsyncし、OSが停止しても失われない
+ * 読み込みは読み取りロック、書き込みと詰め直しは書き込みロックで行う
+ */
+class FileUserStore implements UserStore {
+
+    private static final Logger LOG = LoggerFactory.getLogger(FileUserStore.class);
+
+    static final String DATA_FILE = "users.dat";
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final int INITIAL_TABLE_SIZE = 1 << 16;
+    private static final int LENGTH_BITS = 24;
+    private static final long LENGTH_MASK = (1L << LENGTH_BITS) - 1;
+    // 詰め直しを行う不要なレコードの最小バイト数
+    private static final long MIN_COMPACTION_BYTES = 1024 * 1024;
+    private static final int BUFFER_SIZE = 1024 * 1024;
+    // ヘッダー: 識別子（レコードの長さとしては負になる値にして、ヘッダーのない旧形式と区別する）と次のID
+    private static final int MAGIC = 0x8055_5352;
+    static final int HEADER_SIZE = Integer.BYTES + Long.BYTES;
+
+    private final Path file;
+    private final boolean sync;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private FileChannel channel;
+
+    // ハッシュテーブル（キー0は空き）
+    private long[] keys = new long[INITIAL_TABLE_SIZE];
+    private long[] entries = new long[INITIAL_TABLE_SIZE];
+    private int size;
+
+    private long nextId;
+    private long appendPosition;
+    private long liveBytes;
+    private long deadBytes;
+
+    /**
+     * @param directory データファイルの保存先ディレクトリ（存在しない場合は作成する）
+     * @param sync 書き込みごとにfsyncする
+     */
+    FileUserStore(Path directory, boolean sync) throws IOException {
+        Files.createDirectories(directory);
+        this.file = directory.resolve(DATA_FILE);
+        this.sync = sync;
+        this.channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        load();
+    }
+
+    @Override
+    public User get(long key) {
+        if (key <= 0) {
+            return null;
+        }
+        lock.readLock().lock();
+        try {
+            int slot = find(key);
+            return slot < 0 ? null : read(entries[slot]);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void put(long key, User user) {
+        if (key <= 0) {
+            throw new IllegalArgumentException("IDは1以上である必要があります: " + key);
+        }
+        byte[] record = UserRecordCodec.encode(UserMutation.put(withId(key, user)));
+        lock.writeLock().lock();
+        try {
+            index(key, append(record));
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public User remove(long key) {
+        if (key <= 0) {
+            return null;
+        }
+        lock.writeLock().lock();
+        try {
+            int slot = find(key);
+            if (slot < 0) {
+                return null;
+            }
+            User removed = read(entries[slot]);
+            delete(key, slot);
+            compactIfNeeded();
+            return removed;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public User computeIfPresent(long key, UnaryOperator<User> remapping) {
+        if (key <= 0) {
+            return null;
+        }
+        lock.writeLock().lock();
+        try {
+            int slot = find(key);
+            if (slot < 0) {
+                return null;
+            }
+            User updated = remapping.apply(read(entries[slot]));
+            if (updated == null) {
+                delete(key, slot);
+            } else {
+                index(key, append(UserRecordCodec.encode(UserMutation.put(withId(key, updated)))));
+            }
+            compactIfNeeded();
+            return updated;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 変更レコードをまとめて1回で追記する（sync 有効時のfsyncも1回）
+     */
+    @Override
+    public void writeAll(Map<Long, User> changes) {
+        lock.writeLock().lock();
+        try {
+            List<Long> ids = new ArrayList<>(changes.size());
+            List<byte[]> records = new ArrayList<>(changes.size());
+            changes.forEach((key, user) -> {
+                if (user != null) {
+                    if (key <= 0) {
+                        throw new IllegalArgumentException("IDは1以上である必要があります: " + key);
+                    }
+                    ids.add(key);
+                    records.add(UserRecordCodec.encode(UserMutation.put(withId(key, user))));
+                } else if (key > 0 && (find(key) >= 0 || key >= nextId)) {
+                    // 存在しないIDでも、次のID以上であれば削除レコードを残して起動時に次のIDへ反映する
+                    ids.add(key);
+                    records.add(UserRecordCodec.encode(UserMutation.delete(Long.toString(key))));
+                }
+            });
+            if (records.isEmpty()) {
+                return;
+            }
+            long[] appended = append(records);
+            for (int i = 0; i < appended.length; i++) {
+                long key = ids.get(i);
+                int slot = find(key);
+                if (changes.get(key) != null) {
+                    index(key, appended[i]);
+                } else if (slot >= 0) {
+                    unindex(slot, appended[i]);
+                } else {
+                    release(appended[i]);
+                    nextId = Math.max(nextId, key + 1);
+                }
+            }
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean batchesWrites() {
+        return true;
+    }
+
+    @Override
+    public long nextId() {
+        lock.readLock().lock();
+        try {
+            return nextId;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 呼び出し時点のIDを取得し、1件ずつ読み込む（走査中の変更は反映される場合とされない場合がある）
+     */
+    @Override
+    public void forEach(Consumer<User> action) {
+        long[] ids;
+        lock.readLock().lock();
+        try {
+            ids = Arrays.stream(keys).filter(key -> key != 0).toArray();
+        } finally {
+            lock.readLock().unlock();
+        }
+        for (long id : ids) {
+            User user = get(id);
+            if (user != null) {
+                action.accept(user);
+            }
+        }
+    }
+
+    /**
+     * 未書き込みの内容をディスクに書き出してクローズ
+     */
+    @Override
+    public void close() {
+        lock.writeLock().lock();
+        try {
+            if (channel.isOpen()) {
+                channel.force(false);
+                channel.close();
+            }
+        } catch (IOException e) {
+            throw new UserStoreException("データファイルのクローズに失敗しました: " + file, e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * データファイルのサイズ（ヘッダー・不要なレコードを含む）
+     */
+    long fileSize() {
+        lock.readLock().lock();
+        try {
+            return appendPosition;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * ヘッダーを読み、データファイルを先頭から読んでIDごとの最新のレコードの位置を復元する
+     * 空のデータファイルにはヘッダーを書き込む。ヘッダーのない旧形式のデータファイルは、読み込み後に詰め直してヘッダーを付ける
+     */
+    private void load() throws IOException {
+        long fileSize = channel.size();
+        long dataStart = readHeader(fileSize);
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        long bufferStart = dataStart;
+        long position = dataStart;
+        while (true) {
+            long read = bufferStart + buffer.position() < fileSize
+                    ? channel.read(buffer, bufferStart + buffer.position()) : -1;
+            buffer.flip();
+            while (true) {
+                int start = buffer.position();
+                UserMutation mutation = UserRecordCodec.decode(buffer);
+                if (mutation == null) {
+                    break;
+                }
+                int length = buffer.position() - start;
+                position = bufferStart + buffer.position();
+                replay(mutation, pack(bufferStart + start, length));
+            }
+            // 最後まで読み込んだのにデコードできないレコードがあれば、そこから後ろは切り捨てる
+            if (read < 0 || corrupted(buffer)) {
+                break;
+            }
+            // 途中までのレコードをバッファの先頭に移して続きを読む（1件がバッファより大きい場合は拡張する）
+            bufferStart += buffer.position();
+            buffer.compact();
+            if (!buffer.hasRemaining()) {
+                buffer = ByteBuffer.allocate(buffer.capacity() * 2).put(buffer.flip());
+            }
+        }
+        if (position < fileSize) {
+            LOG.warn("データファイルの末尾の不完全・破損したレコードを切り捨てます: {}（{} バイト）", file, fileSize - position);
+            channel.truncate(position);
+        }
+        appendPosition = position;
+        deadBytes = appendPosition - dataStart - liveBytes;
+        if (dataStart == 0) {
+            LOG.info("ヘッダーのない旧形式のデータファイルを詰め直します: {}", file);
+            compact();
+        }
+        LOG.info("データファイルを読み込みました: {}（{} 件, {} バイト, 次のID {}）", file, size, appendPosition, nextId);
+    }
+
+    /**
+     * ヘッダーから次のIDを読み込む（空・ヘッダーの途中までのデータファイルには新しいヘッダーを書き込む）
+     *
+     * @return 最初のレコードの位置（ヘッダーのない旧形式の場合は0）
+     */
+    private long readHeader(long fileSize) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        if (fileSize >= HEADER_SIZE) {
+            while (header.hasRemaining()) {
+                channel.read(header, header.position());
+            }
+            header.flip();
+            if (header.getInt() != MAGIC) {
+                return 0;
+            }
+            nextId = header.getLong();
+            return HEADER_SIZE;
+        }
+        if (fileSize > 0) {
+            LOG.warn("データファイルのヘッダーが不完全なため作り直します: {}（{} バイト）", file, fileSize);
+            channel.truncate(0);
+        }
+        write(channel, header(0), 0);
+        channel.force(false);
+        return HEADER_SIZE;
+    }
+
+    private static ByteBuffer header(long nextId) {
+        return ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putLong(nextId).flip();
+    }
+
+    /**
+     * バッファの先頭のレコードが最後まで読み込まれているのにデコードできない（CRCの不一致・不正な長さ）
+     */
+    private static boolean corrupted(ByteBuffer buffer) {
+        if (buffer.remaining() < UserRecordCodec.HEADER_SIZE) {
+            return false;
+        }
+        long bodySize = buffer.getInt(buffer.position());
+        return bodySize <= 0 || bodySize > LENGTH_MASK
+                || UserRecordCodec.HEADER_SIZE + bodySize <= buffer.remaining();
+    }
+
+    private void replay(UserMutation mutation, long entry) {
+        long key = Long.parseLong(mutation.id());
+        nextId = Math.max(nextId, key + 1);
+        int slot = find(key);
+        if (slot >= 0) {
+            liveBytes -= length(entries[slot]);
+        }
+        if (mutation.type() == UserMutation.Type.DELETE) {
+            if (slot >= 0) {
+                deleteAt(slot);
+            }
+            return;
+        }
+        if (slot >= 0) {
+            entries[slot] = entry;
+        } else {
+            insert(key, entry);
+        }
+        liveBytes += length(entry);
+    }
+
+    /**
+     * 削除レコードを追記してインデックスから削除（再起動時に復元しないため）
+     */
+    private void delete(long key, int slot) {
+        unindex(slot, append(UserRecordCodec.encode(UserMutation.delete(Long.toString(key)))));
+    }
+
+    /**
+     * インデックスのIDの位置を追記したレコードに差し替える（存在しない場合は追加）
+     */
+    private void index(long key, long entry) {
+        nextId = Math.max(nextId, key + 1);
+        int slot = find(key);
+        if (slot >= 0) {
+            release(entries[slot]);
+            entries[slot] = entry;
+        } else {
+            insert(key, entry);
+        }
+    }
+
+    /**
+     * 追記した削除レコードとともに、インデックスからIDを削除
+     */
+    private void unindex(int slot, long tombstone) {
+        release(entries[slot]);
+        liveBytes -= length(tombstone);
+        deadBytes += length(tombstone);
+        deleteAt(slot);
+    }
+
+    /**
+     * @return 追記したレコードの位置と長さ
+     */
+    private long append(byte[] record) {
+        return append(List.of(record))[0];
+    }
+
+    /**
+     * 複数のレコードを連続した領域に1回で書き込む
+     *
+     * @return 追記したレコードごとの位置と長さ
+     */
+    private long[] append(List<byte[]> records) {
+        int total = 0;
+        for (byte[] record : records) {
+            if (record.length > LENGTH_MASK) {
+                throw new IllegalArgumentException("レコードが大きすぎます: " + record.length + " バイト");
+            }
+            total = Math.addExact(total, record.length);
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(total);
+        records.forEach(buffer::put);
+        buffer.flip();
+        try {
+            write(channel, buffer, appendPosition);
+            if (sync) {
+                channel.force(false);
+            }
+        } catch (IOException e) {
+            throw new UserStoreException("データファイルへの書き込みに失敗しました: " + file, e);
+        }
+        long[] appended = new long[records.size()];
+        for (int i = 0; i < appended.length; i++) {
+            int length = records.get(i).length;
+            appended[i] = pack(appendPosition, length);
+            appendPosition += length;
+            liveBytes += length;
+        }
+        return appended;
+    }
+
+    private User read(long entry) {
+        ByteBuffer buffer = ByteBuffer.allocate(length(entry));
+        try {
+            long position = position(entry);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, position + buffer.position()) < 0) {
+                    break;
+                }
+            }
+        } catch (IOException e) {
+            throw new UserStoreException("データファイルの読み込みに失敗しました: " + file, e);
+        }
+        buffer.flip();
+        UserMutation mutation = UserRecordCodec.decode(buffer);
+        if (mutation == null || mutation.type() != UserMutation.Type.PUT) {
+            throw new UserStoreException("データファイルのレコードが不正です: " + file + "（位置 " + position(entry) + "）");
+        }
+        return mutation.user();
+    }
+
+    private void release(long entry) {
+        liveBytes -= length(entry);
+        deadBytes += length(entry);
+    }
+
+    /**
+     * 不要なレコードが使用中のレコードと MIN_COMPACTION_BYTES を上回ったら詰め直す
+     */
+    private void compactIfNeeded() {
+        if (deadBytes > liveBytes && deadBytes > MIN_COMPACTION_BYTES) {
+            compact();
+        }
+    }
+
+    /**
+     * ヘッダー（現在の次のID）と使用中のレコードだけを書き出して置き換える
+     * 一時ファイルをfsyncしてからリネームするため、途中で停止しても元のデータファイルは残る
+     */
+    private void compact() {
+        Path temp = file.resolveSibling(DATA_FILE + TEMP_SUFFIX);
+        long[] compacted = new long[entries.length];
+        long position = 0;
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+            buffer.put(header(nextId));
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] == 0) {
+                    continue;
+                }
+                int length = length(entries[i]);
+                if (buffer.remaining() < length) {
+                    position += flush(out, buffer, position);
+                    if (buffer.capacity() < length) {
+                        buffer = ByteBuffer.allocate(length);
+                    }
+                }
+                compacted[i] = pack(position + buffer.position(), length);
+                ByteBuffer record = buffer.slice(buffer.position(), length);
+                while (record.hasRemaining()) {
+                    if (channel.read(record, position(entries[i]) + record.position()) < 0) {
+                        throw new IOException("データファイルが途中で終わっています");
+                    }
+                }
+                buffer.position(buffer.position() + length);
+            }
+            position += flush(out, buffer, position);
+            out.force(true);
+        } catch (IOException e) {
+            throw new UserStoreException("データファイルの詰め直しに失敗しました: " + file, e);
+        }
+        try {
+            channel.close();
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        } catch (IOException e) {
+            throw new UserStoreException("データファイルの置き換えに失敗しました: " + file, e);
+        }
+        LOG.debug("データファイルを詰め直しました: {} → {} バイト", appendPosition, position);
+        entries = compacted;
+        appendPosition = position;
+        liveBytes = position - HEADER_SIZE;
+        deadBytes = 0;
+    }
+
+    private static int flush(FileChannel out, ByteBuffer buffer, long position) throws IOException {
+        buffer.flip();
+        int length = buffer.remaining();
+        write(out, buffer, position);
+        buffer.clear();
+        return length;
+    }
+
+    private static void write(FileChannel out, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += out.write(buffer, position);
+        }
+    }
+
+    private static User withId(long key, User user) {
+        String id = Long.toString(key);
+        return id.equals(user.getId()) ? user : User.builder().id(id).name(user.getName()).email(user.getEmail()).build();
+    }
+
+    private static long pack(long position, int length) {
+        return position << LENGTH_BITS | length;
+    }
+
+    private static long position(long entry) {
+        return entry >>> LENGTH_BITS;
+    }
+
+    private static int length(long entry) {
+        return (int) (entry & LENGTH_MASK);
+    }
+
+    private int find(long key) {
+        int mask = keys.length - 1;
+        for (int i = hash(key) & mask; ; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                return i;
+            }
+            if (keys[i] == 0) {
+                return -1;
+            }
+        }
+    }
+
+    private void insert(long key, long entry) {
+        if ((size + 1) * 4L > keys.length * 3L) {
+            resize();
+        }
+        int mask = keys.length - 1;
+        int i = hash(key) & mask;
+        while (keys[i] != 0) {
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        entries[i] = entry;
+        size++;
+    }
+
+    private void resize() {
+        long[] oldKeys = keys;
+        long[] oldEntries = entries;
+        long[] newKeys = new long[oldKeys.length * 2];
+        long[] newEntries = new long[oldKeys.length * 2];
+        int mask = newKeys.length - 1;
+        for (int j = 0; j < oldKeys.length; j++) {
+            if (oldKeys[j] == 0) {
+                continue;
+            }
+            int i = hash(oldKeys[j]) & mask;
+            while (newKeys[i] != 0) {
+                i = (i + 1) & mask;
+            }
+            newKeys[i] = oldKeys[j];
+            newEntries[i] = oldEntries[j];
+        }
+        keys = newKeys;
+        entries = newEntries;
+    }
+
+    /**
+     * 線形探索法の削除（後続のエントリを詰めて空きを埋め、墓標を残さない）
+     */
+    private void deleteAt(int slot) {
+        int mask = keys.length - 1;
+        int hole = slot;
+        for (int i = (slot + 1) & mask; keys[i] != 0; i = (i + 1) & mask) {
+            int home = hash(keys[i]) & mask;
+            boolean reachable = hole < i ? (home > hole && home <= i) : (home > hole || home <= i);
+            if (!reachable) {
+                keys[hole] = keys[i];
+                entries[hole] = entries[i];
+                hole = i;
+            }
+        }
+        keys[hole] = 0;
+        entries[hole] = 0;
+        size--;
+    }
+
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
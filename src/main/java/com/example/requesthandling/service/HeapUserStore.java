@@ -0,0 +1,49 @@
+package com.example.requesthandling.service;
+
+import com.example.requesthandling.model.User;
+
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
+
+/**
+ * ヒープ上の LongUserMap にユーザーを保持する（デフォルト）
+ */
+class HeapUserStore implements UserStore {
+
+    private final LongUserMap users = new LongUserMap();
+
+    @Override
+    public User get(long id) {
+        return users.get(id);
+    }
+
+    @Override
+    public void put(long id, User user) {
+        users.put(id, user);
+    }
+
+    @Override
+    public User remove(long id) {
+        return users.remove(id);
+    }
+
+    @Override
+    public User computeIfPresent(long id, UnaryOperator<User> remapping) {
+        return users.computeIfPresent(id, remapping);
+    }
+
+    @Override
+    public int size() {
+        return users.size();
+    }
+
+    @Override
+    public void forEach(Consumer<User> action) {
+        users.forEach(action);
+    }
+
+    @Override
+    public boolean retainsInstances() {
+        return true;
+    }
+}
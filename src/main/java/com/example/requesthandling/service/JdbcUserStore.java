@@ -0,0 +1,473 @@
+package com.example.requesthandling.service;
+
+import com.example.requesthandling.config.UserStoreProperties;
+import com.example.requesthandling.model.User;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
+
+/**
+ * ユーザーレコードをJDBCのデータベース（既定は組み込みのH2）に保持する
+ *
+ * - テーブル: users (id BIGINT PRIMARY KEY, name, email)。存在しなければ起動時に作成する
+ * - メタデータ: user_store_meta (meta_key PRIMARY KEY, meta_value) の next_id 行に次のID（これまでに保存した最大のID + 1）を保持する。
+ *   次のID以上のIDを追加するときのみ、追加と同じトランザクションで更新する
+ *   （行がなければ起動時に users の最大のID + 1 で作成する）
+ * - コネクションプール: HikariCP。最小・最大のコネクション数を同じにして、リクエストの処理中に接続の確立・破棄を行わない
+ * - プリペアドステートメント: SQLは操作ごとに固定の文字列とし、H2ではコネクションごとの解析済みの文のキャッシュ
+ *   （URLの QUERY_CACHE_SIZE）で再利用する。他のドライバは properties にステートメントキャッシュの設定を指定する
+ * - 同一IDへの変更は、IDのストライプごとのロックで排他する（データベースを他のプロセスと共有しない前提）
+ * - 件数は起動時に数え、以降は追加・削除のたびに更新する（size() でデータベースに問い合わせない）
+ */
+class JdbcUserStore implements UserStore {
+
+    private static final Logger LOG = LoggerFactory.getLogger(JdbcUserStore.class);
+
+    private static final String CREATE_TABLE =
+            "CREATE TABLE IF NOT EXISTS users (id BIGINT PRIMARY KEY, name VARCHAR(65535), email VARCHAR(65535))";
+    private static final String CREATE_META_TABLE =
+            "CREATE TABLE IF NOT EXISTS user_store_meta (meta_key VARCHAR(64) PRIMARY KEY, meta_value BIGINT NOT NULL)";
+    private static final String SELECT_NEXT_ID = "SELECT meta_value FROM user_store_meta WHERE meta_key = 'next_id'";
+    private static final String INSERT_NEXT_ID =
+            "INSERT INTO user_store_meta (meta_key, meta_value) SELECT 'next_id', COALESCE(MAX(id) + 1, 0) FROM users";
+    private static final String UPDATE_NEXT_ID =
+            "UPDATE user_store_meta SET meta_value = ? WHERE meta_key = 'next_id' AND meta_value < ?";
+    private static final String COUNT = "SELECT COUNT(*) FROM users";
+    private static final String SELECT = "SELECT name, email FROM users WHERE id = ?";
+    private static final String SELECT_ALL = "SELECT id, name, email FROM users ORDER BY id";
+    private static final String INSERT = "INSERT INTO users (id, name, email) VALUES (?, ?, ?)";
+    private static final String UPDATE = "UPDATE users SET name = ?, email = ? WHERE id = ?";
+    private static final String DELETE = "DELETE FROM users WHERE id = ?";
+
+    /** 一意制約違反の SQLSTATE */
+    private static final String DUPLICATE_KEY = "23505";
+
+    private static final int LOCK_STRIPES = 256;
+    private static final int FETCH_SIZE = 1000;
+
+    private final HikariDataSource dataSource;
+    private final ReentrantLock[] locks = new ReentrantLock[LOCK_STRIPES];
+    private final AtomicInteger size = new AtomicInteger();
+    private final AtomicLong nextId = new AtomicLong();
+
+    JdbcUserStore(UserStoreProperties.JdbcStorage config) {
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        HikariConfig hikari = new HikariConfig();
+        hikari.setPoolName("user-store");
+        hikari.setJdbcUrl(url(config));
+        hikari.setUsername(config.getUsername());
+        hikari.setPassword(config.getPassword());
+        hikari.setMaximumPoolSize(config.getPoolSize());
+        hikari.setMinimumIdle(config.getPoolSize());
+        hikari.setConnectionTimeout(config.getConnectionTimeout().toMillis());
+        hikari.setAutoCommit(true);
+        config.getProperties().forEach(hikari::addDataSourceProperty);
+        this.dataSource = new HikariDataSource(hikari);
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute(CREATE_TABLE);
+            statement.execute(CREATE_META_TABLE);
+            try (ResultSet rs = statement.executeQuery(COUNT)) {
+                rs.next();
+                size.set(rs.getInt(1));
+            }
+            nextId.set(readNextId(statement));
+        } catch (SQLException e) {
+            dataSource.close();
+            throw new UserStoreException("ユーザーテーブルの初期化に失敗しました: " + config.getUrl(), e);
+        }
+        LOG.info("データベースに接続しました: {}（{} 件, 次のID {}, コネクション数 {}）",
+                config.getUrl(), size.get(), nextId.get(), config.getPoolSize());
+    }
+
+    /**
+     * 次のIDを読み込む（行がなければ users の最大のID + 1 で作成する）
+     */
+    private static long readNextId(Statement statement) throws SQLException {
+        try (ResultSet rs = statement.executeQuery(SELECT_NEXT_ID)) {
+            if (rs.next()) {
+                return rs.getLong(1);
+            }
+        }
+        statement.executeUpdate(INSERT_NEXT_ID);
+        try (ResultSet rs = statement.executeQuery(SELECT_NEXT_ID)) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+
+    /**
+     * H2の場合は解析済みのステートメントのキャッシュサイズを指定する（URLで指定済みの場合はそのまま）
+     */
+    static String url(UserStoreProperties.JdbcStorage config) {
+        String url = config.getUrl();
+        if (!url.startsWith("jdbc:h2:") || url.toUpperCase(Locale.ROOT).contains(";QUERY_CACHE_SIZE=")) {
+            return url;
+        }
+        return url + ";QUERY_CACHE_SIZE=" + config.getStatementCacheSize();
+    }
+
+    @Override
+    public User get(long key) {
+        if (key <= 0) {
+            return null;
+        }
+        try (Connection connection = dataSource.getConnection()) {
+            return select(connection, key);
+        } catch (SQLException e) {
+            throw failure("取得", key, e);
+        }
+    }
+
+    /**
+     * 次のID以上のID（新規作成）は、次のIDの更新と INSERT を1つのトランザクションで実行する（主キーが重複した場合のみ UPDATE する）
+     * 次のID未満のID（保存済みのIDの変更）は UPDATE し、0件（削除済みのID）の場合のみ INSERT する
+     * 同一IDの変更はストライプのロックで排他済み
+     */
+    @Override
+    public void put(long key, User user) {
+        if (key <= 0) {
+            throw new IllegalArgumentException("IDは1以上である必要があります: " + key);
+        }
+        ReentrantLock lock = lock(key);
+        lock.lock();
+        try (Connection connection = dataSource.getConnection()) {
+            boolean inserted;
+            if (key >= nextId.get()) {
+                inserted = insertNew(connection, key, user);
+            } else {
+                inserted = update(connection, key, user) == 0;
+                if (inserted) {
+                    insert(connection, key, user);
+                }
+            }
+            if (inserted) {
+                size.incrementAndGet();
+            }
+        } catch (SQLException e) {
+            throw failure("保存", key, e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public User remove(long key) {
+        if (key <= 0) {
+            return null;
+        }
+        ReentrantLock lock = lock(key);
+        lock.lock();
+        try (Connection connection = dataSource.getConnection()) {
+            User removed = select(connection, key);
+            if (removed != null) {
+                delete(connection, key);
+            }
+            return removed;
+        } catch (SQLException e) {
+            throw failure("削除", key, e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public User computeIfPresent(long key, UnaryOperator<User> remapping) {
+        if (key <= 0) {
+            return null;
+        }
+        ReentrantLock lock = lock(key);
+        lock.lock();
+        try (Connection connection = dataSource.getConnection()) {
+            User current = select(connection, key);
+            if (current == null) {
+                return null;
+            }
+            User updated = remapping.apply(current);
+            if (updated == null) {
+                delete(connection, key);
+            } else {
+                update(connection, key, updated);
+            }
+            return updated;
+        } catch (SQLException e) {
+            throw failure("更新", key, e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 1つのトランザクションで、UPDATE・INSERT・DELETE をそれぞれJDBCのバッチで実行する
+     * 対象のIDのストライプのロックは番号順に取得する（単一IDの操作・他のバッチとデッドロックしない）
+     */
+    @Override
+    public void writeAll(Map<Long, User> changes) {
+        List<Long> puts = new ArrayList<>();
+        List<Long> deletes = new ArrayList<>();
+        BitSet stripes = new BitSet(LOCK_STRIPES);
+        changes.forEach((key, user) -> {
+            if (user != null) {
+                if (key <= 0) {
+                    throw new IllegalArgumentException("IDは1以上である必要があります: " + key);
+                }
+                puts.add(key);
+                stripes.set(stripe(key));
+            } else if (key > 0) {
+                deletes.add(key);
+                stripes.set(stripe(key));
+            }
+        });
+        if (stripes.isEmpty()) {
+            return;
+        }
+        stripes.stream().forEach(stripe -> locks[stripe].lock());
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                // 存在しないIDの削除も次のIDに反映する（書き出し前に追加・削除されたID）
+                long maxKey = changes.keySet().stream().mapToLong(Long::longValue).max().orElse(0);
+                if (maxKey > 0) {
+                    advanceNextId(connection, maxKey);
+                }
+                int inserted = writeBatch(connection, puts, changes);
+                int deleted = 0;
+                try (PreparedStatement statement = connection.prepareStatement(DELETE)) {
+                    for (long key : deletes) {
+                        statement.setLong(1, key);
+                        statement.addBatch();
+                    }
+                    for (int count : statement.executeBatch()) {
+                        deleted += Math.max(count, 0);
+                    }
+                }
+                connection.commit();
+                nextId.accumulateAndGet(maxKey + 1, Math::max);
+                size.addAndGet(inserted - deleted);
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            throw new UserStoreException("ユーザー " + changes.size() + " 件の一括保存に失敗しました", e);
+        } finally {
+            stripes.stream().forEach(stripe -> locks[stripe].unlock());
+        }
+    }
+
+    @Override
+    public int size() {
+        return size.get();
+    }
+
+    @Override
+    public boolean batchesWrites() {
+        return true;
+    }
+
+    @Override
+    public long nextId() {
+        return nextId.get();
+    }
+
+    /**
+     * ID順に読み込む（1つのコネクションで FETCH_SIZE 件ずつ取得する。走査中の変更は反映される場合とされない場合がある）
+     */
+    @Override
+    public void forEach(Consumer<User> action) {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(SELECT_ALL)) {
+            statement.setFetchSize(FETCH_SIZE);
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    action.accept(User.builder()
+                            .id(Long.toString(rs.getLong(1)))
+                            .name(rs.getString(2))
+                            .email(rs.getString(3))
+                            .build());
+                }
+            }
+        } catch (SQLException e) {
+            throw new UserStoreException("ユーザーの一覧の読み込みに失敗しました", e);
+        }
+    }
+
+    /**
+     * コネクションプールを停止（すべてのコネクションを閉じる）
+     */
+    @Override
+    public void close() {
+        dataSource.close();
+    }
+
+    private static User select(Connection connection, long key) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(SELECT)) {
+            statement.setLong(1, key);
+            try (ResultSet rs = statement.executeQuery()) {
+                if (!rs.next()) {
+                    return null;
+                }
+                return User.builder().id(Long.toString(key)).name(rs.getString(1)).email(rs.getString(2)).build();
+            }
+        }
+    }
+
+    private static int update(Connection connection, long key, User user) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(UPDATE)) {
+            statement.setString(1, user.getName());
+            statement.setString(2, user.getEmail());
+            statement.setLong(3, key);
+            return statement.executeUpdate();
+        }
+    }
+
+    /**
+     * UPDATE をバッチで実行し、0件だったIDのみ INSERT する
+     *
+     * @return INSERT した件数
+     */
+    private static int writeBatch(Connection connection, List<Long> keys, Map<Long, User> changes) throws SQLException {
+        if (keys.isEmpty()) {
+            return 0;
+        }
+        int[] counts;
+        try (PreparedStatement statement = connection.prepareStatement(UPDATE)) {
+            for (long key : keys) {
+                User user = changes.get(key);
+                statement.setString(1, user.getName());
+                statement.setString(2, user.getEmail());
+                statement.setLong(3, key);
+                statement.addBatch();
+            }
+            counts = statement.executeBatch();
+        }
+        int inserted = 0;
+        try (PreparedStatement statement = connection.prepareStatement(INSERT)) {
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] == 0) {
+                    User user = changes.get(keys.get(i));
+                    statement.setLong(1, keys.get(i));
+                    statement.setString(2, user.getName());
+                    statement.setString(3, user.getEmail());
+                    statement.addBatch();
+                    inserted++;
+                }
+            }
+            if (inserted > 0) {
+                statement.executeBatch();
+            }
+        }
+        return inserted;
+    }
+
+    /**
+     * 次のIDの更新と INSERT を1つのトランザクションで実行し、コミット後にメモリ上の次のIDを進める
+     * （ロールバックした場合に、メモリ上の次のIDだけがデータベースより先に進まないようにする）
+     * 主キーが重複した場合はロールバックし、次のIDの更新と UPDATE のトランザクションでやり直す
+     *
+     * @return INSERT した場合は true
+     */
+    private boolean insertNew(Connection connection, long key, User user) throws SQLException {
+        connection.setAutoCommit(false);
+        try {
+            advanceNextId(connection, key);
+            boolean inserted = insertOrRollback(connection, key, user);
+            if (!inserted) {
+                advanceNextId(connection, key);
+                update(connection, key, user);
+            }
+            connection.commit();
+            nextId.accumulateAndGet(key + 1, Math::max);
+            return inserted;
+        } catch (SQLException | RuntimeException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(true);
+        }
+    }
+
+    /**
+     * @return INSERT した場合は true、主キーが重複した場合はトランザクションをロールバックして false
+     */
+    private static boolean insertOrRollback(Connection connection, long key, User user) throws SQLException {
+        try {
+            insert(connection, key, user);
+            return true;
+        } catch (SQLException e) {
+            if (!(e instanceof SQLIntegrityConstraintViolationException) && !DUPLICATE_KEY.equals(e.getSQLState())) {
+                throw e;
+            }
+            connection.rollback();
+            return false;
+        }
+    }
+
+    private static void insert(Connection connection, long key, User user) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(INSERT)) {
+            statement.setLong(1, key);
+            statement.setString(2, user.getName());
+            statement.setString(3, user.getEmail());
+            statement.executeUpdate();
+        }
+    }
+
+    /**
+     * 次のID以上のIDを追加する場合のみ、メタデータの次のIDを更新する
+     * 追加と同じトランザクションで実行し、メモリ上の次のIDは呼び出し元がコミット後に進める
+     */
+    private void advanceNextId(Connection connection, long key) throws SQLException {
+        if (key < nextId.get()) {
+            return;
+        }
+        try (PreparedStatement statement = connection.prepareStatement(UPDATE_NEXT_ID)) {
+            statement.setLong(1, key + 1);
+            statement.setLong(2, key + 1);
+            statement.executeUpdate();
+        }
+    }
+
+    private void delete(Connection connection, long key) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(DELETE)) {
+            statement.setLong(1, key);
+            if (statement.executeUpdate() > 0) {
+                size.decrementAndGet();
+            }
+        }
+    }
+
+    private ReentrantLock lock(long key) {
+        return locks[stripe(key)];
+    }
+
+    private static int stripe(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & (LOCK_STRIPES - 1);
+    }
+
+    private static UserStoreException failure(String operation, long key, SQLException e) {
+        return new UserStoreException("ユーザー（ID: " + key + "）の" + operation + "に失敗しました", e);
+    }
+}
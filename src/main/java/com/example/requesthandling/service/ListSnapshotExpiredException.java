@@ -0,0 +1,19 @@
+package com.example.requesthandling.service;
+
+/**
+ * 一覧スナップショット期限切れ例外
+ * ページ取得で指定したスナップショットが既に破棄されている（または再起動前のものである）場合にスローされる
+ */
+public class ListSnapshotExpiredException extends RuntimeException {
+
+    private final String token;
+
+    public ListSnapshotExpiredException(String token) {
+        super("スナップショット '" + token + "' は有効期限が切れています。先頭から取得し直してください");
+        this.token = token;
+    }
+
+    public String getToken() {
+        return token;
+    }
+}
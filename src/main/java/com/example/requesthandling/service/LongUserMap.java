@@ -0,0 +1,292 @@
+package com.example.requesthandling.service;
+
+import com.example.requesthandling.model.User;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
+
+/**
+ * long型のID → User の並行ハッシュマップ
+ *
+ * - キーを long 配列、値を User 配列に持つオープンアドレス法（線形探索）のため、エントリごとのノード・キーオブジェクトを持たない
+ * - キー空間をセグメントに分割し、セグメント単位で書き込みを排他する
+ * - 読み込みは StampedLock の楽観的読み取りでロックを取らずに行い、書き込みと競合した場合のみ読み取りロックで再試行する
+ *
+ * キーは1以上（0は空きスロットを表す）
+ * マップ自体はエントリあたり約13バイトだが、UserService のインデックス（ID順の Long、メールアドレス・名前検索の String）は
+ * 別に1ユーザーあたり約1KBをヒープ上に保持する（OffHeapUserStore を参照）
+ */
+class LongUserMap {
+
+    private static final int INITIAL_SEGMENT_CAPACITY = 16;
+
+    private final Segment[] segments;
+    private final int segmentShift;
+
+    LongUserMap() {
+        this(Runtime.getRuntime().availableProcessors() * 4);
+    }
+
+    LongUserMap(int concurrency) {
+        int count = Integer.highestOneBit(Math.max(1, concurrency - 1)) << 1;
+        segments = new Segment[count];
+        for (int i = 0; i < count; i++) {
+            segments[i] = new Segment();
+        }
+        segmentShift = 64 - Integer.numberOfTrailingZeros(count);
+    }
+
+    User get(long key) {
+        if (key <= 0) {
+            return null;
+        }
+        long hash = hash(key);
+        return segmentFor(hash).get(key, (int) hash);
+    }
+
+    /**
+     * @return 置き換える前の値（新規の場合はnull）
+     */
+    User put(long key, User value) {
+        if (key <= 0) {
+            throw new IllegalArgumentException("キーは1以上である必要があります: " + key);
+        }
+        long hash = hash(key);
+        return segmentFor(hash).put(key, (int) hash, value);
+    }
+
+    /**
+     * @return 削除した値（存在しない場合はnull）
+     */
+    User remove(long key) {
+        if (key <= 0) {
+            return null;
+        }
+        long hash = hash(key);
+        return segmentFor(hash).remove(key, (int) hash);
+    }
+
+    /**
+     * 存在する場合のみ、同じセグメントへの他の書き込みと排他して値を置き換える（nullを返した場合は削除）
+     *
+     * @return 置き換えた後の値（存在しない場合はnull）
+     */
+    User computeIfPresent(long key, UnaryOperator<User> remapping) {
+        if (key <= 0) {
+            return null;
+        }
+        long hash = hash(key);
+        return segmentFor(hash).computeIfPresent(key, (int) hash, remapping);
+    }
+
+    int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    /**
+     * セグメントごとに値をコピーしてから action を呼び出す（走査中の変更は反映される場合とされない場合がある）
+     */
+    void forEach(Consumer<User> action) {
+        for (Segment segment : segments) {
+            segment.values().forEach(action);
+        }
+    }
+
+    private Segment segmentFor(long hash) {
+        return segments[(int) (hash >>> segmentShift)];
+    }
+
+    private static long hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return h ^ (h >>> 29);
+    }
+
+    private static final class Segment extends StampedLock {
+
+        private long[] keys = new long[INITIAL_SEGMENT_CAPACITY];
+        private User[] values = new User[INITIAL_SEGMENT_CAPACITY];
+        private int size;
+
+        User get(long key, int hash) {
+            long stamp = tryOptimisticRead();
+            if (stamp != 0) {
+                try {
+                    User value = find(keys, values, key, hash);
+                    if (validate(stamp)) {
+                        return value;
+                    }
+                } catch (ArrayIndexOutOfBoundsException e) {
+                    // 拡張中の配列を読んだ場合は、読み取りロックを取得して読み直す
+                }
+            }
+            stamp = readLock();
+            try {
+                return find(keys, values, key, hash);
+            } finally {
+                unlockRead(stamp);
+            }
+        }
+
+        User put(long key, int hash, User value) {
+            long stamp = writeLock();
+            try {
+                int slot = slot(key, hash);
+                if (slot >= 0) {
+                    User previous = values[slot];
+                    values[slot] = value;
+                    return previous;
+                }
+                insert(key, hash, value);
+                return null;
+            } finally {
+                unlockWrite(stamp);
+            }
+        }
+
+        User remove(long key, int hash) {
+            long stamp = writeLock();
+            try {
+                int slot = slot(key, hash);
+                if (slot < 0) {
+                    return null;
+                }
+                User removed = values[slot];
+                deleteAt(slot);
+                return removed;
+            } finally {
+                unlockWrite(stamp);
+            }
+        }
+
+        User computeIfPresent(long key, int hash, UnaryOperator<User> remapping) {
+            long stamp = writeLock();
+            try {
+                int slot = slot(key, hash);
+                if (slot < 0) {
+                    return null;
+                }
+                User updated = remapping.apply(values[slot]);
+                if (updated == null) {
+                    deleteAt(slot);
+                } else {
+                    values[slot] = updated;
+                }
+                return updated;
+            } finally {
+                unlockWrite(stamp);
+            }
+        }
+
+        int size() {
+            long stamp = readLock();
+            try {
+                return size;
+            } finally {
+                unlockRead(stamp);
+            }
+        }
+
+        List<User> values() {
+            long stamp = readLock();
+            try {
+                List<User> copy = new ArrayList<>(size);
+                for (User value : values) {
+                    if (value != null) {
+                        copy.add(value);
+                    }
+                }
+                return copy;
+            } finally {
+                unlockRead(stamp);
+            }
+        }
+
+        private static User find(long[] keys, User[] values, long key, int hash) {
+            int mask = keys.length - 1;
+            for (int i = hash & mask, probes = 0; probes < keys.length; i = (i + 1) & mask, probes++) {
+                long current = keys[i];
+                if (current == key) {
+                    return values[i];
+                }
+                if (current == 0) {
+                    return null;
+                }
+            }
+            return null;
+        }
+
+        private int slot(long key, int hash) {
+            int mask = keys.length - 1;
+            for (int i = hash & mask; ; i = (i + 1) & mask) {
+                if (keys[i] == key) {
+                    return i;
+                }
+                if (keys[i] == 0) {
+                    return -1;
+                }
+            }
+        }
+
+        private void insert(long key, int hash, User value) {
+            if ((size + 1) * 4L > keys.length * 3L) {
+                resize();
+            }
+            int mask = keys.length - 1;
+            int i = hash & mask;
+            while (keys[i] != 0) {
+                i = (i + 1) & mask;
+            }
+            keys[i] = key;
+            values[i] = value;
+            size++;
+        }
+
+        private void resize() {
+            long[] oldKeys = keys;
+            User[] oldValues = values;
+            long[] newKeys = new long[oldKeys.length * 2];
+            User[] newValues = new User[oldKeys.length * 2];
+            int mask = newKeys.length - 1;
+            for (int j = 0; j < oldKeys.length; j++) {
+                if (oldKeys[j] == 0) {
+                    continue;
+                }
+                int i = (int) hash(oldKeys[j]) & mask;
+                while (newKeys[i] != 0) {
+                    i = (i + 1) & mask;
+                }
+                newKeys[i] = oldKeys[j];
+                newValues[i] = oldValues[j];
+            }
+            keys = newKeys;
+            values = newValues;
+        }
+
+        /**
+         * 線形探索法の削除（後続のエントリを詰めて空きを埋め、墓標を残さない）
+         */
+        private void deleteAt(int slot) {
+            int mask = keys.length - 1;
+            int hole = slot;
+            for (int i = (slot + 1) & mask; keys[i] != 0; i = (i + 1) & mask) {
+                int home = (int) hash(keys[i]) & mask;
+                boolean reachable = hole < i ? (home > hole && home <= i) : (home > hole || home <= i);
+                if (!reachable) {
+                    keys[hole] = keys[i];
+                    values[hole] = values[i];
+                    hole = i;
+                }
+            }
+            keys[hole] = 0;
+            values[hole] = null;
+            size--;
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package com.example.requesthandling.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * ユーザー名の検索インデックス
+ * 
+ * - 前方一致: 正規化した名前の順序付きセット（名前 + '\0' + ID）を範囲検索
+ * - 部分一致: トライグラム → ID の転置インデックスで候補を絞り込み、正規化済みの名前で一致判定
+ *   （ポスティングはID順に保持し、走査数の上限で打ち切っても同じ検索文字列には同じ結果を返す）
+ * 
+ * 書き込みのたびに差分更新される（起動時のみ addAll で一括構築する）
+ */
+class NameSearchIndex {
+
+    static final int GRAM = 3;
+
+    private static final char SEPARATOR = '\0';
+
+    // 数値のIDの昇順（桁数 → 文字列の順）
+    static final Comparator<String> ID_ORDER =
+            Comparator.comparingInt(String::length).thenComparing(Comparator.naturalOrder());
+
+    private final NavigableSet<String> sortedNames = new ConcurrentSkipListSet<>();
+    private final Map<String, Posting> postings = new ConcurrentHashMap<>();
+    // ID → 正規化済みの名前（一致判定用、名前が既に正規化済みなら同じインスタンスを共有）
+    private final Map<String, String> names = new ConcurrentHashMap<>();
+
+    /**
+     * 検索用の正規化（前後の空白除去・小文字化）
+     */
+    static String normalize(String name) {
+        return name == null ? "" : name.trim().toLowerCase(Locale.ROOT);
+    }
+
+    void add(String id, String name) {
+        String key = normalize(name);
+        if (key.isEmpty()) {
+            return;
+        }
+        names.put(id, key);
+        sortedNames.add(key + SEPARATOR + id);
+        for (int i = 0; i + GRAM <= key.length(); i++) {
+            postings.computeIfAbsent(key.substring(i, i + GRAM), g -> new Posting()).add(id);
+        }
+    }
+
+    /**
+     * 一括登録（スナップショットからの起動用）
+     * 名前・ポスティングのIDを整列してから順序付きセットに追加する
+     */
+    void addAll(UserStore users) {
+        List<String> sorted = new ArrayList<>(users.size());
+        Map<String, List<String>> grams = new HashMap<>();
+        users.forEach(user -> {
+            String key = normalize(user.getName());
+            if (key.isEmpty()) {
+                return;
+            }
+            String id = user.getId();
+            names.put(id, key);
+            sorted.add(key + SEPARATOR + id);
+            for (int i = 0; i + GRAM <= key.length(); i++) {
+                grams.computeIfAbsent(key.substring(i, i + GRAM), g -> new ArrayList<>()).add(id);
+            }
+        });
+        sorted.sort(null);
+        sortedNames.addAll(sorted);
+        grams.forEach((gram, ids) -> {
+            ids.sort(ID_ORDER);
+            Posting posting = postings.computeIfAbsent(gram, g -> new Posting());
+            ids.forEach(posting::add);
+        });
+    }
+
+    void remove(String id, String name) {
+        String key = normalize(name);
+        if (key.isEmpty()) {
+            return;
+        }
+        names.remove(id, key);
+        sortedNames.remove(key + SEPARATOR + id);
+        for (int i = 0; i + GRAM <= key.length(); i++) {
+            postings.computeIfPresent(key.substring(i, i + GRAM), (g, posting) -> {
+                posting.remove(id);
+                return posting.size() == 0 ? null : posting;
+            });
+        }
+    }
+
+    /**
+     * 名前を検索し、ランキング順のIDを返す
+     * 
+     * ランキング: 完全一致 → 前方一致（名前順） → 部分一致（一致位置が前・名前が短い順）
+     * 部分一致はGRAM文字以上の検索文字列のみ。最も小さいポスティングからID順に走査し、
+     * 走査数 maxScan・一致数 maxCandidates で打ち切る（打ち切った場合はIDの小さいユーザーの一致のみをランキングする）
+     * 
+     * @param query 正規化済みの検索文字列
+     */
+    List<String> search(String query, int limit, int maxCandidates, int maxScan) {
+        List<String> result = new ArrayList<>(Math.min(limit, 64));
+        for (String key : sortedNames.subSet(query, true, query + Character.MAX_VALUE, false)) {
+            if (result.size() >= limit) {
+                return result;
+            }
+            result.add(key.substring(key.lastIndexOf(SEPARATOR) + 1));
+        }
+        if (query.length() < GRAM) {
+            return result;
+        }
+        Posting[] sets = postingSets(query);
+        if (sets == null) {
+            return result;
+        }
+        // 小さい（選択性の高い）ポスティングから順に判定し、不一致を早く確定させる
+        Arrays.sort(sets, Comparator.comparingInt(Posting::size));
+
+        List<Hit> hits = new ArrayList<>();
+        int scanned = 0;
+        for (String id : sets[0].ids) {
+            if (scanned++ >= maxScan || hits.size() >= maxCandidates) {
+                break;
+            }
+            if (!containsAll(sets, id)) {
+                continue;
+            }
+            String name = names.get(id);
+            int position = name == null ? -1 : name.indexOf(query);
+            // 前方一致（position == 0）は取得済み
+            if (position > 0) {
+                hits.add(new Hit(id, position, name.length()));
+            }
+        }
+        hits.sort(Comparator.comparingInt(Hit::position).thenComparingInt(Hit::length));
+        for (Hit hit : hits) {
+            if (result.size() >= limit) {
+                break;
+            }
+            result.add(hit.id());
+        }
+        return result;
+    }
+
+    private static boolean containsAll(Posting[] sets, String id) {
+        for (int i = 1; i < sets.length; i++) {
+            if (!sets[i].ids.contains(id)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private Posting[] postingSets(String query) {
+        Set<String> grams = new LinkedHashSet<>();
+        for (int i = 0; i + GRAM <= query.length(); i++) {
+            grams.add(query.substring(i, i + GRAM));
+        }
+        Posting[] sets = new Posting[grams.size()];
+        int i = 0;
+        for (String gram : grams) {
+            Posting posting = postings.get(gram);
+            if (posting == null) {
+                return null;
+            }
+            sets[i++] = posting;
+        }
+        return sets;
+    }
+
+    private record Hit(String id, int position, int length) {
+    }
+
+    /**
+     * トライグラムを含むIDの集合（ID順）
+     * ConcurrentSkipListSet#size は全件を数えるため、件数は別に保持する
+     */
+    private static final class Posting {
+
+        private final NavigableSet<String> ids = new ConcurrentSkipListSet<>(ID_ORDER);
+        private final AtomicInteger size = new AtomicInteger();
+
+        void add(String id) {
+            if (ids.add(id)) {
+                size.incrementAndGet();
+            }
+        }
+
+        void remove(String id) {
+            if (ids.remove(id)) {
+                size.decrementAndGet();
+            }
+        }
+
+        int size() {
+            return size.get();
+        }
+    }
+}
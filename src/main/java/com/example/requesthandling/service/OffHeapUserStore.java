@@ -0,0 +1,417 @@
+package com.example.requesthandling.service;
+
+import com.example.requesthandling.model.User;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
+
+/**
+ * ユーザーレコードをヒープ外（ダイレクトバッファ）に保持する
+ *
+ * - レコード: チャンク（既定64MB）に [int 領域サイズ][int name長][int email長][name][email] の形式で追記する
+ * - インデックス: ID → レコード位置（チャンク番号 << 32 | オフセット）のオープンアドレス法ハッシュテーブル（long配列のみ）
+ * - 更新: 新しいレコードが既存の領域に収まれば上書き、収まらなければ追記して旧領域は未使用として計上する
+ * - 未使用領域が使用中の領域を上回ったら、使用中のレコードを新しいチャンクに詰め直す
+ *
+ * ヒープ上のオブジェクトはチャンクと2本のlong配列のみのため、ユーザー数が増えてもレコード本体はGCの走査対象を増やさない
+ * ただし UserService のID順・メールアドレス・名前検索のインデックスはヒープ上に残り、1ユーザーあたり約1KB
+ * （ID順 約60バイト・メールアドレス 約160バイト・名前検索 約750バイト。UserStoreBenchmark の OFF_HEAP で出力）を保持する
+ * 読み込みは楽観的読み取り（StampedLock）で行い、書き込みと競合した場合のみ読み取りロックで再試行する
+ * （楽観的読み取りでは、レコードの位置と長さを検証してから文字列の領域を確保する。書き込み中の不整合な長さで配列を確保しない）
+ */
+class OffHeapUserStore implements UserStore {
+
+    private static final int INITIAL_TABLE_SIZE = 1 << 16;
+    private static final int RECORD_HEADER_SIZE = 12;
+    private static final int ALIGNMENT = 8;
+
+    private final int chunkSize;
+    private final StampedLock lock = new StampedLock();
+
+    // ハッシュテーブル（キー0は空き）
+    private long[] keys = new long[INITIAL_TABLE_SIZE];
+    private long[] addresses = new long[INITIAL_TABLE_SIZE];
+    private int size;
+
+    // レコード領域
+    private ByteBuffer[] chunks = new ByteBuffer[4];
+    private int chunkCount;
+    private int chunkOffset;
+    private long liveBytes;
+    private long deadBytes;
+
+    OffHeapUserStore(int chunkSize) {
+        this.chunkSize = chunkSize;
+    }
+
+    @Override
+    public User get(long key) {
+        if (key <= 0) {
+            return null;
+        }
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            try {
+                long address = locate(key);
+                if (address < 0) {
+                    if (lock.validate(stamp)) {
+                        return null;
+                    }
+                } else {
+                    ByteBuffer chunk = chunks[(int) (address >>> 32)];
+                    int offset = (int) address;
+                    int capacity = chunk.getInt(offset);
+                    int nameLength = chunk.getInt(offset + 4);
+                    int emailLength = chunk.getInt(offset + 8);
+                    // 位置と長さが書き込みと競合していないことを確認してから、長さ分の領域を確保して読む
+                    if (lock.validate(stamp)) {
+                        User user = decode(key, chunk, offset, capacity, nameLength, emailLength);
+                        if (lock.validate(stamp)) {
+                            return user;
+                        }
+                    }
+                }
+            } catch (RuntimeException e) {
+                // 書き込み中に置き換えられた配列・チャンクを読んだ場合は、読み取りロックを取得して読み直す
+            }
+        }
+        stamp = lock.readLock();
+        try {
+            long address = locate(key);
+            return address < 0 ? null : decode(key, address);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    @Override
+    public void put(long key, User user) {
+        if (key <= 0) {
+            throw new IllegalArgumentException("IDは1以上である必要があります: " + key);
+        }
+        byte[] name = bytes(user.getName());
+        byte[] email = bytes(user.getEmail());
+        long stamp = lock.writeLock();
+        try {
+            int slot = find(key);
+            if (slot >= 0) {
+                addresses[slot] = store(addresses[slot], name, email);
+            } else {
+                insert(key, store(-1, name, email));
+            }
+            compactIfNeeded();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public User remove(long key) {
+        if (key <= 0) {
+            return null;
+        }
+        long stamp = lock.writeLock();
+        try {
+            int slot = find(key);
+            if (slot < 0) {
+                return null;
+            }
+            User removed = decode(key, addresses[slot]);
+            release(addresses[slot]);
+            deleteAt(slot);
+            compactIfNeeded();
+            return removed;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public User computeIfPresent(long key, UnaryOperator<User> remapping) {
+        if (key <= 0) {
+            return null;
+        }
+        long stamp = lock.writeLock();
+        try {
+            int slot = find(key);
+            if (slot < 0) {
+                return null;
+            }
+            User updated = remapping.apply(decode(key, addresses[slot]));
+            if (updated == null) {
+                release(addresses[slot]);
+                deleteAt(slot);
+            } else {
+                addresses[slot] = store(addresses[slot], bytes(updated.getName()), bytes(updated.getEmail()));
+            }
+            compactIfNeeded();
+            return updated;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public int size() {
+        long stamp = lock.readLock();
+        try {
+            return size;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * 呼び出し時点のIDを取得し、1件ずつ読み込む（走査中の変更は反映される場合とされない場合がある）
+     */
+    @Override
+    public void forEach(Consumer<User> action) {
+        long[] ids;
+        long stamp = lock.readLock();
+        try {
+            ids = Arrays.stream(keys).filter(key -> key != 0).toArray();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+        for (long id : ids) {
+            User user = get(id);
+            if (user != null) {
+                action.accept(user);
+            }
+        }
+    }
+
+    /**
+     * 確保済みのダイレクトメモリのバイト数
+     */
+    long allocatedBytes() {
+        long stamp = lock.readLock();
+        try {
+            long total = 0;
+            for (int i = 0; i < chunkCount; i++) {
+                total += chunks[i].capacity();
+            }
+            return total;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * IDのレコードの位置（存在しない場合は-1）
+     * 楽観的読み取りでも終了するよう、探索はテーブルの長さまでに制限する
+     */
+    private long locate(long key) {
+        long[] k = keys;
+        long[] a = addresses;
+        int mask = k.length - 1;
+        for (int i = hash(key) & mask, probes = 0; probes < k.length; i = (i + 1) & mask, probes++) {
+            long current = k[i];
+            if (current == key) {
+                return a[i];
+            }
+            if (current == 0) {
+                return -1;
+            }
+        }
+        return -1;
+    }
+
+    private User decode(long key, long address) {
+        ByteBuffer chunk = chunks[(int) (address >>> 32)];
+        int offset = (int) address;
+        return decode(key, chunk, offset, chunk.getInt(offset), chunk.getInt(offset + 4), chunk.getInt(offset + 8));
+    }
+
+    /**
+     * レコードの長さがレコードの領域・チャンクの残りに収まることを確認してから読む
+     */
+    private static User decode(long key, ByteBuffer chunk, int offset, int capacity, int nameLength, int emailLength) {
+        if (nameLength < -1 || emailLength < -1 || capacity < RECORD_HEADER_SIZE
+                || (long) capacity > (long) chunk.capacity() - offset
+                || (long) Math.max(nameLength, 0) + Math.max(emailLength, 0) > capacity - RECORD_HEADER_SIZE) {
+            throw new IllegalStateException("レコードが不正です: " + key);
+        }
+        int position = offset + RECORD_HEADER_SIZE;
+        String name = string(chunk, position, nameLength);
+        String email = string(chunk, position + Math.max(nameLength, 0), emailLength);
+        return User.builder().id(Long.toString(key)).name(name).email(email).build();
+    }
+
+    /**
+     * レコードを書き込む（既存の領域に収まる場合は上書き）
+     *
+     * @param existing 既存レコードの位置（新規の場合は-1）
+     * @return 書き込んだ位置
+     */
+    private long store(long existing, byte[] name, byte[] email) {
+        int required = RECORD_HEADER_SIZE + length(name) + length(email);
+        if (existing >= 0) {
+            ByteBuffer chunk = chunks[(int) (existing >>> 32)];
+            int capacity = chunk.getInt((int) existing);
+            if (required <= capacity) {
+                write(chunk, (int) existing, capacity, name, email);
+                return existing;
+            }
+            release(existing);
+        }
+        int capacity = (required + ALIGNMENT - 1) & -ALIGNMENT;
+        long address = allocate(capacity);
+        write(chunks[(int) (address >>> 32)], (int) address, capacity, name, email);
+        liveBytes += capacity;
+        return address;
+    }
+
+    private static void write(ByteBuffer chunk, int offset, int capacity, byte[] name, byte[] email) {
+        chunk.putInt(offset, capacity);
+        chunk.putInt(offset + 4, name == null ? -1 : name.length);
+        chunk.putInt(offset + 8, email == null ? -1 : email.length);
+        int position = offset + RECORD_HEADER_SIZE;
+        if (name != null) {
+            chunk.put(position, name);
+            position += name.length;
+        }
+        if (email != null) {
+            chunk.put(position, email);
+        }
+    }
+
+    private void release(long address) {
+        int capacity = chunks[(int) (address >>> 32)].getInt((int) address);
+        liveBytes -= capacity;
+        deadBytes += capacity;
+    }
+
+    private long allocate(int capacity) {
+        if (chunkCount == 0 || chunkOffset + capacity > chunks[chunkCount - 1].capacity()) {
+            if (chunkCount == chunks.length) {
+                chunks = Arrays.copyOf(chunks, chunks.length * 2);
+            }
+            chunks[chunkCount++] = ByteBuffer.allocateDirect(Math.max(chunkSize, capacity));
+            chunkOffset = 0;
+        }
+        long address = ((long) (chunkCount - 1) << 32) | chunkOffset;
+        chunkOffset += capacity;
+        return address;
+    }
+
+    /**
+     * 未使用領域が使用中の領域とチャンク1つ分を上回ったら、使用中のレコードを新しいチャンクに詰め直す
+     */
+    private void compactIfNeeded() {
+        if (deadBytes <= liveBytes || deadBytes <= chunkSize) {
+            return;
+        }
+        ByteBuffer[] old = chunks;
+        chunks = new ByteBuffer[4];
+        chunkCount = 0;
+        chunkOffset = 0;
+        liveBytes = 0;
+        deadBytes = 0;
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] == 0) {
+                continue;
+            }
+            ByteBuffer source = old[(int) (addresses[i] >>> 32)];
+            int offset = (int) addresses[i];
+            int capacity = source.getInt(offset);
+            long address = allocate(capacity);
+            chunks[(int) (address >>> 32)].put((int) address, source, offset, capacity);
+            addresses[i] = address;
+            liveBytes += capacity;
+        }
+    }
+
+    private int find(long key) {
+        int mask = keys.length - 1;
+        for (int i = hash(key) & mask; ; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                return i;
+            }
+            if (keys[i] == 0) {
+                return -1;
+            }
+        }
+    }
+
+    private void insert(long key, long address) {
+        if ((size + 1) * 4L > keys.length * 3L) {
+            resize();
+        }
+        int mask = keys.length - 1;
+        int i = hash(key) & mask;
+        while (keys[i] != 0) {
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        addresses[i] = address;
+        size++;
+    }
+
+    private void resize() {
+        long[] oldKeys = keys;
+        long[] oldAddresses = addresses;
+        long[] newKeys = new long[oldKeys.length * 2];
+        long[] newAddresses = new long[oldKeys.length * 2];
+        int mask = newKeys.length - 1;
+        for (int j = 0; j < oldKeys.length; j++) {
+            if (oldKeys[j] == 0) {
+                continue;
+            }
+            int i = hash(oldKeys[j]) & mask;
+            while (newKeys[i] != 0) {
+                i = (i + 1) & mask;
+            }
+            newKeys[i] = oldKeys[j];
+            newAddresses[i] = oldAddresses[j];
+        }
+        keys = newKeys;
+        addresses = newAddresses;
+    }
+
+    /**
+     * 線形探索法の削除（後続のエントリを詰めて空きを埋め、墓標を残さない）
+     */
+    private void deleteAt(int slot) {
+        int mask = keys.length - 1;
+        int hole = slot;
+        for (int i = (slot + 1) & mask; keys[i] != 0; i = (i + 1) & mask) {
+            int home = hash(keys[i]) & mask;
+            boolean reachable = hole < i ? (home > hole && home <= i) : (home > hole || home <= i);
+            if (!reachable) {
+                keys[hole] = keys[i];
+                addresses[hole] = addresses[i];
+                hole = i;
+            }
+        }
+        keys[hole] = 0;
+        addresses[hole] = 0;
+        size--;
+    }
+
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private static byte[] bytes(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int length(byte[] value) {
+        return value == null ? 0 : value.length;
+    }
+
+    private static String string(ByteBuffer chunk, int position, int length) {
+        if (length < 0) {
+            return null;
+        }
+        byte[] value = new byte[length];
+        chunk.get(position, value);
+        return new String(value, StandardCharsets.UTF_8);
+    }
+}
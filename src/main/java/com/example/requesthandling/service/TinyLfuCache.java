@@ -0,0 +1,380 @@
+package com.example.requesthandling.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * W-TinyLFU 方式の件数上限付きキャッシュ（キーはlongのID）
+ *
+ * - ウィンドウ（全体の windowPercent %）: 新しいエントリを LRU で保持する。一度だけのアクセスが続いてもメイン領域を荒らさない
+ * - メイン領域: SLRU（試用 probation / 保護 protected = メインの80%）。試用中に再度アクセスされたエントリを保護に昇格する
+ * - 入場判定: ウィンドウから押し出された候補と試用の先頭（追い出し候補）のアクセス頻度を比べ、頻度の高い方を残す
+ * - アクセス頻度: 4ビットカウンタの Count-Min Sketch。記録数が件数上限の10倍に達するたびに全カウンタを半減し、過去の人気を減衰させる
+ * - TTL: 格納から ttl を過ぎたエントリはヒットとして扱わず、取得時に削除する
+ *
+ * 取得はロックなしでマップを参照する。LRUの並べ替えと頻度の記録はロックを取得できた場合のみ行い、
+ * 競合時は読み捨てる（ヒット・ミスの判定と値の正しさには影響しない）
+ *
+ * 無効化の世代: 読み込み前に stamp を取得して put に渡し、読み込み中に同じストライプのIDが無効化された場合は格納しない
+ * （無効化は格納先への反映後に呼び出すため、世代が変わっていなければ読み込んだ値は最新）
+ */
+class TinyLfuCache<V> {
+
+    private static final int STAMP_STRIPES = 1 << 12;
+
+    private static final byte WINDOW = 0;
+    private static final byte PROBATION = 1;
+    private static final byte PROTECTED = 2;
+    private static final byte REMOVED = 3;
+
+    private static final class Node<V> {
+        final long key;
+        final V value;
+        final long expiresAt;
+        byte queue = WINDOW;
+        Node<V> prev;
+        Node<V> next;
+
+        Node(long key, V value, long expiresAt) {
+            this.key = key;
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    /**
+     * アクセス順の双方向リスト（先頭が最も古い）
+     */
+    private static final class Queue<V> {
+        Node<V> head;
+        Node<V> tail;
+        int size;
+
+        void addLast(Node<V> node) {
+            node.prev = tail;
+            node.next = null;
+            if (tail == null) {
+                head = node;
+            } else {
+                tail.next = node;
+            }
+            tail = node;
+            size++;
+        }
+
+        void remove(Node<V> node) {
+            if (node.prev == null) {
+                head = node.next;
+            } else {
+                node.prev.next = node.next;
+            }
+            if (node.next == null) {
+                tail = node.prev;
+            } else {
+                node.next.prev = node.prev;
+            }
+            node.prev = null;
+            node.next = null;
+            size--;
+        }
+
+        void moveToLast(Node<V> node) {
+            if (tail != node) {
+                remove(node);
+                addLast(node);
+            }
+        }
+    }
+
+    private final int maximum;
+    private final int windowMaximum;
+    private final int protectedMaximum;
+    private final long ttlNanos;
+    private final LongSupplier ticker;
+
+    private final ConcurrentHashMap<Long, Node<V>> map = new ConcurrentHashMap<>();
+    private final AtomicLongArray stamps = new AtomicLongArray(STAMP_STRIPES);
+    // 以下はすべて lock の保持中のみ操作する
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Queue<V> window = new Queue<>();
+    private final Queue<V> probation = new Queue<>();
+    private final Queue<V> protectedQueue = new Queue<>();
+    private final FrequencySketch sketch;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+    private final LongAdder rejections = new LongAdder();
+
+    TinyLfuCache(int maximum, long ttlNanos, int windowPercent) {
+        this(maximum, ttlNanos, windowPercent, System::nanoTime);
+    }
+
+    TinyLfuCache(int maximum, long ttlNanos, int windowPercent, LongSupplier ticker) {
+        if (maximum < 2) {
+            throw new IllegalArgumentException("キャッシュの件数上限は2以上である必要があります: " + maximum);
+        }
+        if (ttlNanos <= 0) {
+            throw new IllegalArgumentException("TTLは正の値である必要があります: " + ttlNanos);
+        }
+        this.maximum = maximum;
+        this.windowMaximum = Math.max(1, (int) ((long) maximum * Math.max(0, Math.min(windowPercent, 100)) / 100));
+        int mainMaximum = Math.max(1, maximum - windowMaximum);
+        this.protectedMaximum = Math.max(1, mainMaximum * 8 / 10);
+        this.ttlNanos = ttlNanos;
+        this.ticker = ticker;
+        this.sketch = new FrequencySketch(maximum);
+    }
+
+    /**
+     * @return キャッシュ済みの値（ない場合・期限切れの場合はnull）
+     */
+    V get(long key) {
+        Node<V> node = map.get(key);
+        if (node == null) {
+            misses.increment();
+            return null;
+        }
+        if (ticker.getAsLong() - node.expiresAt >= 0) {
+            misses.increment();
+            lock.lock();
+            try {
+                if (node.queue != REMOVED) {
+                    remove(node);
+                    expirations.increment();
+                }
+            } finally {
+                lock.unlock();
+            }
+            return null;
+        }
+        hits.increment();
+        if (lock.tryLock()) {
+            try {
+                sketch.increment(key);
+                if (node.queue != REMOVED) {
+                    onAccess(node);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        return node.value;
+    }
+
+    /**
+     * 読み込み（get のミス後の格納先への問い合わせ）の前に呼び出し、put に渡す世代を取得
+     */
+    long stamp(long key) {
+        return stamps.get(stripe(key));
+    }
+
+    /**
+     * 値を格納（stamp の取得後に無効化された場合は格納しない）
+     * 件数上限を超えた場合は、ウィンドウから押し出した候補と試用の先頭のうち、アクセス頻度の低い方を追い出す
+     */
+    void put(long key, long stamp, V value) {
+        lock.lock();
+        try {
+            if (stamps.get(stripe(key)) != stamp) {
+                return;
+            }
+            sketch.increment(key);
+            Node<V> node = new Node<>(key, value, ticker.getAsLong() + ttlNanos);
+            Node<V> previous = map.put(key, node);
+            if (previous != null) {
+                unlink(previous);
+            }
+            window.addLast(node);
+            Node<V> candidate = null;
+            if (window.size > windowMaximum) {
+                candidate = window.head;
+                window.remove(candidate);
+                candidate.queue = PROBATION;
+                probation.addLast(candidate);
+            }
+            while (map.size() > maximum) {
+                evict(candidate);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 指定IDの値を無効化（格納先への反映後に呼び出すこと）
+     */
+    void invalidate(long key) {
+        lock.lock();
+        try {
+            stamps.incrementAndGet(stripe(key));
+            Node<V> node = map.get(key);
+            if (node != null) {
+                remove(node);
+                invalidations.increment();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int size() {
+        return map.size();
+    }
+
+    /**
+     * 件数と各カウンタ（hitRatio は hits / (hits + misses)。アクセスがない場合は0）
+     */
+    Map<String, Number> stats() {
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        Map<String, Number> stats = new LinkedHashMap<>();
+        stats.put("size", map.size());
+        stats.put("maxEntries", maximum);
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("hitRatio", hitCount + missCount == 0 ? 0.0 : (double) hitCount / (hitCount + missCount));
+        stats.put("evictions", evictions.sum());
+        stats.put("expirations", expirations.sum());
+        stats.put("invalidations", invalidations.sum());
+        stats.put("rejections", rejections.sum());
+        return stats;
+    }
+
+    private void onAccess(Node<V> node) {
+        switch (node.queue) {
+            case WINDOW -> window.moveToLast(node);
+            case PROBATION -> {
+                probation.remove(node);
+                node.queue = PROTECTED;
+                protectedQueue.addLast(node);
+                if (protectedQueue.size > protectedMaximum) {
+                    Node<V> demoted = protectedQueue.head;
+                    protectedQueue.remove(demoted);
+                    demoted.queue = PROBATION;
+                    probation.addLast(demoted);
+                }
+            }
+            case PROTECTED -> protectedQueue.moveToLast(node);
+            default -> {
+            }
+        }
+    }
+
+    /**
+     * 1件を追い出す（candidate はウィンドウから試用に移したばかりのエントリ。ない場合はnull）
+     */
+    private void evict(Node<V> candidate) {
+        Node<V> victim = probation.head;
+        if (victim != null && victim == candidate) {
+            victim = candidate.next;
+        }
+        if (victim == null) {
+            victim = protectedQueue.head != null ? protectedQueue.head : window.head;
+        }
+        if (candidate == null || candidate.queue == REMOVED || victim == null) {
+            remove(victim != null ? victim : candidate);
+            evictions.increment();
+            return;
+        }
+        if (sketch.frequency(candidate.key) > sketch.frequency(victim.key)) {
+            remove(victim);
+        } else {
+            remove(candidate);
+            rejections.increment();
+        }
+        evictions.increment();
+    }
+
+    private void remove(Node<V> node) {
+        map.remove(node.key, node);
+        unlink(node);
+    }
+
+    private void unlink(Node<V> node) {
+        switch (node.queue) {
+            case WINDOW -> window.remove(node);
+            case PROBATION -> probation.remove(node);
+            case PROTECTED -> protectedQueue.remove(node);
+            default -> {
+            }
+        }
+        node.queue = REMOVED;
+    }
+
+    private static int stripe(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & (STAMP_STRIPES - 1);
+    }
+
+    /**
+     * 4ビットカウンタ×4行の Count-Min Sketch（1つのlongに16個のカウンタを詰める）
+     * 記録数が sampleSize に達したら全カウンタを半減する
+     */
+    static final class FrequencySketch {
+
+        private static final long[] SEEDS = {
+                0x97CB3127L, 0xB492B66FBE98F273L, 0x9AE16A3B2F90404FL, 0xCBF29CE484222325L};
+        private static final long HALF_MASK = 0x7777777777777777L;
+
+        private final long[] table;
+        private final int tableMask;
+        private final int sampleSize;
+        private int additions;
+
+        FrequencySketch(int maximum) {
+            int tableSize = Math.max(8, Integer.highestOneBit(Math.max(1, maximum - 1)) << 1);
+            this.table = new long[tableSize];
+            this.tableMask = tableSize - 1;
+            this.sampleSize = (int) Math.min(Integer.MAX_VALUE, 10L * maximum);
+        }
+
+        void increment(long key) {
+            boolean added = false;
+            for (int i = 0; i < SEEDS.length; i++) {
+                long h = hash(key, i);
+                int index = (int) (h >>> 32) & tableMask;
+                int shift = (int) (h & 15) << 2;
+                if (((table[index] >>> shift) & 15) < 15) {
+                    table[index] += 1L << shift;
+                    added = true;
+                }
+            }
+            if (added && ++additions >= sampleSize) {
+                reset();
+            }
+        }
+
+        int frequency(long key) {
+            int frequency = 15;
+            for (int i = 0; i < SEEDS.length; i++) {
+                long h = hash(key, i);
+                int index = (int) (h >>> 32) & tableMask;
+                int shift = (int) (h & 15) << 2;
+                frequency = Math.min(frequency, (int) ((table[index] >>> shift) & 15));
+            }
+            return frequency;
+        }
+
+        private void reset() {
+            for (int i = 0; i < table.length; i++) {
+                table[i] = (table[i] >>> 1) & HALF_MASK;
+            }
+            additions /= 2;
+        }
+
+        private static long hash(long key, int row) {
+            long h = (key + SEEDS[row]) * 0x9E3779B97F4A7C15L;
+            h ^= h >>> 31;
+            h *= 0xBF58476D1CE4E5B9L;
+            return h ^ (h >>> 29);
+        }
+    }
+}
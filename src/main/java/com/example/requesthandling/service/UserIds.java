@@ -0,0 +1,37 @@
+package com.example.requesthandling.service;
+
+/**
+ * ユーザーIDの変換
+ * IDは idGenerator が採番する1以上の数値のため、パスパラメータはルートの入口で一度だけ数値に変換する
+ */
+public final class UserIds {
+
+    /** 数値でない・範囲外のID */
+    public static final long INVALID = -1;
+
+    // long の範囲内に収まる最大桁数
+    private static final int MAX_DIGITS = 18;
+
+    private UserIds() {
+    }
+
+    /**
+     * IDを数値に変換（例外を使わない）
+     *
+     * @return 1以上の数値。数値でない・0以下・先頭が0（"007" など、採番したIDの表記と異なる）・18桁を超える場合は INVALID
+     */
+    public static long parse(String id) {
+        if (id == null || id.isEmpty() || id.length() > MAX_DIGITS || id.charAt(0) == '0') {
+            return INVALID;
+        }
+        long value = 0;
+        for (int i = 0; i < id.length(); i++) {
+            char c = id.charAt(i);
+            if (c < '0' || c > '9') {
+                return INVALID;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+}
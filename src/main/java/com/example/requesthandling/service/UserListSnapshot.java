@@ -0,0 +1,217 @@
+package com.example.requesthandling.service;
+
+import com.example.requesthandling.model.User;
+import com.example.requesthandling.model.UserPage;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.LongFunction;
+
+/**
+ * ある時点の全ユーザー（ID昇順）の不変なスナップショット
+ *
+ * 同じトークンを指定したページ取得は、途中で作成・更新・削除があっても同じスナップショットを読むため、
+ * ユーザーの抜け・重複が起きない
+ *
+ * ユーザーはID昇順のチャンクに分けて保持し、変更のないチャンクは前後のスナップショットで共有する
+ *
+ * 格納先がヒープ外・ファイル・JDBCの場合はユーザーをヒープにコピーしないよう、IDのみを保持し（1件あたり8バイト）、
+ * ユーザーは取得時に格納先から読み込む。この場合、固定されるのはIDの集合と順序のみで、
+ * 値は取得時点の最新になり、スナップショットの後に削除されたユーザーは飛ばす（抜け・重複は起きない）
+ */
+public final class UserListSnapshot {
+
+    /**
+     * ID昇順のユーザーの塊（不変。IDのみ保持する場合 users はnull）
+     */
+    record Chunk(long[] ids, User[] users) {
+
+        long lastId() {
+            return ids[ids.length - 1];
+        }
+
+        int size() {
+            return ids.length;
+        }
+    }
+
+    private final String token;
+    private final long sequence;
+    private final Chunk[] chunks;
+    // チャンクごとの最大IDと、先頭からの位置
+    private final long[] lastIds;
+    private final int[] offsets;
+    private final int size;
+    // IDのみ保持する場合のユーザーの読み込み（ユーザーを保持する場合はnull）
+    private final LongFunction<User> loader;
+
+    UserListSnapshot(String token, long sequence, Chunk[] chunks, LongFunction<User> loader) {
+        this.token = token;
+        this.sequence = sequence;
+        this.chunks = chunks;
+        this.loader = loader;
+        this.lastIds = new long[chunks.length];
+        this.offsets = new int[chunks.length];
+        int total = 0;
+        for (int i = 0; i < chunks.length; i++) {
+            lastIds[i] = chunks[i].lastId();
+            offsets[i] = total;
+            total += chunks[i].size();
+        }
+        this.size = total;
+    }
+
+    /**
+     * 後続のページ取得で同じスナップショットを指定するためのトークン
+     */
+    public String getToken() {
+        return token;
+    }
+
+    /**
+     * スナップショットの時点の件数（IDのみ保持する場合は、その後に削除されたユーザーを含む）
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * ユーザーの値を取得時に格納先から読み込む（スナップショットの時点の値ではない）場合はtrue
+     */
+    public boolean readsCurrentValues() {
+        return loader != null;
+    }
+
+    /**
+     * 全ユーザー（変更不可。ユーザーを保持する場合はコピーせずに返し、IDのみ保持する場合は全件を読み込んで返す）
+     */
+    public List<User> getUsers() {
+        if (loader != null) {
+            List<User> users = new ArrayList<>(size);
+            new UserIterator(0, 0).forEachRemaining(users::add);
+            return Collections.unmodifiableList(users);
+        }
+        return new AbstractList<>() {
+            @Override
+            public User get(int index) {
+                if (index < 0 || index >= size) {
+                    throw new IndexOutOfBoundsException(index);
+                }
+                int chunk = Arrays.binarySearch(offsets, index);
+                if (chunk < 0) {
+                    chunk = -chunk - 2;
+                }
+                return chunks[chunk].users()[index - offsets[chunk]];
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+
+            @Override
+            public Iterator<User> iterator() {
+                return new UserIterator(0, 0);
+            }
+        };
+    }
+
+    /**
+     * カーソル以降のユーザーを最大limit件取得
+     *
+     * @param cursor 前ページの nextCursor（nullの場合は先頭から）
+     * @throws IllegalArgumentException カーソルが数値でない場合
+     */
+    public UserPage page(String cursor, int limit) {
+        Iterator<User> iterator = iterator(cursor);
+        List<User> page = new ArrayList<>(Math.min(limit, 256));
+        while (page.size() < limit && iterator.hasNext()) {
+            page.add(iterator.next());
+        }
+        String nextCursor = iterator.hasNext() && !page.isEmpty() ? page.get(page.size() - 1).getId() : null;
+        return UserPage.builder().users(Collections.unmodifiableList(page)).nextCursor(nextCursor).snapshot(token).build();
+    }
+
+    /**
+     * カーソル以降のユーザーを走査
+     *
+     * @throws IllegalArgumentException カーソルが数値でない場合
+     */
+    public Iterator<User> iterator(String cursor) {
+        if (cursor == null) {
+            return new UserIterator(0, 0);
+        }
+        long after;
+        try {
+            after = Long.parseLong(cursor);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("カーソル '" + cursor + "' が不正です");
+        }
+        // カーソルより大きいIDを含む最初のチャンクと、その中の位置
+        int chunk = Arrays.binarySearch(lastIds, after);
+        chunk = chunk >= 0 ? chunk + 1 : -chunk - 1;
+        if (chunk >= chunks.length) {
+            return new UserIterator(chunks.length, 0);
+        }
+        int index = Arrays.binarySearch(chunks[chunk].ids(), after);
+        return new UserIterator(chunk, index >= 0 ? index + 1 : -index - 1);
+    }
+
+    long sequence() {
+        return sequence;
+    }
+
+    Chunk[] chunks() {
+        return chunks;
+    }
+
+    /**
+     * 次のユーザーを1件先読みする（IDのみ保持する場合、削除済みのIDを飛ばして続きの有無を判定するため）
+     */
+    private final class UserIterator implements Iterator<User> {
+
+        private int chunk;
+        private int index;
+        private User next;
+
+        UserIterator(int chunk, int index) {
+            this.chunk = chunk;
+            this.index = index;
+            advance();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public User next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            User user = next;
+            advance();
+            return user;
+        }
+
+        private void advance() {
+            next = null;
+            while (next == null && chunk < chunks.length) {
+                Chunk current = chunks[chunk];
+                if (index >= current.size()) {
+                    chunk++;
+                    index = 0;
+                    continue;
+                }
+                next = loader == null ? current.users()[index] : loader.apply(current.ids()[index]);
+                index++;
+            }
+        }
+    }
+}
@@ -0,0 +1,306 @@
+package com.example.requesthandling.service;
+
+import com.example.requesthandling.model.User;
+import com.example.requesthandling.service.UserListSnapshot.Chunk;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongFunction;
+import java.util.function.Supplier;
+
+/**
+ * 一覧取得用のスナップショット（MVCC）の管理
+ *
+ * - 変更ログ: 作成・更新・削除のたびに、同一IDへの変更と同じ順序で (ID, 変更後のユーザー) を記録し、通番を振る
+ * - 再構築: 一覧の取得時に前回のスナップショット以降の変更があれば、前回のスナップショットに変更ログをマージして
+ *   新しいスナップショットを作る（変更がなければ前回のものを共有する）。ロックは変更ログの受け渡しのみで、書き込みを止めない
+ * - 共有: ユーザーは CHUNK_SIZE 件程度のチャンクに分けて保持し、変更を含むチャンクのみ作り直す
+ *   （再構築のコストは全件数ではなく、チャンク数と変更件数に比例する）
+ * - 保持: 直近 RETAINED_SNAPSHOTS 個をトークンで参照できるようにし、それより古いものは破棄する
+ * - 格納先: ヒープ上の格納先（UserStore#retainsInstances）はユーザーを参照で保持する（コピーは作らない）。
+ *   それ以外はIDのみ保持し、ユーザーは取得時に読み込む（全件をヒープに読み込まないため。UserListSnapshot を参照）
+ *
+ * 変更ログは一覧が初めて取得されるまで記録しない。最初の再構築では、書き込みの共有ロック（mutationGate）を
+ * 一瞬だけ排他で取得して記録を開始し、その後ストアを走査した結果に変更ログをマージする
+ * （変更はストアへの書き込みが成功してから記録する。走査で見えたがまだ記録されていない変更は、
+ * 通番がこのスナップショットより後になるため、次の取得時に改めてマージされる）
+ * 変更ログがスナップショットの件数を超えた場合は記録をやめてログを破棄し、次の取得時に同じ手順で作り直す
+ */
+final class UserListSnapshots {
+
+    static final int RETAINED_SNAPSHOTS = 8;
+    static final int CHUNK_SIZE = 512;
+    private static final int MIN_LOG_LIMIT = 1024;
+
+    /**
+     * 変更ログの1件（ユーザーを保持しない場合 user はnull）
+     */
+    private record Change(long id, boolean deleted, User user) {
+    }
+
+    private final String epoch;
+    private final ReadWriteLock mutationGate;
+    private final Supplier<Iterator<Long>> liveIds;
+    private final LongFunction<User> users;
+    private final boolean retainUsers;
+
+    // 変更ログ（changes, sequence, logging, logLimit は changes のロックで保護）
+    private final List<Change> changes = new ArrayList<>();
+    private long sequence;
+    private boolean logging;
+    private int logLimit = MIN_LOG_LIMIT;
+    private volatile long publishedSequence;
+
+    private final ReentrantLock buildLock = new ReentrantLock();
+    private volatile UserListSnapshot latest;
+    private final Map<Long, UserListSnapshot> retained = new LinkedHashMap<>(16, 0.75f, false) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, UserListSnapshot> eldest) {
+            return size() > RETAINED_SNAPSHOTS;
+        }
+    };
+
+    /**
+     * @param epoch トークンに含める起動ごとの識別子
+     * @param mutationGate 書き込み中は共有ロックが取得されているロック
+     * @param liveIds ストアのユーザーのIDを昇順で走査するイテレータ（走査中の変更は反映される場合とされない場合がある）
+     * @param users IDでユーザーを取得する（存在しない場合はnull）
+     * @param retainUsers ユーザーを参照で保持する場合はtrue（falseの場合はIDのみ保持し、取得時に users で読み込む）
+     */
+    UserListSnapshots(String epoch, ReadWriteLock mutationGate, Supplier<Iterator<Long>> liveIds,
+                      LongFunction<User> users, boolean retainUsers) {
+        this.epoch = epoch;
+        this.mutationGate = mutationGate;
+        this.liveIds = liveIds;
+        this.users = users;
+        this.retainUsers = retainUsers;
+    }
+
+    /**
+     * 変更を記録（mutationGate の共有ロック内で、同一IDへの変更と排他した状態で、ストアへの書き込みが成功した後に呼び出すこと）
+     *
+     * @param user 変更後のユーザー（削除の場合はnull）
+     */
+    void record(long id, User user) {
+        synchronized (changes) {
+            sequence++;
+            if (logging) {
+                changes.add(new Change(id, user == null, retainUsers ? user : null));
+                if (changes.size() > logLimit) {
+                    logging = false;
+                    changes.clear();
+                }
+            }
+            publishedSequence = sequence;
+        }
+    }
+
+    /**
+     * スナップショットを取得
+     *
+     * @param token 取得済みのスナップショットのトークン（nullの場合は最新）
+     * @throws ListSnapshotExpiredException トークンのスナップショットが破棄されている場合
+     * @throws IllegalArgumentException トークンの形式が不正な場合
+     */
+    UserListSnapshot get(String token) {
+        if (token != null) {
+            return retained(token);
+        }
+        UserListSnapshot current = latest;
+        if (current != null && current.sequence() == publishedSequence) {
+            return current;
+        }
+        buildLock.lock();
+        try {
+            current = latest;
+            if (current != null && current.sequence() == publishedSequence) {
+                return current;
+            }
+            UserListSnapshot built = build(current);
+            latest = built;
+            synchronized (retained) {
+                retained.put(built.sequence(), built);
+            }
+            synchronized (changes) {
+                logLimit = Math.max(MIN_LOG_LIMIT, built.size());
+            }
+            return built;
+        } finally {
+            buildLock.unlock();
+        }
+    }
+
+    private UserListSnapshot retained(String token) {
+        int separator = token.lastIndexOf('-');
+        long tokenSequence;
+        try {
+            tokenSequence = Long.parseLong(token.substring(separator + 1));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("スナップショット '" + token + "' が不正です");
+        }
+        if (separator < 0 || !token.substring(0, separator).equals(epoch)) {
+            throw new ListSnapshotExpiredException(token);
+        }
+        UserListSnapshot snapshot;
+        synchronized (retained) {
+            snapshot = retained.get(tokenSequence);
+        }
+        if (snapshot == null) {
+            throw new ListSnapshotExpiredException(token);
+        }
+        return snapshot;
+    }
+
+    private UserListSnapshot build(UserListSnapshot base) {
+        // 変更ログの受け渡しのみロック内で行い、マージはロックの外で行う
+        Change[] drained = null;
+        long drainedSequence = 0;
+        if (base != null) {
+            synchronized (changes) {
+                if (logging) {
+                    drained = changes.toArray(new Change[0]);
+                    changes.clear();
+                    drainedSequence = sequence;
+                }
+            }
+        }
+        if (drained != null) {
+            return merge(base.chunks(), latestChanges(drained), drainedSequence);
+        }
+
+        // 記録を開始（実行中の書き込みの完了を待ち、以降の書き込みはすべて記録される）
+        mutationGate.writeLock().lock();
+        try {
+            synchronized (changes) {
+                logging = true;
+                changes.clear();
+            }
+        } finally {
+            mutationGate.writeLock().unlock();
+        }
+        List<Chunk> copied = new ArrayList<>();
+        Iterator<Long> iterator = liveIds.get();
+        while (iterator.hasNext()) {
+            long[] ids = new long[CHUNK_SIZE];
+            User[] chunkUsers = retainUsers ? new User[CHUNK_SIZE] : null;
+            int size = 0;
+            while (size < CHUNK_SIZE && iterator.hasNext()) {
+                long id = iterator.next();
+                if (retainUsers) {
+                    User user = users.apply(id);
+                    if (user == null) {
+                        continue;
+                    }
+                    chunkUsers[size] = user;
+                }
+                ids[size++] = id;
+            }
+            if (size > 0) {
+                copied.add(chunk(ids, chunkUsers, 0, size));
+            }
+        }
+        synchronized (changes) {
+            drained = changes.toArray(new Change[0]);
+            changes.clear();
+            drainedSequence = sequence;
+        }
+        return merge(copied.toArray(new Chunk[0]), latestChanges(drained), drainedSequence);
+    }
+
+    /**
+     * 変更ログをID順に並べ、同じIDは最後の変更のみ残す
+     */
+    private static Change[] latestChanges(Change[] sorted) {
+        // 安定ソートのため、同じIDでは記録順が保たれる
+        Arrays.sort(sorted, Comparator.comparingLong(Change::id));
+        int size = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (i + 1 < sorted.length && sorted[i + 1].id() == sorted[i].id()) {
+                continue;
+            }
+            sorted[size++] = sorted[i];
+        }
+        return Arrays.copyOf(sorted, size);
+    }
+
+    /**
+     * チャンクに変更を適用した新しいスナップショットを作る（変更のないチャンクはそのまま共有する）
+     * チャンク i には前のチャンクの最大IDより大きく、自身の最大ID以下の変更を適用する（最後のチャンクは上限なし）
+     */
+    private UserListSnapshot merge(Chunk[] base, Change[] latestChanges, long newSequence) {
+        List<Chunk> merged = new ArrayList<>(base.length + 1);
+        int c = 0;
+        for (int i = 0; i < base.length; i++) {
+            long upper = i == base.length - 1 ? Long.MAX_VALUE : base[i].lastId();
+            int from = c;
+            while (c < latestChanges.length && latestChanges[c].id() <= upper) {
+                c++;
+            }
+            if (from == c) {
+                merged.add(base[i]);
+            } else {
+                mergeChunk(merged, base[i].ids(), base[i].users(), latestChanges, from, c);
+            }
+        }
+        if (base.length == 0) {
+            mergeChunk(merged, new long[0], retainUsers ? new User[0] : null, latestChanges, 0, latestChanges.length);
+        }
+        return new UserListSnapshot(epoch + "-" + newSequence, newSequence, merged.toArray(new Chunk[0]),
+                retainUsers ? null : users);
+    }
+
+    /**
+     * チャンクと変更をマージし、CHUNK_SIZE の2倍を超える場合は分割して追加する（空になった場合は追加しない）
+     * baseUsers がnullの場合はIDのみマージする
+     */
+    private static void mergeChunk(List<Chunk> out, long[] baseIds, User[] baseUsers,
+                                   Change[] latestChanges, int from, int to) {
+        long[] ids = new long[baseIds.length + (to - from)];
+        User[] users = baseUsers != null ? new User[ids.length] : null;
+        int size = 0;
+        int b = 0;
+        int c = from;
+        while (b < baseIds.length || c < to) {
+            if (c < to && (b >= baseIds.length || latestChanges[c].id() <= baseIds[b])) {
+                Change change = latestChanges[c++];
+                if (b < baseIds.length && change.id() == baseIds[b]) {
+                    b++;
+                }
+                if (!change.deleted()) {
+                    if (users != null) {
+                        users[size] = change.user();
+                    }
+                    ids[size++] = change.id();
+                }
+            } else {
+                if (users != null) {
+                    users[size] = baseUsers[b];
+                }
+                ids[size++] = baseIds[b++];
+            }
+        }
+        if (size <= CHUNK_SIZE * 2) {
+            if (size > 0) {
+                out.add(chunk(ids, users, 0, size));
+            }
+            return;
+        }
+        for (int start = 0; start < size; start += CHUNK_SIZE) {
+            out.add(chunk(ids, users, start, Math.min(start + CHUNK_SIZE, size)));
+        }
+    }
+
+    private static Chunk chunk(long[] ids, User[] users, int from, int to) {
+        if (from == 0 && to == ids.length) {
+            return new Chunk(ids, users);
+        }
+        return new Chunk(Arrays.copyOfRange(ids, from, to), users != null ? Arrays.copyOfRange(users, from, to) : null);
+    }
+}
@@ -1,68 +1,516 @@
 package com.example.requesthandling.service;
 
+import com.example.requesthandling.config.UserStoreProperties;
+import com.example.requesthandling.model.BatchOperation;
+import com.example.requesthandling.model.BatchResult;
 import com.example.requesthandling.model.User;
+import com.example.requesthandling.model.UserPage;
+import com.example.requesthandling.persistence.UserMutation;
+import com.example.requesthandling.persistence.UserSnapshotStore;
+import com.example.requesthandling.persistence.UserWriteAheadLog;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongConsumer;
 
 /**
  * ユーザー管理サービス
  * インメモリでユーザーデータを管理
+ * WALが有効な場合は変更を追記型ログに記録し、起動時に再生して復元する
+ * スナップショットが有効な場合は、最新のスナップショットを読み込んだ後に残りのログだけを再生する
+ * 格納方式が file / jdbc の場合は格納先自体が永続化されるため、起動時に格納先の内容からインデックスを復元する
  */
 @Service
 public class UserService {
     
-    private final Map<String, User> users = new ConcurrentHashMap<>();
+    private static final Logger LOG = LoggerFactory.getLogger(UserService.class);
+    
+    // ユーザーレコードの格納先（ヒープ / ヒープ外 / ファイル / JDBC。ファイル・JDBCは読み込みキャッシュ・非同期の書き出しを前段に置く場合がある）
+    private final UserStore users;
+    // 格納先への非同期の書き出し（無効の場合はnull）
+    private final WriteBehindUserStore writeBehind;
+    // カーソルページング用のID順インデックス
+    private final NavigableSet<Long> orderedIds = new ConcurrentSkipListSet<>();
+    // メールアドレス（正規化済み）→ID のユニークインデックス
+    private final Map<String, String> emailIndex = new ConcurrentHashMap<>();
+    // 作成中（ID採番前）のメールアドレスの確保を表す値（IDとして解釈すると INVALID になる）
+    private static final String RESERVING = "";
+    // 名前検索用のN-gramインデックス
+    private final NameSearchIndex nameIndex = new NameSearchIndex();
     private final AtomicLong idGenerator = new AtomicLong(1);
+    // 追記型ログ（無効の場合はnull）
+    private final UserWriteAheadLog wal;
+    // スナップショット（無効の場合はnull）
+    private final UserSnapshotStore snapshotStore;
+    private final ScheduledExecutorService snapshotScheduler;
+    private long minSnapshotLogRecords;
+    private volatile long lastSnapshotLsn;
+    // 変更処理（LSN採番〜メモリへの反映）は共有ロック、スナップショットのLSN確定は排他ロックで囲み、
+    // 「ログに記録済みだがメモリに未反映」の変更がない時点のLSNを取得する
+    // （一覧のスナップショットも、変更ログの記録を開始する時点の確定に排他ロックを使用する。
+    //  file / jdbc の一括処理は、変更を writeAll でまとめて反映するまで排他ロックで他の変更を止める）
+    private final ReentrantReadWriteLock mutationGate = new ReentrantReadWriteLock();
+    // 同一IDへの変更（ログへの記録〜格納先への書き込み〜インデックス・一覧の変更ログへの反映）を直列化するIDのストライプごとのロック
+    static final int MUTATION_LOCK_STRIPES = 256;
+    private final ReentrantLock[] mutationLocks = newMutationLocks();
+    // 更新・削除の通知先（レスポンスキャッシュの無効化など）
+    private final List<LongConsumer> changeListeners = new CopyOnWriteArrayList<>();
+    
+    // ETag用のバージョン（作成・更新・削除のたびに採番し、コレクション全体とIDのストライプに記録する）
+    // ストライプは複数のIDで共有するため、同じストライプの別ユーザーの変更でもバージョンは進む（不要な200になるだけで、古い内容を304で返すことはない）
+    static final int VERSION_STRIPES = 1 << 16;
+    private final AtomicLong collectionVersion = new AtomicLong();
+    private final AtomicLongArray userVersions = new AtomicLongArray(VERSION_STRIPES);
+    // 再起動でバージョンが0から振り直されても、再起動前のETagと一致しないようにするための起動ごとの識別子
+    private final String versionEpoch = Long.toString(System.currentTimeMillis(), 36);
+    // 一覧取得用のスナップショット（格納先がヒープ上でない場合はIDのみ保持する）
+    private final UserListSnapshots listSnapshots;
+    
+    // 部分一致検索でランキング対象とする一致件数・走査するポスティング数の上限
+    static final int MAX_SEARCH_CANDIDATES = 256;
+    static final int MAX_SEARCH_SCAN = 20000;
     
     public UserService() {
+        this(new HeapUserStore());
+    }
+    
+    /**
+     * 指定した格納先に初期データを追加して使用する（WAL・スナップショットなし）
+     */
+    UserService(UserStore store) {
+        this.users = store;
+        this.listSnapshots = newListSnapshots();
+        this.writeBehind = null;
+        this.wal = null;
+        this.snapshotStore = null;
+        this.snapshotScheduler = null;
+        seed();
+    }
+    
+    @Autowired
+    public UserService(UserStoreProperties properties) throws IOException {
+        UserStoreProperties.Wal config = properties.getWal();
+        if (config.isEnabled() && isPersistent(properties.getStorage().getEngine())) {
+            throw new IllegalStateException("user-store.wal.enabled は storage.engine が "
+                    + properties.getStorage().getEngine() + " の場合は使用できません（格納先自体が永続化されます）");
+        }
+        if (properties.getWriteBehind().isEnabled() && !isPersistent(properties.getStorage().getEngine())) {
+            throw new IllegalStateException("user-store.write-behind.enabled は storage.engine が file / jdbc の場合のみ使用できます");
+        }
+        UserStore store = createStore(properties.getStorage());
+        this.writeBehind = properties.getWriteBehind().isEnabled()
+                ? new WriteBehindUserStore(store, properties.getWriteBehind())
+                : null;
+        if (writeBehind != null) {
+            LOG.info("格納先への書き込みを非同期にまとめます（バッファ: {} 件, バッチ: {} 件, 間隔: {}）",
+                    properties.getWriteBehind().getCapacity(), properties.getWriteBehind().getBatchSize(),
+                    properties.getWriteBehind().getFlushInterval());
+        }
+        this.users = cached(writeBehind != null ? writeBehind : store, properties);
+        this.listSnapshots = newListSnapshots();
+        if (!config.isEnabled()) {
+            this.wal = null;
+            this.snapshotStore = null;
+            this.snapshotScheduler = null;
+            // 一度でも保存したことのある格納先は、全件が削除されていても初期データを追加しない
+            long nextId = users.nextId();
+            if (nextId > 0) {
+                load(nextId);
+            } else {
+                seed();
+            }
+            return;
+        }
+        Path directory = Path.of(config.getDirectory());
+        this.wal = new UserWriteAheadLog(
+                directory,
+                config.getDurability(),
+                config.getSegmentSize().toBytes(),
+                config.getAsyncFlushInterval().toMillis());
+        
+        UserStoreProperties.Snapshot snapshotConfig = properties.getSnapshot();
+        if (!snapshotConfig.isEnabled()) {
+            this.snapshotStore = null;
+            this.snapshotScheduler = null;
+            wal.open(this::apply);
+            return;
+        }
+        this.snapshotStore = new UserSnapshotStore(directory);
+        UserSnapshotStore.Snapshot snapshot = snapshotStore.load(this::restore);
+        long snapshotLsn = 0;
+        if (snapshot != null) {
+            snapshotLsn = snapshot.lsn();
+            idGenerator.set(snapshot.nextId());
+            nameIndex.addAll(users);
+        }
+        wal.open(snapshotLsn, this::apply);
+        this.lastSnapshotLsn = snapshotLsn;
+        this.minSnapshotLogRecords = snapshotConfig.getMinLogRecords();
+        
+        long interval = snapshotConfig.getInterval().toMillis();
+        this.snapshotScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "user-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+        snapshotScheduler.scheduleWithFixedDelay(this::scheduledSnapshot, interval, interval, TimeUnit.MILLISECONDS);
+    }
+    
+    private static ReentrantLock[] newMutationLocks() {
+        ReentrantLock[] locks = new ReentrantLock[MUTATION_LOCK_STRIPES];
+        for (int i = 0; i < MUTATION_LOCK_STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        return locks;
+    }
+    
+    private UserListSnapshots newListSnapshots() {
+        return new UserListSnapshots(versionEpoch, mutationGate, orderedIds::iterator, users::get, users.retainsInstances());
+    }
+    
+    private static UserStore createStore(UserStoreProperties.Storage storage) throws IOException {
+        switch (storage.getEngine()) {
+            case OFF_HEAP -> {
+                LOG.info("ヒープ外ストアを使用します（チャンクサイズ: {}）", storage.getOffHeapChunkSize());
+                return new OffHeapUserStore(Math.toIntExact(storage.getOffHeapChunkSize().toBytes()));
+            }
+            case FILE -> {
+                LOG.info("ファイルストアを使用します（ディレクトリ: {}, fsync: {}）",
+                        storage.getFile().getDirectory(), storage.getFile().isSync());
+                return new FileUserStore(Path.of(storage.getFile().getDirectory()), storage.getFile().isSync());
+            }
+            case JDBC -> {
+                return new JdbcUserStore(storage.getJdbc());
+            }
+            default -> {
+                return new HeapUserStore();
+            }
+        }
+    }
+    
+    /**
+     * 格納方式が file / jdbc でキャッシュが有効な場合、格納先の前段に読み込みキャッシュを置く
+     */
+    private static UserStore cached(UserStore store, UserStoreProperties properties) {
+        UserStoreProperties.Cache cache = properties.getCache();
+        if (!cache.isEnabled() || !isPersistent(properties.getStorage().getEngine())) {
+            return store;
+        }
+        LOG.info("格納先の読み込みキャッシュを使用します（最大 {} 件, TTL: {}）", cache.getMaxEntries(), cache.getTtl());
+        return new CachingUserStore(store,
+                new TinyLfuCache<>(cache.getMaxEntries(), cache.getTtl().toNanos(), cache.getWindowPercent()));
+    }
+    
+    /**
+     * 格納先自体が再起動後も内容を保持する（WALを使用しない）
+     */
+    private static boolean isPersistent(UserStoreProperties.Engine engine) {
+        return engine == UserStoreProperties.Engine.FILE || engine == UserStoreProperties.Engine.JDBC;
+    }
+    
+    /**
+     * 永続化された格納先の内容から、ID順・メールアドレス・名前のインデックスと次のIDを復元する
+     * 
+     * @param nextId 格納先に記録された次のID（削除したIDを再び採番しないため、残っているユーザーの最大のIDより大きい場合がある）
+     */
+    private void load(long nextId) {
+        long start = System.nanoTime();
+        long[] maxId = {0};
+        users.forEach(user -> {
+            long id = Long.parseLong(user.getId());
+            orderedIds.add(id);
+            if (user.getEmail() != null) {
+                emailIndex.put(emailKey(user.getEmail()), user.getId());
+            }
+            maxId[0] = Math.max(maxId[0], id);
+        });
+        nameIndex.addAll(users);
+        idGenerator.set(Math.max(nextId, maxId[0] + 1));
+        LOG.info("格納先からユーザーを読み込みました: {} 件, {} ms",
+                users.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+    
+    /**
+     * スナップショットの定期取得を停止し、WALと格納先をクローズ（未書き込みのレコードを書き出す）
+     */
+    @PreDestroy
+    public void close() throws IOException {
+        if (snapshotScheduler != null) {
+            snapshotScheduler.shutdown();
+            try {
+                snapshotScheduler.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (wal != null) {
+            wal.close();
+        }
+        users.close();
+    }
+    
+    /**
+     * スナップショットを取得し、不要になったWALセグメントを削除する
+     * 
+     * 書き込みを止めるのはLSNとID採番の確定時のみで、ユーザーの書き出し中も変更を受け付ける
+     * 書き出し中の変更はスナップショットに含まれる場合と含まれない場合があるが、
+     * LSNより後のレコードは起動時にWALから再生されるため、最終的な状態は一致する
+     * 
+     * @return 取得した場合はtrue（スナップショットが無効・前回から変更がない場合はfalse）
+     */
+    public synchronized boolean snapshot() throws IOException {
+        if (snapshotStore == null) {
+            return false;
+        }
+        long lsn;
+        long nextId;
+        mutationGate.writeLock().lock();
+        try {
+            lsn = wal.getAppendedLsn();
+            nextId = idGenerator.get();
+        } finally {
+            mutationGate.writeLock().unlock();
+        }
+        if (lsn == lastSnapshotLsn) {
+            return false;
+        }
+        long start = System.nanoTime();
+        UserSnapshotStore.Snapshot snapshot = snapshotStore.write(lsn, nextId, iterateUsers(null));
+        int deleted = wal.compact(lsn);
+        lastSnapshotLsn = lsn;
+        LOG.info("スナップショットを取得しました: {} 件, LSN={}, {} ms（削除したWALセグメント: {}）",
+                snapshot.count(), lsn, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), deleted);
+        return true;
+    }
+    
+    private void scheduledSnapshot() {
+        try {
+            if (wal.getAppendedLsn() - lastSnapshotLsn >= minSnapshotLogRecords) {
+                snapshot();
+            }
+        } catch (IOException | RuntimeException e) {
+            LOG.error("スナップショットの取得に失敗しました", e);
+        }
+    }
+    
+    private void seed() {
         // 初期データを追加
         User user1 = User.builder().id("1").name("user1").email("user1@example.com").build();
         User user2 = User.builder().id("2").name("user2").email("user2@example.com").build();
         User user3 = User.builder().id("3").name("user3").email("user3@example.com").build();
         
-        users.put(user1.getId(), user1);
-        users.put(user2.getId(), user2);
-        users.put(user3.getId(), user3);
+        createSeedUser(user1);
+        createSeedUser(user2);
+        createSeedUser(user3);
         
         idGenerator.set(4); // 次のIDは4から
     }
     
     /**
-     * 全ユーザーを取得
+     * ユーザーの更新・削除時に呼び出すリスナーを登録
+     * リスナーは変更がメモリに反映された後に、変更したスレッドで呼び出される（引数はユーザーID）
+     */
+    public void addChangeListener(LongConsumer listener) {
+        changeListeners.add(listener);
+    }
+    
+    /**
+     * ユーザーのバージョン（内容が変わると必ず増える）
+     * 変更は内容を反映してからバージョンを進めるため、内容より先にバージョンを読めば、読んだ内容はそのバージョン以降のものになる
+     */
+    public long getUserVersion(long id) {
+        return userVersions.get(versionStripe(id));
+    }
+    
+    /**
+     * 格納先の読み込みキャッシュの件数とカウンタ（size / maxEntries / hits / misses / hitRatio / evictions / expirations / invalidations / rejections）
+     * キャッシュを使用していない場合は空
+     */
+    public Map<String, Number> getStoreCacheStats() {
+        return users instanceof CachingUserStore cachingStore ? cachingStore.stats() : Map.of();
+    }
+    
+    /**
+     * 格納先への非同期の書き出しの件数とカウンタ（pending / capacity / enqueued / coalesced / flushed / batches / failures / waits）
+     * 無効の場合は空
+     */
+    public Map<String, Number> getWriteBehindStats() {
+        return writeBehind != null ? writeBehind.stats() : Map.of();
+    }
+    
+    /**
+     * 全ユーザーのバージョン（いずれかのユーザーが作成・更新・削除されると増える）
+     */
+    public long getCollectionVersion() {
+        return collectionVersion.get();
+    }
+    
+    /**
+     * バージョンを採番した起動の識別子
+     */
+    public String getVersionEpoch() {
+        return versionEpoch;
+    }
+    
+    /**
+     * 全ユーザーをID昇順で取得（最新のスナップショットを返すため変更不可）
      */
     public List<User> getAllUsers() {
-        return new ArrayList<>(users.values());
+        return listSnapshots.get(null).getUsers();
     }
     
     /**
-     * IDでユーザーを取得
+     * カーソル以降のユーザーをID昇順で最大limit件取得（最新のスナップショットから取得）
+     * 
+     * @param cursor 前ページの nextCursor（nullの場合は先頭から）
+     * @param limit 最大取得件数
+     * @return ページ（続きがない場合 nextCursor は null）
+     */
+    public UserPage getUsersPage(String cursor, int limit) {
+        return listSnapshots.get(null).page(cursor, limit);
+    }
+    
+    /**
+     * 一覧取得用のスナップショットを取得
+     * 最新のスナップショットは前回から変更があった場合のみ作り直し、同時に取得したリクエスト間で共有する
+     * 
+     * @param token 前ページの snapshot（nullの場合は最新）
+     * @throws ListSnapshotExpiredException トークンのスナップショットが破棄されている場合
+     * @throws IllegalArgumentException トークンの形式が不正な場合
+     */
+    public UserListSnapshot getListSnapshot(String token) {
+        return listSnapshots.get(token);
+    }
+    
+    /**
+     * カーソル以降のユーザーをID昇順でストアから直接走査（走査中の変更は反映される場合とされない場合がある）
+     * 全件のコピーを作らないため、永続化のスナップショットの書き出しに使用する
+     * 
+     * @param cursor 直前に返したユーザーID（nullの場合は先頭から）
+     * @throws IllegalArgumentException カーソルが数値でない場合
+     */
+    public Iterator<User> iterateUsers(String cursor) {
+        NavigableSet<Long> ids = cursor == null ? orderedIds : orderedIds.tailSet(parseCursor(cursor), false);
+        return ids.stream()
+                .map(users::get)
+                .filter(Objects::nonNull)
+                .iterator();
+    }
+    
+    /**
+     * IDでユーザーを取得（数値でないIDは存在しないものとして扱う）
      */
     public Optional<User> getUserById(String id) {
+        return getUserById(UserIds.parse(id));
+    }
+    
+    /**
+     * IDでユーザーを取得
+     */
+    public Optional<User> getUserById(long id) {
         return Optional.ofNullable(users.get(id));
     }
     
+    /**
+     * メールアドレスでユーザーを取得
+     */
+    public Optional<User> getUserByEmail(String email) {
+        if (email == null) {
+            return Optional.empty();
+        }
+        String id = emailIndex.get(emailKey(email));
+        return id == null ? Optional.empty() : getUserById(id);
+    }
+    
+    /**
+     * 名前の部分一致・前方一致でユーザーを検索
+     * 
+     * ランキング: 完全一致 → 前方一致（名前順） → 部分一致（一致位置が前・名前が短い順）
+     * 3文字未満の検索文字列は前方一致のみ
+     * 
+     * @param query 検索文字列（大文字小文字を区別しない）
+     * @param limit 最大取得件数
+     */
+    public List<User> searchUsers(String query, int limit) {
+        String q = NameSearchIndex.normalize(query);
+        if (q.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        List<User> result = new ArrayList<>();
+        for (String id : nameIndex.search(q, limit, MAX_SEARCH_CANDIDATES, MAX_SEARCH_SCAN)) {
+            User user = users.get(UserIds.parse(id));
+            if (user != null) {
+                result.add(user);
+            }
+        }
+        return result;
+    }
+    
     /**
      * ユーザーを作成
+     * 
+     * @throws DuplicateEmailException メールアドレスが既に使用されている場合
      */
     public User createUser(User user) {
-        String id = String.valueOf(idGenerator.getAndIncrement());
-        user.setId(id);
-        users.put(id, user);
+        long lsn;
+        users.awaitWritable();
+        beginMutation();
+        try {
+            lsn = create(user, null);
+        } finally {
+            endMutation();
+        }
+        awaitDurable(lsn);
         return user;
     }
     
     /**
      * ユーザーを更新
+     * 同一IDへの更新はIDのストライプごとのロックで直列化し、メールアドレスインデックスと整合させる
+     * 
+     * @throws DuplicateEmailException メールアドレスが他のユーザーで使用されている場合
      */
     public Optional<User> updateUser(String id, User updatedUser) {
-        if (!users.containsKey(id)) {
+        return updateUser(UserIds.parse(id), updatedUser);
+    }
+    
+    /**
+     * ユーザーを更新
+     * 
+     * @throws DuplicateEmailException メールアドレスが他のユーザーで使用されている場合
+     */
+    public Optional<User> updateUser(long userId, User updatedUser) {
+        if (userId == UserIds.INVALID) {
             return Optional.empty();
         }
-        updatedUser.setId(id);
-        users.put(id, updatedUser);
+        long lsn;
+        users.awaitWritable();
+        beginMutation();
+        try {
+            lsn = update(userId, updatedUser, null);
+        } finally {
+            endMutation();
+        }
+        if (lsn < 0) {
+            return Optional.empty();
+        }
+        awaitDurable(lsn);
         return Optional.of(updatedUser);
     }
     
@@ -70,7 +518,84 @@ public class UserService {
      * ユーザーを削除
      */
     public boolean deleteUser(String id) {
-        return users.remove(id) != null;
+        return deleteUser(UserIds.parse(id));
+    }
+    
+    /**
+     * ユーザーを削除
+     */
+    public boolean deleteUser(long id) {
+        if (id == UserIds.INVALID) {
+            return false;
+        }
+        long lsn;
+        users.awaitWritable();
+        beginMutation();
+        try {
+            lsn = delete(id, null);
+        } finally {
+            endMutation();
+        }
+        if (lsn < 0) {
+            return false;
+        }
+        awaitDurable(lsn);
+        return true;
+    }
+    
+    /**
+     * 作成・更新・削除の操作をまとめて順に適用
+     * 
+     * 各操作は独立しており、失敗した操作があっても残りの操作は適用する（バッチ全体はアトミックではない）
+     * WALが有効な場合は全操作をログに追記した後に1回だけ永続化を待つため、SYNCでもfsyncはバッチあたり1回で済む
+     * 格納先が file / jdbc（非同期の書き出しなし）の場合は、変更を保持しておき最後に UserStore#writeAll で
+     * まとめて反映する（追記・fsync・トランザクションはバッチあたり1回）。反映の間は他の変更を止める（mutationGate の排他ロック）
+     * 反映に失敗した場合はインデックスをバッチ前の状態に戻し、例外をそのままスローする
+     * 
+     * @param operations 操作（先頭から順に適用）
+     * @return 操作ごとの結果（operations と同じ順序）
+     */
+    public List<BatchResult> applyBatch(List<BatchOperation> operations) {
+        List<BatchResult> results = new ArrayList<>(operations.size());
+        long lastLsn = 0;
+        StagedWrites staged = users.batchesWrites() ? new StagedWrites() : null;
+        users.awaitWritable();
+        if (staged != null) {
+            mutationGate.writeLock().lock();
+        } else {
+            beginMutation();
+        }
+        try {
+            try {
+                for (int index = 0; index < operations.size(); index++) {
+                    BatchOperation operation = operations.get(index);
+                    BatchResult result = BatchResult.builder()
+                            .index(index)
+                            .op(operation == null ? null : operation.getOp())
+                            .build();
+                    try {
+                        lastLsn = Math.max(lastLsn, applyOperation(operation, result, staged));
+                    } catch (DuplicateEmailException e) {
+                        result.setStatus(409);
+                        result.setError(e.getMessage());
+                    }
+                    results.add(result);
+                }
+            } finally {
+                // 途中の操作が例外で終わった場合も、それまでの操作は反映する（変更をそのまま書き込む場合と同じ）
+                if (staged != null) {
+                    commit(staged);
+                }
+            }
+        } finally {
+            if (staged != null) {
+                mutationGate.writeLock().unlock();
+            } else {
+                endMutation();
+            }
+        }
+        awaitDurable(lastLsn);
+        return results;
     }
     
     /**
@@ -79,5 +604,408 @@ public class UserService {
     public int getUserCount() {
         return users.size();
     }
+    
+    /**
+     * スナップショットから読み込んだユーザーを空の状態に追加（名前インデックスは読み込み後に一括構築）
+     */
+    private void restore(User user) {
+        if (user.getEmail() != null) {
+            emailIndex.put(emailKey(user.getEmail()), user.getId());
+        }
+        put(user);
+    }
+    
+    /**
+     * WALから再生したレコードを適用（ログには記録しない）
+     */
+    private void apply(UserMutation mutation) {
+        if (mutation.type() == UserMutation.Type.DELETE) {
+            removeUser(Long.parseLong(mutation.id()));
+            return;
+        }
+        User user = mutation.user();
+        User current = users.get(Long.parseLong(user.getId()));
+        if (current != null) {
+            releaseEmailIfChanged(current.getEmail(), user.getEmail(), current.getId());
+            if (!Objects.equals(current.getName(), user.getName())) {
+                nameIndex.remove(current.getId(), current.getName());
+                nameIndex.add(user.getId(), user.getName());
+            }
+        } else {
+            nameIndex.add(user.getId(), user.getName());
+        }
+        if (user.getEmail() != null) {
+            emailIndex.put(emailKey(user.getEmail()), user.getId());
+        }
+        put(user);
+        idGenerator.accumulateAndGet(Long.parseLong(user.getId()) + 1, Math::max);
+    }
+    
+    /**
+     * バッチ内の1操作を適用し、結果を result に設定
+     * 
+     * @param staged 格納先への変更をまとめる場合の保持先（そのまま書き込む場合はnull）
+     * @return 記録したLSN（ログに記録していない場合は0）
+     */
+    private long applyOperation(BatchOperation operation, BatchResult result, StagedWrites staged) {
+        String op = operation == null || operation.getOp() == null ? "" : operation.getOp().toLowerCase(Locale.ROOT);
+        User user = operation == null ? null : operation.getUser();
+        switch (op) {
+            case "create" -> {
+                if (user == null) {
+                    return reject(result, 400, "user を指定してください");
+                }
+                long lsn = create(user, staged);
+                result.setStatus(201);
+                result.setId(user.getId());
+                result.setUser(user);
+                return lsn;
+            }
+            case "update" -> {
+                if (user == null) {
+                    return reject(result, 400, "user を指定してください");
+                }
+                long userId = UserIds.parse(operation.getId());
+                long lsn = userId == UserIds.INVALID ? -1 : update(userId, user, staged);
+                if (lsn < 0) {
+                    return reject(result, 404, "ID '" + operation.getId() + "' のユーザーは存在しません");
+                }
+                result.setStatus(200);
+                result.setId(user.getId());
+                result.setUser(user);
+                return lsn;
+            }
+            case "delete" -> {
+                long userId = UserIds.parse(operation.getId());
+                long lsn = userId == UserIds.INVALID ? -1 : delete(userId, staged);
+                if (lsn < 0) {
+                    return reject(result, 404, "ID '" + operation.getId() + "' のユーザーは存在しません");
+                }
+                result.setStatus(200);
+                result.setId(operation.getId());
+                return lsn;
+            }
+            default -> {
+                return reject(result, 400, "op は create / update / delete のいずれかを指定してください");
+            }
+        }
+    }
+    
+    private static long reject(BatchResult result, int status, String error) {
+        result.setStatus(status);
+        result.setError(error);
+        return 0;
+    }
+    
+    /**
+     * ユーザーを作成してログに記録（呼び出し元で beginMutation 済みであること）
+     * 格納先への書き込みに失敗した場合は、確保したメールアドレスを解放して例外をそのままスローする
+     * 
+     * @param staged 格納先への変更をまとめる場合の保持先（そのまま書き込む場合はnull）
+     * @return 記録したLSN
+     */
+    private long create(User user, StagedWrites staged) {
+        // メールアドレスを確保してからIDを採番する（重複で失敗した作成でIDを消費しない）
+        reserveNewEmail(user.getEmail());
+        long userId = idGenerator.getAndIncrement();
+        String id = Long.toString(userId);
+        if (user.getEmail() != null) {
+            emailIndex.replace(emailKey(user.getEmail()), RESERVING, id);
+        }
+        user.setId(id);
+        ReentrantLock lock = mutationLock(userId);
+        lock.lock();
+        try {
+            long lsn;
+            try {
+                lsn = log(UserMutation.put(user));
+                write(staged, userId, user, null);
+            } catch (RuntimeException e) {
+                releaseEmail(user.getEmail(), id);
+                throw e;
+            }
+            // インデックス・一覧の変更ログには、格納先への書き込みが成功してから反映する
+            orderedIds.add(userId);
+            nameIndex.add(id, user.getName());
+            listSnapshots.record(userId, user);
+            advanceVersion(userId);
+            return lsn;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * ユーザーを更新してログに記録（呼び出し元で beginMutation 済みであること）
+     * 格納先への書き込みに失敗した場合は、新たに確保したメールアドレスを解放して例外をそのままスローする
+     * 
+     * @param staged 格納先への変更をまとめる場合の保持先（そのまま書き込む場合はnull）
+     * @return 記録したLSN（存在しない場合は-1）
+     */
+    private long update(long userId, User updatedUser, StagedWrites staged) {
+        String id = Long.toString(userId);
+        long lsn;
+        ReentrantLock lock = mutationLock(userId);
+        lock.lock();
+        try {
+            User current = read(staged, userId);
+            if (current == null) {
+                return -1;
+            }
+            boolean reserved = reserveEmail(updatedUser.getEmail(), id);
+            updatedUser.setId(id);
+            try {
+                // 同一IDへの変更順とログ上の順序を一致させるため、ロック内で記録する
+                lsn = log(UserMutation.put(updatedUser));
+                write(staged, userId, updatedUser, current);
+            } catch (RuntimeException e) {
+                if (reserved) {
+                    releaseEmail(updatedUser.getEmail(), id);
+                }
+                throw e;
+            }
+            releaseEmailIfChanged(current.getEmail(), updatedUser.getEmail(), id);
+            if (!Objects.equals(current.getName(), updatedUser.getName())) {
+                nameIndex.remove(id, current.getName());
+                nameIndex.add(id, updatedUser.getName());
+            }
+            listSnapshots.record(userId, updatedUser);
+        } finally {
+            lock.unlock();
+        }
+        notifyChanged(userId);
+        return lsn;
+    }
+    
+    /**
+     * ユーザーを削除してログに記録（呼び出し元で beginMutation 済みであること）
+     * 格納先からの削除に失敗した場合は、インデックスを変更せずに例外をそのままスローする
+     * 
+     * @param staged 格納先への変更をまとめる場合の保持先（そのまま書き込む場合はnull）
+     * @return 記録したLSN（存在しない場合は-1）
+     */
+    private long delete(long id, StagedWrites staged) {
+        long lsn;
+        ReentrantLock lock = mutationLock(id);
+        lock.lock();
+        try {
+            User current = read(staged, id);
+            if (current == null) {
+                return -1;
+            }
+            lsn = log(UserMutation.delete(Long.toString(id)));
+            write(staged, id, null, current);
+            deindex(current);
+            listSnapshots.record(id, null);
+        } finally {
+            lock.unlock();
+        }
+        notifyChanged(id);
+        return lsn;
+    }
+    
+    /**
+     * バッチ内の変更後の値（保持していなければ格納先の値）を取得
+     */
+    private User read(StagedWrites staged, long id) {
+        if (staged != null && staged.changes.containsKey(id)) {
+            return staged.changes.get(id);
+        }
+        return users.get(id);
+    }
+    
+    /**
+     * 格納先に書き込む（staged が指定されている場合は保持のみ）
+     * 
+     * @param user 変更後のユーザー（削除の場合はnull）
+     * @param current 変更前のユーザー（存在しない場合はnull）
+     */
+    private void write(StagedWrites staged, long id, User user, User current) {
+        if (staged != null) {
+            if (!staged.changes.containsKey(id)) {
+                staged.originals.put(id, current);
+            }
+            staged.changes.put(id, user);
+        } else if (user != null) {
+            users.put(id, user);
+        } else {
+            users.remove(id);
+        }
+    }
+    
+    /**
+     * バッチ内の変更を UserStore#writeAll でまとめて格納先に反映する（mutationGate の排他ロック内で呼び出すこと）
+     * 反映前に通知した変更は、その間に古い値がキャッシュされうるため、反映後に改めて通知する
+     * 反映に失敗した場合は、インデックスと一覧の変更ログをバッチ前の状態に戻してから例外をスローする
+     */
+    private void commit(StagedWrites staged) {
+        if (staged.changes.isEmpty()) {
+            return;
+        }
+        try {
+            users.writeAll(staged.changes);
+        } catch (RuntimeException e) {
+            staged.changes.values().forEach(user -> {
+                if (user != null) {
+                    deindex(user);
+                }
+            });
+            staged.originals.values().forEach(user -> {
+                if (user != null) {
+                    reindex(user);
+                }
+            });
+            staged.changes.keySet().forEach(id -> listSnapshots.record(id, staged.originals.get(id)));
+            staged.changes.keySet().forEach(this::notifyChanged);
+            throw e;
+        }
+        staged.changes.keySet().forEach(this::notifyChanged);
+    }
+    
+    /**
+     * 変更を通知してからバージョンを進める
+     * （キャッシュの無効化より先にバージョンが進むと、新しいバージョンで古いキャッシュを返しうるため）
+     */
+    private void notifyChanged(long id) {
+        for (LongConsumer listener : changeListeners) {
+            listener.accept(id);
+        }
+        advanceVersion(id);
+    }
+    
+    private void advanceVersion(long id) {
+        long version = collectionVersion.incrementAndGet();
+        userVersions.accumulateAndGet(versionStripe(id), version, Math::max);
+    }
+    
+    private ReentrantLock mutationLock(long id) {
+        long h = id * 0x9E3779B97F4A7C15L;
+        return mutationLocks[(int) (h ^ (h >>> 32)) & (MUTATION_LOCK_STRIPES - 1)];
+    }
+    
+    private static int versionStripe(long id) {
+        long h = id * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & (VERSION_STRIPES - 1);
+    }
+    
+    private User removeUser(long id) {
+        User removed = users.remove(id);
+        if (removed != null) {
+            deindex(removed);
+        }
+        return removed;
+    }
+    
+    private void deindex(User removed) {
+        orderedIds.remove(Long.parseLong(removed.getId()));
+        releaseEmail(removed.getEmail(), removed.getId());
+        nameIndex.remove(removed.getId(), removed.getName());
+    }
+    
+    private void reindex(User user) {
+        orderedIds.add(Long.parseLong(user.getId()));
+        if (user.getEmail() != null) {
+            emailIndex.put(emailKey(user.getEmail()), user.getId());
+        }
+        nameIndex.add(user.getId(), user.getName());
+    }
+    
+    /**
+     * 変更処理の共有ロックを取得（格納先の書き込みの空きは、ロックの取得前に UserStore#awaitWritable で待つこと）
+     */
+    private void beginMutation() {
+        mutationGate.readLock().lock();
+    }
+    
+    private void endMutation() {
+        mutationGate.readLock().unlock();
+    }
+    
+    private long log(UserMutation mutation) {
+        return wal == null ? 0 : wal.append(mutation);
+    }
+    
+    private void awaitDurable(long lsn) {
+        if (wal != null) {
+            wal.awaitDurable(lsn);
+        }
+    }
+    
+    private void createSeedUser(User user) {
+        reserveEmail(user.getEmail(), user.getId());
+        put(user);
+        nameIndex.add(user.getId(), user.getName());
+    }
+    
+    private void put(User user) {
+        put(Long.parseLong(user.getId()), user);
+    }
+    
+    private void put(long id, User user) {
+        users.put(id, user);
+        orderedIds.add(id);
+    }
+    
+    /**
+     * メールアドレスをIDに割り当てる（同じIDが既に保持している場合はそのまま）
+     * 
+     * @return 新たに割り当てた場合はtrue
+     */
+    private boolean reserveEmail(String email, String id) {
+        if (email == null) {
+            return false;
+        }
+        String owner = emailIndex.putIfAbsent(emailKey(email), id);
+        if (owner != null && !owner.equals(id)) {
+            throw new DuplicateEmailException(email);
+        }
+        return owner == null;
+    }
+    
+    /**
+     * 作成するユーザーのメールアドレスを、IDの採番前に仮の値で確保する（既にいずれかのユーザーが使用している場合は重複）
+     */
+    private void reserveNewEmail(String email) {
+        if (email != null && emailIndex.putIfAbsent(emailKey(email), RESERVING) != null) {
+            throw new DuplicateEmailException(email);
+        }
+    }
+    
+    private void releaseEmailIfChanged(String oldEmail, String newEmail, String id) {
+        if (oldEmail != null && (newEmail == null || !emailKey(oldEmail).equals(emailKey(newEmail)))) {
+            releaseEmail(oldEmail, id);
+        }
+    }
+    
+    private void releaseEmail(String email, String id) {
+        if (email != null) {
+            emailIndex.remove(emailKey(email), id);
+        }
+    }
+    
+    /**
+     * メールアドレスの正規化（前後の空白除去・小文字化）
+     */
+    private static String emailKey(String email) {
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
+    
+    private static long parseCursor(String cursor) {
+        try {
+            return Long.parseLong(cursor);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("カーソル '" + cursor + "' が不正です");
+        }
+    }
+    
+    /**
+     * バッチ内の格納先への変更（UserStore#batchesWrites の場合に、最後に writeAll でまとめて反映する）
+     */
+    private static final class StagedWrites {
+        
+        // ID → 変更後のユーザー（削除はnull。変更の順序を保持する）
+        private final Map<Long, User> changes = new LinkedHashMap<>();
+        // ID → バッチ前のユーザー（存在しない場合はnull。反映に失敗した場合にインデックスを戻すため）
+        private final Map<Long, User> originals = new HashMap<>();
+    }
 }
-
@@ -0,0 +1,94 @@
+package com.example.requesthandling.service;
+
+import com.example.requesthandling.model.User;
+
+import java.io.Closeable;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
+
+/**
+ * ユーザーレコードの格納先
+ * ID順・メールアドレス・名前のインデックスは UserService がヒープ上に持ち、レコード本体の保持方法のみを切り替える
+ *
+ * 実装（user-store.storage.engine）: HeapUserStore / OffHeapUserStore / FileUserStore / JdbcUserStore
+ * file / jdbc の前段に置くもの: CachingUserStore（user-store.cache）/ WriteBehindUserStore（user-store.write-behind）
+ * 格納先の入出力に失敗した場合は UserStoreException をスローする
+ * すべての実装は UserStoreConformanceTest の共通のテストを満たすこと
+ */
+interface UserStore extends Closeable {
+
+    User get(long id);
+
+    void put(long id, User user);
+
+    /**
+     * @return 削除したユーザー（存在しない場合はnull）
+     */
+    User remove(long id);
+
+    /**
+     * 存在する場合のみ、同一IDへの他の変更と排他して更新する
+     *
+     * @return 更新後のユーザー（存在しない場合はnull）
+     */
+    User computeIfPresent(long id, UnaryOperator<User> remapping);
+
+    /**
+     * 複数IDの変更をまとめて反映する（値がnullのIDは削除。存在しないIDの削除は無視する）
+     * 実装は1回の書き込み・トランザクションにまとめてよい（WriteBehindUserStore の書き出しで使用）
+     * 存在しないIDの削除も、次のID（nextId）には反映する（書き出し前に追加・削除されたIDを再び採番しないため）
+     */
+    default void writeAll(Map<Long, User> changes) {
+        changes.forEach((id, user) -> {
+            if (user == null) {
+                remove(id);
+            } else {
+                put(id, user);
+            }
+        });
+    }
+
+    /**
+     * writeAll を1回の書き込み・トランザクションにまとめ、その完了時点で永続化される場合はtrue（file / jdbc）
+     * UserService#applyBatch は、trueの場合にバッチ内の変更をまとめて writeAll で反映する
+     */
+    default boolean batchesWrites() {
+        return false;
+    }
+
+    /**
+     * 書き込みを受け付けられるまで待つ（UserService が変更のロックを取得する前に呼び出す）
+     * WriteBehindUserStore は書き出し待ちのバッファの空きを待ち、待ちきれない場合は UserStoreException。他の実装は何もしない
+     */
+    default void awaitWritable() {
+    }
+
+    int size();
+
+    /**
+     * これまでに保存した最大のID + 1（削除したIDも含む。一度も保存していない場合は0）
+     * file / jdbc は再起動後も保持し、UserService が次のIDの復元と初期データの追加の要否の判定に使用する
+     * （削除したIDを再び採番しない・全件を削除した後に初期データを追加し直さない）。heap / off-heap は常に0
+     */
+    default long nextId() {
+        return 0;
+    }
+
+    void forEach(Consumer<User> action);
+
+    /**
+     * get() が保存したインスタンスをそのまま返す（ヒープ上に保持する）場合はtrue
+     * 一覧のスナップショットは、trueの場合のみユーザーを参照で保持し、それ以外はIDのみ保持して取得時に読み込む
+     */
+    default boolean retainsInstances() {
+        return false;
+    }
+
+    /**
+     * 停止時にリソース（ファイル・コネクションプール）を解放する
+     */
+    @Override
+    default void close() {
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.requesthandling.service;
+
+/**
+ * ユーザーストア例外
+ * 格納先（ファイル・データベース）の読み書きに失敗した場合にスローされる
+ */
+public class UserStoreException extends RuntimeException {
+
+    public UserStoreException(String message) {
+        super(message);
+    }
+
+    public UserStoreException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,359 @@
+package com.example.requesthandling.service;
+
+import com.example.requesthandling.config.UserStoreProperties;
+import com.example.requesthandling.model.User;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
+
+/**
+ * 低速な格納先（ファイル・JDBC）への書き込みを、メモリ上のバッファでまとめて非同期に書き出す（write-behind）
+ *
+ * - 追加・更新・削除: 書き出し待ちのバッファ（ID → 最新の値、削除はnull）に反映した時点で完了とする。
+ *   同じIDへの変更は最後の1件にまとめる（書き出し前に何度更新しても、格納先への書き込みは1回）
+ * - 取得: 書き出し待ちの値があればそれを返し、なければ格納先から読み込む
+ * - 書き出し: 専用スレッドが、書き出し待ちが batchSize 件に達するか flushInterval が経過するたびに、
+ *   最大 batchSize 件を UserStore#writeAll でまとめて書き出す。書き出した値が変わっていなければバッファから削除する
+ * - 背圧: 書き出し待ちのユーザー数が capacity 以上の間、awaitWritable() は空きを maxWait まで待ち、超えると UserStoreException。
+ *   UserService は変更のロック（IDごとのロック・mutationGate）を取得する前に待つため、待っている間も他のIDの変更や一覧の再構築を止めない。
+ *   バッファへの反映自体は待たないため、capacity は同時に待ちを抜けた変更の数だけ超えることがある
+ * - 書き出しに失敗した場合はバッファに残し、次の間隔で再試行する（失敗が続くとバッファが埋まり、変更が失敗する）
+ * - 停止時は書き出し待ちをすべて書き出してから格納先をクローズする
+ *
+ * 応答済みの変更は、書き出し前にプロセスが異常終了すると失われる（最大で flushInterval と書き出しにかかる時間の分）
+ * 同一IDへの変更はIDのストライプごとのロックで排他し、件数は変更時に更新する
+ */
+class WriteBehindUserStore implements UserStore {
+
+    private static final Logger LOG = LoggerFactory.getLogger(WriteBehindUserStore.class);
+
+    private static final int LOCK_STRIPES = 256;
+
+    /**
+     * 書き出し待ちの値（削除の場合は user が null）。書き出し後は、書き出した値から変わっていない場合のみバッファから削除する
+     */
+    private record Pending(User user) {
+    }
+
+    private final UserStore delegate;
+    private final int capacity;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final long maxWaitNanos;
+
+    private final ConcurrentHashMap<Long, Pending> pending = new ConcurrentHashMap<>();
+    private final ReentrantLock[] locks = new ReentrantLock[LOCK_STRIPES];
+    private final AtomicInteger size;
+    // 書き出し前の追加を含む、これまでに保存した最大のID + 1
+    private final AtomicLong nextId;
+    // バッファの空き・書き出しの契機の待ち合わせ
+    private final ReentrantLock bufferLock = new ReentrantLock();
+    private final Condition notFull = bufferLock.newCondition();
+    private final Condition flushNeeded = bufferLock.newCondition();
+    // 書き出しスレッドと flush() の書き出しを直列化する（同じIDの古い値が新しい値の後に書き込まれないように）
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final Thread flusher;
+    private volatile boolean closed;
+
+    private final LongAdder enqueued = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder flushed = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder waits = new LongAdder();
+
+    WriteBehindUserStore(UserStore delegate, UserStoreProperties.WriteBehind config) {
+        if (config.getCapacity() < 1 || config.getBatchSize() < 1) {
+            throw new IllegalArgumentException("user-store.write-behind の capacity・batch-size は1以上である必要があります");
+        }
+        this.delegate = delegate;
+        this.capacity = config.getCapacity();
+        this.batchSize = config.getBatchSize();
+        this.flushIntervalNanos = Math.max(1, config.getFlushInterval().toNanos());
+        this.maxWaitNanos = config.getMaxWait().toNanos();
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        this.size = new AtomicInteger(delegate.size());
+        this.nextId = new AtomicLong(delegate.nextId());
+        this.flusher = new Thread(this::runFlusher, "user-store-write-behind");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    @Override
+    public User get(long id) {
+        Pending value = pending.get(id);
+        return value != null ? value.user() : delegate.get(id);
+    }
+
+    @Override
+    public void put(long id, User user) {
+        if (id <= 0) {
+            throw new IllegalArgumentException("IDは1以上である必要があります: " + id);
+        }
+        ReentrantLock lock = lock(id);
+        lock.lock();
+        try {
+            boolean exists = get(id) != null;
+            enqueue(id, new Pending(user));
+            if (!exists) {
+                size.incrementAndGet();
+            }
+            nextId.accumulateAndGet(id + 1, Math::max);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public User remove(long id) {
+        if (id <= 0) {
+            return null;
+        }
+        ReentrantLock lock = lock(id);
+        lock.lock();
+        try {
+            User current = get(id);
+            if (current != null) {
+                enqueue(id, new Pending(null));
+                size.decrementAndGet();
+            }
+            return current;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public User computeIfPresent(long id, UnaryOperator<User> remapping) {
+        if (id <= 0) {
+            return null;
+        }
+        ReentrantLock lock = lock(id);
+        lock.lock();
+        try {
+            User current = get(id);
+            if (current == null) {
+                return null;
+            }
+            User updated = remapping.apply(current);
+            enqueue(id, new Pending(updated));
+            if (updated == null) {
+                size.decrementAndGet();
+            }
+            return updated;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        return size.get();
+    }
+
+    /**
+     * 書き出し前の追加を含む（格納先に書き出す前に異常終了した場合は、失われた追加のIDのみ再び採番されうる）
+     */
+    @Override
+    public long nextId() {
+        return nextId.get();
+    }
+
+    /**
+     * 書き出し待ちをすべて書き出してから、格納先を走査する（走査中の変更は反映される場合とされない場合がある）
+     */
+    @Override
+    public void forEach(Consumer<User> action) {
+        flush();
+        delegate.forEach(action);
+    }
+
+    /**
+     * 書き出しスレッドを停止し（書き出し待ちをすべて書き出す）、格納先をクローズ
+     */
+    @Override
+    public void close() {
+        closed = true;
+        bufferLock.lock();
+        try {
+            flushNeeded.signalAll();
+            notFull.signalAll();
+        } finally {
+            bufferLock.unlock();
+        }
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!pending.isEmpty()) {
+            LOG.error("格納先に書き出せなかった変更があります: {} 件", pending.size());
+        }
+        delegate.close();
+    }
+
+    /**
+     * 書き出し待ちが capacity を下回るまで待つ（maxWait を超えた場合・停止した場合は UserStoreException）
+     */
+    @Override
+    public void awaitWritable() {
+        if (pending.size() < capacity && !closed) {
+            return;
+        }
+        bufferLock.lock();
+        try {
+            if (pending.size() >= capacity) {
+                waits.increment();
+            }
+            long remaining = maxWaitNanos;
+            while (pending.size() >= capacity) {
+                if (closed || remaining <= 0) {
+                    throw new UserStoreException("書き出し待ちの変更が上限（" + capacity + " 件）に達しています");
+                }
+                remaining = notFull.awaitNanos(remaining);
+            }
+            if (closed) {
+                throw new UserStoreException("格納先への書き出しは停止しています");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new UserStoreException("書き出し待ちのバッファの空きを待つ間に割り込まれました", e);
+        } finally {
+            bufferLock.unlock();
+        }
+    }
+
+    /**
+     * 書き出し待ちをすべて書き出す（書き出しに失敗した場合は UserStoreException）
+     */
+    void flush() {
+        while (!pending.isEmpty()) {
+            flushBatch();
+        }
+    }
+
+    /**
+     * 書き出し待ちの件数と各カウンタ
+     * （enqueued: 受け付けた変更 / coalesced: 書き出し前に同じIDの変更で置き換えた件数 / flushed: 書き出した件数 /
+     * batches: 書き出しの回数 / failures: 書き出しの失敗 / waits: バッファが満杯で空きを待った回数）
+     */
+    Map<String, Number> stats() {
+        Map<String, Number> stats = new LinkedHashMap<>();
+        stats.put("pending", pending.size());
+        stats.put("capacity", capacity);
+        stats.put("enqueued", enqueued.sum());
+        stats.put("coalesced", coalesced.sum());
+        stats.put("flushed", flushed.sum());
+        stats.put("batches", batches.sum());
+        stats.put("failures", failures.sum());
+        stats.put("waits", waits.sum());
+        return stats;
+    }
+
+    /**
+     * バッファに反映する（空きは待たない。呼び出し元がロックを取得する前に awaitWritable() で待つ）
+     */
+    private void enqueue(long id, Pending value) {
+        bufferLock.lock();
+        try {
+            if (closed) {
+                throw new UserStoreException("格納先への書き出しは停止しています");
+            }
+            if (pending.put(id, value) != null) {
+                coalesced.increment();
+            }
+            enqueued.increment();
+            if (pending.size() >= batchSize) {
+                flushNeeded.signal();
+            }
+        } finally {
+            bufferLock.unlock();
+        }
+    }
+
+    private void runFlusher() {
+        boolean failed = false;
+        while (true) {
+            bufferLock.lock();
+            try {
+                // 失敗した直後は、件数に達していても flushInterval 待ってから再試行する
+                if (!closed && (failed || pending.size() < batchSize)) {
+                    flushNeeded.awaitNanos(flushIntervalNanos);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                bufferLock.unlock();
+            }
+            try {
+                if (closed) {
+                    flush();
+                    return;
+                }
+                // 残りが1回分に満たなくなるまで続けて書き出す（満たない分は次の間隔で書き出す）
+                do {
+                    flushBatch();
+                } while (pending.size() >= batchSize);
+                failed = false;
+            } catch (RuntimeException e) {
+                failed = true;
+                failures.increment();
+                LOG.error("格納先への書き出しに失敗しました（書き出し待ち: {} 件）", pending.size(), e);
+                if (closed) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * 書き出し待ちから最大 batchSize 件を書き出す
+     */
+    private void flushBatch() {
+        flushLock.lock();
+        try {
+            Map<Long, Pending> batch = new LinkedHashMap<>();
+            Iterator<Map.Entry<Long, Pending>> iterator = pending.entrySet().iterator();
+            while (iterator.hasNext() && batch.size() < batchSize) {
+                Map.Entry<Long, Pending> entry = iterator.next();
+                batch.put(entry.getKey(), entry.getValue());
+            }
+            if (batch.isEmpty()) {
+                return;
+            }
+            Map<Long, User> changes = new LinkedHashMap<>();
+            batch.forEach((id, value) -> changes.put(id, value.user()));
+            delegate.writeAll(changes);
+            batch.forEach(pending::remove);
+            flushed.add(batch.size());
+            batches.increment();
+        } finally {
+            flushLock.unlock();
+        }
+        bufferLock.lock();
+        try {
+            notFull.signalAll();
+        } finally {
+            bufferLock.unlock();
+        }
+    }
+
+    private ReentrantLock lock(long id) {
+        long h = id * 0x9E3779B97F4A7C15L;
+        return locks[(int) (h ^ (h >>> 32)) & (LOCK_STRIPES - 1)];
+    }
+}
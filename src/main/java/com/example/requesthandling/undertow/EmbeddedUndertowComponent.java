@@ -0,0 +1,23 @@
+package com.example.requesthandling.undertow;
+
+import org.apache.camel.component.undertow.UndertowComponent;
+import org.apache.camel.component.undertow.UndertowHost;
+import org.apache.camel.component.undertow.UndertowHostKey;
+
+/**
+ * エンドポイントのホスト・ポートによらず、すべてのコンシューマーを EmbeddedUndertowHost に登録する undertow コンポーネント
+ * （Undertowサーバーを別に起動しない）
+ */
+public class EmbeddedUndertowComponent extends UndertowComponent {
+
+    private final EmbeddedUndertowHost host;
+
+    public EmbeddedUndertowComponent(EmbeddedUndertowHost host) {
+        this.host = host;
+    }
+
+    @Override
+    protected UndertowHost createUndertowHost(UndertowHostKey key) {
+        return host;
+    }
+}
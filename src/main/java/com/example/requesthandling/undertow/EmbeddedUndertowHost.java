@@ -0,0 +1,180 @@
+package com.example.requesthandling.undertow;
+
+import com.example.requesthandling.controller.CustomErrorController;
+import com.example.requesthandling.ratelimit.RateLimitFilter;
+import io.undertow.server.HttpHandler;
+import io.undertow.server.HttpServerExchange;
+import io.undertow.util.Headers;
+import org.apache.camel.component.undertow.HttpHandlerRegistrationInfo;
+import org.apache.camel.component.undertow.UndertowConsumer;
+import org.apache.camel.component.undertow.UndertowHost;
+import org.apache.camel.component.undertow.handlers.RestConsumerPath;
+import org.apache.camel.support.RestConsumerContextPathMatcher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.Executor;
+
+/**
+ * Spring Bootの組み込みUndertowでREST DSLのエンドポイントを受け付ける UndertowHost（api.transport=undertow）
+ *
+ * camel-undertow の DefaultUndertowHost はエンドポイントのホスト・ポートごとに別のUndertowサーバーを起動するが、
+ * ここではサーバーを起動せず、REST DSLのコンシューマーを保持するだけにする
+ * 組み込みUndertowのServletより前のハンドラーチェーンに {@link #wrap(HttpHandler)} のハンドラーを挟み、
+ * コンテキストパス（/api）配下のリクエストを Servlet・Spring MVC を経由せずにコンシューマーに渡す
+ *
+ * - リクエスト数の制限（RateLimitFilter#check）・パスの照合はIOスレッドで行う
+ * - 一致したコンシューマーは、ワーカースレッド（仮想スレッド実行モードではそのExecutor）でルートを処理する
+ * - パスは一致するがメソッドが異なる場合は405、一致するパスがない場合は404（CustomErrorController と同じJSON）
+ * - コンテキストパス以外のリクエストは後続（Servlet）に渡す
+ */
+public class EmbeddedUndertowHost implements UndertowHost {
+
+    private static final Logger LOG = LoggerFactory.getLogger(EmbeddedUndertowHost.class);
+
+    private final String contextPath;
+    private final CustomErrorController errorController;
+    private final RateLimitFilter rateLimitFilter;
+    private final Executor executor;
+
+    private final Set<UndertowConsumer> consumers = new CopyOnWriteArraySet<>();
+    // 照合に使うコンシューマーのパス（登録・解除のたびに作り直す）
+    private volatile List<RestConsumerContextPathMatcher.ConsumerPath<UndertowConsumer>> paths = List.of();
+
+    /**
+     * @param contextPath REST DSLのコンテキストパス（例: /api）
+     * @param executor ルートを処理するExecutor（nullの場合はUndertowのワーカースレッド）
+     */
+    public EmbeddedUndertowHost(String contextPath, CustomErrorController errorController,
+                                RateLimitFilter rateLimitFilter, Executor executor) {
+        this.contextPath = contextPath.endsWith("/") ? contextPath.substring(0, contextPath.length() - 1) : contextPath;
+        this.errorController = errorController;
+        this.rateLimitFilter = rateLimitFilter;
+        this.executor = executor;
+    }
+
+    /**
+     * サーバーを起動しないため、エンドポイントのホスト・ポートは使用しない
+     */
+    @Override
+    public void validateEndpointURI(URI httpURI) {
+    }
+
+    @Override
+    public HttpHandler registerHandler(UndertowConsumer consumer, HttpHandlerRegistrationInfo registrationInfo,
+                                       HttpHandler handler) {
+        if (!consumer.isRest()) {
+            throw new IllegalArgumentException("REST DSL以外の undertow エンドポイントには対応していません: "
+                    + registrationInfo.getUri());
+        }
+        RestConsumerContextPathMatcher.register(consumer.getEndpoint().getHttpURI().getPath());
+        consumers.add(consumer);
+        rebuildPaths();
+        LOG.debug("RESTエンドポイントを登録しました: {} {}", registrationInfo.getMethodRestrict(), registrationInfo.getUri().getPath());
+        return handler;
+    }
+
+    @Override
+    public void unregisterHandler(UndertowConsumer consumer, HttpHandlerRegistrationInfo registrationInfo) {
+        if (consumers.remove(consumer)) {
+            RestConsumerContextPathMatcher.unRegister(consumer.getEndpoint().getHttpURI().getPath());
+            rebuildPaths();
+        }
+    }
+
+    /**
+     * コンテキストパス配下のリクエストをコンシューマーに渡し、それ以外を next に渡すハンドラー
+     */
+    public HttpHandler wrap(HttpHandler next) {
+        return exchange -> handleRequest(exchange, next);
+    }
+
+    /**
+     * 登録済みのコンシューマー数
+     */
+    public int getConsumerCount() {
+        return consumers.size();
+    }
+
+    private void handleRequest(HttpServerExchange exchange, HttpHandler next) throws Exception {
+        String path = exchange.getRequestPath();
+        if (!isUnderContextPath(path)) {
+            next.handleRequest(exchange);
+            return;
+        }
+        String method = exchange.getRequestMethod().toString();
+        String requestUri = exchange.getRequestURI();
+
+        if (rateLimitFilter != null && reject(exchange, method, requestUri)) {
+            return;
+        }
+
+        String key = path.length() > 1 && path.endsWith("/") ? path.substring(0, path.length() - 1) : path;
+        List<RestConsumerContextPathMatcher.ConsumerPath<UndertowConsumer>> paths = this.paths;
+        RestConsumerContextPathMatcher.ConsumerPath<UndertowConsumer> match =
+                RestConsumerContextPathMatcher.matchBestPath(method, key, paths);
+        if (match == null) {
+            int status = matchesOtherMethod(key, paths) ? 405 : 404;
+            send(exchange, status, errorController.render(status, requestUri, method));
+            return;
+        }
+
+        UndertowConsumer consumer = match.getConsumer();
+        if (executor != null) {
+            exchange.dispatch(executor, consumer);
+        } else {
+            // IOスレッドの場合は、コンシューマーがワーカースレッドに処理を移す
+            consumer.handleRequest(exchange);
+        }
+    }
+
+    private boolean isUnderContextPath(String path) {
+        return path.startsWith(contextPath)
+                && (path.length() == contextPath.length() || path.charAt(contextPath.length()) == '/');
+    }
+
+    private boolean reject(HttpServerExchange exchange, String method, String requestUri) {
+        String header = rateLimitFilter.getClientKeyHeader();
+        String apiKey = header != null && !header.isEmpty() ? exchange.getRequestHeaders().getFirst(header) : null;
+        InetSocketAddress source = exchange.getSourceAddress();
+        String remoteAddr = source != null && source.getAddress() != null ? source.getAddress().getHostAddress() : "";
+        RateLimitFilter.Rejection rejection = rateLimitFilter.check(method, requestUri, apiKey, remoteAddr);
+        if (rejection == null) {
+            return false;
+        }
+        exchange.getResponseHeaders().put(Headers.RETRY_AFTER, rejection.retryAfter());
+        send(exchange, 429, rejection.body());
+        return true;
+    }
+
+    private static boolean matchesOtherMethod(String path, List<RestConsumerContextPathMatcher.ConsumerPath<UndertowConsumer>> paths) {
+        for (RestConsumerContextPathMatcher.ConsumerPath<UndertowConsumer> candidate : paths) {
+            if (RestConsumerContextPathMatcher.matchPath(path, candidate.getConsumerPath(), candidate.isMatchOnUriPrefix())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void send(HttpServerExchange exchange, int status, byte[] body) {
+        exchange.setStatusCode(status);
+        exchange.getResponseHeaders().put(Headers.CONTENT_TYPE, "application/json");
+        exchange.getResponseHeaders().put(Headers.CONTENT_LENGTH, body.length);
+        exchange.getResponseSender().send(ByteBuffer.wrap(body));
+    }
+
+    private void rebuildPaths() {
+        List<RestConsumerContextPathMatcher.ConsumerPath<UndertowConsumer>> rebuilt = new ArrayList<>(consumers.size());
+        for (UndertowConsumer consumer : consumers) {
+            rebuilt.add(new RestConsumerPath(consumer));
+        }
+        paths = List.copyOf(rebuilt);
+    }
+}
@@ -0,0 +1,155 @@
+package com.example.requesthandling.accesslog;
+
+import com.example.requesthandling.config.ApiProperties;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.camel.Exchange;
+import org.apache.camel.impl.DefaultCamelContext;
+import org.apache.camel.model.RouteDefinition;
+import org.apache.camel.spi.RoutePolicy;
+import org.apache.camel.support.DefaultExchange;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * AccessLog / AccessLogBuffer のユニットテスト
+ */
+@DisplayName("アクセスログのテスト")
+class AccessLogTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    @DisplayName("バッファは追加順に取り出され、満杯の場合は追加できない")
+    void testBufferFull() {
+        // Given
+        AccessLogBuffer buffer = new AccessLogBuffer(3);
+
+        // When
+        List<Boolean> offered = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            offered.add(buffer.offer(entry(i)));
+        }
+
+        // Then
+        assertEquals(4, buffer.capacity());
+        assertEquals(List.of(true, true, true, true, false), offered);
+        for (int i = 0; i < 4; i++) {
+            assertEquals(i, buffer.poll().status());
+        }
+        assertNull(buffer.poll());
+        assertTrue(buffer.offer(entry(9)));
+        assertEquals(9, buffer.poll().status());
+    }
+
+    @Test
+    @DisplayName("複数スレッドから追加しても、追加できたエントリーは重複も欠落もなく1回ずつ取り出される")
+    void testConcurrentOffer() throws Exception {
+        // Given
+        AccessLogBuffer buffer = new AccessLogBuffer(256);
+        int threads = 4;
+        int perThread = 20_000;
+        AtomicLong accepted = new AtomicLong();
+        List<Thread> producers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int base = t * perThread;
+            producers.add(new Thread(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    if (buffer.offer(entry(base + i))) {
+                        accepted.incrementAndGet();
+                    }
+                }
+            }));
+        }
+
+        // When
+        producers.forEach(Thread::start);
+        Set<Integer> polled = new HashSet<>();
+        boolean running = true;
+        while (running) {
+            running = producers.stream().anyMatch(Thread::isAlive);
+            AccessLogEntry entry;
+            while ((entry = buffer.poll()) != null) {
+                assertTrue(polled.add(entry.status()), "重複: " + entry.status());
+            }
+        }
+        for (Thread producer : producers) {
+            producer.join();
+        }
+
+        // Then
+        assertEquals(accepted.get(), polled.size());
+    }
+
+    @Test
+    @DisplayName("ルートごとのサンプリング率で出力が間引かれ、5xxはサンプリング率によらず出力される")
+    void testSampling() throws Exception {
+        // Given
+        ApiProperties apiProperties = new ApiProperties();
+        apiProperties.getAccessLog().setSampleRates(Map.of("sampled-route", 0.0));
+        AccessLog accessLog = new AccessLog(apiProperties, objectMapper);
+        DefaultCamelContext camelContext = new DefaultCamelContext();
+        RoutePolicy sampled = accessLog.createRoutePolicy(camelContext, "sampled-route", new RouteDefinition("direct:sampled"));
+        RoutePolicy logged = accessLog.createRoutePolicy(camelContext, "logged-route", new RouteDefinition("direct:logged"));
+
+        // When
+        for (int i = 0; i < 10; i++) {
+            run(sampled, camelContext, 200);
+        }
+        run(sampled, camelContext, 500);
+        run(logged, camelContext, 404);
+        accessLog.close();
+
+        // Then
+        assertNull(accessLog.createRoutePolicy(camelContext, "rest-route", new RouteDefinition("rest:get:/users")));
+        assertEquals(10, accessLog.getSampledOut());
+        assertEquals(2, accessLog.getWritten());
+        assertEquals(0, accessLog.getDropped());
+    }
+
+    @Test
+    @DisplayName("アクセスログが1行のJSONに整形される")
+    void testFormat() throws Exception {
+        // Given
+        ApiProperties apiProperties = new ApiProperties();
+        apiProperties.getAccessLog().setEnabled(false);
+        AccessLog accessLog = new AccessLog(apiProperties, objectMapper);
+        AccessLogEntry entry = new AccessLogEntry(System.currentTimeMillis(), "get-user-by-id-route", "GET",
+                "/api/users/\"1\"", 404, 1_234_567);
+
+        // When
+        String line = accessLog.format(entry);
+
+        // Then
+        assertFalse(line.contains("\n"));
+        JsonNode json = objectMapper.readTree(line);
+        assertEquals("get-user-by-id-route", json.get("route").asText());
+        assertEquals("GET", json.get("method").asText());
+        assertEquals("/api/users/\"1\"", json.get("path").asText());
+        assertEquals(404, json.get("status").asInt());
+        assertEquals(1.235, json.get("durationMs").asDouble());
+        assertNotNull(json.get("timestamp").asText());
+    }
+
+    private static void run(RoutePolicy policy, DefaultCamelContext camelContext, int status) {
+        Exchange exchange = new DefaultExchange(camelContext);
+        exchange.getIn().setHeader(Exchange.HTTP_METHOD, "GET");
+        exchange.getIn().setHeader(Exchange.HTTP_URI, "/api/test");
+        policy.onExchangeBegin(null, exchange);
+        exchange.getMessage().setHeader(Exchange.HTTP_RESPONSE_CODE, status);
+        policy.onExchangeDone(null, exchange);
+    }
+
+    private static AccessLogEntry entry(int id) {
+        return new AccessLogEntry(0, "test-route", "GET", "/api/test", id, 0);
+    }
+}
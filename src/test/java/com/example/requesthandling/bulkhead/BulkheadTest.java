@@ -0,0 +1,179 @@
+package com.example.requesthandling.bulkhead;
+
+import com.example.requesthandling.config.ApiProperties;
+import org.apache.camel.Exchange;
+import org.apache.camel.builder.RouteBuilder;
+import org.apache.camel.impl.DefaultCamelContext;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
+import org.springframework.core.env.StandardEnvironment;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Bulkhead / Bulkheads のユニットテスト
+ */
+@DisplayName("バルクヘッドのテスト")
+class BulkheadTest {
+
+    @Test
+    @DisplayName("スレッドと待ち行列が埋まると待たずに拒否され、飽和状態が指標に反映される")
+    void testRejectWhenFull() throws Exception {
+        // Given
+        Bulkhead bulkhead = new Bulkhead("test", 1, 1);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        try {
+            // When
+            bulkhead.execute(() -> {
+                started.countDown();
+                await(release);
+            });
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            bulkhead.execute(() -> { });
+            RejectedExecutionException rejected =
+                    assertThrows(RejectedExecutionException.class, () -> bulkhead.execute(() -> { }));
+            Map<String, Long> saturated = bulkhead.stats();
+            release.countDown();
+
+            // Then
+            assertTrue(rejected.getMessage().contains("'test'"));
+            assertEquals(1L, saturated.get("threads"));
+            assertEquals(1L, saturated.get("active"));
+            assertEquals(1L, saturated.get("queued"));
+            assertEquals(1L, saturated.get("queueCapacity"));
+            assertEquals(1L, saturated.get("rejected"));
+            assertEquals(2, bulkhead.getCapacity());
+        } finally {
+            release.countDown();
+            bulkhead.shutdown();
+            assertTrue(bulkhead.awaitTermination(5, TimeUnit.SECONDS));
+        }
+        assertEquals(2L, bulkhead.stats().get("completed"));
+        assertEquals(1L, bulkhead.stats().get("peakActive"));
+    }
+
+    @Test
+    @EnabledForJreRange(min = JRE.JAVA_21)
+    @DisplayName("仮想スレッド実行モードでは、スレッド数・待ち行列の上限はそのままでプールのスレッドが仮想スレッドになる")
+    void testVirtualThreads() throws Exception {
+        // Given
+        Bulkhead bulkhead = new Bulkhead("virtual", 1, 0, true);
+        CountDownLatch release = new CountDownLatch(1);
+
+        try {
+            // When
+            CompletableFuture<Object> virtual = CompletableFuture.supplyAsync(() -> {
+                await(release);
+                try {
+                    return Thread.class.getMethod("isVirtual").invoke(Thread.currentThread());
+                } catch (ReflectiveOperationException e) {
+                    throw new IllegalStateException(e);
+                }
+            }, bulkhead);
+
+            // Then
+            assertThrows(RejectedExecutionException.class, () -> bulkhead.execute(() -> { }));
+            release.countDown();
+            assertEquals(Boolean.TRUE, virtual.get(5, TimeUnit.SECONDS));
+        } finally {
+            release.countDown();
+            bulkhead.shutdown();
+        }
+    }
+
+    @Test
+    @EnabledForJreRange(max = JRE.JAVA_20)
+    @DisplayName("Java 21未満で仮想スレッド実行モードを指定すると起動時にエラーになる")
+    void testVirtualThreadsRequireJava21() {
+        // When & Then
+        IllegalStateException error =
+                assertThrows(IllegalStateException.class, () -> new Bulkhead("virtual", 1, 0, true));
+        assertTrue(error.getMessage().contains("Java 21"));
+    }
+
+    @Test
+    @DisplayName("write のグループが飽和しても health のグループのルートは待たずに応答する")
+    void testIsolation() throws Exception {
+        // Given
+        ApiProperties apiProperties = new ApiProperties();
+        apiProperties.getBulkhead().getGroups().put("health", group(1, 4));
+        apiProperties.getBulkhead().getGroups().put("write", group(1, 0));
+        Bulkheads bulkheads = new Bulkheads(apiProperties, new StandardEnvironment());
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        DefaultCamelContext context = new DefaultCamelContext();
+        bulkheads.beforeApplicationStart(context);
+        context.addRoutes(new RouteBuilder() {
+            @Override
+            public void configure() {
+                from("direct:write").routeId("write-route")
+                        .doTry()
+                            .threads().executorService("bulkhead-write").callerRunsWhenRejected(false)
+                            .process(exchange -> {
+                                started.countDown();
+                                await(release);
+                                exchange.getMessage().setBody("written");
+                            })
+                        .endDoTry()
+                        .doCatch(RejectedExecutionException.class)
+                            .setHeader(Exchange.HTTP_RESPONSE_CODE, constant(503))
+                        .end();
+                from("direct:health").routeId("health-route")
+                        .threads().executorService("bulkhead-health").callerRunsWhenRejected(false)
+                        .setBody(constant("ok"));
+            }
+        });
+        context.start();
+
+        try {
+            // When
+            CompletableFuture<Object> slow =
+                    CompletableFuture.supplyAsync(() -> context.createProducerTemplate().requestBody("direct:write", ""));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            Exchange shed = context.createProducerTemplate().request("direct:write", exchange -> { });
+            long begin = System.nanoTime();
+            Object health = context.createProducerTemplate().requestBody("direct:health", "");
+            long healthMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin);
+            release.countDown();
+
+            // Then
+            assertEquals(503, shed.getMessage().getHeader(Exchange.HTTP_RESPONSE_CODE));
+            assertEquals("ok", health);
+            assertTrue(healthMillis < 1000, "health: " + healthMillis + "ms");
+            assertEquals("written", slow.get(5, TimeUnit.SECONDS));
+            Map<String, Map<String, Long>> stats = bulkheads.getStats();
+            assertEquals(1L, stats.get("write").get("rejected"));
+            assertEquals(0L, stats.get("health").get("rejected"));
+        } finally {
+            release.countDown();
+            context.stop();
+            bulkheads.close();
+        }
+    }
+
+    private static ApiProperties.BulkheadGroup group(int threads, int queueSize) {
+        ApiProperties.BulkheadGroup group = new ApiProperties.BulkheadGroup();
+        group.setThreads(threads);
+        group.setQueueSize(queueSize);
+        return group;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
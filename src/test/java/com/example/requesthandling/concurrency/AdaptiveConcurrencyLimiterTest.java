@@ -0,0 +1,163 @@
+package com.example.requesthandling.concurrency;
+
+import com.example.requesthandling.config.ApiProperties;
+import com.example.requesthandling.config.ErrorMessageProperties;
+import com.example.requesthandling.model.ErrorResponse;
+import com.example.requesthandling.processor.ErrorResponseRenderer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.camel.Exchange;
+import org.apache.camel.builder.RouteBuilder;
+import org.apache.camel.impl.DefaultCamelContext;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * AdaptiveConcurrencyLimiter / ConcurrencyLimitPolicyFactory のユニットテスト
+ */
+@DisplayName("同時実行数の適応的な制限のテスト")
+class AdaptiveConcurrencyLimiterTest {
+
+    private static final long MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long WINDOW = 100 * MILLI;
+
+    @Test
+    @DisplayName("上限まで取得でき、上限に達すると拒否される")
+    void testAcquireUpToLimit() {
+        // Given
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(3, 1, 10, 2.0, 0.2, WINDOW, 10, 0);
+
+        // When
+        boolean first = limiter.tryAcquire();
+        boolean second = limiter.tryAcquire();
+        boolean third = limiter.tryAcquire();
+        boolean fourth = limiter.tryAcquire();
+        limiter.release(MILLI, MILLI);
+        boolean afterRelease = limiter.tryAcquire();
+
+        // Then
+        assertTrue(first && second && third);
+        assertFalse(fourth);
+        assertTrue(afterRelease);
+        assertEquals(3, limiter.getInFlight());
+        assertEquals(1, limiter.getRejected());
+    }
+
+    @Test
+    @DisplayName("処理時間が一定で上限まで使われている間は上限が増え、処理時間が伸びると上限が下がる")
+    void testGradient() {
+        // Given
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(20, 4, 200, 2.0, 0.2, WINDOW, 10, 0);
+        long now = 0;
+
+        // When: 処理時間1msで、上限いっぱいまで同時に実行する
+        for (int window = 0; window < 20; window++) {
+            now = runWindow(limiter, now, MILLI);
+        }
+        int grown = limiter.getLimit();
+        // 処理時間が10倍に伸びる（1秒間）
+        for (int window = 0; window < 10; window++) {
+            now = runWindow(limiter, now, 10 * MILLI);
+        }
+        int shrunk = limiter.getLimit();
+
+        // Then
+        assertTrue(grown > 20, "grown=" + grown);
+        assertTrue(shrunk < grown * 0.6, "grown=" + grown + ", shrunk=" + shrunk);
+        assertTrue(shrunk >= 4);
+    }
+
+    @Test
+    @DisplayName("上限の半分も使われていない間は、処理時間が一定でも上限は増えない")
+    void testNoGrowthWhenIdle() {
+        // Given
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(20, 4, 200, 2.0, 0.2, WINDOW, 10, 0);
+        long now = 0;
+
+        // When: 1件ずつ実行する
+        for (int i = 0; i < 1_000; i++) {
+            assertTrue(limiter.tryAcquire());
+            now += MILLI;
+            limiter.release(MILLI, now);
+        }
+
+        // Then
+        assertEquals(20, limiter.getLimit());
+    }
+
+    @Test
+    @DisplayName("上限に達したルートはProcessorを実行せず、ErrorResponse 形式の503と Retry-After を返す")
+    void testRoutePolicyShedsLoad() throws Exception {
+        // Given
+        ApiProperties apiProperties = new ApiProperties();
+        apiProperties.getConcurrencyLimit().setInitialLimit(1);
+        apiProperties.getConcurrencyLimit().setMinLimit(1);
+        ErrorMessageProperties messages = new ErrorMessageProperties();
+        messages.setMessages(Map.of("503", "サービスが一時的に利用できません"));
+        ConcurrencyLimitPolicyFactory factory =
+                new ConcurrencyLimitPolicyFactory(apiProperties, new ErrorResponseRenderer(messages));
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch blocked = new CountDownLatch(1);
+        AtomicInteger processed = new AtomicInteger();
+        DefaultCamelContext camelContext = new DefaultCamelContext();
+        camelContext.addRoutePolicyFactory(factory);
+        camelContext.addRoutes(new RouteBuilder() {
+            @Override
+            public void configure() {
+                from("direct:slow").routeId("slow-route").process(exchange -> {
+                    processed.incrementAndGet();
+                    entered.countDown();
+                    blocked.await(10, TimeUnit.SECONDS);
+                });
+            }
+        });
+        camelContext.start();
+
+        try {
+            // When: 1件目の処理中に2件目を送る
+            Thread first = new Thread(() -> camelContext.createProducerTemplate().send("direct:slow", exchange -> { }));
+            first.start();
+            assertTrue(entered.await(10, TimeUnit.SECONDS));
+            Exchange shed = camelContext.createProducerTemplate().send("direct:slow", exchange -> {
+                exchange.getIn().setHeader(Exchange.HTTP_URI, "/api/slow");
+                exchange.getIn().setHeader(Exchange.HTTP_METHOD, "GET");
+            });
+            blocked.countDown();
+            first.join();
+
+            // Then
+            assertEquals(1, processed.get());
+            assertEquals(503, shed.getMessage().getHeader(Exchange.HTTP_RESPONSE_CODE));
+            assertEquals("1", shed.getMessage().getHeader("Retry-After"));
+            ErrorResponse error = new ObjectMapper().readValue(shed.getMessage().getBody(byte[].class), ErrorResponse.class);
+            assertEquals(503, error.getCode());
+            assertEquals("/api/slow", error.getPath());
+            assertEquals(1L, factory.getStats().get("slow-route").get("rejected"));
+            assertEquals(0, factory.getStats().get("slow-route").get("inFlight"));
+        } finally {
+            camelContext.stop();
+        }
+    }
+
+    /**
+     * 1間隔分、上限いっぱいの件数を同時に実行して解放する
+     */
+    private static long runWindow(AdaptiveConcurrencyLimiter limiter, long now, long rtt) {
+        int acquired = 0;
+        while (limiter.tryAcquire()) {
+            acquired++;
+        }
+        long step = WINDOW / acquired;
+        for (int i = 0; i < acquired; i++) {
+            now += step;
+            limiter.release(rtt, now);
+        }
+        return now + step;
+    }
+}
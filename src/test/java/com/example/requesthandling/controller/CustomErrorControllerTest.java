@@ -11,13 +11,16 @@ import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.test.annotation.DirtiesContext;
 
 import static org.junit.jupiter.api.Assertions.*;
 
 /**
  * CustomErrorController のテスト（404/405エラー）
+ * （RestApiEndpointTest と同様に、終了時にコンテキストを破棄する）
  */
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@DirtiesContext
 @DisplayName("カスタムエラーコントローラーのテスト")
 class CustomErrorControllerTest {
 
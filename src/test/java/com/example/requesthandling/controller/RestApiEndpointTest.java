@@ -1,12 +1,15 @@
 package com.example.requesthandling.controller;
 
+import com.example.requesthandling.model.ErrorResponse;
 import com.example.requesthandling.model.User;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
@@ -18,8 +21,13 @@ import static org.junit.jupiter.api.Assertions.*;
 
 /**
  * REST APIエンドポイントのE2Eテスト
+ *
+ * APIキーを登録するため他のテストとは別のコンテキストになる。camel-servlet のパスの登録はJVM全体で共有されるため、
+ * 終了時にコンテキストを破棄し、他のテストのサーブレットと同時に起動しないようにする
  */
-@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "api.rate-limit.api-keys=rate-limit-test")
+@DirtiesContext
 @DisplayName("REST APIエンドポイントのテスト")
 class RestApiEndpointTest {
 
@@ -130,7 +138,7 @@ class RestApiEndpointTest {
     // 実際のアプリケーションでは正しく404エラーを返します
 
     @Test
-    @DisplayName("POST /api/users - 不正なJSONでエラー")
+    @DisplayName("POST /api/users - 不正なJSONで400エラー")
     void testCreateUserWithInvalidJson() {
         // Given
         String invalidJson = "{invalid json}";
@@ -143,9 +151,9 @@ class RestApiEndpointTest {
         ResponseEntity<String> response = restTemplate.postForEntity("/api/users", request, String.class);
 
         // Then
-        assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, response.getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
         assertNotNull(response.getBody());
-        assertTrue(response.getBody().contains("\"code\":500"));
+        assertTrue(response.getBody().contains("\"code\":400"));
     }
 
     @Test
@@ -160,5 +168,68 @@ class RestApiEndpointTest {
         assertTrue(response.getBody().contains("\"code\":500"));
         assertTrue(response.getBody().contains("内部サーバーエラーが発生しました"));
     }
-}
 
+    @Test
+    @DisplayName("GET /api/metrics - ルートごとの件数とレイテンシを取得できる")
+    void testMetrics() throws Exception {
+        // Given
+        restTemplate.getForEntity("/api/health", String.class);
+        restTemplate.getForEntity("/api/users/999999999", String.class);
+
+        // When
+        ResponseEntity<String> response = restTemplate.getForEntity("/api/metrics", String.class);
+
+        // Then
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        JsonNode data = objectMapper.readTree(response.getBody()).path("data");
+        JsonNode routes = data.path("routes");
+        JsonNode health = null;
+        JsonNode getUserById = null;
+        for (JsonNode route : routes) {
+            if ("health-route".equals(route.path("route").asText())) {
+                health = route;
+            } else if ("get-user-by-id-route".equals(route.path("route").asText())) {
+                getUserById = route;
+            }
+        }
+        assertNotNull(health);
+        assertTrue(health.path("count").asLong() >= 1);
+        assertTrue(health.path("outcomes").path("2xx").asLong() >= 1);
+        assertTrue(health.path("latencyMs").path("max").asDouble() > 0);
+        assertNotNull(getUserById);
+        assertTrue(getUserById.path("outcomes").path("4xx").asLong() >= 1);
+        assertTrue(data.path("bulkheads").path("health").path("completed").asLong() >= 1);
+        assertTrue(data.path("bulkheads").path("read").path("completed").asLong() >= 1);
+        // heap では格納先の読み込みキャッシュ・非同期の書き出しを使用しない
+        assertTrue(data.path("storeCache").isObject());
+        assertEquals(0, data.path("storeCache").size());
+        assertTrue(data.path("writeBehind").isObject());
+        assertEquals(0, data.path("writeBehind").size());
+    }
+
+    @Test
+    @DisplayName("リクエスト数の上限を超えると、ErrorResponse 形式の429と Retry-After が返る")
+    void testRateLimit() throws Exception {
+        // Given: 他のテストと別のバケットになるよう、登録済みのAPIキーでクライアントを識別する
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("X-API-Key", "rate-limit-test");
+        HttpEntity<Void> request = new HttpEntity<>(headers);
+
+        // When: users-write（容量20）の上限を超えるまで削除を繰り返す
+        ResponseEntity<String> response = null;
+        for (int i = 0; i < 100; i++) {
+            response = restTemplate.exchange("/api/users/999999999", HttpMethod.DELETE, request, String.class);
+            if (response.getStatusCode() == HttpStatus.TOO_MANY_REQUESTS) {
+                break;
+            }
+        }
+
+        // Then
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, response.getStatusCode());
+        assertNotNull(response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        ErrorResponse error = objectMapper.readValue(response.getBody(), ErrorResponse.class);
+        assertEquals(429, error.getCode());
+        assertEquals("/api/users/999999999", error.getPath());
+        assertEquals("DELETE", error.getMethod());
+    }
+}
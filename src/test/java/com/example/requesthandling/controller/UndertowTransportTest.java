@@ -0,0 +1,167 @@
+package com.example.requesthandling.controller;
+
+import com.example.requesthandling.undertow.EmbeddedUndertowHost;
+import org.apache.camel.component.servlet.CamelHttpTransportServlet;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.web.servlet.ServletRegistrationBean;
+import org.springframework.context.ApplicationContext;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * undertow トランスポート（組み込みUndertowのServletより前のハンドラー）のE2Eテスト
+ * servlet と同じREST定義・エラーレスポンスで応答することを確認する
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"api.transport=undertow", "api.rate-limit.api-keys=undertow-test"})
+@DisplayName("undertowトランスポートのテスト")
+class UndertowTransportTest {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private ApplicationContext applicationContext;
+
+    @Autowired
+    private EmbeddedUndertowHost embeddedUndertowHost;
+
+    @Test
+    @DisplayName("CamelHttpTransportServlet を登録せず、RESTのエンドポイントを組み込みUndertowに登録する")
+    void testNoServletRegistered() {
+        // Then
+        assertTrue(applicationContext.getBeansOfType(ServletRegistrationBean.class).values().stream()
+                .noneMatch(registration -> registration.getServlet() instanceof CamelHttpTransportServlet));
+        assertTrue(embeddedUndertowHost.getConsumerCount() > 0);
+    }
+
+    @Test
+    @DisplayName("GET /api/users/1 - 特定のユーザーを取得できる")
+    void testGetUserById() {
+        // When
+        ResponseEntity<String> response = restTemplate.getForEntity("/api/users/1", String.class);
+
+        // Then
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertNotNull(response.getBody());
+        assertTrue(response.getBody().contains("\"status\":\"success\""));
+        assertTrue(response.getBody().contains("\"id\":\"1\""));
+    }
+
+    @Test
+    @DisplayName("GET /api/users?stream=true - ストリーミングの一覧を取得できる")
+    void testStreamingList() {
+        // When
+        ResponseEntity<String> response = restTemplate.getForEntity("/api/users?stream=true", String.class);
+
+        // Then
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertNotNull(response.getBody());
+        assertTrue(response.getBody().startsWith("{\"status\":\"success\""));
+        assertTrue(response.getBody().endsWith("]}"));
+    }
+
+    @Test
+    @DisplayName("POST /api/users - リクエストボディを読み込んでユーザーを作成できる")
+    void testCreateUser() {
+        // Given
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        HttpEntity<String> request = new HttpEntity<>("{\"name\":\"undertow\",\"email\":\"undertow@example.com\"}", headers);
+
+        // When
+        ResponseEntity<String> response = restTemplate.postForEntity("/api/users", request, String.class);
+
+        // Then
+        assertEquals(HttpStatus.CREATED, response.getStatusCode());
+        assertTrue(response.getBody().contains("undertow@example.com"));
+    }
+
+    @Test
+    @DisplayName("上限を超えるリクエストボディは413になる")
+    void testPayloadTooLarge() {
+        // Given
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        String name = "x".repeat(70 * 1024);
+        HttpEntity<String> request = new HttpEntity<>("{\"name\":\"" + name + "\",\"email\":\"large@example.com\"}", headers);
+
+        // When
+        ResponseEntity<String> response = restTemplate.postForEntity("/api/users", request, String.class);
+
+        // Then
+        assertEquals(HttpStatus.PAYLOAD_TOO_LARGE, response.getStatusCode());
+        assertTrue(response.getBody().contains("\"code\":413"));
+    }
+
+    @Test
+    @DisplayName("存在しないパスはカスタムエラーレスポンス（404）になる")
+    void testNotFound() {
+        // When
+        ResponseEntity<String> response = restTemplate.getForEntity("/api/nonexistent", String.class);
+
+        // Then
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+        assertNotNull(response.getBody());
+        assertTrue(response.getBody().contains("\"code\":404"));
+        assertTrue(response.getBody().contains("指定されたリソースが見つかりません"));
+        assertTrue(response.getBody().contains("\"path\":\"/api/nonexistent\""));
+    }
+
+    @Test
+    @DisplayName("許可されていないメソッドはカスタムエラーレスポンス（405）になる")
+    void testMethodNotAllowed() {
+        // When
+        ResponseEntity<String> response = restTemplate.exchange("/api/users", HttpMethod.DELETE, null, String.class);
+
+        // Then
+        assertEquals(HttpStatus.METHOD_NOT_ALLOWED, response.getStatusCode());
+        assertNotNull(response.getBody());
+        assertTrue(response.getBody().contains("\"code\":405"));
+        assertTrue(response.getBody().contains("\"method\":\"DELETE\""));
+    }
+
+    @Test
+    @DisplayName("ルート内の例外はグローバルエラーレスポンス（500）になる")
+    void testRouteError() {
+        // When
+        ResponseEntity<String> response = restTemplate.getForEntity("/api/test/error", String.class);
+
+        // Then
+        assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, response.getStatusCode());
+        assertTrue(response.getBody().contains("\"code\":500"));
+    }
+
+    @Test
+    @DisplayName("Servletフィルターを経由しなくても、リクエスト数の上限を超えると429と Retry-After が返る")
+    void testRateLimit() {
+        // Given: 他のテストと別のバケットになるよう、登録済みのAPIキーでクライアントを識別する
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("X-API-Key", "undertow-test");
+        HttpEntity<Void> request = new HttpEntity<>(headers);
+
+        // When: users-write（容量20）の上限を超えるまで削除を繰り返す
+        ResponseEntity<String> response = null;
+        for (int i = 0; i < 100; i++) {
+            response = restTemplate.exchange("/api/users/999999999", HttpMethod.DELETE, request, String.class);
+            if (response.getStatusCode() == HttpStatus.TOO_MANY_REQUESTS) {
+                break;
+            }
+        }
+
+        // Then
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, response.getStatusCode());
+        assertNotNull(response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        assertTrue(response.getBody().contains("\"code\":429"));
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.requesthandling.metrics;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * LatencyHistogram / RouteMetrics のユニットテスト
+ */
+@DisplayName("レイテンシのヒストグラムのテスト")
+class LatencyHistogramTest {
+
+    @Test
+    @DisplayName("すべての値が、その値以上を最大値とするバケットに入り、相対誤差は約3%以内")
+    void testBuckets() {
+        // Given
+        long[] values = {0, 1, 63, 64, 65, 1_000, 123_456, 1_000_000_007L, LatencyHistogram.MAX_VALUE};
+
+        for (long value : values) {
+            // When
+            int index = LatencyHistogram.index(value);
+
+            // Then
+            long highest = LatencyHistogram.highestValue(index);
+            assertTrue(index >= 0 && index < LatencyHistogram.BUCKET_COUNT);
+            assertTrue(highest >= value, "value=" + value);
+            assertTrue(highest - value <= value / 32, "value=" + value);
+            if (index > 0) {
+                assertTrue(LatencyHistogram.highestValue(index - 1) < value, "value=" + value);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("パーセンタイルと最大値が記録した値から求まる")
+    void testSummarize() {
+        // Given
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 1_000; i++) {
+            histogram.record(i * 1_000L);
+        }
+
+        // When
+        LatencyHistogram.Summary summary = histogram.summarize();
+
+        // Then
+        assertEquals(1_000, summary.count());
+        assertEquals(500_000, summary.p50(), 500_000 / 32.0);
+        assertEquals(950_000, summary.p95(), 950_000 / 32.0);
+        assertEquals(990_000, summary.p99(), 990_000 / 32.0);
+        assertEquals(1_000_000, summary.max());
+        assertTrue(summary.p99() <= summary.max());
+    }
+
+    @Test
+    @DisplayName("ルートのメトリクスがステータスコードの種類ごとに数えられ、直近の件数から処理速度が求まる")
+    void testRouteMetrics() {
+        // Given
+        RouteMetrics metrics = new RouteMetrics("test-route");
+        long base = 1_000L * 1_000_000_000L;
+        for (int i = 0; i < 120; i++) {
+            metrics.record(base + i * 500_000_000L, 1_000_000, i % 4 == 0 ? 404 : 200);
+        }
+        metrics.record(base, 2_000_000, 500);
+
+        // When
+        var stats = metrics.stats(base + 60_000_000_000L);
+
+        // Then
+        assertEquals("test-route", stats.getRoute());
+        assertEquals(121, stats.getCount());
+        assertEquals(90, stats.getOutcomes().get("2xx"));
+        assertEquals(30, stats.getOutcomes().get("4xx"));
+        assertEquals(1, stats.getOutcomes().get("5xx"));
+        assertEquals(2.0, stats.getRatePerSecond(), 0.05);
+        assertEquals(2.0, stats.getLatencyMs().get("max"));
+    }
+}
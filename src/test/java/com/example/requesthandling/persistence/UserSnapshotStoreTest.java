@@ -0,0 +1,179 @@
+package com.example.requesthandling.persistence;
+
+import com.example.requesthandling.config.UserStoreProperties;
+import com.example.requesthandling.model.User;
+import com.example.requesthandling.service.UserService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * スナップショットとログのコンパクションのテスト
+ */
+@DisplayName("スナップショットのテスト")
+class UserSnapshotStoreTest {
+
+    @TempDir
+    Path directory;
+
+    private UserStoreProperties properties;
+
+    @BeforeEach
+    void setUp() {
+        properties = new UserStoreProperties();
+        properties.getWal().setEnabled(true);
+        properties.getWal().setDirectory(directory.toString());
+        properties.getWal().setSegmentSize(DataSize.ofKilobytes(1));
+        properties.getSnapshot().setEnabled(true);
+        properties.getSnapshot().setInterval(Duration.ofHours(1));
+    }
+
+    @Test
+    @DisplayName("スナップショット取得後、古いWALセグメントが削除され、再起動後に全データが復元される")
+    void testSnapshotAndCompaction() throws Exception {
+        // Given
+        UserService userService = new UserService(properties);
+        for (int i = 0; i < 100; i++) {
+            userService.createUser(User.builder().name("user" + i).email("user" + i + "@example.com").build());
+        }
+        int segmentsBefore = count("wal-");
+
+        // When
+        assertTrue(userService.snapshot());
+        int segmentsAfter = count("wal-");
+        userService.updateUser("1", User.builder().name("renamed").email("renamed@example.com").build());
+        userService.deleteUser("2");
+        userService.close();
+        UserService recovered = new UserService(properties);
+
+        // Then
+        assertTrue(segmentsBefore > 1, "セグメントが複数に分割されている");
+        assertTrue(segmentsAfter < segmentsBefore, "スナップショットに含まれるセグメントは削除される");
+        assertEquals(1, count("snapshot-"));
+        assertEquals(99, recovered.getUserCount());
+        assertEquals("renamed", recovered.getUserById("1").get().getName());
+        assertTrue(recovered.getUserByEmail("renamed@example.com").isPresent());
+        assertFalse(recovered.getUserById("2").isPresent());
+        assertEquals(1, recovered.searchUsers("user99", 10).size());
+        recovered.close();
+    }
+
+    @Test
+    @DisplayName("変更がない場合はスナップショットを取得しない")
+    void testSnapshotSkippedWithoutChanges() throws Exception {
+        // Given
+        UserService userService = new UserService(properties);
+        userService.createUser(User.builder().name("a").email("a@example.com").build());
+        assertTrue(userService.snapshot());
+
+        // When
+        boolean taken = userService.snapshot();
+
+        // Then
+        assertFalse(taken);
+        userService.close();
+    }
+
+    @Test
+    @DisplayName("最大IDのユーザーを削除してコンパクションしても、再起動後にIDを再利用しない")
+    void testIdNotReusedAfterCompaction() throws Exception {
+        // Given
+        UserService userService = new UserService(properties);
+        userService.createUser(User.builder().name("a").build());
+        User last = userService.createUser(User.builder().name("b").build());
+        userService.deleteUser(last.getId());
+        userService.snapshot();
+        userService.close();
+
+        // When
+        UserService recovered = new UserService(properties);
+        User created = recovered.createUser(User.builder().name("c").build());
+
+        // Then
+        assertTrue(Long.parseLong(created.getId()) > Long.parseLong(last.getId()));
+        recovered.close();
+    }
+
+    @Test
+    @DisplayName("書き込み中に取得したスナップショットからも、再起動後に最終状態が復元される")
+    void testSnapshotDuringConcurrentWrites() throws Exception {
+        // Given
+        UserService userService = new UserService(properties);
+        for (int i = 0; i < 500; i++) {
+            userService.createUser(User.builder().name("seed" + i).email("seed" + i + "@example.com").build());
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            int thread = t;
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < 300; i++) {
+                    String id = String.valueOf((i * 4 + thread) % 500 + 1);
+                    userService.updateUser(id, User.builder().name("t" + thread + "-" + i).email("u" + id + "@example.com").build());
+                    userService.createUser(User.builder().name("new" + thread + "-" + i).build());
+                }
+            }));
+        }
+
+        // When
+        for (int i = 0; i < 5; i++) {
+            userService.snapshot();
+        }
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+        List<User> expected = userService.getUsersPage(null, 10_000).getUsers();
+        userService.close();
+        UserService recovered = new UserService(properties);
+
+        // Then
+        assertEquals(expected, recovered.getUsersPage(null, 10_000).getUsers());
+        for (User user : expected) {
+            if (user.getEmail() != null) {
+                assertEquals(user.getId(), recovered.getUserByEmail(user.getEmail()).get().getId());
+            }
+        }
+        recovered.close();
+    }
+
+    @Test
+    @DisplayName("書き込み途中の一時ファイルは無視される")
+    void testTemporaryFileIgnored() throws Exception {
+        // Given
+        UserService userService = new UserService(properties);
+        userService.createUser(User.builder().name("a").build());
+        userService.snapshot();
+        userService.close();
+        Files.write(directory.resolve("snapshot-00000000000000000099.snap.tmp"), new byte[] {1, 2, 3});
+
+        // When
+        UserService recovered = new UserService(properties);
+
+        // Then
+        assertEquals(1, recovered.getUserCount());
+        assertEquals(0, count(".tmp"));
+        recovered.close();
+    }
+
+    private int count(String marker) throws Exception {
+        try (Stream<Path> files = Files.list(directory)) {
+            return (int) files.filter(path -> path.getFileName().toString().contains(marker)).count();
+        }
+    }
+}
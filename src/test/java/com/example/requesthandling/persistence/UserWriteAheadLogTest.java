@@ -0,0 +1,254 @@
+package com.example.requesthandling.persistence;
+
+import com.example.requesthandling.config.UserStoreProperties;
+import com.example.requesthandling.model.BatchOperation;
+import com.example.requesthandling.model.User;
+import com.example.requesthandling.service.UserService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * UserWriteAheadLog のテスト
+ */
+@DisplayName("WAL永続化のテスト")
+class UserWriteAheadLogTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    @DisplayName("追記したレコードを再起動後に同じ順序で再生できる")
+    void testAppendAndReplay() throws Exception {
+        // Given
+        try (UserWriteAheadLog wal = newWal()) {
+            wal.open(mutation -> fail("空のログで再生は発生しない"));
+            wal.append(UserMutation.put(User.builder().id("1").name("a").email("a@example.com").build()));
+            wal.append(UserMutation.put(User.builder().id("1").name("b").email(null).build()));
+            wal.awaitDurable(wal.append(UserMutation.delete("1")));
+        }
+
+        // When
+        List<UserMutation> replayed = new ArrayList<>();
+        try (UserWriteAheadLog wal = newWal()) {
+            wal.open(replayed::add);
+        }
+
+        // Then
+        assertEquals(3, replayed.size());
+        assertEquals("a", replayed.get(0).user().getName());
+        assertNull(replayed.get(1).user().getEmail());
+        assertEquals(UserMutation.Type.DELETE, replayed.get(2).type());
+        assertEquals("1", replayed.get(2).id());
+    }
+
+    @Test
+    @DisplayName("末尾の書きかけレコードは切り詰められ、それ以前のレコードは再生される")
+    void testTornTailIsTruncated() throws Exception {
+        // Given
+        try (UserWriteAheadLog wal = newWal()) {
+            wal.open(mutation -> { });
+            wal.awaitDurable(wal.append(UserMutation.put(User.builder().id("1").name("a").build())));
+        }
+        Path segment;
+        try (var files = Files.list(directory)) {
+            segment = files.findFirst().orElseThrow();
+        }
+        Files.write(segment, new byte[] {0, 0, 0, 42, 1, 2}, StandardOpenOption.APPEND);
+        long corruptedSize = Files.size(segment);
+
+        // When
+        List<UserMutation> replayed = new ArrayList<>();
+        try (UserWriteAheadLog wal = newWal()) {
+            wal.open(replayed::add);
+        }
+
+        // Then
+        assertEquals(1, replayed.size());
+        assertEquals(corruptedSize - 6, Files.size(segment));
+    }
+
+    @Test
+    @DisplayName("UserServiceの変更が再起動後に復元される")
+    void testUserServiceRecovery() throws Exception {
+        // Given
+        UserStoreProperties properties = new UserStoreProperties();
+        properties.getWal().setEnabled(true);
+        properties.getWal().setDirectory(directory.toString());
+
+        UserService userService = new UserService(properties);
+        assertEquals(0, userService.getUserCount(), "WAL有効時は初期データを投入しない");
+        User alice = userService.createUser(User.builder().name("alice").email("alice@example.com").build());
+        User bob = userService.createUser(User.builder().name("bob").email("bob@example.com").build());
+        userService.updateUser(alice.getId(), User.builder().name("alice2").email("alice2@example.com").build());
+        userService.deleteUser(bob.getId());
+        userService.close();
+
+        // When
+        UserService recovered = new UserService(properties);
+
+        // Then
+        assertEquals(1, recovered.getUserCount());
+        assertEquals("alice2", recovered.getUserById(alice.getId()).get().getName());
+        assertTrue(recovered.getUserByEmail("alice2@example.com").isPresent());
+        assertFalse(recovered.getUserByEmail("alice@example.com").isPresent());
+        assertEquals(1, recovered.searchUsers("alice", 10).size());
+        User carol = recovered.createUser(User.builder().name("carol").email("carol@example.com").build());
+        assertTrue(Long.parseLong(carol.getId()) > Long.parseLong(bob.getId()), "削除済みIDは再利用しない");
+        recovered.close();
+    }
+
+    @Test
+    @DisplayName("一括処理の変更が再起動後に復元される")
+    void testBatchRecovery() throws Exception {
+        // Given
+        UserStoreProperties properties = new UserStoreProperties();
+        properties.getWal().setEnabled(true);
+        properties.getWal().setDirectory(directory.toString());
+
+        UserService userService = new UserService(properties);
+        List<BatchOperation> operations = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            operations.add(BatchOperation.builder().op("create")
+                    .user(User.builder().name("user" + i).email("user" + i + "@example.com").build()).build());
+        }
+        operations.add(BatchOperation.builder().op("update").id("1")
+                .user(User.builder().name("renamed").email("user0@example.com").build()).build());
+        operations.add(BatchOperation.builder().op("delete").id("2").build());
+        userService.applyBatch(operations);
+        userService.close();
+
+        // When
+        UserService recovered = new UserService(properties);
+
+        // Then
+        assertEquals(99, recovered.getUserCount());
+        assertEquals("renamed", recovered.getUserById("1").get().getName());
+        assertFalse(recovered.getUserById("2").isPresent());
+        recovered.close();
+    }
+
+    @Test
+    @DisplayName("並行書き込みがグループコミットされ、すべて永続化される")
+    void testConcurrentGroupCommit() throws Exception {
+        // Given
+        int threads = 8;
+        int perThread = 200;
+        try (UserWriteAheadLog wal = newWal()) {
+            wal.open(mutation -> { });
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int base = t * perThread;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < perThread; i++) {
+                        String id = String.valueOf(base + i + 1);
+                        wal.awaitDurable(wal.append(UserMutation.put(User.builder().id(id).name("u" + id).build())));
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+            executor.shutdown();
+            assertEquals(threads * perThread, wal.getDurableLsn());
+        }
+
+        // When
+        List<UserMutation> replayed = new ArrayList<>();
+        try (UserWriteAheadLog wal = newWal()) {
+            wal.open(replayed::add);
+        }
+
+        // Then
+        assertEquals(threads * perThread, replayed.size());
+    }
+
+    @Test
+    @DisplayName("ログの書き込みに失敗した後の追記は、バッファに書き込まずに失敗する")
+    void testAppendFailsAfterWriteFailure() throws Exception {
+        // Given: セグメントの切り替えのたびに新しいファイルを開く設定で、開けない状態にする
+        Path walDirectory = directory.resolve("wal");
+        try (UserWriteAheadLog wal = new UserWriteAheadLog(walDirectory, UserWriteAheadLog.Durability.SYNC, 1, 0)) {
+            wal.open(mutation -> { });
+            wal.awaitDurable(wal.append(UserMutation.put(User.builder().id("1").name("a").build())));
+            breakDirectory(walDirectory);
+
+            // When
+            long failedLsn = wal.append(UserMutation.put(User.builder().id("2").name("b").build()));
+            assertThrows(UncheckedIOException.class, () -> wal.awaitDurable(failedLsn));
+
+            // Then
+            assertThrows(UncheckedIOException.class,
+                    () -> wal.append(UserMutation.put(User.builder().id("3").name("c").build())));
+            assertEquals(failedLsn, wal.getAppendedLsn());
+        }
+    }
+
+    @Test
+    @DisplayName("ログの書き込みに失敗した後のUserServiceの変更は、メモリに反映せずに失敗する")
+    void testUserServiceFailsFastAfterWriteFailure() throws Exception {
+        // Given
+        Path walDirectory = directory.resolve("wal");
+        UserStoreProperties properties = new UserStoreProperties();
+        properties.getWal().setEnabled(true);
+        properties.getWal().setDirectory(walDirectory.toString());
+        properties.getWal().setSegmentSize(DataSize.ofBytes(1));
+        UserService userService = new UserService(properties);
+        User alice = userService.createUser(User.builder().name("alice").email("alice@example.com").build());
+        breakDirectory(walDirectory);
+        assertThrows(UncheckedIOException.class,
+                () -> userService.createUser(User.builder().name("bob").email("bob@example.com").build()));
+        int count = userService.getUserCount();
+        long version = userService.getCollectionVersion();
+
+        // When
+        assertThrows(UncheckedIOException.class,
+                () -> userService.createUser(User.builder().name("carol").email("carol@example.com").build()));
+        assertThrows(UncheckedIOException.class,
+                () -> userService.updateUser(alice.getId(), User.builder().name("renamed").email("renamed@example.com").build()));
+        assertThrows(UncheckedIOException.class, () -> userService.deleteUser(alice.getId()));
+
+        // Then
+        assertEquals(count, userService.getUserCount());
+        assertEquals(version, userService.getCollectionVersion());
+        assertFalse(userService.getUserByEmail("carol@example.com").isPresent());
+        assertFalse(userService.getUserByEmail("renamed@example.com").isPresent());
+        assertEquals("alice", userService.getUserByEmail("alice@example.com").get().getName());
+        assertTrue(userService.searchUsers("carol", 10).isEmpty());
+        assertFalse(userService.getAllUsers().stream().anyMatch(user -> "carol".equals(user.getName())));
+        userService.close();
+    }
+
+    /**
+     * ディレクトリを同じ名前のファイルに置き換え、新しいセグメントを開けなくする（開いているセグメントへの書き込みは続けられる）
+     */
+    private static void breakDirectory(Path directory) throws IOException {
+        try (var files = Files.list(directory)) {
+            for (Path file : files.toList()) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+        Files.createFile(directory);
+    }
+
+    private UserWriteAheadLog newWal() throws IOException {
+        return new UserWriteAheadLog(directory, UserWriteAheadLog.Durability.SYNC, 1024 * 1024, 0);
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.requesthandling.processor;
+
+import com.example.requesthandling.model.ApiResponse;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.camel.CamelContext;
+import org.apache.camel.Exchange;
+import org.apache.camel.support.DefaultExchange;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * BatchUsersProcessor の統合テスト
+ */
+@SpringBootTest
+@DisplayName("ユーザー一括処理プロセッサーのテスト")
+class BatchUsersProcessorTest {
+
+    @Autowired
+    private BatchUsersProcessor processor;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private CamelContext camelContext;
+
+    private Exchange exchange;
+
+    @BeforeEach
+    void setUp() {
+        exchange = new DefaultExchange(camelContext);
+    }
+
+    @Test
+    @DisplayName("操作ごとの結果が同じ順序で返る")
+    void testProcessSuccess() throws Exception {
+        // Given
+        String requestBody = "["
+                + "{\"op\":\"create\",\"user\":{\"name\":\"batch1\",\"email\":\"batch1@example.com\"}},"
+                + "{\"op\":\"update\",\"id\":\"999999\",\"user\":{\"name\":\"x\"}},"
+                + "{\"op\":\"create\",\"user\":{\"name\":\"batch2\",\"email\":\"batch2@example.com\"}}"
+                + "]";
+        exchange.getMessage().setBody(requestBody);
+
+        // When
+        processor.process(exchange);
+
+        // Then
+        String responseBody = exchange.getMessage().getBody(String.class);
+        assertEquals(MediaType.APPLICATION_JSON_VALUE, exchange.getMessage().getHeader(Exchange.CONTENT_TYPE, String.class));
+        assertNull(exchange.getMessage().getHeader(Exchange.HTTP_RESPONSE_CODE));
+
+        ApiResponse response = objectMapper.readValue(responseBody, ApiResponse.class);
+        assertEquals("success", response.getStatus());
+        JsonNode results = objectMapper.readTree(responseBody).get("data");
+        assertEquals(3, results.size());
+        assertEquals(201, results.get(0).get("status").asInt());
+        assertEquals(404, results.get(1).get("status").asInt());
+        assertTrue(results.get(1).has("error"));
+        assertEquals("batch2", results.get(2).get("user").get("name").asText());
+    }
+
+    @Test
+    @DisplayName("空の配列は400エラーになる")
+    void testProcessWithEmptyBatch() throws Exception {
+        // Given
+        exchange.getMessage().setBody("[]");
+
+        // When
+        processor.process(exchange);
+
+        // Then
+        assertEquals(400, exchange.getMessage().getHeader(Exchange.HTTP_RESPONSE_CODE, Integer.class));
+    }
+
+    @Test
+    @DisplayName("操作の配列でないボディは400エラーになる")
+    void testProcessWithInvalidBody() throws Exception {
+        // Given
+        exchange.getMessage().setBody("{\"op\":\"create\"}");
+
+        // When
+        processor.process(exchange);
+
+        // Then
+        assertEquals(400, exchange.getMessage().getHeader(Exchange.HTTP_RESPONSE_CODE, Integer.class));
+    }
+}
@@ -1,6 +1,9 @@
 package com.example.requesthandling.processor;
 
+import com.example.requesthandling.config.ApiProperties;
 import com.example.requesthandling.model.ApiResponse;
+import com.example.requesthandling.model.ErrorResponse;
+import com.example.requesthandling.service.UserService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.apache.camel.CamelContext;
 import org.apache.camel.Exchange;
@@ -12,6 +15,10 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 /**
@@ -30,6 +37,12 @@ class CreateUserProcessorTest {
     @Autowired
     private CamelContext camelContext;
 
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private ApiProperties apiProperties;
+
     private Exchange exchange;
 
     @BeforeEach
@@ -62,24 +75,68 @@ class CreateUserProcessorTest {
     }
 
     @Test
-    @DisplayName("不正なJSONでエラーが発生する")
-    void testProcessWithInvalidJson() {
+    @DisplayName("不正なJSONは400エラーになる")
+    void testProcessWithInvalidJson() throws Exception {
         // Given
         String invalidJson = "{invalid json}";
         exchange.getMessage().setBody(invalidJson);
 
-        // When & Then
-        assertThrows(Exception.class, () -> processor.process(exchange));
+        // When
+        processor.process(exchange);
+
+        // Then
+        assertEquals(400, exchange.getMessage().getHeader(Exchange.HTTP_RESPONSE_CODE, Integer.class));
+        ErrorResponse errorResponse = objectMapper.readValue(exchange.getMessage().getBody(String.class), ErrorResponse.class);
+        assertEquals(400, errorResponse.getCode());
+        assertEquals("/api/users", errorResponse.getPath());
     }
 
     @Test
-    @DisplayName("空のリクエストボディでエラーが発生する")
-    void testProcessWithEmptyBody() {
+    @DisplayName("空のリクエストボディは400エラーになる")
+    void testProcessWithEmptyBody() throws Exception {
         // Given
         exchange.getMessage().setBody("");
 
-        // When & Then
-        assertThrows(Exception.class, () -> processor.process(exchange));
+        // When
+        processor.process(exchange);
+
+        // Then
+        assertEquals(400, exchange.getMessage().getHeader(Exchange.HTTP_RESPONSE_CODE, Integer.class));
     }
-}
 
+    @Test
+    @DisplayName("上限サイズを超えるリクエストボディは作成せずに413エラーになる")
+    void testProcessWithTooLargeBody() throws Exception {
+        // Given
+        int initialCount = userService.getUserCount();
+        long maxBodySize = apiProperties.getRequest().getMaxBodySize().toBytes();
+        String requestBody = "{\"name\":\"" + "x".repeat((int) maxBodySize) + "\",\"email\":\"large@example.com\"}";
+        exchange.getMessage().setBody(new ByteArrayInputStream(requestBody.getBytes(StandardCharsets.UTF_8)));
+
+        // When
+        processor.process(exchange);
+
+        // Then
+        assertEquals(413, exchange.getMessage().getHeader(Exchange.HTTP_RESPONSE_CODE, Integer.class));
+        ErrorResponse errorResponse = objectMapper.readValue(exchange.getMessage().getBody(String.class), ErrorResponse.class);
+        assertEquals(413, errorResponse.getCode());
+        assertEquals(initialCount, userService.getUserCount());
+    }
+
+    @Test
+    @DisplayName("Content-Lengthが上限サイズを超える場合はボディを読まずに413エラーになる")
+    void testProcessWithTooLargeContentLength() throws Exception {
+        // Given
+        long maxBodySize = apiProperties.getRequest().getMaxBodySize().toBytes();
+        InputStream unread = new ByteArrayInputStream("{\"name\":\"a\"}".getBytes(StandardCharsets.UTF_8));
+        exchange.getMessage().setBody(unread);
+        exchange.getMessage().setHeader(Exchange.CONTENT_LENGTH, maxBodySize + 1);
+
+        // When
+        processor.process(exchange);
+
+        // Then
+        assertEquals(413, exchange.getMessage().getHeader(Exchange.HTTP_RESPONSE_CODE, Integer.class));
+        assertTrue(unread.available() > 0);
+    }
+}
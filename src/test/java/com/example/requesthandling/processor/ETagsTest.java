@@ -0,0 +1,29 @@
+package com.example.requesthandling.processor;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ETags のユニットテスト
+ */
+@DisplayName("ETagの判定のテスト")
+class ETagsTest {
+
+    @Test
+    @DisplayName("If-None-Match のいずれかのETagと一致すれば一致と判定する")
+    void testMatches() {
+        // Given
+        String etag = ETags.format("abc", 42);
+
+        // Then
+        assertEquals("\"abc-42\"", etag);
+        assertTrue(ETags.matches("\"abc-42\"", etag));
+        assertTrue(ETags.matches("\"abc-1\", W/\"abc-42\"", etag));
+        assertFalse(ETags.matches("\"abc-4\"", etag));
+        assertFalse(ETags.matches("\"xyz-42\"", etag));
+        assertFalse(ETags.matches("*", etag));
+        assertFalse(ETags.matches("", etag));
+    }
+}
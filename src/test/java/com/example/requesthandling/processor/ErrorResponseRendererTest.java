@@ -0,0 +1,108 @@
+package com.example.requesthandling.processor;
+
+import com.example.requesthandling.config.ErrorMessageProperties;
+import com.example.requesthandling.model.ErrorResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ErrorResponseRenderer のユニットテスト
+ */
+@DisplayName("エラーレスポンスのテンプレート描画のテスト")
+class ErrorResponseRendererTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private ErrorResponseRenderer renderer;
+
+    @BeforeEach
+    void setUp() {
+        ErrorMessageProperties properties = new ErrorMessageProperties();
+        properties.setMessages(Map.of(
+                "404", "指定されたリソースが見つかりません",
+                "500", "内部サーバーエラーが\"発生\"しました",
+                "default", "エラーが発生しました"));
+        renderer = new ErrorResponseRenderer(properties);
+    }
+
+    @Test
+    @DisplayName("ErrorResponse をJacksonでシリアライズした場合と同じバイト列になる")
+    void testSameAsJackson() throws Exception {
+        // Given
+        ErrorTemplate template = ErrorTemplate.of(404, "ID '{0}' のユーザーは存在しません", "/api/users/{0}", "GET");
+
+        // When
+        byte[] rendered = renderer.render(template, "123");
+
+        // Then
+        ErrorResponse parsed = objectMapper.readValue(rendered, ErrorResponse.class);
+        ErrorResponse expected = ErrorResponse.builder()
+                .code(404)
+                .message("指定されたリソースが見つかりません")
+                .details("ID '123' のユーザーは存在しません")
+                .timestamp(parsed.getTimestamp())
+                .path("/api/users/123")
+                .method("GET")
+                .build();
+        assertEquals(new String(objectMapper.writeValueAsBytes(expected), StandardCharsets.UTF_8),
+                new String(rendered, StandardCharsets.UTF_8));
+        assertNotNull(LocalDateTime.parse(parsed.getTimestamp()));
+    }
+
+    @Test
+    @DisplayName("埋め込む値・メッセージの引用符や制御文字、非ASCII文字がJacksonと同じようにエスケープされる")
+    void testEscaping() throws Exception {
+        // Given
+        ErrorTemplate template = ErrorTemplate.of(500, "{0}", "{1}", "{2}");
+        String details = "\"quoted\" \\ back\nline\ttab\u0001 日本語 😀 {0}";
+        String path = "/api/../<script>?q=\"x\"";
+
+        // When
+        byte[] rendered = renderer.render(template, details, path, "GET");
+
+        // Then
+        ErrorResponse parsed = objectMapper.readValue(rendered, ErrorResponse.class);
+        assertEquals(500, parsed.getCode());
+        assertEquals("内部サーバーエラーが\"発生\"しました", parsed.getMessage());
+        assertEquals(details, parsed.getDetails());
+        assertEquals(path, parsed.getPath());
+        ErrorResponse expected = ErrorResponse.builder()
+                .code(500)
+                .message(parsed.getMessage())
+                .details(details)
+                .timestamp(parsed.getTimestamp())
+                .path(path)
+                .method("GET")
+                .build();
+        assertArrayEquals(objectMapper.writeValueAsBytes(expected), rendered);
+        assertTrue(new String(rendered, StandardCharsets.UTF_8).contains("\\uD83D\\uDE00"));
+    }
+
+    @Test
+    @DisplayName("値のみのフィールドは値がnullの場合に出力されず、設定にないステータスは既定のメッセージになる")
+    void testNullFieldsAndDefaultMessage() throws Exception {
+        // Given
+        ErrorTemplate template = ErrorTemplate.of(503, "{0}", "{1}", "{2}");
+
+        // When
+        byte[] rendered = renderer.render(template, null, null, null);
+
+        // Then
+        String json = new String(rendered, StandardCharsets.UTF_8);
+        assertFalse(json.contains("details"));
+        assertFalse(json.contains("path"));
+        assertFalse(json.contains("method"));
+        ErrorResponse parsed = objectMapper.readValue(rendered, ErrorResponse.class);
+        assertEquals(503, parsed.getCode());
+        assertEquals("エラーが発生しました", parsed.getMessage());
+        assertNotNull(parsed.getTimestamp());
+    }
+}
@@ -0,0 +1,146 @@
+package com.example.requesthandling.processor;
+
+import com.example.requesthandling.model.ApiResponse;
+import com.example.requesthandling.model.ErrorResponse;
+import com.example.requesthandling.model.User;
+import com.example.requesthandling.service.UserService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.camel.CamelContext;
+import org.apache.camel.Exchange;
+import org.apache.camel.support.DefaultExchange;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * GetUserByIdProcessor の統合テスト
+ */
+@SpringBootTest
+@DisplayName("ユーザー詳細取得プロセッサーのテスト")
+class GetUserByIdProcessorTest {
+
+    @Autowired
+    private GetUserByIdProcessor processor;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private CamelContext camelContext;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserResponseCache responseCache;
+
+    private Exchange exchange;
+
+    @BeforeEach
+    void setUp() {
+        exchange = new DefaultExchange(camelContext);
+    }
+
+    @Test
+    @DisplayName("存在するIDのユーザーを取得できる")
+    void testProcessSuccess() throws Exception {
+        // Given
+        exchange.getIn().setHeader("id", "1");
+
+        // When
+        processor.process(exchange);
+
+        // Then
+        ApiResponse response = objectMapper.readValue(exchange.getMessage().getBody(String.class), ApiResponse.class);
+        assertEquals("success", response.getStatus());
+        assertNull(exchange.getMessage().getHeader(Exchange.HTTP_RESPONSE_CODE));
+    }
+
+    @Test
+    @DisplayName("存在しないIDの場合は404を返す")
+    void testProcessNotFound() throws Exception {
+        // Given
+        exchange.getIn().setHeader("id", "999999");
+
+        // When
+        processor.process(exchange);
+
+        // Then
+        assertEquals(404, exchange.getMessage().getHeader(Exchange.HTTP_RESPONSE_CODE, Integer.class));
+        ErrorResponse error = objectMapper.readValue(exchange.getMessage().getBody(String.class), ErrorResponse.class);
+        assertEquals("ID '999999' のユーザーは存在しません", error.getDetails());
+    }
+
+    @Test
+    @DisplayName("数値でないIDの場合は404を返す")
+    void testProcessNonNumericId() throws Exception {
+        // Given
+        exchange.getIn().setHeader("id", "abc");
+
+        // When
+        processor.process(exchange);
+
+        // Then
+        assertEquals(404, exchange.getMessage().getHeader(Exchange.HTTP_RESPONSE_CODE, Integer.class));
+        ErrorResponse error = objectMapper.readValue(exchange.getMessage().getBody(String.class), ErrorResponse.class);
+        assertEquals("/api/users/abc", error.getPath());
+    }
+
+    @Test
+    @DisplayName("2回目以降はキャッシュから返し、更新後は最新の内容を返す")
+    void testProcessCachedAndInvalidated() throws Exception {
+        // Given
+        User created = userService.createUser(User.builder().name("キャッシュ").email("cache@example.com").build());
+        long hits = responseCache.getHits();
+        processor.process(newExchange(created.getId()));
+
+        // When
+        Exchange cached = newExchange(created.getId());
+        processor.process(cached);
+        userService.updateUser(created.getId(), User.builder().name("キャッシュ更新").email("cache@example.com").build());
+        Exchange updated = newExchange(created.getId());
+        processor.process(updated);
+
+        // Then
+        assertEquals(hits + 1, responseCache.getHits());
+        assertTrue(cached.getMessage().getBody(String.class).contains("\"キャッシュ\""));
+        assertTrue(updated.getMessage().getBody(String.class).contains("\"キャッシュ更新\""));
+    }
+
+    @Test
+    @DisplayName("ETagがIf-None-Matchと一致する場合は本文なしの304を返し、更新後は200を返す")
+    void testProcessNotModified() throws Exception {
+        // Given
+        User created = userService.createUser(User.builder().name("ETag").email("etag@example.com").build());
+        Exchange first = newExchange(created.getId());
+        processor.process(first);
+        String etag = first.getMessage().getHeader("ETag", String.class);
+
+        // When
+        Exchange conditional = newExchange(created.getId());
+        conditional.getIn().setHeader("If-None-Match", etag);
+        processor.process(conditional);
+        userService.updateUser(created.getId(), User.builder().name("ETag更新").email("etag@example.com").build());
+        Exchange afterUpdate = newExchange(created.getId());
+        afterUpdate.getIn().setHeader("If-None-Match", etag);
+        processor.process(afterUpdate);
+
+        // Then
+        assertNotNull(etag);
+        assertEquals(304, conditional.getMessage().getHeader(Exchange.HTTP_RESPONSE_CODE, Integer.class));
+        assertNull(conditional.getMessage().getBody());
+        assertNull(afterUpdate.getMessage().getHeader(Exchange.HTTP_RESPONSE_CODE));
+        assertTrue(afterUpdate.getMessage().getBody(String.class).contains("\"ETag更新\""));
+        assertNotEquals(etag, afterUpdate.getMessage().getHeader("ETag", String.class));
+    }
+
+    private Exchange newExchange(String id) {
+        Exchange exchange = new DefaultExchange(camelContext);
+        exchange.getIn().setHeader("id", id);
+        return exchange;
+    }
+}
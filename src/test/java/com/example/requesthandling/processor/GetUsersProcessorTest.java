@@ -1,6 +1,9 @@
 package com.example.requesthandling.processor;
 
 import com.example.requesthandling.model.ApiResponse;
+import com.example.requesthandling.model.User;
+import com.example.requesthandling.service.UserService;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.apache.camel.CamelContext;
 import org.apache.camel.Exchange;
@@ -30,6 +33,9 @@ class GetUsersProcessorTest {
     @Autowired
     private CamelContext camelContext;
 
+    @Autowired
+    private UserService userService;
+
     private Exchange exchange;
 
     @BeforeEach
@@ -55,5 +61,155 @@ class GetUsersProcessorTest {
         assertEquals("ユーザー一覧を取得しました", response.getMessage());
         assertNotNull(response.getData());
     }
-}
 
+    @Test
+    @DisplayName("limitとcursorでページングできる")
+    void testProcessWithPaging() throws Exception {
+        // Given
+        exchange.getIn().setHeader("limit", "2");
+
+        // When
+        processor.process(exchange);
+
+        // Then
+        JsonNode data = objectMapper.readTree(exchange.getMessage().getBody(String.class)).get("data");
+        assertEquals(2, data.get("users").size());
+        assertFalse(data.get("nextCursor").isNull());
+    }
+
+    @Test
+    @DisplayName("snapshotを指定すると、途中で作成されたユーザーを含まない同じ時点の一覧を返す")
+    void testProcessWithSnapshot() throws Exception {
+        // Given
+        exchange.getIn().setHeader("limit", "1");
+        processor.process(exchange);
+        JsonNode first = objectMapper.readTree(exchange.getMessage().getBody(String.class)).get("data");
+        String snapshot = first.get("snapshot").asText();
+        int total = userService.getUserCount();
+        userService.createUser(User.builder().name("snapshot").email("snapshot@example.com").build());
+
+        // When
+        Exchange next = new DefaultExchange(camelContext);
+        next.getIn().setHeader("limit", "1000");
+        next.getIn().setHeader("snapshot", snapshot);
+        processor.process(next);
+
+        // Then
+        JsonNode data = objectMapper.readTree(next.getMessage().getBody(String.class)).get("data");
+        assertEquals(total, data.get("users").size());
+        assertEquals(snapshot, data.get("snapshot").asText());
+    }
+
+    @Test
+    @DisplayName("破棄されたスナップショットを指定すると410エラーが返る")
+    void testProcessWithExpiredSnapshot() throws Exception {
+        // Given
+        exchange.getIn().setHeader("snapshot", "expired-1");
+
+        // When
+        processor.process(exchange);
+
+        // Then
+        assertEquals(410, exchange.getMessage().getHeader(Exchange.HTTP_RESPONSE_CODE, Integer.class));
+    }
+
+    @Test
+    @DisplayName("破棄されたスナップショットを指定すると、If-None-Match が最新のETagと一致していても410エラーが返る")
+    void testProcessWithExpiredSnapshotAndIfNoneMatch() throws Exception {
+        // Given
+        processor.process(exchange);
+        String latestEtag = exchange.getMessage().getHeader("ETag", String.class);
+        Exchange expired = new DefaultExchange(camelContext);
+        expired.getIn().setHeader("snapshot", "expired-1");
+        expired.getIn().setHeader("If-None-Match", latestEtag);
+
+        // When
+        processor.process(expired);
+
+        // Then
+        assertEquals(410, expired.getMessage().getHeader(Exchange.HTTP_RESPONSE_CODE, Integer.class));
+        assertNull(expired.getMessage().getHeader("ETag"));
+    }
+
+    @Test
+    @DisplayName("スナップショットを指定した場合のETagは、最新の一覧ではなく指定したスナップショットのものになる")
+    void testProcessEtagOfSnapshot() throws Exception {
+        // Given
+        exchange.getIn().setHeader("limit", "1");
+        processor.process(exchange);
+        String etag = exchange.getMessage().getHeader("ETag", String.class);
+        String snapshot = objectMapper.readTree(exchange.getMessage().getBody(String.class))
+                .get("data").get("snapshot").asText();
+        userService.createUser(User.builder().name("etag-snapshot").email("etag-snapshot@example.com").build());
+
+        // When
+        Exchange old = new DefaultExchange(camelContext);
+        old.getIn().setHeader("snapshot", snapshot);
+        old.getIn().setHeader("If-None-Match", etag);
+        processor.process(old);
+        Exchange latest = new DefaultExchange(camelContext);
+        latest.getIn().setHeader("limit", "1");
+        latest.getIn().setHeader("If-None-Match", etag);
+        processor.process(latest);
+
+        // Then
+        assertEquals(304, old.getMessage().getHeader(Exchange.HTTP_RESPONSE_CODE, Integer.class));
+        assertEquals(etag, old.getMessage().getHeader("ETag", String.class));
+        assertNull(latest.getMessage().getHeader(Exchange.HTTP_RESPONSE_CODE));
+        assertNotEquals(etag, latest.getMessage().getHeader("ETag", String.class));
+    }
+
+    @Test
+    @DisplayName("ストリーミングモードでも同じ形式のJSONが返る")
+    void testProcessWithStream() throws Exception {
+        // Given
+        exchange.getIn().setHeader("stream", "true");
+
+        // When
+        processor.process(exchange);
+
+        // Then
+        JsonNode response = objectMapper.readTree(exchange.getMessage().getBody(String.class));
+        assertEquals("success", response.get("status").asText());
+        assertTrue(response.get("data").isArray());
+        assertTrue(response.get("data").size() > 0);
+    }
+
+    @Test
+    @DisplayName("不正なlimitで400エラーが返る")
+    void testProcessWithInvalidLimit() throws Exception {
+        // Given
+        exchange.getIn().setHeader("limit", "0");
+
+        // When
+        processor.process(exchange);
+
+        // Then
+        assertEquals(400, exchange.getMessage().getHeader(Exchange.HTTP_RESPONSE_CODE, Integer.class));
+        assertTrue(exchange.getMessage().getBody(String.class).contains("\"code\":400"));
+    }
+
+    @Test
+    @DisplayName("ETagがIf-None-Matchと一致する場合は304を返し、ユーザーを作成すると200に戻る")
+    void testProcessNotModified() throws Exception {
+        // Given
+        processor.process(exchange);
+        String etag = exchange.getMessage().getHeader("ETag", String.class);
+        Exchange conditional = new DefaultExchange(camelContext);
+        conditional.getIn().setHeader("If-None-Match", etag);
+
+        // When
+        processor.process(conditional);
+        userService.createUser(User.builder().name("etag").email("etag-list@example.com").build());
+        Exchange afterCreate = new DefaultExchange(camelContext);
+        afterCreate.getIn().setHeader("If-None-Match", etag);
+        processor.process(afterCreate);
+
+        // Then
+        assertNotNull(etag);
+        assertEquals(304, conditional.getMessage().getHeader(Exchange.HTTP_RESPONSE_CODE, Integer.class));
+        assertNull(conditional.getMessage().getBody());
+        assertNull(afterCreate.getMessage().getHeader(Exchange.HTTP_RESPONSE_CODE));
+        assertNotEquals(etag, afterCreate.getMessage().getHeader("ETag", String.class));
+    }
+}
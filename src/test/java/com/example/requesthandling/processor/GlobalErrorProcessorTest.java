@@ -11,6 +11,8 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 
+import java.nio.charset.StandardCharsets;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 /**
@@ -101,5 +103,23 @@ class GlobalErrorProcessorTest {
         assertNull(errorResponse.getPath());
         assertNull(errorResponse.getMethod());
     }
-}
 
+    @Test
+    @DisplayName("レスポンスはUTF-8のバイト列として設定される")
+    void testProcessWritesUtf8Bytes() throws Exception {
+        // Given
+        exchange.setProperty(Exchange.EXCEPTION_CAUGHT, new RuntimeException("日本語のエラー"));
+
+        // When
+        processor.process(exchange);
+
+        // Then
+        Object body = exchange.getMessage().getBody();
+        assertTrue(body instanceof byte[]);
+        assertEquals("application/json", exchange.getMessage().getHeader(Exchange.CONTENT_TYPE));
+
+        ErrorResponse errorResponse = objectMapper.readValue(new String((byte[]) body, StandardCharsets.UTF_8), ErrorResponse.class);
+        assertEquals("日本語のエラー", errorResponse.getDetails());
+        assertEquals("日本語のエラー", objectMapper.readValue(exchange.getMessage().getBody(String.class), ErrorResponse.class).getDetails());
+    }
+}
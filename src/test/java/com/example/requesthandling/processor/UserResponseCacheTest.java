@@ -0,0 +1,113 @@
+package com.example.requesthandling.processor;
+
+import com.example.requesthandling.config.ApiProperties;
+import com.example.requesthandling.model.User;
+import com.example.requesthandling.service.UserService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * UserResponseCache のユニットテスト
+ */
+@DisplayName("レスポンスキャッシュのテスト")
+class UserResponseCacheTest {
+
+    private UserService userService;
+    private UserResponseCache cache;
+
+    @BeforeEach
+    void setUp() {
+        userService = new UserService();
+        cache = new UserResponseCache(new ApiProperties(), userService);
+    }
+
+    @Test
+    @DisplayName("格納したレスポンスを取得でき、ヒット数とミス数が計上される")
+    void testGetAndPut() {
+        // When
+        byte[] before = cache.get(1);
+        cache.put(1, cache.stamp(1), body("user1"));
+        byte[] after = cache.get(1);
+
+        // Then
+        assertNull(before);
+        assertArrayEquals(body("user1"), after);
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    @DisplayName("ユーザーの更新・削除でキャッシュが無効化される")
+    void testInvalidateOnChange() {
+        // Given
+        cache.put(1, cache.stamp(1), body("user1"));
+        cache.put(2, cache.stamp(2), body("user2"));
+
+        // When
+        userService.updateUser(1, User.builder().name("更新").email("updated@example.com").build());
+        userService.deleteUser(2);
+
+        // Then
+        assertNull(cache.get(1));
+        assertNull(cache.get(2));
+        assertEquals(2, cache.getInvalidations());
+    }
+
+    @Test
+    @DisplayName("取得中に無効化された場合は格納されない")
+    void testStalePutIsDiscarded() {
+        // Given
+        long stamp = cache.stamp(1);
+
+        // When
+        cache.invalidate(1);
+        cache.put(1, stamp, body("stale"));
+
+        // Then
+        assertNull(cache.get(1));
+    }
+
+    @Test
+    @DisplayName("同じスロットに別のIDを格納すると追い出される")
+    void testEviction() {
+        // Given
+        ApiProperties properties = new ApiProperties();
+        properties.getResponseCache().setMaxEntries(1);
+        UserResponseCache small = new UserResponseCache(properties, userService);
+
+        // When
+        small.put(1, small.stamp(1), body("user1"));
+        small.put(2, small.stamp(2), body("user2"));
+
+        // Then
+        assertEquals(1, small.getCapacity());
+        assertNull(small.get(1));
+        assertArrayEquals(body("user2"), small.get(2));
+        assertEquals(1, small.getEvictions());
+    }
+
+    @Test
+    @DisplayName("無効にした場合は格納しない")
+    void testDisabled() {
+        // Given
+        ApiProperties properties = new ApiProperties();
+        properties.getResponseCache().setEnabled(false);
+        UserResponseCache disabled = new UserResponseCache(properties, userService);
+
+        // When
+        disabled.put(1, disabled.stamp(1), body("user1"));
+
+        // Then
+        assertNull(disabled.get(1));
+        assertEquals(0, disabled.getCapacity());
+    }
+
+    private static byte[] body(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,156 @@
+package com.example.requesthandling.ratelimit;
+
+import com.example.requesthandling.config.ApiProperties;
+import com.example.requesthandling.config.ErrorMessageProperties;
+import com.example.requesthandling.model.ErrorResponse;
+import com.example.requesthandling.processor.ErrorResponseRenderer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * TokenBucketLimiter / RateLimitFilter のユニットテスト
+ */
+@DisplayName("クライアントごとのリクエスト数の制限のテスト")
+class TokenBucketLimiterTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    @DisplayName("容量までは連続で受け付け、以降は補充された分だけ受け付ける")
+    void testBurstAndRefill() {
+        // Given
+        TokenBucketLimiter limiter = new TokenBucketLimiter(5, 10, 100, 4);
+        long now = 1_000 * SECOND;
+
+        // When
+        int accepted = 0;
+        for (int i = 0; i < 8; i++) {
+            if (limiter.tryAcquire("client-a", now) == 0) {
+                accepted++;
+            }
+        }
+        long wait = limiter.tryAcquire("client-a", now);
+
+        // Then
+        assertEquals(5, accepted);
+        assertEquals(SECOND / 10, wait);
+        assertEquals(0, limiter.tryAcquire("client-b", now));
+        assertEquals(0, limiter.tryAcquire("client-a", now + SECOND / 10));
+        assertNotEquals(0, limiter.tryAcquire("client-a", now + SECOND / 10));
+        assertEquals(0, limiter.tryAcquire("client-a", now + 10 * SECOND));
+        assertEquals(6 + 2, limiter.getAllowed());
+        assertEquals(3 + 1 + 1, limiter.getRejected());
+    }
+
+    @Test
+    @DisplayName("クライアント数は上限を超えず、満杯に戻ったクライアントから削除される")
+    void testEviction() {
+        // Given
+        TokenBucketLimiter limiter = new TokenBucketLimiter(2, 1, 8, 1);
+        long now = 1_000 * SECOND;
+        for (int i = 0; i < 8; i++) {
+            limiter.tryAcquire("client-" + i, now);
+        }
+
+        // When: 上限に達した状態では、新しいクライアントは共有のバケットで判定される
+        long overflowFirst = limiter.tryAcquire("new-1", now);
+        long overflowSecond = limiter.tryAcquire("new-2", now);
+        long overflowThird = limiter.tryAcquire("new-3", now);
+        // 1秒後には既存のクライアントが満杯に戻り、削除される
+        long afterRefill = limiter.tryAcquire("new-4", now + SECOND);
+
+        // Then
+        assertEquals(0, overflowFirst);
+        assertEquals(0, overflowSecond);
+        assertNotEquals(0, overflowThird);
+        assertEquals(0, afterRefill);
+        assertEquals(8, limiter.getEvicted());
+        assertEquals(1, limiter.getClients());
+    }
+
+    @Test
+    @DisplayName("上限を超えたリクエストは後続に渡されず、ErrorResponse 形式の429と Retry-After が返る")
+    void testFilter() throws Exception {
+        // Given
+        ApiProperties apiProperties = new ApiProperties();
+        ApiProperties.RateLimitGroup group = new ApiProperties.RateLimitGroup();
+        group.setMethods(List.of("POST"));
+        group.setPaths(List.of("/api/users/**"));
+        group.setCapacity(1);
+        group.setRefillPerSecond(0.5);
+        apiProperties.getRateLimit().setGroups(Map.of("users-write", group));
+        apiProperties.getRateLimit().setApiKeys(List.of("key-1", "key-2"));
+        ErrorMessageProperties messages = new ErrorMessageProperties();
+        messages.setMessages(Map.of("429", "リクエストが多すぎます"));
+        RateLimitFilter filter = new RateLimitFilter(apiProperties, new ErrorResponseRenderer(messages));
+
+        // When
+        MockHttpServletResponse first = send(filter, "POST", "/api/users", "key-1");
+        MockHttpServletResponse second = send(filter, "POST", "/api/users/batch", "key-1");
+        MockHttpServletResponse otherClient = send(filter, "POST", "/api/users", "key-2");
+        MockHttpServletResponse otherMethod = send(filter, "GET", "/api/users", "key-1");
+        MockHttpServletResponse otherPath = send(filter, "POST", "/api/usersx", "key-1");
+
+        // Then
+        assertEquals(200, first.getStatus());
+        assertEquals(429, second.getStatus());
+        assertEquals("2", second.getHeader("Retry-After"));
+        ErrorResponse error = new ObjectMapper().readValue(second.getContentAsByteArray(), ErrorResponse.class);
+        assertEquals(429, error.getCode());
+        assertEquals("リクエストが多すぎます", error.getMessage());
+        assertTrue(error.getDetails().contains("users-write"));
+        assertEquals("/api/users/batch", error.getPath());
+        assertEquals("POST", error.getMethod());
+        assertEquals(200, otherClient.getStatus());
+        assertEquals(200, otherMethod.getStatus());
+        assertEquals(200, otherPath.getStatus());
+        assertEquals(1, filter.getStats().get("users-write").get("rejected"));
+    }
+
+    @Test
+    @DisplayName("登録されていないAPIキーは無視して接続元のIPアドレスで識別し、リクエストごとに値を変えても制限を回避できない")
+    void testUnregisteredApiKeysIgnored() throws Exception {
+        // Given
+        ApiProperties apiProperties = new ApiProperties();
+        ApiProperties.RateLimitGroup group = new ApiProperties.RateLimitGroup();
+        group.setPaths(List.of("/api/users/**"));
+        group.setCapacity(3);
+        group.setRefillPerSecond(0.5);
+        apiProperties.getRateLimit().setGroups(Map.of("users", group));
+        apiProperties.getRateLimit().setApiKeys(List.of("registered"));
+        RateLimitFilter filter = new RateLimitFilter(apiProperties, new ErrorResponseRenderer(new ErrorMessageProperties()));
+
+        // When: 同じ接続元から、毎回異なる未登録の値を付けて送る
+        int rejected = 0;
+        for (int i = 0; i < 10; i++) {
+            if (send(filter, "POST", "/api/users", "rotated-" + i).getStatus() == 429) {
+                rejected++;
+            }
+        }
+        MockHttpServletResponse registered = send(filter, "POST", "/api/users", "registered");
+
+        // Then
+        assertEquals(7, rejected);
+        assertEquals(200, registered.getStatus());
+        assertEquals(2, filter.getStats().get("users").get("clients"));
+    }
+
+    private static MockHttpServletResponse send(RateLimitFilter filter, String method, String path, String apiKey)
+            throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, path);
+        request.addHeader("X-API-Key", apiKey);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+}
@@ -0,0 +1,189 @@
+package com.example.requesthandling.service;
+
+import com.example.requesthandling.config.UserStoreProperties;
+import com.example.requesthandling.model.User;
+import com.example.requesthandling.persistence.UserMutation;
+import com.example.requesthandling.persistence.UserRecordCodec;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * FileUserStore のユニットテスト
+ * （UserStore に共通の動作は UserStoreConformanceTest でテストする）
+ */
+@DisplayName("ファイルストアのテスト")
+class FileUserStoreTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    @DisplayName("末尾の途中までしか書かれていないレコードは、起動時に切り捨てて以降の書き込みを続けられる")
+    void testTruncatedTail() throws Exception {
+        // Given
+        FileUserStore store = new FileUserStore(directory, false);
+        store.put(1, user(1, "first"));
+        store.put(2, user(2, "second"));
+        long validSize = store.fileSize();
+        store.close();
+        Path file = directory.resolve(FileUserStore.DATA_FILE);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(validSize - 3);
+        }
+
+        // When
+        FileUserStore reopened = new FileUserStore(directory, false);
+        reopened.put(3, user(3, "third"));
+        reopened.close();
+        FileUserStore again = new FileUserStore(directory, false);
+
+        // Then
+        assertEquals(user(1, "first"), again.get(1));
+        assertNull(again.get(2));
+        assertEquals(user(3, "third"), again.get(3));
+        assertEquals(2, again.size());
+        again.close();
+    }
+
+    @Test
+    @DisplayName("更新で不要になったレコードが増えると、使用中のレコードだけに詰め直される")
+    void testCompaction() throws Exception {
+        // Given
+        FileUserStore store = new FileUserStore(directory, false);
+        String longName = "x".repeat(1000);
+
+        // When: 10件を繰り返し更新し、不要なレコードを約3MB発生させる
+        for (int round = 0; round < 300; round++) {
+            for (int id = 1; id <= 10; id++) {
+                store.put(id, user(id, longName + round));
+            }
+        }
+
+        // Then
+        assertTrue(store.fileSize() < 1024 * 1024, "file size: " + store.fileSize());
+        assertEquals(store.fileSize(), Files.size(directory.resolve(FileUserStore.DATA_FILE)));
+        for (int id = 1; id <= 10; id++) {
+            assertEquals(user(id, longName + 299), store.get(id));
+        }
+        store.close();
+        FileUserStore reopened = new FileUserStore(directory, false);
+        assertEquals(10, reopened.size());
+        assertEquals(user(10, longName + 299), reopened.get(10));
+        reopened.close();
+    }
+
+    @Test
+    @DisplayName("詰め直しで削除レコードを捨てても、次のIDはヘッダーに残る")
+    void testNextIdAfterCompaction() throws Exception {
+        // Given
+        FileUserStore store = new FileUserStore(directory, false);
+        store.put(100, user(100, "deleted"));
+        store.remove(100);
+        String longName = "x".repeat(1000);
+
+        // When: 不要なレコードを増やして詰め直させる
+        for (int round = 0; round < 3000; round++) {
+            store.put(1, user(1, longName + round));
+        }
+        store.close();
+        FileUserStore reopened = new FileUserStore(directory, false);
+
+        // Then
+        assertTrue(reopened.fileSize() < 1024 * 1024, "file size: " + reopened.fileSize());
+        assertEquals(1, reopened.size());
+        assertEquals(101, reopened.nextId());
+        reopened.close();
+    }
+
+    @Test
+    @DisplayName("ヘッダーのない旧形式のデータファイルは、読み込んでヘッダーを付けて詰め直す")
+    void testLegacyFileWithoutHeader() throws Exception {
+        // Given
+        Path file = directory.resolve(FileUserStore.DATA_FILE);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(UserRecordCodec.encode(UserMutation.put(user(1, "first")))));
+            channel.write(ByteBuffer.wrap(UserRecordCodec.encode(UserMutation.put(user(2, "second")))));
+            channel.write(ByteBuffer.wrap(UserRecordCodec.encode(UserMutation.delete("2"))));
+        }
+
+        // When
+        FileUserStore store = new FileUserStore(directory, false);
+        store.put(3, user(3, "third"));
+        store.close();
+        FileUserStore reopened = new FileUserStore(directory, false);
+
+        // Then
+        assertEquals(user(1, "first"), reopened.get(1));
+        assertNull(reopened.get(2));
+        assertEquals(user(3, "third"), reopened.get(3));
+        assertEquals(4, reopened.nextId());
+        reopened.close();
+    }
+
+    @Test
+    @DisplayName("UserServiceでファイルストアを選択すると、全件を削除して再起動しても初期データを追加せず、削除したIDを採番しない")
+    void testUserServiceRestartAfterDeletingAll() throws Exception {
+        // Given
+        UserStoreProperties properties = new UserStoreProperties();
+        properties.getStorage().setEngine(UserStoreProperties.Engine.FILE);
+        properties.getStorage().getFile().setDirectory(directory.toString());
+        UserService userService = new UserService(properties);
+        User created = userService.createUser(User.builder().name("alice").email("alice@example.com").build());
+        for (User user : userService.getAllUsers()) {
+            userService.deleteUser(user.getId());
+        }
+        userService.close();
+
+        // When
+        UserService restarted = new UserService(properties);
+
+        // Then
+        assertEquals(0, restarted.getUserCount());
+        User next = restarted.createUser(User.builder().name("bob").email("bob@example.com").build());
+        assertEquals(Long.parseLong(created.getId()) + 1, Long.parseLong(next.getId()));
+        restarted.close();
+    }
+
+    @Test
+    @DisplayName("UserServiceでファイルストアを選択すると、再起動後もユーザーとインデックスが復元される")
+    void testUserServiceRestart() throws Exception {
+        // Given
+        UserStoreProperties properties = new UserStoreProperties();
+        properties.getStorage().setEngine(UserStoreProperties.Engine.FILE);
+        properties.getStorage().getFile().setDirectory(directory.toString());
+        UserService userService = new UserService(properties);
+        User created = userService.createUser(User.builder().name("alice").email("alice@example.com").build());
+        userService.updateUser("1", User.builder().name("renamed").email("renamed@example.com").build());
+        userService.deleteUser("2");
+        userService.close();
+
+        // When
+        UserService restarted = new UserService(properties);
+
+        // Then
+        assertEquals(3, restarted.getUserCount());
+        assertEquals("alice", restarted.getUserById(created.getId()).get().getName());
+        assertEquals("renamed", restarted.getUserByEmail("renamed@example.com").get().getName());
+        assertEquals(created.getId(), restarted.searchUsers("ali", 10).get(0).getId());
+        assertFalse(restarted.getUserById("2").isPresent());
+        assertEquals(List.of("1", "3", created.getId()),
+                restarted.getUsersPage(null, 10).getUsers().stream().map(User::getId).toList());
+        User next = restarted.createUser(User.builder().name("bob").email("bob@example.com").build());
+        assertEquals(Long.parseLong(created.getId()) + 1, Long.parseLong(next.getId()));
+        restarted.close();
+    }
+
+    private static User user(long id, String name) {
+        return User.builder().id(Long.toString(id)).name(name).email(name + "@example.com").build();
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.requesthandling.service;
+
+import com.example.requesthandling.config.UserStoreProperties;
+import com.example.requesthandling.model.User;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * JdbcUserStore のユニットテスト
+ * （UserStore に共通の動作は UserStoreConformanceTest でテストする）
+ */
+@DisplayName("JDBCストアのテスト")
+class JdbcUserStoreTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    @DisplayName("H2のURLには解析済みステートメントのキャッシュサイズを追加し、指定済み・H2以外のURLは変更しない")
+    void testUrl() {
+        // Given
+        UserStoreProperties.JdbcStorage config = new UserStoreProperties.JdbcStorage();
+        config.setStatementCacheSize(64);
+
+        // When & Then
+        config.setUrl("jdbc:h2:mem:users");
+        assertEquals("jdbc:h2:mem:users;QUERY_CACHE_SIZE=64", JdbcUserStore.url(config));
+        config.setUrl("jdbc:h2:mem:users;query_cache_size=8");
+        assertEquals("jdbc:h2:mem:users;query_cache_size=8", JdbcUserStore.url(config));
+        config.setUrl("jdbc:postgresql://localhost/users");
+        assertEquals("jdbc:postgresql://localhost/users", JdbcUserStore.url(config));
+    }
+
+    @Test
+    @DisplayName("UserServiceでJDBCストアを選択すると、再起動後もユーザーとインデックスが復元される")
+    void testUserServiceRestart() throws Exception {
+        // Given
+        UserStoreProperties properties = properties();
+        UserService userService = new UserService(properties);
+        User created = userService.createUser(User.builder().name("alice").email("alice@example.com").build());
+        userService.updateUser("1", User.builder().name("renamed").email("renamed@example.com").build());
+        userService.deleteUser("2");
+        userService.close();
+
+        // When
+        UserService restarted = new UserService(properties);
+
+        // Then
+        assertEquals(3, restarted.getUserCount());
+        assertEquals("alice", restarted.getUserById(created.getId()).get().getName());
+        assertEquals("renamed", restarted.getUserByEmail("renamed@example.com").get().getName());
+        assertFalse(restarted.getUserById("2").isPresent());
+        assertThrows(DuplicateEmailException.class,
+                () -> restarted.createUser(User.builder().name("dup").email("ALICE@example.com").build()));
+        restarted.close();
+    }
+
+    @Test
+    @DisplayName("UserServiceでJDBCストアを選択すると、全件を削除して再起動しても初期データを追加せず、削除したIDを採番しない")
+    void testUserServiceRestartAfterDeletingAll() throws Exception {
+        // Given
+        UserStoreProperties properties = properties();
+        UserService userService = new UserService(properties);
+        User created = userService.createUser(User.builder().name("alice").email("alice@example.com").build());
+        for (User user : userService.getAllUsers()) {
+            userService.deleteUser(user.getId());
+        }
+        userService.close();
+
+        // When
+        UserService restarted = new UserService(properties);
+
+        // Then
+        assertEquals(0, restarted.getUserCount());
+        User next = restarted.createUser(User.builder().name("bob").email("bob@example.com").build());
+        assertEquals(Long.parseLong(created.getId()) + 1, Long.parseLong(next.getId()));
+        restarted.close();
+    }
+
+    @Test
+    @DisplayName("新規作成のIDが既に存在する場合は UPDATE に、削除済みのIDの再格納は INSERT に切り替える")
+    void testPutFallbacks() throws Exception {
+        // Given: ストアを開いた後に、次のID以上のIDの行を直接追加する
+        UserStoreProperties.JdbcStorage config = properties().getStorage().getJdbc();
+        JdbcUserStore store = new JdbcUserStore(config);
+        store.put(1, User.builder().id("1").name("alice").email("alice@example.com").build());
+        try (Connection connection = DriverManager.getConnection(config.getUrl(), config.getUsername(), config.getPassword());
+             Statement statement = connection.createStatement()) {
+            statement.executeUpdate("INSERT INTO users (id, name, email) VALUES (5, 'direct', 'direct@example.com')");
+        }
+
+        // When
+        store.put(5, User.builder().id("5").name("bob").email("bob@example.com").build());
+        store.remove(1);
+        store.put(1, User.builder().id("1").name("carol").email("carol@example.com").build());
+
+        // Then
+        assertEquals("bob", store.get(5).getName());
+        assertEquals("carol", store.get(1).getName());
+        assertEquals(6, store.nextId());
+        store.close();
+    }
+
+    @Test
+    @DisplayName("JDBCストアとWALは同時に有効にできない")
+    void testWalNotAllowed() {
+        // Given
+        UserStoreProperties properties = properties();
+        properties.getWal().setEnabled(true);
+        properties.getWal().setDirectory(directory.resolve("wal").toString());
+
+        // When & Then
+        assertThrows(IllegalStateException.class, () -> new UserService(properties));
+    }
+
+    private UserStoreProperties properties() {
+        UserStoreProperties properties = new UserStoreProperties();
+        properties.getStorage().setEngine(UserStoreProperties.Engine.JDBC);
+        properties.getStorage().getJdbc().setUrl("jdbc:h2:file:" + directory.resolve("users").toAbsolutePath());
+        properties.getStorage().getJdbc().setPoolSize(2);
+        return properties;
+    }
+}
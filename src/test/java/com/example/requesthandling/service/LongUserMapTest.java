@@ -0,0 +1,153 @@
+package com.example.requesthandling.service;
+
+import com.example.requesthandling.model.User;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * LongUserMap・UserIds のユニットテスト
+ */
+@DisplayName("long型IDマップのテスト")
+class LongUserMapTest {
+
+    @Test
+    @DisplayName("大量の追加・更新・削除の後も、HashMapと同じ内容を保持する")
+    void testRandomOperationsMatchHashMap() {
+        // Given
+        LongUserMap map = new LongUserMap(4);
+        Map<Long, User> expected = new HashMap<>();
+        Random random = new Random(7);
+
+        // When
+        for (int i = 0; i < 300_000; i++) {
+            long id = random.nextInt(20_000) + 1;
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(id), map.remove(id));
+            } else {
+                User user = user(id, "v" + i);
+                assertEquals(expected.put(id, user), map.put(id, user));
+            }
+        }
+
+        // Then
+        assertEquals(expected.size(), map.size());
+        for (long id = 1; id <= 20_000; id++) {
+            assertEquals(expected.get(id), map.get(id));
+        }
+        List<User> all = new ArrayList<>();
+        map.forEach(all::add);
+        assertEquals(expected.size(), all.size());
+    }
+
+    @Test
+    @DisplayName("computeIfPresent は存在する場合のみ置き換え、nullを返すと削除する")
+    void testComputeIfPresent() {
+        // Given
+        LongUserMap map = new LongUserMap();
+        map.put(1, user(1, "a"));
+
+        // When
+        User replaced = map.computeIfPresent(1, current -> user(1, current.getName() + "b"));
+        User missing = map.computeIfPresent(2, current -> user(2, "x"));
+        User removed = map.computeIfPresent(1, current -> null);
+
+        // Then
+        assertEquals("ab", replaced.getName());
+        assertNull(missing);
+        assertNull(removed);
+        assertNull(map.get(1));
+        assertEquals(0, map.size());
+    }
+
+    @Test
+    @DisplayName("0以下のキーは存在しないものとして扱い、格納はできない")
+    void testInvalidKeys() {
+        // Given
+        LongUserMap map = new LongUserMap();
+        map.put(1, user(1, "a"));
+
+        // When & Then
+        assertNull(map.get(0));
+        assertNull(map.remove(UserIds.INVALID));
+        assertNull(map.computeIfPresent(0, current -> current));
+        assertEquals(1, map.size());
+        assertThrows(IllegalArgumentException.class, () -> map.put(0, user(0, "x")));
+    }
+
+    @Test
+    @DisplayName("並行して読み書きしても、読み込んだ値は常に書き込んだいずれかの値と一致する")
+    void testConcurrentReadWrite() throws Exception {
+        // Given
+        LongUserMap map = new LongUserMap(2);
+        for (long id = 1; id <= 1000; id++) {
+            map.put(id, user(id, "v0"));
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<?>> futures = new ArrayList<>();
+
+        // When
+        for (int t = 0; t < 2; t++) {
+            int seed = t;
+            futures.add(executor.submit(() -> {
+                Random random = new Random(seed);
+                for (int i = 0; i < 100_000; i++) {
+                    long id = random.nextInt(2000) + 1;
+                    if (id > 1000 && random.nextBoolean()) {
+                        map.remove(id);
+                    } else {
+                        map.put(id, user(id, "v" + i));
+                    }
+                }
+            }));
+        }
+        for (int t = 0; t < 2; t++) {
+            futures.add(executor.submit(() -> {
+                Random random = new Random();
+                for (int i = 0; i < 100_000; i++) {
+                    long id = random.nextInt(1000) + 1;
+                    User user = map.get(id);
+                    assertNotNull(user, "削除していないキーは常に取得できる");
+                    assertEquals(String.valueOf(id), user.getId());
+                }
+            }));
+        }
+
+        // Then
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+    }
+
+    @Test
+    @DisplayName("IDの変換は先頭が0でない数値のみを受け付ける")
+    void testParseUserId() {
+        assertEquals(1, UserIds.parse("1"));
+        assertEquals(123456789012345678L, UserIds.parse("123456789012345678"));
+        assertEquals(UserIds.INVALID, UserIds.parse(null));
+        assertEquals(UserIds.INVALID, UserIds.parse(""));
+        assertEquals(UserIds.INVALID, UserIds.parse("0"));
+        assertEquals(UserIds.INVALID, UserIds.parse("007"));
+        assertEquals(UserIds.INVALID, UserIds.parse("00"));
+        assertEquals(UserIds.INVALID, UserIds.parse("-1"));
+        assertEquals(UserIds.INVALID, UserIds.parse("1a"));
+        assertEquals(UserIds.INVALID, UserIds.parse(" 1"));
+        assertEquals(UserIds.INVALID, UserIds.parse("1234567890123456789"));
+    }
+
+    private static User user(long id, String name) {
+        return User.builder().id(String.valueOf(id)).name(name).build();
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.requesthandling.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * NameSearchIndex のユニットテスト
+ */
+@DisplayName("名前の検索インデックスのテスト")
+class NameSearchIndexTest {
+
+    private static final int UNLIMITED = Integer.MAX_VALUE;
+
+    private NameSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new NameSearchIndex();
+    }
+
+    @Test
+    @DisplayName("完全一致 → 前方一致 → 部分一致の順に並ぶ")
+    void testExactThenPrefixThenSubstring() {
+        // Given
+        index.add("1", "Xalice");
+        index.add("2", "Alicia");
+        index.add("3", "Alice");
+        index.add("4", "Alice Smith");
+
+        // When
+        List<String> result = index.search("alice", 10, UNLIMITED, UNLIMITED);
+
+        // Then
+        assertEquals(List.of("3", "4", "1"), result);
+    }
+
+    @Test
+    @DisplayName("前方一致は名前順に並ぶ")
+    void testPrefixOrderedByName() {
+        // Given
+        index.add("1", "Bobby");
+        index.add("2", "Bob");
+        index.add("3", "Bobbie");
+
+        // When
+        List<String> result = index.search("bob", 10, UNLIMITED, UNLIMITED);
+
+        // Then
+        assertEquals(List.of("2", "3", "1"), result);
+    }
+
+    @Test
+    @DisplayName("部分一致は一致位置が前・名前が短い順に並ぶ")
+    void testSubstringOrderedByPositionThenLength() {
+        // Given
+        index.add("1", "xxxcarol");
+        index.add("2", "xcarolxx");
+        index.add("3", "xcarol");
+        index.add("4", "xxcarol");
+
+        // When
+        List<String> result = index.search("carol", 10, UNLIMITED, UNLIMITED);
+
+        // Then
+        assertEquals(List.of("3", "2", "4", "1"), result);
+    }
+
+    @Test
+    @DisplayName("走査数の上限で打ち切る場合は、登録順によらずIDの小さい順に走査する")
+    void testScanLimitIsDeterministic() {
+        // Given: 同じユーザーを逆の順序で登録する
+        NameSearchIndex reversed = new NameSearchIndex();
+        for (int i = 1; i <= 20; i++) {
+            index.add(Integer.toString(i), "user-" + i);
+            reversed.add(Integer.toString(21 - i), "user-" + (21 - i));
+        }
+
+        // When
+        List<String> result = index.search("ser", 10, UNLIMITED, 3);
+
+        // Then: 数値のIDの昇順（"10" より "2" が先）
+        assertEquals(List.of("1", "2", "3"), result);
+        assertEquals(result, reversed.search("ser", 10, UNLIMITED, 3));
+    }
+
+    @Test
+    @DisplayName("一致数の上限で打ち切る場合も、IDの小さいユーザーの一致をランキングする")
+    void testCandidateLimitIsDeterministic() {
+        // Given
+        index.add("10", "xdave");
+        index.add("9", "xxdave");
+        index.add("2", "xxxdave");
+
+        // When
+        List<String> result = index.search("dave", 10, 2, UNLIMITED);
+
+        // Then: ID 2・9 の一致のみを一致位置の順に並べる
+        assertEquals(List.of("9", "2"), result);
+    }
+
+    @Test
+    @DisplayName("削除・名前の変更が検索結果に反映される")
+    void testRemove() {
+        // Given
+        index.add("1", "Erin");
+        index.add("2", "Xerin");
+
+        // When
+        index.remove("2", "Xerin");
+        index.add("2", "Frank");
+
+        // Then
+        assertEquals(List.of("1"), index.search("erin", 10, UNLIMITED, UNLIMITED));
+        assertEquals(List.of("2"), index.search("frank", 10, UNLIMITED, UNLIMITED));
+    }
+}
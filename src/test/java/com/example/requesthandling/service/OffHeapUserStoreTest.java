@@ -0,0 +1,235 @@
+package com.example.requesthandling.service;
+
+import com.example.requesthandling.config.UserStoreProperties;
+import com.example.requesthandling.model.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * OffHeapUserStore のユニットテスト
+ */
+@DisplayName("ヒープ外ストアのテスト")
+class OffHeapUserStoreTest {
+
+    private static final int CHUNK_SIZE = 4096;
+
+    private OffHeapUserStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = new OffHeapUserStore(CHUNK_SIZE);
+    }
+
+    @Test
+    @DisplayName("格納したユーザーを取得できる（nullの項目・マルチバイト文字を含む）")
+    void testPutAndGet() {
+        // Given
+        store.put(1, User.builder().id("1").name("山田太郎").email("taro@example.com").build());
+        store.put(2, User.builder().id("2").name("no-email").email(null).build());
+
+        // When
+        User first = store.get(1);
+        User second = store.get(2);
+
+        // Then
+        assertEquals(User.builder().id("1").name("山田太郎").email("taro@example.com").build(), first);
+        assertNull(second.getEmail());
+        assertEquals(2, store.size());
+    }
+
+    @Test
+    @DisplayName("存在しないID・0以下のIDはnullを返す")
+    void testGetMissing() {
+        // Given
+        store.put(1, User.builder().id("1").name("a").build());
+
+        // When & Then
+        assertNull(store.get(2));
+        assertNull(store.get(0));
+        assertNull(store.get(UserIds.INVALID));
+        assertNull(store.remove(0));
+        assertNull(store.computeIfPresent(UserIds.INVALID, current -> current));
+        assertEquals(1, store.size());
+    }
+
+    @Test
+    @DisplayName("長い値への更新は領域を移動し、短い値への更新は上書きする")
+    void testUpdate() {
+        // Given
+        store.put(1, User.builder().id("1").name("short").email("a@example.com").build());
+
+        // When
+        store.put(1, User.builder().id("1").name("a much longer name than before").email("a@example.com").build());
+        User updated = store.computeIfPresent(1, current ->
+                User.builder().id(current.getId()).name("s").email(current.getEmail()).build());
+
+        // Then
+        assertEquals("s", updated.getName());
+        assertEquals("s", store.get(1).getName());
+        assertEquals("a@example.com", store.get(1).getEmail());
+        assertEquals(1, store.size());
+    }
+
+    @Test
+    @DisplayName("存在しないIDの computeIfPresent は何もしない")
+    void testComputeIfPresentMissing() {
+        // When
+        User result = store.computeIfPresent(1, current -> {
+            throw new AssertionError("呼び出されない");
+        });
+
+        // Then
+        assertNull(result);
+        assertEquals(0, store.size());
+    }
+
+    @Test
+    @DisplayName("大量の追加・更新・削除の後も、ヒープ上のMapと同じ内容を保持する")
+    void testRandomOperationsMatchHashMap() {
+        // Given
+        Map<Long, User> expected = new HashMap<>();
+        Random random = new Random(42);
+
+        // When
+        for (int i = 0; i < 200_000; i++) {
+            long id = random.nextInt(5_000) + 1;
+            int operation = random.nextInt(3);
+            if (operation == 0) {
+                assertEquals(expected.remove(id), store.remove(id));
+            } else {
+                User user = User.builder().id(String.valueOf(id)).name("user-" + "x".repeat(random.nextInt(40))).email(id + "@example.com").build();
+                expected.put(id, user);
+                store.put(id, user);
+            }
+        }
+
+        // Then
+        assertEquals(expected.size(), store.size());
+        for (User user : expected.values()) {
+            assertEquals(user, store.get(Long.parseLong(user.getId())));
+        }
+        List<User> all = new ArrayList<>();
+        store.forEach(all::add);
+        assertEquals(expected.size(), all.size());
+        assertTrue(store.allocatedBytes() < 64L * CHUNK_SIZE * 16, "削除・更新で空いた領域は再利用される");
+    }
+
+    @Test
+    @DisplayName("並行して読み書きしても、読み込んだユーザーは常に書き込んだいずれかの値と一致する")
+    void testConcurrentReadWrite() throws Exception {
+        // Given
+        for (int i = 1; i <= 1000; i++) {
+            store.put(i, User.builder().id(String.valueOf(i)).name("v0").email(i + "@example.com").build());
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<?>> futures = new ArrayList<>();
+
+        // When
+        futures.add(executor.submit(() -> {
+            Random random = new Random(1);
+            for (int i = 0; i < 50_000; i++) {
+                long id = random.nextInt(1000) + 1;
+                store.put(id, User.builder().id(String.valueOf(id)).name("v" + "x".repeat(random.nextInt(30))).email(id + "@example.com").build());
+            }
+        }));
+        for (int t = 0; t < 3; t++) {
+            futures.add(executor.submit(() -> {
+                Random random = new Random();
+                for (int i = 0; i < 50_000; i++) {
+                    long id = random.nextInt(1000) + 1;
+                    User user = store.get(id);
+                    assertNotNull(user);
+                    assertEquals(id + "@example.com", user.getEmail());
+                    assertTrue(user.getName().matches("vx*|v0"));
+                }
+            }));
+        }
+
+        // Then
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+    }
+
+    @Test
+    @DisplayName("チャンクを超える長さへの更新・削除・詰め直しと並行して読んでも、例外にならず書き込んだいずれかの値を返す")
+    void testConcurrentReadDuringRelocation() throws Exception {
+        // Given
+        for (int i = 1; i <= 100; i++) {
+            store.put(i, User.builder().id(String.valueOf(i)).name("v").email(i + "@example.com").build());
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<?>> futures = new ArrayList<>();
+
+        // When: 短い値・チャンクを超える値への更新と削除・再追加を繰り返し、領域の移動・チャンクの追加・詰め直しを起こす
+        futures.add(executor.submit(() -> {
+            Random random = new Random(1);
+            for (int i = 0; i < 20_000; i++) {
+                long id = random.nextInt(100) + 1;
+                if (i % 10 == 0) {
+                    store.remove(id);
+                }
+                int length = random.nextInt(4) == 0 ? CHUNK_SIZE + random.nextInt(CHUNK_SIZE) : random.nextInt(30);
+                store.put(id, User.builder().id(String.valueOf(id)).name("v" + "x".repeat(length)).email(id + "@example.com").build());
+            }
+        }));
+        for (int t = 0; t < 3; t++) {
+            futures.add(executor.submit(() -> {
+                Random random = new Random();
+                for (int i = 0; i < 50_000; i++) {
+                    long id = random.nextInt(100) + 1;
+                    User user = store.get(id);
+                    if (user != null) {
+                        assertEquals(id + "@example.com", user.getEmail());
+                        assertTrue(user.getName().matches("vx*"));
+                    }
+                }
+            }));
+        }
+
+        // Then
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+        assertEquals(100, store.size());
+    }
+
+    @Test
+    @DisplayName("UserServiceでヒープ外ストアを選択しても同じ結果になる")
+    void testUserServiceWithOffHeapEngine() throws Exception {
+        // Given
+        UserStoreProperties properties = new UserStoreProperties();
+        properties.getStorage().setEngine(UserStoreProperties.Engine.OFF_HEAP);
+        UserService userService = new UserService(properties);
+
+        // When
+        User created = userService.createUser(User.builder().name("alice").email("alice@example.com").build());
+        userService.updateUser("1", User.builder().name("renamed").email("renamed@example.com").build());
+        userService.deleteUser("2");
+
+        // Then
+        assertEquals(3, userService.getUserCount());
+        assertEquals("alice", userService.getUserById(created.getId()).get().getName());
+        assertEquals("renamed", userService.getUserByEmail("renamed@example.com").get().getName());
+        assertEquals(created.getId(), userService.searchUsers("ali", 10).get(0).getId());
+        assertFalse(userService.getUserById("2").isPresent());
+        assertEquals(List.of("1", "3", created.getId()),
+                userService.getUsersPage(null, 10).getUsers().stream().map(User::getId).toList());
+        userService.close();
+    }
+}
@@ -0,0 +1,155 @@
+package com.example.requesthandling.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * TinyLfuCache のユニットテスト
+ */
+@DisplayName("W-TinyLFUキャッシュのテスト")
+class TinyLfuCacheTest {
+
+    private static final long TTL = TimeUnit.MINUTES.toNanos(5);
+
+    @Test
+    @DisplayName("頻繁にアクセスされるエントリは、一度だけアクセスされる大量のエントリに追い出されない")
+    void testScanResistance() {
+        // Given
+        TinyLfuCache<String> cache = new TinyLfuCache<>(100, TTL, 1);
+        for (int round = 0; round < 5; round++) {
+            for (long key = 1; key <= 50; key++) {
+                getOrLoad(cache, key);
+            }
+        }
+
+        // When: 一度だけのアクセスを1,000件続ける
+        for (long key = 1000; key < 2000; key++) {
+            getOrLoad(cache, key);
+        }
+
+        // Then
+        int retained = 0;
+        for (long key = 1; key <= 50; key++) {
+            if (cache.get(key) != null) {
+                retained++;
+            }
+        }
+        assertTrue(retained >= 45, "retained: " + retained);
+        assertTrue(cache.size() <= 100);
+        assertTrue(cache.stats().get("rejections").longValue() > 0);
+    }
+
+    @Test
+    @DisplayName("Zipf分布のアクセスでは、件数上限を超えないまま高いヒット率になる")
+    void testZipfianHitRatio() {
+        // Given
+        TinyLfuCache<String> cache = new TinyLfuCache<>(500, TTL, 1);
+        long[] keys = zipf(10_000, 0.99, 200_000, new Random(42));
+
+        // When
+        for (long key : keys) {
+            getOrLoad(cache, key);
+            assertTrue(cache.size() <= 500);
+        }
+
+        // Then: 上位5%をキャッシュすると、LRUでは6割弱、頻度を考慮すると6割を超える
+        Map<String, Number> stats = cache.stats();
+        assertTrue(stats.get("hitRatio").doubleValue() > 0.6, "stats: " + stats);
+        assertEquals(200_000, stats.get("hits").longValue() + stats.get("misses").longValue());
+        assertTrue(stats.get("evictions").longValue() > 0);
+    }
+
+    @Test
+    @DisplayName("TTLを過ぎたエントリは返さずに削除する")
+    void testExpiration() {
+        // Given
+        AtomicLong now = new AtomicLong();
+        TinyLfuCache<String> cache = new TinyLfuCache<>(10, TTL, 1, now::get);
+        cache.put(1, cache.stamp(1), "value");
+
+        // When
+        now.addAndGet(TTL - 1);
+        String beforeExpiry = cache.get(1);
+        now.addAndGet(1);
+        String afterExpiry = cache.get(1);
+
+        // Then
+        assertEquals("value", beforeExpiry);
+        assertNull(afterExpiry);
+        assertEquals(0, cache.size());
+        assertEquals(1L, cache.stats().get("expirations"));
+    }
+
+    @Test
+    @DisplayName("読み込み中に無効化されたIDは格納しない")
+    void testInvalidationDuringLoad() {
+        // Given
+        TinyLfuCache<String> cache = new TinyLfuCache<>(10, TTL, 1);
+        cache.put(1, cache.stamp(1), "old");
+        long stamp = cache.stamp(2);
+
+        // When: 読み込みの間に更新・無効化が行われる
+        cache.invalidate(1);
+        cache.invalidate(2);
+        cache.put(2, stamp, "stale");
+
+        // Then
+        assertNull(cache.get(1));
+        assertNull(cache.get(2));
+        assertEquals(0, cache.size());
+        assertEquals(1L, cache.stats().get("invalidations"));
+        cache.put(2, cache.stamp(2), "fresh");
+        assertEquals("fresh", cache.get(2));
+    }
+
+    @Test
+    @DisplayName("頻度のカウンタは15で飽和し、記録数が上限の10倍に達すると半減する")
+    void testSketchAging() {
+        // Given
+        TinyLfuCache.FrequencySketch sketch = new TinyLfuCache.FrequencySketch(16);
+        for (int i = 0; i < 20; i++) {
+            sketch.increment(1);
+        }
+        assertEquals(15, sketch.frequency(1));
+
+        // When: 別のキーの記録で合計が160に達する
+        for (long key = 100; key < 245; key++) {
+            sketch.increment(key);
+        }
+
+        // Then
+        assertEquals(7, sketch.frequency(1));
+    }
+
+    private static void getOrLoad(TinyLfuCache<String> cache, long key) {
+        if (cache.get(key) == null) {
+            cache.put(key, cache.stamp(key), "value-" + key);
+        }
+    }
+
+    /**
+     * 1〜n のキーを Zipf 分布（指数 skew）で count 件生成する
+     */
+    static long[] zipf(int n, double skew, int count, Random random) {
+        double[] cumulative = new double[n];
+        double sum = 0;
+        for (int i = 0; i < n; i++) {
+            sum += 1 / Math.pow(i + 1, skew);
+            cumulative[i] = sum;
+        }
+        long[] keys = new long[count];
+        for (int i = 0; i < count; i++) {
+            int index = Arrays.binarySearch(cumulative, random.nextDouble() * sum);
+            keys[i] = (index >= 0 ? index : -index - 1) + 1;
+        }
+        return keys;
+    }
+}
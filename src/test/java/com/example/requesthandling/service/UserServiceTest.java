@@ -1,12 +1,19 @@
 package com.example.requesthandling.service;
 
+import com.example.requesthandling.model.BatchOperation;
+import com.example.requesthandling.model.BatchResult;
 import com.example.requesthandling.model.User;
+import com.example.requesthandling.model.UserPage;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.UnaryOperator;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -69,6 +76,28 @@ class UserServiceTest {
         assertFalse(user.isPresent());
     }
 
+    @Test
+    @DisplayName("数値でないIDは存在しないものとして扱われる")
+    void testNonNumericId() {
+        // When & Then
+        assertFalse(userService.getUserById("abc").isPresent());
+        assertFalse(userService.getUserById("01x").isPresent());
+        assertFalse(userService.updateUser("abc", User.builder().name("x").build()).isPresent());
+        assertFalse(userService.deleteUser("abc"));
+        assertEquals(3, userService.getUserCount());
+    }
+
+    @Test
+    @DisplayName("long型のIDでもユーザーを取得できる")
+    void testGetUserByLongId() {
+        // When
+        Optional<User> user = userService.getUserById(2L);
+
+        // Then
+        assertTrue(user.isPresent());
+        assertEquals("user2", user.get().getName());
+    }
+
     @Test
     @DisplayName("ユーザーを作成できる")
     void testCreateUser() {
@@ -175,5 +204,512 @@ class UserServiceTest {
         assertNotEquals(user2.getId(), user3.getId());
         assertEquals(initialCount + 3, userService.getUserCount());
     }
-}
 
+    @Test
+    @DisplayName("カーソルでページングしながら全ユーザーを取得できる")
+    void testGetUsersPage() {
+        // Given
+        userService.createUser(User.builder().name("test4").email("test4@example.com").build());
+        userService.createUser(User.builder().name("test5").email("test5@example.com").build());
+
+        // When
+        UserPage first = userService.getUsersPage(null, 2);
+        UserPage second = userService.getUsersPage(first.getNextCursor(), 2);
+        UserPage last = userService.getUsersPage(second.getNextCursor(), 2);
+
+        // Then
+        assertEquals(List.of("1", "2"), first.getUsers().stream().map(User::getId).toList());
+        assertEquals(List.of("3", "4"), second.getUsers().stream().map(User::getId).toList());
+        assertEquals(List.of("5"), last.getUsers().stream().map(User::getId).toList());
+        assertNull(last.getNextCursor());
+    }
+
+    @Test
+    @DisplayName("削除されたユーザーはページに含まれない")
+    void testGetUsersPageAfterDelete() {
+        // Given
+        userService.deleteUser("2");
+
+        // When
+        UserPage page = userService.getUsersPage("1", 10);
+
+        // Then
+        assertEquals(List.of("3"), page.getUsers().stream().map(User::getId).toList());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    @DisplayName("不正なカーソルは IllegalArgumentException になる")
+    void testGetUsersPageInvalidCursor() {
+        assertThrows(IllegalArgumentException.class, () -> userService.getUsersPage("abc", 10));
+    }
+
+    @Test
+    @DisplayName("メールアドレスでユーザーを取得できる（大文字小文字を区別しない）")
+    void testGetUserByEmail() {
+        // When
+        Optional<User> user = userService.getUserByEmail("User2@Example.com");
+
+        // Then
+        assertTrue(user.isPresent());
+        assertEquals("2", user.get().getId());
+        assertFalse(userService.getUserByEmail("nobody@example.com").isPresent());
+    }
+
+    @Test
+    @DisplayName("重複するメールアドレスでは作成できない")
+    void testCreateUserDuplicateEmail() {
+        // Given
+        int initialCount = userService.getUserCount();
+        User duplicate = User.builder().name("dup").email("user1@example.com").build();
+
+        // When & Then
+        assertThrows(DuplicateEmailException.class, () -> userService.createUser(duplicate));
+        assertEquals(initialCount, userService.getUserCount());
+    }
+
+    @Test
+    @DisplayName("メールアドレスの重複で失敗した作成ではIDを消費しない")
+    void testDuplicateEmailDoesNotConsumeId() {
+        // Given
+        User first = userService.createUser(User.builder().name("first").email("first@example.com").build());
+
+        // When
+        for (int i = 0; i < 3; i++) {
+            assertThrows(DuplicateEmailException.class,
+                    () -> userService.createUser(User.builder().name("dup").email("FIRST@example.com").build()));
+        }
+        User next = userService.createUser(User.builder().name("next").email("next@example.com").build());
+
+        // Then
+        assertEquals(Long.parseLong(first.getId()) + 1, Long.parseLong(next.getId()));
+    }
+
+    @Test
+    @DisplayName("他のユーザーのメールアドレスには更新できず、元のデータが保持される")
+    void testUpdateUserDuplicateEmail() {
+        // Given
+        User updatedUser = User.builder().name("updated").email("user2@example.com").build();
+
+        // When & Then
+        assertThrows(DuplicateEmailException.class, () -> userService.updateUser("1", updatedUser));
+        assertEquals("user1", userService.getUserById("1").get().getName());
+        assertEquals("1", userService.getUserByEmail("user1@example.com").get().getId());
+        assertEquals("2", userService.getUserByEmail("user2@example.com").get().getId());
+    }
+
+    @Test
+    @DisplayName("メールアドレスの変更・削除でインデックスが更新される")
+    void testEmailIndexFollowsUpdateAndDelete() {
+        // When
+        userService.updateUser("1", User.builder().name("user1").email("changed@example.com").build());
+
+        // Then
+        assertFalse(userService.getUserByEmail("user1@example.com").isPresent());
+        assertEquals("1", userService.getUserByEmail("changed@example.com").get().getId());
+
+        // 解放されたメールアドレスは再利用できる
+        User reused = userService.createUser(User.builder().name("reuse").email("user1@example.com").build());
+        assertEquals(reused.getId(), userService.getUserByEmail("user1@example.com").get().getId());
+
+        // When
+        userService.deleteUser("1");
+
+        // Then
+        assertFalse(userService.getUserByEmail("changed@example.com").isPresent());
+    }
+
+    @Test
+    @DisplayName("名前の完全一致・前方一致・部分一致の順に検索結果が並ぶ")
+    void testSearchUsersRanking() {
+        // Given
+        userService.createUser(User.builder().name("Alice").email("alice@example.com").build());
+        userService.createUser(User.builder().name("Alicia").email("alicia@example.com").build());
+        userService.createUser(User.builder().name("Malice").email("malice@example.com").build());
+        userService.createUser(User.builder().name("Bob").email("bob@example.com").build());
+
+        // When
+        List<User> result = userService.searchUsers("ali", 10);
+
+        // Then
+        assertEquals(List.of("Alice", "Alicia", "Malice"), result.stream().map(User::getName).toList());
+        assertEquals(List.of("Alice"), userService.searchUsers("ALICE", 1).stream().map(User::getName).toList());
+    }
+
+    @Test
+    @DisplayName("検索結果は件数上限で打ち切られ、3文字未満は前方一致のみ")
+    void testSearchUsersLimitAndShortQuery() {
+        // When & Then
+        assertEquals(2, userService.searchUsers("user", 2).size());
+        assertEquals(3, userService.searchUsers("us", 10).size());
+        assertTrue(userService.searchUsers("er", 10).isEmpty());
+        assertTrue(userService.searchUsers(" ", 10).isEmpty());
+    }
+
+    @Test
+    @DisplayName("名前の更新・削除が検索インデックスに反映される")
+    void testSearchIndexFollowsUpdateAndDelete() {
+        // When
+        userService.updateUser("1", User.builder().name("renamed").email("user1@example.com").build());
+        userService.deleteUser("2");
+
+        // Then
+        assertEquals(List.of("3"), userService.searchUsers("user", 10).stream().map(User::getId).toList());
+        assertEquals(List.of("1"), userService.searchUsers("name", 10).stream().map(User::getId).toList());
+    }
+
+    @Test
+    @DisplayName("一括処理で作成・更新・削除を順に適用し、操作ごとの結果を返す")
+    void testApplyBatch() {
+        // Given
+        List<BatchOperation> operations = List.of(
+                BatchOperation.builder().op("create").user(User.builder().name("alice").email("alice@example.com").build()).build(),
+                BatchOperation.builder().op("update").id("1").user(User.builder().name("renamed").email("user1@example.com").build()).build(),
+                BatchOperation.builder().op("DELETE").id("2").build());
+
+        // When
+        List<BatchResult> results = userService.applyBatch(operations);
+
+        // Then
+        assertEquals(List.of(201, 200, 200), results.stream().map(BatchResult::getStatus).toList());
+        assertEquals(List.of(0, 1, 2), results.stream().map(BatchResult::getIndex).toList());
+        assertEquals("4", results.get(0).getId());
+        assertEquals("alice", userService.getUserById("4").get().getName());
+        assertEquals("renamed", userService.getUserById("1").get().getName());
+        assertFalse(userService.getUserById("2").isPresent());
+        assertEquals(3, userService.getUserCount());
+    }
+
+    @Test
+    @DisplayName("一括処理で失敗した操作は結果に理由が設定され、残りの操作は適用される")
+    void testApplyBatchPartialFailure() {
+        // Given
+        List<BatchOperation> operations = List.of(
+                BatchOperation.builder().op("create").user(User.builder().name("dup").email("USER1@example.com").build()).build(),
+                BatchOperation.builder().op("update").id("999").user(User.builder().name("x").build()).build(),
+                BatchOperation.builder().op("delete").id("abc").build(),
+                BatchOperation.builder().op("upsert").build(),
+                BatchOperation.builder().op("create").build(),
+                BatchOperation.builder().op("create").user(User.builder().name("ok").email("ok@example.com").build()).build());
+
+        // When
+        List<BatchResult> results = userService.applyBatch(operations);
+
+        // Then
+        assertEquals(List.of(409, 404, 404, 400, 400, 201), results.stream().map(BatchResult::getStatus).toList());
+        assertNotNull(results.get(0).getError());
+        assertNull(results.get(5).getError());
+        assertEquals(4, userService.getUserCount());
+        assertTrue(userService.getUserByEmail("ok@example.com").isPresent());
+        assertEquals("user1", userService.getUserByEmail("user1@example.com").get().getName());
+    }
+
+    @Test
+    @DisplayName("作成・更新・削除でユーザーと全体のバージョンが進み、失敗した変更では進まない")
+    void testVersions() {
+        // Given
+        long collection = userService.getCollectionVersion();
+        long user1 = userService.getUserVersion(1);
+
+        // When
+        userService.updateUser("999", User.builder().name("x").build());
+        long afterMissingUpdate = userService.getCollectionVersion();
+        userService.updateUser("1", User.builder().name("renamed").email("user1@example.com").build());
+        long afterUpdate = userService.getUserVersion(1);
+        User created = userService.createUser(User.builder().name("new").email("new@example.com").build());
+        userService.deleteUser(created.getId());
+
+        // Then
+        assertEquals(collection, afterMissingUpdate);
+        assertTrue(afterUpdate > user1);
+        assertEquals(collection + 3, userService.getCollectionVersion());
+        assertTrue(userService.getUserVersion(Long.parseLong(created.getId())) > afterUpdate);
+        assertFalse(userService.getVersionEpoch().isEmpty());
+    }
+
+    @Test
+    @DisplayName("スナップショットのトークンを指定したページングは、途中の変更の影響を受けない")
+    void testListSnapshotPaging() {
+        // Given
+        UserPage first = userService.getUsersPage(null, 2);
+
+        // When
+        userService.deleteUser("3");
+        userService.createUser(User.builder().name("later").email("later@example.com").build());
+        UserPage second = userService.getListSnapshot(first.getSnapshot()).page(first.getNextCursor(), 2);
+        UserPage latest = userService.getUsersPage(first.getNextCursor(), 2);
+
+        // Then
+        assertEquals(List.of("3"), second.getUsers().stream().map(User::getId).toList());
+        assertNull(second.getNextCursor());
+        assertEquals(first.getSnapshot(), second.getSnapshot());
+        assertEquals(List.of("4"), latest.getUsers().stream().map(User::getId).toList());
+        assertNotEquals(first.getSnapshot(), latest.getSnapshot());
+    }
+
+    @Test
+    @DisplayName("変更がなければ同じスナップショットを共有し、変更後は反映した新しいスナップショットを作る")
+    void testListSnapshotSharedAndRebuilt() {
+        // Given
+        UserListSnapshot before = userService.getListSnapshot(null);
+
+        // When
+        UserListSnapshot unchanged = userService.getListSnapshot(null);
+        userService.updateUser("2", User.builder().name("renamed").email("user2@example.com").build());
+        UserListSnapshot after = userService.getListSnapshot(null);
+
+        // Then
+        assertSame(before, unchanged);
+        assertEquals("user2", before.getUsers().get(1).getName());
+        assertEquals("renamed", after.getUsers().get(1).getName());
+        assertEquals(List.of("1", "2", "3"), after.getUsers().stream().map(User::getId).toList());
+    }
+
+    @Test
+    @DisplayName("破棄されたスナップショット・他の起動のスナップショットを指定すると期限切れ、不正な形式は不正な引数になる")
+    void testListSnapshotExpired() {
+        // Given
+        String oldest = userService.getListSnapshot(null).getToken();
+        for (int i = 0; i < UserListSnapshots.RETAINED_SNAPSHOTS; i++) {
+            userService.createUser(User.builder().name("u" + i).email("u" + i + "@example.com").build());
+            userService.getListSnapshot(null);
+        }
+
+        // Then
+        assertThrows(ListSnapshotExpiredException.class, () -> userService.getListSnapshot(oldest));
+        assertThrows(ListSnapshotExpiredException.class, () -> userService.getListSnapshot("other-1"));
+        assertThrows(IllegalArgumentException.class, () -> userService.getListSnapshot("abc"));
+    }
+
+    @Test
+    @DisplayName("格納先がヒープ上でない場合、スナップショットはIDのみ保持し、値は取得時点の最新を返して削除済みのIDを飛ばす")
+    void testListSnapshotOfNonHeapStore() {
+        // Given
+        UserService service = new UserService(new OffHeapUserStore(4096));
+        UserPage first = service.getUsersPage(null, 1);
+        UserListSnapshot snapshot = service.getListSnapshot(first.getSnapshot());
+
+        // When
+        service.updateUser("2", User.builder().name("renamed").email("user2@example.com").build());
+        service.deleteUser("3");
+        service.createUser(User.builder().name("later").email("later@example.com").build());
+        UserPage second = snapshot.page(first.getNextCursor(), 10);
+
+        // Then
+        assertTrue(snapshot.readsCurrentValues());
+        assertFalse(userService.getListSnapshot(null).readsCurrentValues());
+        assertEquals(List.of("renamed"), second.getUsers().stream().map(User::getName).toList());
+        assertNull(second.getNextCursor());
+        assertEquals(List.of("user1", "renamed"), snapshot.getUsers().stream().map(User::getName).toList());
+        assertEquals(List.of("1", "2", "4"),
+                service.getAllUsers().stream().map(User::getId).toList());
+    }
+
+    @Test
+    @DisplayName("並行して変更されても、スナップショットは変更ログのある時点の状態と一致する")
+    void testListSnapshotUnderConcurrentWrites() throws Exception {
+        // Given
+        for (int i = 0; i < 2000; i++) {
+            userService.createUser(User.builder().name("c" + i).email("c" + i + "@example.com").build());
+        }
+        userService.getListSnapshot(null);
+        Thread writer = new Thread(() -> {
+            for (int i = 0; i < 20000; i++) {
+                long id = 1 + (i * 7919L) % 2003;
+                if (i % 3 == 0) {
+                    userService.deleteUser(id);
+                } else {
+                    userService.updateUser(id, User.builder().name("w" + i).email("w" + id + "@example.com").build());
+                }
+            }
+        });
+
+        // When
+        writer.start();
+        List<UserListSnapshot> snapshots = new java.util.ArrayList<>();
+        while (writer.isAlive()) {
+            snapshots.add(userService.getListSnapshot(null));
+        }
+        writer.join();
+        UserListSnapshot last = userService.getListSnapshot(null);
+
+        // Then
+        for (UserListSnapshot snapshot : snapshots) {
+            List<User> users = snapshot.getUsers();
+            for (int i = 1; i < users.size(); i++) {
+                assertTrue(Long.parseLong(users.get(i - 1).getId()) < Long.parseLong(users.get(i).getId()));
+            }
+        }
+        assertEquals(userService.getUserCount(), last.size());
+        for (User user : last.getUsers()) {
+            assertSame(userService.getUserById(user.getId()).orElseThrow(), user);
+        }
+    }
+
+    @Test
+    @DisplayName("格納先への書き込みに失敗した作成・更新・削除は、メールアドレス・検索・一覧・バージョンに反映されない")
+    void testStoreWriteFailureLeavesIndexesUnchanged() {
+        // Given
+        FailingStore store = new FailingStore();
+        UserService service = new UserService(store);
+        UserListSnapshot before = service.getListSnapshot(null);
+        long version = service.getCollectionVersion();
+        store.failing = true;
+
+        // When
+        assertThrows(UserStoreException.class, () ->
+                service.createUser(User.builder().name("ghost").email("ghost@example.com").build()));
+        assertThrows(UserStoreException.class, () ->
+                service.updateUser("1", User.builder().name("renamed").email("renamed@example.com").build()));
+        assertThrows(UserStoreException.class, () -> service.deleteUser("2"));
+
+        // Then
+        assertEquals(version, service.getCollectionVersion());
+        assertSame(before, service.getListSnapshot(null));
+        assertFalse(service.getUserByEmail("ghost@example.com").isPresent());
+        assertFalse(service.getUserByEmail("renamed@example.com").isPresent());
+        assertEquals("user1", service.getUserByEmail("user1@example.com").get().getName());
+        assertEquals("user2", service.getUserByEmail("user2@example.com").get().getName());
+        assertTrue(service.searchUsers("ghost", 10).isEmpty());
+        assertTrue(service.searchUsers("renamed", 10).isEmpty());
+        assertEquals(List.of("user1", "user2", "user3"),
+                service.getAllUsers().stream().map(User::getName).toList());
+
+        // 失敗した変更で確保したメールアドレスは、回復後に使用できる
+        store.failing = false;
+        User created = service.createUser(User.builder().name("ghost").email("ghost@example.com").build());
+        service.updateUser("3", User.builder().name("user3").email("renamed@example.com").build());
+        assertEquals(created.getId(), service.getUserByEmail("ghost@example.com").get().getId());
+        assertEquals("3", service.getUserByEmail("renamed@example.com").get().getId());
+        assertEquals(List.of("1", "2", "3", created.getId()),
+                service.getAllUsers().stream().map(User::getId).toList());
+    }
+
+    @Test
+    @DisplayName("writeAll をまとめる格納先では、一括処理の変更を1回の writeAll で反映し、後続の操作はバッチ内の変更を参照する")
+    void testApplyBatchWritesAllAtOnce() {
+        // Given
+        BatchingStore store = new BatchingStore();
+        UserService service = new UserService(store);
+        store.singleWrites = 0;
+        List<BatchOperation> operations = List.of(
+                BatchOperation.builder().op("create").user(User.builder().name("alice").email("alice@example.com").build()).build(),
+                BatchOperation.builder().op("update").id("4").user(User.builder().name("alicia").email("alice@example.com").build()).build(),
+                BatchOperation.builder().op("delete").id("2").build(),
+                BatchOperation.builder().op("delete").id("2").build());
+
+        // When
+        List<BatchResult> results = service.applyBatch(operations);
+
+        // Then
+        assertEquals(List.of(201, 200, 200, 404), results.stream().map(BatchResult::getStatus).toList());
+        assertEquals(0, store.singleWrites);
+        assertEquals(1, store.batches.size());
+        assertEquals(List.of(4L, 2L), List.copyOf(store.batches.get(0).keySet()));
+        assertEquals("alicia", service.getUserById("4").get().getName());
+        assertFalse(service.getUserById("2").isPresent());
+        assertEquals("4", service.getUserByEmail("alice@example.com").get().getId());
+        assertEquals(List.of("1", "3", "4"), service.getAllUsers().stream().map(User::getId).toList());
+    }
+
+    @Test
+    @DisplayName("一括処理の writeAll が失敗した場合は、メールアドレス・検索・一覧をバッチ前の状態に戻す")
+    void testApplyBatchWriteAllFailureRestoresIndexes() {
+        // Given
+        BatchingStore store = new BatchingStore();
+        UserService service = new UserService(store);
+        store.failing = true;
+        List<BatchOperation> operations = List.of(
+                BatchOperation.builder().op("create").user(User.builder().name("ghost").email("user2@example.org").build()).build(),
+                BatchOperation.builder().op("update").id("1").user(User.builder().name("renamed").email("renamed@example.com").build()).build(),
+                BatchOperation.builder().op("delete").id("2").build());
+
+        // When
+        assertThrows(UserStoreException.class, () -> service.applyBatch(operations));
+
+        // Then
+        assertFalse(service.getUserByEmail("user2@example.org").isPresent());
+        assertFalse(service.getUserByEmail("renamed@example.com").isPresent());
+        assertEquals("1", service.getUserByEmail("user1@example.com").get().getId());
+        assertEquals("2", service.getUserByEmail("user2@example.com").get().getId());
+        assertTrue(service.searchUsers("ghost", 10).isEmpty());
+        assertTrue(service.searchUsers("renamed", 10).isEmpty());
+        assertEquals(List.of("2"), service.searchUsers("user2", 10).stream().map(User::getId).toList());
+        assertEquals(List.of("user1", "user2", "user3"),
+                service.getAllUsers().stream().map(User::getName).toList());
+    }
+
+    /**
+     * writeAll をまとめて反映する（file / jdbc と同じ）格納先。writeAll を記録し、失敗させられる
+     */
+    private static class BatchingStore extends HeapUserStore {
+
+        final List<Map<Long, User>> batches = new ArrayList<>();
+        int singleWrites;
+        boolean failing;
+
+        @Override
+        public boolean batchesWrites() {
+            return true;
+        }
+
+        @Override
+        public void put(long id, User user) {
+            singleWrites++;
+            super.put(id, user);
+        }
+
+        @Override
+        public User remove(long id) {
+            singleWrites++;
+            return super.remove(id);
+        }
+
+        @Override
+        public void writeAll(Map<Long, User> changes) {
+            if (failing) {
+                throw new UserStoreException("書き込みに失敗しました");
+            }
+            batches.add(new LinkedHashMap<>(changes));
+            changes.forEach((id, user) -> {
+                if (user == null) {
+                    super.remove(id);
+                } else {
+                    super.put(id, user);
+                }
+            });
+        }
+    }
+
+    /**
+     * 書き込みを失敗させられる格納先
+     */
+    private static class FailingStore extends HeapUserStore {
+
+        volatile boolean failing;
+
+        @Override
+        public void put(long id, User user) {
+            fail();
+            super.put(id, user);
+        }
+
+        @Override
+        public User remove(long id) {
+            fail();
+            return super.remove(id);
+        }
+
+        @Override
+        public User computeIfPresent(long id, UnaryOperator<User> remapping) {
+            fail();
+            return super.computeIfPresent(id, remapping);
+        }
+
+        private void fail() {
+            if (failing) {
+                throw new UserStoreException("書き込みに失敗しました");
+            }
+        }
+    }
+}
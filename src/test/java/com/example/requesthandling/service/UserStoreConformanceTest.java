@@ -0,0 +1,440 @@
+package com.example.requesthandling.service;
+
+import com.example.requesthandling.config.UserStoreProperties;
+import com.example.requesthandling.model.User;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * UserStore の全実装に共通のテスト（仕様への適合と性能の下限）
+ * 実装ごとの @Nested クラスでは UserStore の生成方法のみを定義する
+ */
+@DisplayName("ユーザーストアの共通仕様のテスト")
+class UserStoreConformanceTest {
+
+    @Nested
+    @DisplayName("heap")
+    class Heap extends Conformance {
+
+        @Override
+        UserStore create() {
+            return new HeapUserStore();
+        }
+    }
+
+    @Nested
+    @DisplayName("off-heap")
+    class OffHeap extends Conformance {
+
+        @Override
+        UserStore create() {
+            return new OffHeapUserStore(4096);
+        }
+    }
+
+    @Nested
+    @DisplayName("file")
+    class File extends PersistentConformance {
+
+        @TempDir
+        Path directory;
+
+        @Override
+        UserStore create() throws Exception {
+            return new FileUserStore(directory, false);
+        }
+    }
+
+    @Nested
+    @DisplayName("jdbc")
+    class Jdbc extends PersistentConformance {
+
+        @TempDir
+        Path directory;
+
+        @Override
+        UserStore create() {
+            UserStoreProperties.JdbcStorage config = new UserStoreProperties.JdbcStorage();
+            config.setUrl("jdbc:h2:file:" + directory.resolve("users").toAbsolutePath());
+            config.setPoolSize(4);
+            return new JdbcUserStore(config);
+        }
+    }
+
+    @Nested
+    @DisplayName("cached-file")
+    class CachedFile extends PersistentConformance {
+
+        @TempDir
+        Path directory;
+
+        @Override
+        UserStore create() throws Exception {
+            return new CachingUserStore(new FileUserStore(directory, false),
+                    new TinyLfuCache<>(64, TimeUnit.MINUTES.toNanos(5), 1));
+        }
+    }
+
+    @Nested
+    @DisplayName("write-behind-jdbc")
+    class WriteBehindJdbc extends PersistentConformance {
+
+        @TempDir
+        Path directory;
+
+        @Override
+        UserStore create() {
+            UserStoreProperties.JdbcStorage config = new UserStoreProperties.JdbcStorage();
+            config.setUrl("jdbc:h2:file:" + directory.resolve("users").toAbsolutePath());
+            config.setPoolSize(4);
+            UserStoreProperties.WriteBehind writeBehind = new UserStoreProperties.WriteBehind();
+            writeBehind.setBatchSize(64);
+            writeBehind.setFlushInterval(Duration.ofMillis(5));
+            return new WriteBehindUserStore(new JdbcUserStore(config), writeBehind);
+        }
+    }
+
+    abstract static class Conformance {
+
+        protected UserStore store;
+
+        abstract UserStore create() throws Exception;
+
+        @BeforeEach
+        void setUp() throws Exception {
+            store = create();
+        }
+
+        @AfterEach
+        void tearDown() {
+            store.close();
+        }
+
+        @Test
+        @DisplayName("格納したユーザーを取得できる（nullの項目・マルチバイト文字を含む）")
+        void testPutAndGet() {
+            // Given
+            store.put(1, user(1, "山田太郎", "taro@example.com"));
+            store.put(2, user(2, "no-email", null));
+
+            // When
+            User first = store.get(1);
+            User second = store.get(2);
+
+            // Then
+            assertEquals(user(1, "山田太郎", "taro@example.com"), first);
+            assertEquals(user(2, "no-email", null), second);
+            assertEquals(2, store.size());
+        }
+
+        @Test
+        @DisplayName("存在しないID・0以下のIDは取得・削除・更新でnullを返し、0以下のIDの格納は拒否する")
+        void testMissingAndInvalidIds() {
+            // Given
+            store.put(1, user(1, "a", "a@example.com"));
+
+            // When & Then
+            assertNull(store.get(2));
+            assertNull(store.get(0));
+            assertNull(store.get(-1));
+            assertNull(store.remove(2));
+            assertNull(store.remove(0));
+            assertNull(store.computeIfPresent(-1, current -> fail("呼び出されないこと")));
+            assertThrows(IllegalArgumentException.class, () -> store.put(0, user(0, "zero", null)));
+            assertEquals(1, store.size());
+        }
+
+        @Test
+        @DisplayName("同じIDへの格納は上書きになり、件数は増えない")
+        void testOverwrite() {
+            // Given
+            store.put(1, user(1, "short", "s@example.com"));
+
+            // When
+            store.put(1, user(1, "a much longer name than before", "longer-address@example.com"));
+            store.put(1, user(1, "x", null));
+
+            // Then
+            assertEquals(user(1, "x", null), store.get(1));
+            assertEquals(1, store.size());
+        }
+
+        @Test
+        @DisplayName("削除すると削除したユーザーを返し、以降は取得できない")
+        void testRemove() {
+            // Given
+            store.put(1, user(1, "a", "a@example.com"));
+            store.put(2, user(2, "b", "b@example.com"));
+
+            // When
+            User removed = store.remove(1);
+            User again = store.remove(1);
+
+            // Then
+            assertEquals(user(1, "a", "a@example.com"), removed);
+            assertNull(again);
+            assertNull(store.get(1));
+            assertEquals(user(2, "b", "b@example.com"), store.get(2));
+            assertEquals(1, store.size());
+        }
+
+        @Test
+        @DisplayName("computeIfPresent は存在する場合のみ呼び出され、結果で更新し、nullを返すと削除する")
+        void testComputeIfPresent() {
+            // Given
+            store.put(1, user(1, "before", "before@example.com"));
+            store.put(2, user(2, "deleted", null));
+
+            // When
+            User updated = store.computeIfPresent(1, current -> user(1, current.getName() + "-after", null));
+            User deleted = store.computeIfPresent(2, current -> null);
+            User missing = store.computeIfPresent(3, current -> fail("呼び出されないこと"));
+
+            // Then
+            assertEquals(user(1, "before-after", null), updated);
+            assertEquals(updated, store.get(1));
+            assertNull(deleted);
+            assertNull(store.get(2));
+            assertNull(missing);
+            assertEquals(1, store.size());
+        }
+
+        @Test
+        @DisplayName("writeAll で追加・上書き・削除をまとめて反映し、存在しないIDの削除は無視する")
+        void testWriteAll() {
+            // Given
+            store.put(1, user(1, "before", "before@example.com"));
+            store.put(2, user(2, "deleted", null));
+            Map<Long, User> changes = new LinkedHashMap<>();
+            changes.put(1L, user(1, "after", null));
+            changes.put(2L, null);
+            changes.put(3L, user(3, "new", "new@example.com"));
+            changes.put(4L, null);
+
+            // When
+            store.writeAll(changes);
+
+            // Then
+            assertEquals(user(1, "after", null), store.get(1));
+            assertNull(store.get(2));
+            assertEquals(user(3, "new", "new@example.com"), store.get(3));
+            assertNull(store.get(4));
+            assertEquals(2, store.size());
+            assertThrows(IllegalArgumentException.class, () -> store.writeAll(Map.of(0L, user(0, "zero", null))));
+        }
+
+        @Test
+        @DisplayName("forEach で全ユーザーを1回ずつ走査する")
+        void testForEach() {
+            // Given
+            Map<String, User> expected = new HashMap<>();
+            for (int i = 1; i <= 100; i++) {
+                store.put(i, user(i, "user" + i, "user" + i + "@example.com"));
+                expected.put(Long.toString(i), user(i, "user" + i, "user" + i + "@example.com"));
+            }
+            store.remove(50);
+            expected.remove("50");
+
+            // When
+            Map<String, User> visited = new HashMap<>();
+            store.forEach(user -> assertNull(visited.put(user.getId(), user), "重複: " + user.getId()));
+
+            // Then
+            assertEquals(expected, visited);
+        }
+
+        @Test
+        @DisplayName("大量の追加・更新・削除の後も、ヒープ上のMapと同じ内容を保持する")
+        void testRandomOperationsMatchMap() {
+            // Given
+            Random random = new Random(42);
+            Map<Long, User> expected = new HashMap<>();
+
+            // When
+            for (int i = 0; i < 5000; i++) {
+                long id = random.nextInt(500) + 1;
+                switch (random.nextInt(4)) {
+                    case 0, 1 -> {
+                        User user = user(id, "n".repeat(random.nextInt(40)) + id, random.nextBoolean() ? null : id + "@example.com");
+                        store.put(id, user);
+                        expected.put(id, user);
+                    }
+                    case 2 -> assertEquals(expected.remove(id), store.remove(id));
+                    default -> {
+                        User updated = user(id, "updated-" + i, null);
+                        assertEquals(expected.computeIfPresent(id, (k, v) -> updated), store.computeIfPresent(id, v -> updated));
+                    }
+                }
+            }
+
+            // Then
+            assertEquals(expected.size(), store.size());
+            for (long id = 1; id <= 500; id++) {
+                assertEquals(expected.get(id), store.get(id), "ID " + id);
+            }
+        }
+
+        @Test
+        @DisplayName("同じIDへの computeIfPresent は排他され、並行して実行しても更新が失われない")
+        void testComputeIfPresentIsExclusive() throws Exception {
+            // Given
+            store.put(1, user(1, "0", null));
+            int threads = 4;
+            int increments = 200;
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+            // When
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < increments; i++) {
+                        store.computeIfPresent(1, current ->
+                                user(1, Integer.toString(Integer.parseInt(current.getName()) + 1), null));
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+            executor.shutdown();
+
+            // Then
+            assertEquals(Integer.toString(threads * increments), store.get(1).getName());
+        }
+
+        @Test
+        @DisplayName("並行して読み書きしても、読み込んだユーザーは常に書き込んだいずれかの値と一致する")
+        void testConcurrentReadWrite() throws Exception {
+            // Given
+            int ids = 200;
+            for (int i = 1; i <= ids; i++) {
+                store.put(i, user(i, "v0-" + i, "v0-" + i + "@example.com"));
+            }
+            AtomicInteger mismatches = new AtomicInteger();
+            ExecutorService executor = Executors.newFixedThreadPool(4);
+
+            // When
+            List<Future<?>> futures = new ArrayList<>();
+            futures.add(executor.submit(() -> {
+                for (int v = 1; v <= 20; v++) {
+                    for (int i = 1; i <= ids; i++) {
+                        store.put(i, user(i, "v" + v + "-" + i, "v" + v + "-" + i + "@example.com"));
+                    }
+                }
+            }));
+            for (int r = 0; r < 3; r++) {
+                futures.add(executor.submit(() -> {
+                    Random random = new Random();
+                    for (int n = 0; n < 5000; n++) {
+                        int id = random.nextInt(ids) + 1;
+                        User user = store.get(id);
+                        String suffix = "-" + id;
+                        if (user == null || !user.getName().endsWith(suffix)
+                                || !user.getEmail().equals(user.getName() + "@example.com")) {
+                            mismatches.incrementAndGet();
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+            executor.shutdown();
+
+            // Then
+            assertEquals(0, mismatches.get());
+            assertEquals(ids, store.size());
+        }
+
+        @Test
+        @DisplayName("性能: 10,000件の追加と20,000回の取得が10秒以内に終わる")
+        void testThroughput() {
+            // Given
+            int count = 10_000;
+            Random random = new Random(7);
+
+            // When & Then
+            assertTimeout(Duration.ofSeconds(10), () -> {
+                for (int i = 1; i <= count; i++) {
+                    store.put(i, user(i, "bench-user-" + i, "bench-user-" + i + "@example.com"));
+                }
+                for (int n = 0; n < 2 * count; n++) {
+                    int id = random.nextInt(count) + 1;
+                    assertEquals("bench-user-" + id, store.get(id).getName());
+                }
+            });
+            assertEquals(count, store.size());
+        }
+    }
+
+    abstract static class PersistentConformance extends Conformance {
+
+        @Test
+        @DisplayName("クローズして開き直しても、追加・更新・削除の結果が残る")
+        void testReopen() throws Exception {
+            // Given
+            store.put(1, user(1, "山田太郎", "taro@example.com"));
+            store.put(2, user(2, "deleted", null));
+            store.put(3, user(3, "before", null));
+            store.remove(2);
+            store.computeIfPresent(3, current -> user(3, "after", "after@example.com"));
+
+            // When
+            store.close();
+            store = create();
+
+            // Then
+            assertEquals(2, store.size());
+            assertEquals(user(1, "山田太郎", "taro@example.com"), store.get(1));
+            assertNull(store.get(2));
+            assertEquals(user(3, "after", "after@example.com"), store.get(3));
+        }
+
+        @Test
+        @DisplayName("次のIDは削除したIDを含めて記録され、全件を削除して開き直しても残る")
+        void testNextIdAfterReopen() throws Exception {
+            // Given
+            assertEquals(0, store.nextId());
+            store.put(1, user(1, "first", null));
+            store.writeAll(Map.of(7L, user(7, "batch", null)));
+            store.put(5, user(5, "middle", null));
+            assertEquals(8, store.nextId());
+            store.remove(7);
+            store.writeAll(Map.of(1L, user(1, "updated", null)));
+            store.remove(1);
+            store.remove(5);
+
+            // When
+            store.close();
+            store = create();
+
+            // Then
+            assertEquals(0, store.size());
+            assertEquals(8, store.nextId());
+        }
+    }
+
+    static User user(long id, String name, String email) {
+        return User.builder().id(Long.toString(id)).name(name).email(email).build();
+    }
+}
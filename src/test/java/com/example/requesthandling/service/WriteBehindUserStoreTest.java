@@ -0,0 +1,332 @@
+package com.example.requesthandling.service;
+
+import com.example.requesthandling.config.UserStoreProperties;
+import com.example.requesthandling.model.User;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * WriteBehindUserStore のユニットテスト
+ * （UserStore に共通の動作は UserStoreConformanceTest でテストする）
+ */
+@DisplayName("格納先への非同期の書き出しのテスト")
+class WriteBehindUserStoreTest {
+
+    @TempDir
+    Path directory;
+
+    private final RecordingStore backend = new RecordingStore();
+    private WriteBehindUserStore store;
+
+    @AfterEach
+    void tearDown() {
+        backend.release.countDown();
+        if (store != null) {
+            store.close();
+        }
+    }
+
+    @Test
+    @DisplayName("書き出し前の追加・更新・削除は、格納先に書き込まずに取得・件数に反映される")
+    void testReadsSeePendingChanges() {
+        // Given
+        backend.put(1, user(1, "stored"));
+        store = new WriteBehindUserStore(backend, config(100, Duration.ofMinutes(1)));
+
+        // When
+        store.put(2, user(2, "created"));
+        store.computeIfPresent(1, current -> user(1, current.getName() + "-updated"));
+        User removed = store.remove(2);
+
+        // Then
+        assertEquals(user(1, "stored-updated"), store.get(1));
+        assertEquals(user(2, "created"), removed);
+        assertNull(store.get(2));
+        assertEquals(1, store.size());
+        assertTrue(backend.batches.isEmpty());
+        assertEquals(user(1, "stored"), backend.get(1));
+    }
+
+    @Test
+    @DisplayName("同じIDへの変更は最後の値にまとめて1回だけ書き出す")
+    void testCoalescing() {
+        // Given
+        store = new WriteBehindUserStore(backend, config(100, Duration.ofMinutes(1)));
+
+        // When
+        for (int i = 0; i < 100; i++) {
+            store.put(1, user(1, "v" + i));
+        }
+        store.flush();
+
+        // Then
+        assertEquals(List.of(Map.of(1L, user(1, "v99"))), backend.batches);
+        Map<String, Number> stats = store.stats();
+        assertEquals(100L, stats.get("enqueued"));
+        assertEquals(99L, stats.get("coalesced"));
+        assertEquals(1L, stats.get("flushed"));
+        assertEquals(0, stats.get("pending"));
+    }
+
+    @Test
+    @DisplayName("書き出し待ちがバッチの件数に達すると、間隔を待たずに書き出す")
+    void testFlushBySize() {
+        // Given
+        store = new WriteBehindUserStore(backend, config(10, Duration.ofMinutes(1)));
+
+        // When
+        for (int id = 1; id <= 25; id++) {
+            store.put(id, user(id, "user" + id));
+        }
+
+        // Then: 10件のバッチ2回が書き出され、残りの5件は待ち続ける
+        assertTrue(await(() -> backend.size() == 20), "size: " + backend.size());
+        assertEquals(List.of(10, 10), backend.batches.stream().map(Map::size).toList());
+        assertEquals(5, store.stats().get("pending"));
+    }
+
+    @Test
+    @DisplayName("バッチの件数に達しなくても、間隔ごとに書き出す")
+    void testFlushByTime() {
+        // Given
+        store = new WriteBehindUserStore(backend, config(1000, Duration.ofMillis(20)));
+
+        // When
+        store.put(1, user(1, "alone"));
+
+        // Then
+        assertTrue(await(() -> backend.get(1) != null));
+        assertEquals(user(1, "alone"), backend.get(1));
+    }
+
+    @Test
+    @DisplayName("書き出し待ちが上限に達すると、書き込みの前の待ちで空きを待ち、待ちきれなければ失敗する（バッファへの反映自体は待たない）")
+    void testBackpressure() throws Exception {
+        // Given: 書き出しを止めたままバッファを埋める
+        backend.blocked = true;
+        UserStoreProperties.WriteBehind config = config(2, Duration.ofMillis(5));
+        config.setCapacity(4);
+        config.setMaxWait(Duration.ofMillis(100));
+        store = new WriteBehindUserStore(backend, config);
+        for (int id = 1; id <= 4; id++) {
+            store.put(id, user(id, "user" + id));
+        }
+
+        // When & Then
+        long start = System.nanoTime();
+        assertThrows(UserStoreException.class, () -> store.awaitWritable());
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(100));
+        store.put(1, user(1, "coalesced"));
+        backend.release.countDown();
+        store.awaitWritable();
+        store.put(5, user(5, "accepted"));
+        store.flush();
+        assertEquals(user(1, "coalesced"), backend.get(1));
+        assertEquals(user(5, "accepted"), backend.get(5));
+        assertTrue(store.stats().get("waits").longValue() >= 1);
+    }
+
+    @Test
+    @DisplayName("UserServiceでバッファが満杯のまま待ちきれなかった作成は、メールアドレスを確保せず一覧にも現れない")
+    void testUserServiceRejectsCreateWhenFull() throws Exception {
+        // Given: 初期データの3件と作成した1件でバッファを埋める
+        backend.blocked = true;
+        UserStoreProperties.WriteBehind config = config(100, Duration.ofMillis(10));
+        config.setCapacity(4);
+        config.setMaxWait(Duration.ofMillis(200));
+        store = new WriteBehindUserStore(backend, config);
+        UserService userService = new UserService(store);
+        userService.createUser(User.builder().name("alice").email("alice@example.com").build());
+        UserListSnapshot before = userService.getListSnapshot(null);
+
+        // When
+        assertThrows(UserStoreException.class, () ->
+                userService.createUser(User.builder().name("bob").email("bob@example.com").build()));
+
+        // Then
+        assertFalse(userService.getUserByEmail("bob@example.com").isPresent());
+        assertTrue(userService.searchUsers("bob", 10).isEmpty());
+        assertSame(before, userService.getListSnapshot(null));
+        assertEquals(4, userService.getUserCount());
+        backend.release.countDown();
+        User bob = userService.createUser(User.builder().name("bob").email("bob@example.com").build());
+        assertEquals("bob", userService.getUserByEmail("bob@example.com").get().getName());
+        assertEquals(bob.getId(), userService.getAllUsers().get(4).getId());
+    }
+
+    @Test
+    @DisplayName("書き出しに失敗した変更は残り、次の書き出しで再試行する")
+    void testRetryAfterFailure() {
+        // Given
+        backend.failures = 2;
+        store = new WriteBehindUserStore(backend, config(100, Duration.ofMillis(10)));
+
+        // When
+        store.put(1, user(1, "retried"));
+
+        // Then
+        assertTrue(await(() -> backend.get(1) != null));
+        assertEquals(2L, store.stats().get("failures"));
+        assertEquals(user(1, "retried"), store.get(1));
+    }
+
+    @Test
+    @DisplayName("クローズすると書き出し待ちをすべて書き出してから格納先をクローズする")
+    void testDrainOnClose() {
+        // Given
+        store = new WriteBehindUserStore(backend, config(1000, Duration.ofMinutes(1)));
+        for (int id = 1; id <= 50; id++) {
+            store.put(id, user(id, "user" + id));
+        }
+        store.remove(50);
+
+        // When
+        store.close();
+
+        // Then
+        assertEquals(49, backend.size());
+        assertTrue(backend.closed);
+        assertThrows(UserStoreException.class, () -> store.put(51, user(51, "late")));
+        store = null;
+    }
+
+    @Test
+    @DisplayName("UserServiceでファイルストアと組み合わせると、応答済みの変更が停止時に書き出され、再起動後も残る")
+    void testUserServiceRestart() throws Exception {
+        // Given
+        UserStoreProperties properties = new UserStoreProperties();
+        properties.getStorage().setEngine(UserStoreProperties.Engine.FILE);
+        properties.getStorage().getFile().setDirectory(directory.toString());
+        properties.getWriteBehind().setEnabled(true);
+        properties.getWriteBehind().setFlushInterval(Duration.ofMinutes(1));
+        UserService userService = new UserService(properties);
+        User created = userService.createUser(User.builder().name("alice").email("alice@example.com").build());
+        userService.updateUser("1", User.builder().name("renamed").email("renamed@example.com").build());
+        userService.deleteUser("2");
+        // 初期データの3件と作成した1件が書き出し待ち（ID 1・2 への変更はまとめられる）
+        assertEquals(4, userService.getWriteBehindStats().get("pending"));
+
+        // When
+        userService.close();
+        UserService restarted = new UserService(properties);
+
+        // Then
+        assertEquals(3, restarted.getUserCount());
+        assertEquals("alice", restarted.getUserById(created.getId()).get().getName());
+        assertEquals("renamed", restarted.getUserById("1").get().getName());
+        assertFalse(restarted.getUserById("2").isPresent());
+        restarted.close();
+    }
+
+    @Test
+    @DisplayName("UserServiceでファイルストアと組み合わせると、全件を削除して再起動しても初期データを追加せず、削除したIDを採番しない")
+    void testUserServiceRestartAfterDeletingAll() throws Exception {
+        // Given
+        UserStoreProperties properties = new UserStoreProperties();
+        properties.getStorage().setEngine(UserStoreProperties.Engine.FILE);
+        properties.getStorage().getFile().setDirectory(directory.toString());
+        properties.getWriteBehind().setEnabled(true);
+        properties.getWriteBehind().setFlushInterval(Duration.ofMinutes(1));
+        UserService userService = new UserService(properties);
+        User created = userService.createUser(User.builder().name("alice").email("alice@example.com").build());
+        for (User user : userService.getAllUsers()) {
+            userService.deleteUser(user.getId());
+        }
+
+        // When
+        userService.close();
+        UserService restarted = new UserService(properties);
+
+        // Then
+        assertEquals(0, restarted.getUserCount());
+        User next = restarted.createUser(User.builder().name("bob").email("bob@example.com").build());
+        assertEquals(Long.parseLong(created.getId()) + 1, Long.parseLong(next.getId()));
+        restarted.close();
+    }
+
+    @Test
+    @DisplayName("格納方式が heap / off-heap の場合は有効にできない")
+    void testHeapNotAllowed() {
+        // Given
+        UserStoreProperties properties = new UserStoreProperties();
+        properties.getWriteBehind().setEnabled(true);
+
+        // When & Then
+        assertThrows(IllegalStateException.class, () -> new UserService(properties));
+    }
+
+    private static UserStoreProperties.WriteBehind config(int batchSize, Duration flushInterval) {
+        UserStoreProperties.WriteBehind config = new UserStoreProperties.WriteBehind();
+        config.setBatchSize(batchSize);
+        config.setFlushInterval(flushInterval);
+        return config;
+    }
+
+    private static boolean await(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                return false;
+            }
+            try {
+                Thread.sleep(5);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static User user(long id, String name) {
+        return User.builder().id(Long.toString(id)).name(name).email(name + "@example.com").build();
+    }
+
+    /**
+     * 書き出しのバッチを記録し、停止・失敗させられる格納先
+     */
+    private static class RecordingStore extends HeapUserStore {
+
+        final List<Map<Long, User>> batches = new CopyOnWriteArrayList<>();
+        final CountDownLatch release = new CountDownLatch(1);
+        volatile boolean blocked;
+        volatile int failures;
+        volatile boolean closed;
+
+        @Override
+        public void writeAll(Map<Long, User> changes) {
+            if (blocked) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            if (failures > 0) {
+                failures--;
+                throw new UserStoreException("書き込みに失敗しました");
+            }
+            batches.add(new LinkedHashMap<>(changes));
+            super.writeAll(changes);
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+}